@@ -2,6 +2,11 @@
 
 package de.sesu8642.feudaltactics;
 
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.graphics.Color;
 
@@ -20,10 +25,18 @@ public class FeudalTactics extends Game {
 	public static final Color disabledButtonIconColor = new Color(0.75F, 0.75F, 0.75F, 1);
 	public static final Color backgroundColor = new Color(0, 0.2f, 0.8f, 1);
 
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
 	private FeudalTacticsComponent component;
 
+	/** Time the game was created; for logging how long it took to start. */
+	private long createNanos;
+
+	private boolean isFirstFrameRendered = false;
+
 	@Override
 	public void create() {
+		createNanos = System.nanoTime();
 		game = this;
 
 		// Eclipse cannot resolve this. See https://stackoverflow.com/a/31669111 for
@@ -34,10 +47,40 @@ public class FeudalTactics extends Game {
 		gameInitializer.initializeGame();
 	}
 
+	@Override
+	public void render() {
+		super.render();
+		if (!isFirstFrameRendered) {
+			isFirstFrameRendered = true;
+			logStartupTime("the first frame was rendered");
+		}
+	}
+
+	/**
+	 * Logs how long it took from creating the game until now, e.g. until the
+	 * first frame the user can interact with.
+	 *
+	 * @param milestone what happened just now
+	 */
+	public void logStartupTime(String milestone) {
+		logger.info("cold start: {} {} ms after creating the game", milestone,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createNanos));
+	}
+
+	@Override
+	public void pause() {
+		// the app might be killed in the background without further notice
+		component.getAutoSaveRepository().flush();
+		component.getReplayRecorder().flush();
+		super.pause();
+	}
+
 	@Override
 	public void dispose() {
+		component.getAutoSaveRepository().flush();
+		component.getReplayRecorder().flush();
 		// shutdown executor services to kill all background threads
-		component.getBotAiExecutor().shutdownNow();
+		component.getGameLoopExecutor().shutdownNow();
 		component.getCopyButtonExecutor().shutdownNow();
 		super.dispose();
 	}
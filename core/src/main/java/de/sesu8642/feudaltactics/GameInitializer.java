@@ -4,6 +4,7 @@ package de.sesu8642.feudaltactics;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
 import java.util.logging.LogManager;
 
 import javax.inject.Inject;
@@ -23,7 +24,9 @@ import de.sesu8642.feudaltactics.events.GameResumedEvent;
 import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent;
 import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent.ScreenTransitionTarget;
 import de.sesu8642.feudaltactics.exceptions.InitializationException;
+import de.sesu8642.feudaltactics.ingame.AutoSaveMetadata;
 import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
+import de.sesu8642.feudaltactics.ingame.GameStateChangeDispatcher;
 import de.sesu8642.feudaltactics.menu.changelog.GameVersionDao;
 import de.sesu8642.feudaltactics.menu.crashreporting.CrashReportDao;
 
@@ -41,18 +44,20 @@ public class GameInitializer {
 	private CrashReportDao crashReportDao;
 	private AutoSaveRepository autoSaveRepository;
 	private ScreenNavigationController screenNavigationController;
+	private GameStateChangeDispatcher gameStateChangeDispatcher;
 	private String gameVersion;
 
 	/** Constructor. */
 	@Inject
 	public GameInitializer(EventBus eventBus, GameVersionDao gameVersionDao, CrashReportDao crashReportDao,
 			AutoSaveRepository autoSaveRepository, ScreenNavigationController screenNavigationController,
-			@VersionProperty String gameVersion) {
+			GameStateChangeDispatcher gameStateChangeDispatcher, @VersionProperty String gameVersion) {
 		this.eventBus = eventBus;
 		this.gameVersionDao = gameVersionDao;
 		this.crashReportDao = crashReportDao;
 		this.autoSaveRepository = autoSaveRepository;
 		this.screenNavigationController = screenNavigationController;
+		this.gameStateChangeDispatcher = gameStateChangeDispatcher;
 		this.gameVersion = gameVersion;
 	}
 
@@ -72,6 +77,7 @@ public class GameInitializer {
 			Gdx.input.setCatchKey(Keys.BACK, true);
 
 			eventBus.register(screenNavigationController);
+			eventBus.register(gameStateChangeDispatcher);
 
 			// show appropriate screen
 			if (crashReportDao.hasFreshCrashReport()) {
@@ -79,8 +85,10 @@ public class GameInitializer {
 				crashReportDao.markCrashReportAsNonFresh();
 				eventBus.post(new ScreenTransitionTriggerEvent(ScreenTransitionTarget.CRASH_REPORT_SCREEN_ON_STARTUP));
 			} else {
-				if (autoSaveRepository.getNoOfAutoSaves() > 0) {
+				Optional<AutoSaveMetadata> latestAutoSave = autoSaveRepository.getLatestAutoSaveMetadata();
+				if (latestAutoSave.isPresent()) {
 					// resume running game
+					logger.info("resuming the game of {}", latestAutoSave.get());
 					eventBus.post(new ScreenTransitionTriggerEvent(ScreenTransitionTarget.INGAME_SCREEN));
 					eventBus.post(new GameResumedEvent());
 					eventBus.post(new CenterMapUIEvent());
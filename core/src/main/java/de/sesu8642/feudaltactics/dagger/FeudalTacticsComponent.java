@@ -10,7 +10,9 @@ import javax.inject.Singleton;
 import dagger.Component;
 import de.sesu8642.feudaltactics.GameInitializer;
 import de.sesu8642.feudaltactics.editor.dagger.EditorDaggerModule;
+import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
 import de.sesu8642.feudaltactics.ingame.dagger.IngameDaggerModule;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
 import de.sesu8642.feudaltactics.menu.about.dagger.AboutDaggerModule;
 import de.sesu8642.feudaltactics.menu.changelog.dagger.ChangelogDaggerModule;
 import de.sesu8642.feudaltactics.menu.common.dagger.MenuDaggerModule;
@@ -31,10 +33,14 @@ public interface FeudalTacticsComponent {
 
 	GameInitializer getGameInitializer();
 
-	ExecutorService getBotAiExecutor();
+	ExecutorService getGameLoopExecutor();
 
 	ScheduledExecutorService getCopyButtonExecutor();
 
 	GameCrasher getGameCrasher();
 
+	AutoSaveRepository getAutoSaveRepository();
+
+	ReplayRecorder getReplayRecorder();
+
 }
@@ -0,0 +1,54 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+import java.util.List;
+
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+
+/** Event: A fast-forwarded game progressed. */
+public class FastForwardProgressEvent {
+
+	private int round;
+	private List<Player> players;
+	private List<Integer> landmassPercentages;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param round               round the game is in
+	 * @param players             copies of the players
+	 * @param landmassPercentages index = player index; value: percentage of the
+	 *                            kingdom tiles the player owns
+	 */
+	public FastForwardProgressEvent(int round, List<Player> players, List<Integer> landmassPercentages) {
+		this.round = round;
+		this.players = players;
+		this.landmassPercentages = landmassPercentages;
+	}
+
+	public int getRound() {
+		return round;
+	}
+
+	public void setRound(int round) {
+		this.round = round;
+	}
+
+	public List<Player> getPlayers() {
+		return players;
+	}
+
+	public void setPlayers(List<Player> players) {
+		this.players = players;
+	}
+
+	public List<Integer> getLandmassPercentages() {
+		return landmassPercentages;
+	}
+
+	public void setLandmassPercentages(List<Integer> landmassPercentages) {
+		this.landmassPercentages = landmassPercentages;
+	}
+
+}
@@ -0,0 +1,14 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+/** Event: The rest of a game without local players is to be fast-forwarded. */
+public class FastForwardStartedEvent {
+
+	/**
+	 * Constructor.
+	 */
+	public FastForwardStartedEvent() {
+	}
+
+}
@@ -0,0 +1,14 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+/** Event: Fast-forwarding is to be stopped at the current turn. */
+public class FastForwardStoppedEvent {
+
+	/**
+	 * Constructor.
+	 */
+	public FastForwardStoppedEvent() {
+	}
+
+}
@@ -9,13 +9,27 @@ public class GameStateChangeEvent {
 
 	private GameState gameState;
 
+	/** Number of actions that the active player can undo. */
+	private int noOfUndoSteps;
+
 	/**
-	 * Constructor.
+	 * Constructor for game states in which nothing can be undone.
 	 * 
 	 * @param gameState new game state
 	 */
 	public GameStateChangeEvent(GameState gameState) {
+		this(gameState, 0);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param gameState     new game state
+	 * @param noOfUndoSteps number of actions that the active player can undo
+	 */
+	public GameStateChangeEvent(GameState gameState, int noOfUndoSteps) {
 		this.gameState = gameState;
+		this.noOfUndoSteps = noOfUndoSteps;
 	}
 
 	public GameState getGameState() {
@@ -26,4 +40,12 @@ public class GameStateChangeEvent {
 		this.gameState = gameState;
 	}
 
+	public int getNoOfUndoSteps() {
+		return noOfUndoSteps;
+	}
+
+	public void setNoOfUndoSteps(int noOfUndoSteps) {
+		this.noOfUndoSteps = noOfUndoSteps;
+	}
+
 }
@@ -0,0 +1,54 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+
+/**
+ * Event: Game state changed, internal UI communication. Posted on the render
+ * thread at most once per frame for the latest {@link GameStateChangeEvent}.
+ */
+public class GameStateChangeUIEvent {
+
+	private GameState gameState;
+
+	/** Number of actions that the active player can undo. */
+	private int noOfUndoSteps;
+
+	/**
+	 * Constructor for game states in which nothing can be undone.
+	 * 
+	 * @param gameState new game state
+	 */
+	public GameStateChangeUIEvent(GameState gameState) {
+		this(gameState, 0);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param gameState     new game state
+	 * @param noOfUndoSteps number of actions that the active player can undo
+	 */
+	public GameStateChangeUIEvent(GameState gameState, int noOfUndoSteps) {
+		this.gameState = gameState;
+		this.noOfUndoSteps = noOfUndoSteps;
+	}
+
+	public GameState getGameState() {
+		return gameState;
+	}
+
+	public void setGameState(GameState gameState) {
+		this.gameState = gameState;
+	}
+
+	public int getNoOfUndoSteps() {
+		return noOfUndoSteps;
+	}
+
+	public void setNoOfUndoSteps(int noOfUndoSteps) {
+		this.noOfUndoSteps = noOfUndoSteps;
+	}
+
+}
@@ -0,0 +1,49 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+/** Event: The replay that is shown moved to another turn. */
+public class ReplayProgressEvent {
+
+	private int turn;
+	private int turnCount;
+	private boolean playing;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param turn      number of turns ended before the shown game state
+	 * @param turnCount number of turns in the replay
+	 * @param playing   whether the replay is being played
+	 */
+	public ReplayProgressEvent(int turn, int turnCount, boolean playing) {
+		this.turn = turn;
+		this.turnCount = turnCount;
+		this.playing = playing;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public void setTurn(int turn) {
+		this.turn = turn;
+	}
+
+	public int getTurnCount() {
+		return turnCount;
+	}
+
+	public void setTurnCount(int turnCount) {
+		this.turnCount = turnCount;
+	}
+
+	public boolean isPlaying() {
+		return playing;
+	}
+
+	public void setPlaying(boolean playing) {
+		this.playing = playing;
+	}
+
+}
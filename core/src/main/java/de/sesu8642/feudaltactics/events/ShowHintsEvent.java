@@ -0,0 +1,8 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+/** Event: User wants to see the moves the bot suggests for their turn. */
+public class ShowHintsEvent {
+
+}
@@ -0,0 +1,76 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame;
+
+/**
+ * Information about an autosave that is known without reading it. Immutable
+ * class.
+ */
+public class AutoSaveMetadata {
+
+	/** Value of the round and the active player if they are not known. */
+	public static final int UNKNOWN = -1;
+
+	private final long key;
+	private final long timestampMillis;
+	private final int round;
+	private final int activePlayerIndex;
+	private final int sizeBytes;
+	private final boolean keyframe;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param key               key of the autosave in the store
+	 * @param timestampMillis   time the autosave was made
+	 * @param round             round of the saved game state or {@link #UNKNOWN}
+	 *                          for autosaves of older versions
+	 * @param activePlayerIndex index of the player whose turn it is or
+	 *                          {@link #UNKNOWN} for autosaves of older versions
+	 * @param sizeBytes         size of the stored autosave
+	 * @param keyframe          whether the autosave contains a whole game state
+	 *                          and not just a move
+	 */
+	AutoSaveMetadata(long key, long timestampMillis, int round, int activePlayerIndex, int sizeBytes,
+			boolean keyframe) {
+		this.key = key;
+		this.timestampMillis = timestampMillis;
+		this.round = round;
+		this.activePlayerIndex = activePlayerIndex;
+		this.sizeBytes = sizeBytes;
+		this.keyframe = keyframe;
+	}
+
+	public long getKey() {
+		return key;
+	}
+
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	public int getRound() {
+		return round;
+	}
+
+	public int getActivePlayerIndex() {
+		return activePlayerIndex;
+	}
+
+	public int getSizeBytes() {
+		return sizeBytes;
+	}
+
+	public boolean isKeyframe() {
+		return keyframe;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"AutoSaveMetadata [key=%s, timestampMillis=%s, round=%s, activePlayerIndex=%s, sizeBytes=%s, "
+						+ "keyframe=%s]",
+				key, timestampMillis, round, activePlayerIndex, sizeBytes, keyframe);
+	}
+
+}
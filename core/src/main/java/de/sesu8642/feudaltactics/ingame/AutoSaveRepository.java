@@ -2,8 +2,17 @@
 
 package de.sesu8642.feudaltactics.ingame;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -12,126 +21,366 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.badlogic.gdx.Preferences;
-import com.badlogic.gdx.utils.Json;
-import com.badlogic.gdx.utils.JsonReader;
-import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.JsonWriter.OutputType;
 
 import de.sesu8642.feudaltactics.exceptions.SaveLoadingException;
 import de.sesu8642.feudaltactics.ingame.dagger.AutoSavePrefStore;
 import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateBinarySerializer;
 import de.sesu8642.feudaltactics.lib.gamestate.GameStateSerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.PlayerMove;
 
-/** Repository for autosaves. */
+/**
+ * Repository for autosaves. The autosaves form a journal: every entry is either
+ * a keyframe containing a whole game state or a record of a single
+ * {@link PlayerMove} that is applied to the state of the entry before it. A
+ * keyframe is written at least every {@value #KEYFRAME_INTERVAL} entries to
+ * limit the number of moves to replay when loading. The entries are kept in an
+ * {@link AutoSaveStore} which writes them in the background. The game states
+ * are serialized by the caller, so the writer only gets immutable bytes. The
+ * game states are saved in a compact binary format.
+ * Keyframes in the JSON format of older versions can still be loaded, and
+ * autosaves in the preferences where older versions kept them are moved to the
+ * store.
+ *
+ * <p>
+ * The entries are wrapped in a {@link SaveContainer} that compresses them and
+ * checks their CRC. If an entry turns out to be corrupt when loading, it is
+ * deleted together with the entries after it, which depend on it, and the
+ * autosave before it is loaded instead.
+ * </p>
+ *
+ * <p>
+ * The round and the active player of every autosave are put into the tag of
+ * its entry, which the store keeps in memory. Together with the key, which is
+ * the time of saving, and the size they form the {@link AutoSaveMetadata},
+ * which is available without reading any autosave, e.g. for deciding whether
+ * to resume a game on startup.
+ * </p>
+ */
 @Singleton
 public class AutoSaveRepository {
 
 	public static final String AUTO_SAVE_PREFERENCES_NAME = "autoSavePreferences";
 
+	public static final String AUTO_SAVE_FILE_NAME = "autoSaves.bin";
+
 	private static final int MAX_AUTOSAVES = 50;
 
+	/** Maximum number of journal entries from one keyframe to the next. */
+	static final int KEYFRAME_INTERVAL = 16;
+
+	// tags of the entries in the store
+	private static final int GAME_STATE_TAG = 1;
+	private static final int JSON_GAME_STATE_TAG = 2;
+	private static final int MOVE_TAG = 3;
+
+	// layout of the tags: type, active player, round
+	private static final int TYPE_MASK = 0xFF;
+	private static final int ACTIVE_PLAYER_SHIFT = 8;
+	private static final int MAX_ACTIVE_PLAYER_INDEX = 0x3F;
+	private static final int ROUND_SHIFT = 14;
+	/** Higher rounds are saved as this one; keeps the tags positive. */
+	private static final int MAX_ROUND = 0xFFFF;
+
+	/** First character of the autosaves in the preferences. */
+	private static final char JSON_SAVE_START = '{';
+
 	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
 
-	private Preferences prefStore;
+	private final AutoSaveStore store;
 
+	private final SaveContainer container = new SaveContainer(SaveContainer.DEFAULT_COMPRESSION_LEVEL);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param store           store for the autosaves
+	 * @param legacyPrefStore preferences older versions kept the autosaves in
+	 */
 	@Inject
-	public AutoSaveRepository(@AutoSavePrefStore Preferences prefStore) {
-		this.prefStore = prefStore;
+	public AutoSaveRepository(AutoSaveStore store, @AutoSavePrefStore Preferences legacyPrefStore) {
+		this.store = store;
+		migrateLegacyAutoSaves(legacyPrefStore);
+	}
+
+	private void migrateLegacyAutoSaves(Preferences legacyPrefStore) {
+		Map<String, ?> prefsMap = legacyPrefStore.get();
+		if (prefsMap.isEmpty()) {
+			return;
+		}
+		logger.info("moving {} autosaves from the preferences to the autosave store", prefsMap.size());
+		// the keys are the times of saving
+		SortedMap<Long, String> saveStrings = new TreeMap<>();
+		prefsMap.forEach((saveName, saveString) -> {
+			try {
+				saveStrings.put(Long.parseLong(saveName), (String) saveString);
+			} catch (NumberFormatException | ClassCastException e) {
+				logger.warn("dropping the unreadable autosave {}", saveName, e);
+			}
+		});
+		saveStrings.forEach((saveName, saveString) -> {
+			if (saveString.startsWith(String.valueOf(JSON_SAVE_START))) {
+				putInContainer(saveName, JSON_GAME_STATE_TAG, saveString.getBytes(StandardCharsets.UTF_8));
+			} else {
+				logger.warn("dropping the autosave {} which is not in the JSON format", saveName);
+			}
+		});
+		store.sync();
+		legacyPrefStore.clear();
+		legacyPrefStore.flush();
 	}
 
 	/**
-	 * Saves a game state (autosave).
-	 * 
+	 * Saves a game state as keyframe (autosave).
+	 *
 	 * @param gameState game state to save
 	 */
 	public void autoSaveGameState(GameState gameState) {
 		logger.debug("autosaving");
-		String saveString = null;
-		Json json = new Json(OutputType.json);
-		json.setSerializer(GameState.class, new GameStateSerializer());
-		saveString = json.toJson(gameState, GameState.class);
-		// using current time as key
-		prefStore.putString(String.valueOf(System.currentTimeMillis()), saveString);
-		prefStore.flush();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			new GameStateBinarySerializer().write(gameState, out);
+		} catch (IOException e) {
+			// cannot happen when writing to memory
+			throw new AssertionError(e);
+		}
+		putAutoSave(GAME_STATE_TAG, gameState, out.toByteArray());
+	}
+
+	/**
+	 * Saves a move that was just made (autosave). Only the move is written unless
+	 * a keyframe is due.
+	 *
+	 * @param move      move that was made
+	 * @param gameState game state after the move; saved if a keyframe is due
+	 */
+	public void autoSaveMove(PlayerMove move, GameState gameState) {
+		if (isKeyframeDue()) {
+			autoSaveGameState(gameState);
+			return;
+		}
+		logger.debug("autosaving {}", move);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			move.write(out);
+		} catch (IOException e) {
+			// cannot happen when writing to memory
+			throw new AssertionError(e);
+		}
+		putAutoSave(MOVE_TAG, gameState, out.toByteArray());
+	}
+
+	private void putAutoSave(int tag, GameState gameState, byte[] data) {
+		// using current time as name; must increase even if saving twice within a
+		// millisecond because the order matters
+		long saveName = Math.max(System.currentTimeMillis(), store.getLatestKey().orElse(0L) + 1);
+		int activePlayerIndex = Math.min(gameState.getPlayerTurn(), MAX_ACTIVE_PLAYER_INDEX);
+		int round = Math.min(gameState.getRound(), MAX_ROUND);
+		putInContainer(saveName, tag | activePlayerIndex << ACTIVE_PLAYER_SHIFT | round << ROUND_SHIFT, data);
 		deleteAllAutoSaveExceptLatestN(MAX_AUTOSAVES);
+		store.sync();
+	}
+
+	private void putInContainer(long saveName, int tag, byte[] data) {
+		store.put(saveName, tag, container.wrap(data));
+	}
+
+	/** Returns the tag of an entry without the metadata. */
+	private int getType(long saveName) {
+		return store.getTag(saveName) & TYPE_MASK;
+	}
+
+	/**
+	 * Reads the data of an entry, unwrapping the container.
+	 *
+	 * @throws IOException if the entry is corrupt
+	 */
+	private byte[] readData(long saveName) throws IOException {
+		return container.unwrap(store.get(saveName));
+	}
+
+	private boolean isKeyframeDue() {
+		List<Long> saveNames = store.getKeys();
+		// the new entry would be the last one before the next keyframe
+		int movesSinceKeyframe = 1;
+		for (int i = saveNames.size() - 1; i >= 0; i--) {
+			if (getType(saveNames.get(i)) != MOVE_TAG) {
+				return movesSinceKeyframe >= KEYFRAME_INTERVAL;
+			}
+			movesSinceKeyframe++;
+		}
+		// nothing to apply the move to
+		return true;
 	}
 
 	/**
-	 * Loads the last autosave.
-	 * 
+	 * Loads the last autosave by loading the newest keyframe and replaying the
+	 * moves recorded after it. If an entry is corrupt, it is deleted together with
+	 * the ones after it and the autosave before it is loaded instead.
+	 *
 	 * @return loaded game state
 	 */
 	public GameState getLatestAutoSave() {
-		if (prefStore.get().isEmpty()) {
+		List<Long> saveNames = store.getKeys();
+		if (saveNames.isEmpty()) {
 			throw new SaveLoadingException("No autosave available");
 		}
-		// cannot be empty if there is a save
-		String latestSaveName = getLatestAutoSaveName().get();
-		String loadedString = prefStore.getString(latestSaveName);
-		JsonValue loadedStateJsonValue = new JsonReader().parse(loadedString);
-		Json json = new Json();
-		json.setSerializer(GameState.class, new GameStateSerializer());
-		return json.readValue(GameState.class, loadedStateJsonValue);
+		int end = saveNames.size();
+		while (true) {
+			int keyframeIndex = end - 1;
+			while (keyframeIndex >= 0 && getType(saveNames.get(keyframeIndex)) == MOVE_TAG) {
+				keyframeIndex--;
+			}
+			if (keyframeIndex < 0) {
+				throw new SaveLoadingException("No keyframe found for the recorded moves");
+			}
+			int index = keyframeIndex;
+			try {
+				GameState result = parseKeyframe(saveNames.get(index));
+				for (index++; index < end; index++) {
+					applyMoveRecord(result, saveNames.get(index));
+				}
+				return result;
+			} catch (IOException e) {
+				logger.warn("the autosave {} is corrupt; loading the one before", saveNames.get(index), e);
+				// the entries after it cannot be replayed without it
+				saveNames.subList(index, end).forEach(store::remove);
+				store.sync();
+				end = index;
+				if (end == 0) {
+					throw new SaveLoadingException("All the autosaves are corrupt", e);
+				}
+			}
+		}
 	}
 
 	/**
 	 * Returns the last autosave as JSON string.
-	 * 
+	 *
 	 * @return loaded game state as JSON string
 	 */
 	public String getLatestAutoSaveAsString() {
-		if (prefStore.get().isEmpty()) {
+		Optional<Long> latestSaveName = store.getLatestKey();
+		if (!latestSaveName.isPresent()) {
 			throw new SaveLoadingException("No autosave available");
 		}
-		// cannot be empty if there is a save
-		String latestSaveName = getLatestAutoSaveName().get();
-		return prefStore.getString(latestSaveName);
+		if (getType(latestSaveName.get()) == JSON_GAME_STATE_TAG) {
+			try {
+				return new String(readData(latestSaveName.get()), StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				logger.warn("the latest autosave is corrupt", e);
+			}
+		}
+		return new GameStateSerializer().toJson(getLatestAutoSave());
 	}
 
 	/**
-	 * Deletes the newest autosave.
+	 * Loads a keyframe.
+	 *
+	 * @throws IOException if the entry is corrupt
 	 */
-	public void deleteLatestAutoSave() {
-		Optional<String> latestSaveNameOptional = getLatestAutoSaveName();
-		latestSaveNameOptional.ifPresent(latestSaveName -> {
-			prefStore.remove(latestSaveName);
-			prefStore.flush();
-		});
+	private GameState parseKeyframe(long saveName) throws IOException {
+		byte[] data = readData(saveName);
+		if (getType(saveName) == JSON_GAME_STATE_TAG) {
+			// saved by an older version
+			return new GameStateSerializer()
+					.read(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+		}
+		return new GameStateBinarySerializer().read(new ByteArrayInputStream(data));
 	}
 
 	/**
-	 * Determines the name (key) of the newest autosave.
+	 * Applies a recorded move to a game state.
+	 *
+	 * @throws IOException if the entry is corrupt or the move cannot be applied
 	 */
-	private Optional<String> getLatestAutoSaveName() {
-		Map<String, ?> prefsMap = prefStore.get();
-		if (prefsMap.isEmpty()) {
-			return Optional.empty();
+	private void applyMoveRecord(GameState gameState, long saveName) throws IOException {
+		PlayerMove move = PlayerMove.read(new ByteArrayInputStream(readData(saveName)));
+		try {
+			move.applyTo(gameState);
+		} catch (RuntimeException e) {
+			// a corrupt move may fail in any way, e.g. by referring to a tile without
+			// kingdom
+			throw new IOException("Cannot replay the recorded move " + move, e);
 		}
-		return prefsMap.keySet().stream().max((a, b) -> Long.parseLong(a) > Long.parseLong(b) ? 1 : -1);
 	}
 
 	/**
-	 * Deletes all autosaves except for the newest n.
-	 * 
+	 * Deletes the newest autosave.
+	 */
+	public void deleteLatestAutoSave() {
+		store.getLatestKey().ifPresent(latestSaveName -> {
+			store.remove(latestSaveName);
+			store.sync();
+		});
+	}
+
+	/**
+	 * Deletes all autosaves except for the newest n. Older ones are kept as well
+	 * if the kept moves need them to be replayed.
+	 *
 	 * @param n number of autosaves to keep.
 	 */
 	public void deleteAllAutoSaveExceptLatestN(int n) {
-		Map<String, ?> prefsMap = prefStore.get();
-		int noOfAutoSaves = prefsMap.size();
-		if (n > noOfAutoSaves) {
+		List<Long> saveNames = store.getKeys();
+		int firstKeptIndex = saveNames.size() - n;
+		if (firstKeptIndex <= 0) {
 			return;
 		}
-		// sort by age (oldest first) and remove the oldest ones
-		prefsMap.keySet().stream().sorted((a, b) -> Long.parseLong(a) > Long.parseLong(b) ? 1 : -1)
-				.limit(noOfAutoSaves - n).forEach(prefStore::remove);
-		prefStore.flush();
+		if (n > 0) {
+			// keep the keyframe the kept moves are based on
+			while (firstKeptIndex > 0 && getType(saveNames.get(firstKeptIndex)) == MOVE_TAG) {
+				firstKeptIndex--;
+			}
+		}
+		saveNames.subList(0, firstKeptIndex).forEach(store::remove);
+		store.sync();
+	}
+
+	/**
+	 * Writes all the autosaves to the disk and waits until that is done. For when
+	 * the game might be killed soon.
+	 */
+	public void flush() {
+		store.flush();
 	}
 
 	/**
 	 * Determines how many autosaves exist.
 	 */
 	public int getNoOfAutoSaves() {
-		return prefStore.get().size();
+		return store.size();
+	}
+
+	/**
+	 * Returns the metadata of all the autosaves without reading them.
+	 *
+	 * @return metadata from the oldest to the newest autosave
+	 */
+	public List<AutoSaveMetadata> getAutoSaveMetadata() {
+		return store.getKeys().stream().map(this::getMetadata).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the metadata of the newest autosave without reading it.
+	 *
+	 * @return metadata if there is an autosave
+	 */
+	public Optional<AutoSaveMetadata> getLatestAutoSaveMetadata() {
+		return store.getLatestKey().map(this::getMetadata);
+	}
+
+	private AutoSaveMetadata getMetadata(long saveName) {
+		int tag = store.getTag(saveName);
+		int round = AutoSaveMetadata.UNKNOWN;
+		int activePlayerIndex = AutoSaveMetadata.UNKNOWN;
+		if ((tag & TYPE_MASK) != JSON_GAME_STATE_TAG) {
+			round = tag >>> ROUND_SHIFT;
+			activePlayerIndex = tag >>> ACTIVE_PLAYER_SHIFT & MAX_ACTIVE_PLAYER_INDEX;
+		}
+		// the keys are the times of saving
+		return new AutoSaveMetadata(saveName, saveName, round, activePlayerIndex, store.getValueLength(saveName),
+				(tag & TYPE_MASK) != MOVE_TAG);
 	}
 
 }
@@ -0,0 +1,748 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.exceptions.SaveLoadingException;
+
+/**
+ * Storage engine for the autosaves. Entries are appended to a single segment
+ * file and deleting one only appends a marker, so nothing already written is
+ * ever rewritten. An index in memory maps the keys to the positions of their
+ * values, so reading one entry reads only its value. Opening the file reads
+ * only the headers of the records; the value of an entry is checked against
+ * its checksum when it is read for the first time.
+ *
+ * <p>
+ * The file is written by a background thread so the game does not wait for
+ * the disk. Changes are visible immediately; values that are not written yet
+ * are served from memory. The writer waits {@value #WRITE_DELAY_MS} ms before
+ * writing, then writes all the queued records at once. An entry that is
+ * deleted or replaced before it was written is never written at all, e.g. the
+ * moves of a turn that are deleted when the next turn starts. The records are
+ * written in the order of the changes, so the file always contains a prefix
+ * of the history. If writing fails, the records are put back in front of the
+ * queue and written again after a delay that grows with every failure.
+ * </p>
+ *
+ * <p>
+ * Every record has a checksum. When the file is opened, an incomplete record
+ * at the end, e.g. because the game was killed while writing it, is cut off.
+ * {@link #sync()} forces the written
+ * records to the disk at most once per {@value #SYNC_INTERVAL_MS} ms; the
+ * records written in between are forced with the next sync after the
+ * interval, so a power loss can only lose the newest entries. When most of the
+ * file consists of deleted entries, the live ones are copied to a new file
+ * that replaces the old one. Thread-safe.
+ * </p>
+ */
+public class AutoSaveStore {
+
+	private static final byte[] MAGIC = { 'F', 'T', 'A', 'S' };
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = MAGIC.length + 4;
+
+	private static final byte RECORD_PUT = 1;
+	private static final byte RECORD_DELETE = 2;
+	/** Type, key, tag and length. */
+	private static final int RECORD_HEADER_LENGTH = 1 + 8 + 4 + 4;
+	private static final int RECORD_CHECKSUM_LENGTH = 4;
+
+	static final long SYNC_INTERVAL_MS = 1000;
+
+	/** Time the writer waits for more changes before writing. */
+	static final long WRITE_DELAY_MS = 100;
+
+	/** Time the writer waits before writing again after the first failure. */
+	static final long WRITE_RETRY_DELAY_MS = 1000;
+
+	static final long MAX_WRITE_RETRY_DELAY_MS = 60 * 1000L;
+
+	/** File size below which the file is never compacted. */
+	static final long COMPACTION_MIN_FILE_LENGTH = 64 * 1024L;
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	private final File file;
+	private final File compactionFile;
+
+	private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("autosave-writer-%d").setDaemon(true).build());
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+
+	/** Length of the file up to the end of the last written record. */
+	private long fileLength = 0;
+
+	/** Key: entry key; value: position of the entry in the file. */
+	private final TreeMap<Long, Entry> index = new TreeMap<>();
+
+	/** Records to be written by the writer in this order. */
+	private final ArrayDeque<Record> queue = new ArrayDeque<>();
+
+	/** Number of records in the queue that are not cancelled. */
+	private int queueDepth = 0;
+
+	private boolean drainScheduled = false;
+	private boolean syncRequested = false;
+	private boolean unsynced = false;
+	private long lastSyncMillis = 0;
+	private int consecutiveWriteFailures = 0;
+
+	// metrics
+	private long writtenBatchCount = 0;
+	private long coalescedRecordCount = 0;
+	private long lastWriteLatencyMillis = 0;
+	private long maxWriteLatencyMillis = 0;
+	private long failedWriteCount = 0;
+
+	/** Position of an entry in the file. */
+	private static class Entry {
+
+		private final int tag;
+		private final int valueLength;
+		private long valuePosition = -1;
+
+		/** Whether the value in the file was checked against its checksum. */
+		private boolean checked = false;
+
+		/** Record that is not written yet; null once it is. */
+		private Record pendingRecord;
+
+		/** Whether an older value of the key may be in the file. */
+		private final boolean supersedesWrittenValue;
+
+		private Entry(int tag, int valueLength, boolean supersedesWrittenValue) {
+			this.tag = tag;
+			this.valueLength = valueLength;
+			this.supersedesWrittenValue = supersedesWrittenValue;
+		}
+
+		private long getRecordLength() {
+			return RECORD_HEADER_LENGTH + valueLength + RECORD_CHECKSUM_LENGTH;
+		}
+
+		private boolean isCancellable() {
+			return pendingRecord != null && !pendingRecord.writing;
+		}
+
+	}
+
+	/** Record waiting to be written. */
+	private static class Record {
+
+		private final byte[] bytes;
+		private final Entry entry;
+		private final long queuedNanos = System.nanoTime();
+		private boolean cancelled = false;
+		private boolean writing = false;
+
+		private Record(byte[] bytes, Entry entry) {
+			this.bytes = bytes;
+			this.entry = entry;
+		}
+
+	}
+
+	/**
+	 * Constructor. The file is opened when it is used first.
+	 *
+	 * @param file file to store the entries in; created if it does not exist
+	 */
+	public AutoSaveStore(File file) {
+		this.file = file;
+		compactionFile = new File(file.getPath() + ".compacting");
+	}
+
+	/**
+	 * Adds or replaces an entry. The entry is written in the background.
+	 *
+	 * @param key   key of the entry
+	 * @param tag   number describing the value; kept in memory, see
+	 *              {@link #getTag}
+	 * @param value value of the entry
+	 */
+	public synchronized void put(long key, int tag, byte[] value) {
+		ensureOpen();
+		Entry replaced = index.get(key);
+		boolean supersedesWrittenValue = false;
+		if (replaced != null) {
+			if (replaced.isCancellable()) {
+				cancel(replaced.pendingRecord);
+				supersedesWrittenValue = replaced.supersedesWrittenValue;
+			} else {
+				supersedesWrittenValue = true;
+			}
+		}
+		Entry entry = new Entry(tag, value.length, supersedesWrittenValue);
+		entry.pendingRecord = new Record(createRecord(RECORD_PUT, key, tag, value), entry);
+		index.put(key, entry);
+		enqueue(entry.pendingRecord);
+	}
+
+	/**
+	 * Returns the value of an entry.
+	 *
+	 * @param key key of the entry
+	 * @return value or null if there is no such entry
+	 * @throws IOException if the record of the entry does not match its checksum
+	 */
+	public synchronized byte[] get(long key) throws IOException {
+		ensureOpen();
+		Entry entry = index.get(key);
+		if (entry == null) {
+			return null;
+		}
+		byte[] value = new byte[entry.valueLength];
+		if (entry.pendingRecord != null) {
+			System.arraycopy(entry.pendingRecord.bytes, RECORD_HEADER_LENGTH, value, 0, value.length);
+			return value;
+		}
+		byte[] recordBytes;
+		try {
+			recordBytes = readRecord(entry);
+		} catch (IOException e) {
+			throw new SaveLoadingException("Cannot read from " + file, e);
+		}
+		if (!entry.checked) {
+			if (!hasValidChecksum(recordBytes)) {
+				throw new IOException("The record of the entry " + key + " in " + file + " is corrupt");
+			}
+			entry.checked = true;
+		}
+		System.arraycopy(recordBytes, RECORD_HEADER_LENGTH, value, 0, value.length);
+		return value;
+	}
+
+	/**
+	 * Returns the length of the value of an entry without reading the file.
+	 *
+	 * @param key key of the entry
+	 * @return length in bytes
+	 */
+	public synchronized int getValueLength(long key) {
+		ensureOpen();
+		Entry entry = index.get(key);
+		if (entry == null) {
+			throw new IllegalArgumentException("There is no entry with key " + key);
+		}
+		return entry.valueLength;
+	}
+
+	/**
+	 * Returns the tag of an entry without reading the file.
+	 *
+	 * @param key key of the entry
+	 * @return tag given when the entry was put
+	 */
+	public synchronized int getTag(long key) {
+		ensureOpen();
+		Entry entry = index.get(key);
+		if (entry == null) {
+			throw new IllegalArgumentException("There is no entry with key " + key);
+		}
+		return entry.tag;
+	}
+
+	/**
+	 * Deletes an entry if it exists.
+	 *
+	 * @param key key of the entry
+	 */
+	public synchronized void remove(long key) {
+		ensureOpen();
+		Entry removed = index.remove(key);
+		if (removed == null) {
+			return;
+		}
+		if (removed.isCancellable()) {
+			cancel(removed.pendingRecord);
+			if (!removed.supersedesWrittenValue) {
+				// nothing about this key is in the file
+				return;
+			}
+		}
+		enqueue(new Record(createRecord(RECORD_DELETE, key, 0, new byte[0]), null));
+	}
+
+	/**
+	 * Returns the keys of all the entries.
+	 *
+	 * @return keys in ascending order
+	 */
+	public synchronized List<Long> getKeys() {
+		ensureOpen();
+		return new ArrayList<>(index.keySet());
+	}
+
+	/**
+	 * Returns the highest key.
+	 *
+	 * @return highest key if there are any entries
+	 */
+	public synchronized Optional<Long> getLatestKey() {
+		ensureOpen();
+		return index.isEmpty() ? Optional.empty() : Optional.of(index.lastKey());
+	}
+
+	public synchronized int size() {
+		ensureOpen();
+		return index.size();
+	}
+
+	/**
+	 * Makes the writer force the written entries to the disk once the queued
+	 * ones are written, but at most once per {@value #SYNC_INTERVAL_MS} ms. Does
+	 * not wait for it.
+	 */
+	public synchronized void sync() {
+		if (!unsynced && queueDepth == 0) {
+			return;
+		}
+		syncRequested = true;
+		scheduleDrain(Math.max(0, lastSyncMillis + SYNC_INTERVAL_MS - System.currentTimeMillis()));
+	}
+
+	/**
+	 * Writes all the queued entries, forces them to the disk and waits until that
+	 * is done. For when the game might be killed soon. If writing fails, the
+	 * entries stay queued; see {@link #getQueueDepth()}.
+	 */
+	public void flush() {
+		synchronized (this) {
+			if (channel == null) {
+				return;
+			}
+		}
+		Future<?> done = writer.submit(() -> drain(true));
+		try {
+			done.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Cannot write to " + file, e.getCause());
+		}
+	}
+
+	/**
+	 * Writes and forces all the entries to the disk, closes the file and stops the
+	 * writer. The store cannot be used anymore afterwards.
+	 */
+	public void close() {
+		flush();
+		synchronized (this) {
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (IOException e) {
+					logger.warn("cannot close {}", file, e);
+				}
+			}
+			raf = null;
+			channel = null;
+			index.clear();
+		}
+		writer.shutdown();
+	}
+
+	/** Number of records waiting to be written. */
+	public synchronized int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/** Number of records that were never written because they became obsolete. */
+	public synchronized long getCoalescedRecordCount() {
+		return coalescedRecordCount;
+	}
+
+	public synchronized long getWrittenBatchCount() {
+		return writtenBatchCount;
+	}
+
+	/** Time from queueing to writing the oldest record of the last batch. */
+	public synchronized long getLastWriteLatencyMillis() {
+		return lastWriteLatencyMillis;
+	}
+
+	public synchronized long getMaxWriteLatencyMillis() {
+		return maxWriteLatencyMillis;
+	}
+
+	/** Number of batches that could not be written and were queued again. */
+	public synchronized long getFailedWriteCount() {
+		return failedWriteCount;
+	}
+
+	private void enqueue(Record queuedRecord) {
+		queue.add(queuedRecord);
+		queueDepth++;
+		scheduleDrain(WRITE_DELAY_MS);
+	}
+
+	private void cancel(Record queuedRecord) {
+		queuedRecord.cancelled = true;
+		queueDepth--;
+		coalescedRecordCount++;
+	}
+
+	private void scheduleDrain(long delayMillis) {
+		if (drainScheduled) {
+			return;
+		}
+		drainScheduled = true;
+		writer.schedule(() -> drain(false), delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Writes the queued records in one batch and syncs if that was requested. Runs
+	 * on the writer thread only, so nothing else writes to the file meanwhile.
+	 *
+	 * @param forceSync whether to sync regardless of the interval
+	 */
+	private void drain(boolean forceSync) {
+		List<Record> batch = new ArrayList<>();
+		FileChannel targetChannel;
+		long batchPosition;
+		synchronized (this) {
+			drainScheduled = false;
+			if (channel == null) {
+				return;
+			}
+			for (Record queuedRecord : queue) {
+				if (!queuedRecord.cancelled) {
+					queuedRecord.writing = true;
+					batch.add(queuedRecord);
+				}
+			}
+			queue.clear();
+			queueDepth = 0;
+			targetChannel = channel;
+			batchPosition = fileLength;
+		}
+		if (!batch.isEmpty()) {
+			writeBatch(batch, targetChannel, batchPosition);
+		}
+		boolean syncDue;
+		synchronized (this) {
+			long syncDelay = lastSyncMillis + SYNC_INTERVAL_MS - System.currentTimeMillis();
+			syncDue = unsynced && (forceSync || syncRequested && syncDelay <= 0);
+			if (unsynced && syncRequested && !syncDue) {
+				scheduleDrain(syncDelay);
+			}
+		}
+		if (syncDue) {
+			forceSync(targetChannel);
+		}
+		synchronized (this) {
+			compactIfWorthIt();
+		}
+	}
+
+	private void writeBatch(List<Record> batch, FileChannel targetChannel, long batchPosition) {
+		int batchLength = 0;
+		for (Record queuedRecord : batch) {
+			batchLength += queuedRecord.bytes.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(batchLength);
+		for (Record queuedRecord : batch) {
+			buffer.put(queuedRecord.bytes);
+		}
+		buffer.flip();
+		try {
+			write(targetChannel, buffer, batchPosition);
+		} catch (IOException e) {
+			// the values stay in memory; whatever was written partially is overwritten
+			// when retrying
+			logger.error("cannot write {} autosave records to {}; retrying later", batch.size(), file, e);
+			requeue(batch);
+			return;
+		}
+		long now = System.nanoTime();
+		synchronized (this) {
+			consecutiveWriteFailures = 0;
+			long recordPosition = batchPosition;
+			for (Record queuedRecord : batch) {
+				if (queuedRecord.entry != null) {
+					queuedRecord.entry.valuePosition = recordPosition + RECORD_HEADER_LENGTH;
+					queuedRecord.entry.pendingRecord = null;
+				}
+				recordPosition += queuedRecord.bytes.length;
+			}
+			fileLength = recordPosition;
+			unsynced = true;
+			writtenBatchCount++;
+			lastWriteLatencyMillis = TimeUnit.NANOSECONDS.toMillis(now - batch.get(0).queuedNanos);
+			maxWriteLatencyMillis = Math.max(maxWriteLatencyMillis, lastWriteLatencyMillis);
+			logger.debug("wrote {} autosave records ({} bytes) in {} ms; {} were coalesced so far", batch.size(),
+					batchLength, lastWriteLatencyMillis, coalescedRecordCount);
+		}
+	}
+
+	/**
+	 * Writes bytes to the file. Protected so that tests can simulate failing
+	 * writes.
+	 *
+	 * @param targetChannel channel of the file
+	 * @param buffer        bytes to write
+	 * @param position      position in the file to write the bytes to
+	 * @throws IOException if writing fails
+	 */
+	protected void write(FileChannel targetChannel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			targetChannel.write(buffer, position + buffer.position());
+		}
+	}
+
+	/** Puts the records of a batch that could not be written back in front of the queue. */
+	private synchronized void requeue(List<Record> batch) {
+		for (int i = batch.size() - 1; i >= 0; i--) {
+			Record queuedRecord = batch.get(i);
+			// may be replaced before the next attempt again
+			queuedRecord.writing = false;
+			queue.addFirst(queuedRecord);
+		}
+		queueDepth += batch.size();
+		failedWriteCount++;
+		long retryDelay = Math.min(WRITE_RETRY_DELAY_MS << Math.min(consecutiveWriteFailures, 16),
+				MAX_WRITE_RETRY_DELAY_MS);
+		consecutiveWriteFailures++;
+		scheduleDrain(retryDelay);
+	}
+
+	private void forceSync(FileChannel targetChannel) {
+		synchronized (this) {
+			unsynced = false;
+			syncRequested = false;
+		}
+		try {
+			targetChannel.force(false);
+		} catch (IOException e) {
+			logger.error("cannot sync {}", file, e);
+		}
+		synchronized (this) {
+			lastSyncMillis = System.currentTimeMillis();
+		}
+	}
+
+	private void ensureOpen() {
+		if (raf != null) {
+			return;
+		}
+		if (!file.exists() && compactionFile.exists()) {
+			// the game was killed after deleting the old file while compacting
+			compactionFile.renameTo(file);
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		index.clear();
+		try {
+			raf = new RandomAccessFile(file, "rw");
+			channel = raf.getChannel();
+			if (!hasValidHeader()) {
+				if (raf.length() > 0) {
+					logger.error("{} is not a valid autosave file; starting over", file);
+				}
+				raf.setLength(0);
+				raf.write(MAGIC);
+				raf.writeInt(VERSION);
+				raf.getFD().sync();
+			} else {
+				readIndex();
+			}
+			fileLength = raf.length();
+		} catch (IOException e) {
+			raf = null;
+			channel = null;
+			index.clear();
+			throw new SaveLoadingException("Cannot open " + file, e);
+		}
+	}
+
+	private boolean hasValidHeader() throws IOException {
+		if (raf.length() < HEADER_LENGTH) {
+			return false;
+		}
+		byte[] header = new byte[HEADER_LENGTH];
+		raf.seek(0);
+		raf.readFully(header);
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (header[i] != MAGIC[i]) {
+				return false;
+			}
+		}
+		return ByteBuffer.wrap(header, MAGIC.length, 4).getInt() == VERSION;
+	}
+
+	private void readIndex() throws IOException {
+		long length = raf.length();
+		long position = HEADER_LENGTH;
+		CRC32 crc = new CRC32();
+		byte[] header = new byte[RECORD_HEADER_LENGTH];
+		while (position < length) {
+			raf.seek(position);
+			if (length - position < RECORD_HEADER_LENGTH + RECORD_CHECKSUM_LENGTH) {
+				truncateIncompleteRecord(position);
+				return;
+			}
+			raf.readFully(header);
+			ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+			byte type = headerBuffer.get();
+			long key = headerBuffer.getLong();
+			int tag = headerBuffer.getInt();
+			int valueLength = headerBuffer.getInt();
+			if (type != RECORD_PUT && type != RECORD_DELETE || valueLength < 0
+					|| valueLength > length - position - RECORD_HEADER_LENGTH - RECORD_CHECKSUM_LENGTH) {
+				truncateIncompleteRecord(position);
+				return;
+			}
+			Entry entry = new Entry(tag, valueLength, false);
+			entry.valuePosition = position + RECORD_HEADER_LENGTH;
+			if (type == RECORD_PUT) {
+				// the value is checked when it is read
+				index.put(key, entry);
+			} else {
+				// a deletion has no value, so checking it is cheap; a wrong one would
+				// delete an entry that is still needed
+				crc.reset();
+				crc.update(header, 0, RECORD_HEADER_LENGTH);
+				if (raf.readInt() != (int) crc.getValue()) {
+					truncateIncompleteRecord(position);
+					return;
+				}
+				index.remove(key);
+			}
+			position += entry.getRecordLength();
+		}
+	}
+
+	private void truncateIncompleteRecord(long position) throws IOException {
+		logger.warn("discarding the incomplete record at position {} of {}", position, file);
+		raf.setLength(position);
+		raf.getFD().sync();
+	}
+
+	private static byte[] createRecord(byte type, long key, int tag, byte[] value) {
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_LENGTH + value.length + RECORD_CHECKSUM_LENGTH);
+		buffer.put(type);
+		buffer.putLong(key);
+		buffer.putInt(tag);
+		buffer.putInt(value.length);
+		buffer.put(value);
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+		return buffer.array();
+	}
+
+	/** Reads the whole record of a written entry including its checksum. */
+	private byte[] readRecord(Entry entry) throws IOException {
+		byte[] recordBytes = new byte[(int) entry.getRecordLength()];
+		readFully(channel, recordBytes, entry.valuePosition - RECORD_HEADER_LENGTH);
+		return recordBytes;
+	}
+
+	private static boolean hasValidChecksum(byte[] recordBytes) {
+		int checksumPosition = recordBytes.length - RECORD_CHECKSUM_LENGTH;
+		CRC32 crc = new CRC32();
+		crc.update(recordBytes, 0, checksumPosition);
+		return ByteBuffer.wrap(recordBytes, checksumPosition, RECORD_CHECKSUM_LENGTH).getInt() == (int) crc.getValue();
+	}
+
+	private static void readFully(FileChannel source, byte[] target, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(target);
+		while (buffer.hasRemaining()) {
+			if (source.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	/**
+	 * Copies the live entries to a new file that replaces the current one if most
+	 * of the file consists of deleted entries. Runs on the writer thread between
+	 * batches. Entries that are not written yet are written to the new file with
+	 * the next batch. The records are copied as they are, so one that is corrupt
+	 * still fails its checksum when it is read.
+	 */
+	private void compactIfWorthIt() {
+		if (channel == null || fileLength < COMPACTION_MIN_FILE_LENGTH) {
+			return;
+		}
+		long liveLength = 0;
+		for (Entry entry : index.values()) {
+			if (entry.pendingRecord == null) {
+				liveLength += entry.getRecordLength();
+			}
+		}
+		if (fileLength - HEADER_LENGTH <= 2 * liveLength) {
+			return;
+		}
+		logger.debug("compacting {}: {} of {} bytes are used", file, liveLength, fileLength);
+		try {
+			compact();
+		} catch (IOException e) {
+			logger.error("cannot compact {}", file, e);
+		}
+	}
+
+	private void compact() throws IOException {
+		Map<Entry, Long> newValuePositions = new HashMap<>();
+		long compactedLength;
+		try (RandomAccessFile compacted = new RandomAccessFile(compactionFile, "rw")) {
+			compacted.setLength(0);
+			compacted.write(MAGIC);
+			compacted.writeInt(VERSION);
+			for (Entry entry : index.values()) {
+				if (entry.pendingRecord != null) {
+					continue;
+				}
+				long recordPosition = compacted.getFilePointer();
+				compacted.write(readRecord(entry));
+				newValuePositions.put(entry, recordPosition + RECORD_HEADER_LENGTH);
+			}
+			compacted.getFD().sync();
+			compactedLength = compacted.length();
+		}
+		raf.close();
+		raf = null;
+		channel = null;
+		// renaming does not replace existing files on every platform
+		if (!file.delete() || !compactionFile.renameTo(file)) {
+			throw new IOException("Cannot replace " + file + " with " + compactionFile);
+		}
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		fileLength = compactedLength;
+		newValuePositions.forEach((entry, valuePosition) -> entry.valuePosition = valuePosition);
+		unsynced = false;
+		lastSyncMillis = System.currentTimeMillis();
+	}
+
+}
@@ -0,0 +1,111 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.GameStateChangeUIEvent;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+
+/**
+ * Forwards the game states published with {@link GameStateChangeEvent}s to the
+ * UI as {@link GameStateChangeUIEvent}s on the render thread. Game states that
+ * are published before the previous one was delivered replace it, so the map
+ * and the HUD are updated at most once per frame no matter how fast e.g. a bot
+ * moves.
+ */
+public class GameStateChangeDispatcher {
+
+	private final EventBus eventBus;
+	private final Executor renderThreadExecutor;
+
+	/** Change waiting to be delivered; null if there is none. */
+	private final AtomicReference<GameStateChangeEvent> pendingChange = new AtomicReference<>();
+
+	private volatile GameState latestGameState;
+
+	/** Game state that was delivered to the UI last. */
+	private volatile GameState deliveredGameState;
+
+	// counters for checking how well the changes are coalesced
+	private final AtomicLong postedCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong deliveredCount = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param eventBus             event bus
+	 * @param renderThreadExecutor executor that runs things on the render thread
+	 *                             before the next frame
+	 */
+	public GameStateChangeDispatcher(EventBus eventBus, Executor renderThreadExecutor) {
+		this.eventBus = eventBus;
+		this.renderThreadExecutor = renderThreadExecutor;
+	}
+
+	/**
+	 * Event handler for gameState change.
+	 * 
+	 * @param event event to handle
+	 */
+	@Subscribe
+	public void handleGameStateChange(GameStateChangeEvent event) {
+		postedCount.incrementAndGet();
+		latestGameState = event.getGameState();
+		if (pendingChange.getAndSet(event) == null) {
+			renderThreadExecutor.execute(this::deliver);
+		} else {
+			// the delivery that is scheduled already takes this one instead
+			coalescedCount.incrementAndGet();
+		}
+	}
+
+	private void deliver() {
+		GameStateChangeEvent change = pendingChange.getAndSet(null);
+		if (change != null) {
+			deliveredCount.incrementAndGet();
+			deliveredGameState = change.getGameState();
+			eventBus.post(new GameStateChangeUIEvent(change.getGameState(), change.getNoOfUndoSteps()));
+		}
+	}
+
+	/**
+	 * Returns the game state that was published last, even if it was not delivered
+	 * yet.
+	 * 
+	 * @return latest game state or null if there was none
+	 */
+	public GameState getLatestGameState() {
+		return latestGameState;
+	}
+
+	/**
+	 * Returns the game state that was delivered to the UI last, i.e. the one the
+	 * player sees.
+	 * 
+	 * @return delivered game state or null if there was none
+	 */
+	public GameState getDeliveredGameState() {
+		return deliveredGameState;
+	}
+
+	public long getPostedCount() {
+		return postedCount.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getDeliveredCount() {
+		return deliveredCount.get();
+	}
+
+}
@@ -2,43 +2,67 @@
 
 package de.sesu8642.feudaltactics.ingame;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
 import javax.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.badlogic.gdx.math.Vector2;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import de.sesu8642.feudaltactics.events.CenterMapEvent;
-import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.GameStateChangeUIEvent;
+import de.sesu8642.feudaltactics.events.ShowHintsEvent;
 import de.sesu8642.feudaltactics.ingame.dagger.IngameRenderer;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+import de.sesu8642.feudaltactics.lib.ingame.botai.KingdomHint;
 import de.sesu8642.feudaltactics.renderer.MapRenderer;
 
 /** Handles events that affect rendering. */
 public class IngameRendererEventHandler {
 
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
 	MapRenderer mapRenderer;
+	private GameController gameController;
+
+	/** Game state that is rendered; published game states are never changed. */
+	private GameState shownGameState;
 
 	/**
 	 * Constructor.
-	 * 
-	 * @param mapRenderer map renderer
+	 *
+	 * @param mapRenderer    map renderer
+	 * @param gameController game controller
 	 */
 	@Inject
-	public IngameRendererEventHandler(@IngameRenderer MapRenderer mapRenderer) {
+	public IngameRendererEventHandler(@IngameRenderer MapRenderer mapRenderer, GameController gameController) {
 		this.mapRenderer = mapRenderer;
+		this.gameController = gameController;
 	}
 
 	/**
-	 * Event handler for gameState change.
-	 * 
+	 * Event handler for gameState change. Hints that are shown are outdated then.
+	 *
 	 * @param event event to handle
 	 */
 	@Subscribe
-	public void handleGameStateChange(GameStateChangeEvent event) {
-		mapRenderer.updateMap(event.getGameState());
+	public synchronized void handleGameStateChange(GameStateChangeUIEvent event) {
+		shownGameState = event.getGameState();
+		mapRenderer.updateMap(shownGameState);
 	}
 
 	/**
 	 * Event handler for map centering.
-	 * 
+	 *
 	 * @param event event to handle
 	 */
 	@Subscribe
@@ -47,4 +71,45 @@ public class IngameRendererEventHandler {
 				event.getMarginRightPx(), event.getMarginTopPx());
 	}
 
+	/**
+	 * Event handler for showing hints. They are outlined on the map once they are
+	 * calculated unless the game state changed by then.
+	 *
+	 * @param event event to handle
+	 */
+	@Subscribe
+	public synchronized void handleShowHints(ShowHintsEvent event) {
+		GameState hintedGameState = shownGameState;
+		if (hintedGameState == null || hintedGameState.getActivePlayer().isDefeated()) {
+			return;
+		}
+		Futures.addCallback(gameController.getHints(), new FutureCallback<List<KingdomHint>>() {
+			@Override
+			public void onSuccess(List<KingdomHint> hints) {
+				showHints(hintedGameState, hints);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				// cancelled if the game state changed
+				if (!(t instanceof CancellationException)) {
+					logger.error("calculating the hints failed", t);
+				}
+			}
+		}, MoreExecutors.directExecutor());
+	}
+
+	private synchronized void showHints(GameState hintedGameState, List<KingdomHint> hints) {
+		if (hintedGameState != shownGameState) {
+			return;
+		}
+		List<Vector2> hintedPositions = new ArrayList<>();
+		for (KingdomHint hint : hints) {
+			hintedPositions.addAll(hint.getConquestPositions());
+			hintedPositions.addAll(hint.getPlacements().keySet());
+		}
+		logger.debug("showing {} hints", hints.size());
+		mapRenderer.updateMap(hintedGameState, hintedPositions);
+	}
+
 }
@@ -31,7 +31,11 @@ import de.sesu8642.feudaltactics.lib.gamestate.Player;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit;
 import de.sesu8642.feudaltactics.lib.ingame.GameController;
 
-/** Handles inputs of a local player in-game. **/
+/**
+ * Handles inputs of a local player in-game. The inputs are validated and
+ * applied in the game loop of the {@link GameController} unless the turn in
+ * which they were made is over by then.
+ */
 @Singleton
 public class LocalIngameInputHandler {
 
@@ -40,17 +44,20 @@ public class LocalIngameInputHandler {
 	}
 
 	private GameController gameController;
-	private AutoSaveRepository autoSaveRepo;
+	private GameStateChangeDispatcher gameStateChangeDispatcher;
 
 	/**
 	 * Constructor.
 	 * 
-	 * @param gameController game controller
+	 * @param gameController            game controller
+	 * @param gameStateChangeDispatcher dispatcher that knows the game state shown
+	 *                                  to the player
 	 */
 	@Inject
-	public LocalIngameInputHandler(GameController gameController, AutoSaveRepository autoSaveRepo) {
+	public LocalIngameInputHandler(GameController gameController,
+			GameStateChangeDispatcher gameStateChangeDispatcher) {
 		this.gameController = gameController;
-		this.autoSaveRepo = autoSaveRepo;
+		this.gameStateChangeDispatcher = gameStateChangeDispatcher;
 	}
 
 	/**
@@ -60,14 +67,16 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleBackInput(BackInputEvent event) {
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		if (InputValidationHelper.checkUndoAction(gameController.getGameState(), playerOptional.get(),
-				autoSaveRepo.getNoOfAutoSaves())) {
-			gameController.undoLastAction();
-		}
+		runInput(() -> {
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
+			}
+			if (InputValidationHelper.checkUndoAction(gameController.getGameState(), playerOptional.get(),
+					gameController.getNoOfUndoSteps())) {
+				gameController.undoLastAction();
+			}
+		});
 	}
 
 	/**
@@ -77,53 +86,56 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleTapInput(TapInputEvent event) {
-		Vector2 hexCoords = HexMapHelper.worldCoordsToHexCoords(event.getWorldCoords());
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		Player player = playerOptional.get();
-		Map<Vector2, HexTile> map = gameController.getGameState().getMap();
-		HexTile tile = map.get(hexCoords);
-		// print info
-		gameController.printTileInfo(hexCoords);
-		if (InputValidationHelper.checkChangeActiveKingdom(gameController.getGameState(), player, tile)) {
-			// activate kingdom
-			gameController.activateKingdom(tile.getKingdom());
-		}
-		TapAction action = determineTapAction(player, tile, event.getCount());
-		switch (action) {
-		case PICK_UP:
-			if (InputValidationHelper.checkPickupObject(gameController.getGameState(), player, tile)) {
-				gameController.pickupObject(tile);
+		runInput(() -> {
+			Vector2 hexCoords = HexMapHelper.worldCoordsToHexCoords(event.getWorldCoords());
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
 			}
-			break;
-		case PLACE_OWN:
-			if (InputValidationHelper.checkPlaceOwn(gameController.getGameState(), player, tile)) {
-				gameController.placeOwn(tile);
-			}
-			break;
-		case COMBINE_UNITS:
-			if (InputValidationHelper.checkCombineUnits(gameController.getGameState(), player, tile)) {
-				gameController.combineUnits(tile);
-			}
-			break;
-		case CONQUER:
-			if (InputValidationHelper.checkConquer(gameController.getGameState(), player, tile)) {
-				gameController.conquer(tile);
+			Player player = playerOptional.get();
+			Map<Vector2, HexTile> map = gameController.getGameState().getMap();
+			HexTile tile = map.get(hexCoords);
+			// print info
+			gameController.printTileInfo(hexCoords);
+			if (InputValidationHelper.checkChangeActiveKingdom(gameController.getGameState(), player, tile)) {
+				// activate kingdom
+				gameController.activateKingdom(tile.getKingdom());
 			}
-			break;
-		case BUY_AND_PLACE_PEASANT:
-			if (InputValidationHelper.checkBuyAndPlaceUnitInstantly(gameController.getGameState(), playerOptional.get(),
-					tile)) {
-				gameController.buyPeasant();
-				gameController.placeOwn(tile);
+			TapAction action = determineTapAction(player, tile, event.getCount());
+			switch (action) {
+			case PICK_UP:
+				if (InputValidationHelper.checkPickupObject(gameController.getGameState(), player, tile)) {
+					gameController.pickupObject(tile);
+				}
+				break;
+			case PLACE_OWN:
+				if (InputValidationHelper.checkPlaceOwn(gameController.getGameState(), player, tile)) {
+					gameController.placeOwn(tile);
+				}
+				break;
+			case COMBINE_UNITS:
+				if (InputValidationHelper.checkCombineUnits(gameController.getGameState(), player, tile)) {
+					gameController.combineUnits(tile);
+				}
+				break;
+			case CONQUER:
+				if (InputValidationHelper.checkConquer(gameController.getGameState(), player, tile)) {
+					gameController.conquer(tile);
+				}
+				break;
+			case BUY_AND_PLACE_PEASANT:
+				if (InputValidationHelper.checkBuyAndPlaceUnitInstantly(gameController.getGameState(),
+						playerOptional.get(), tile)) {
+					gameController.buyPeasant();
+					gameController.placeOwn(tile);
+				}
+				break;
+			case NONE:
+				break;
+			default:
+				throw new IllegalStateException("Unknown action " + action);
 			}
-		case NONE:
-			break;
-		default:
-			throw new IllegalStateException("Unknown action " + action);
-		}
+		});
 	}
 
 	/**
@@ -143,14 +155,16 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleUndoMove(UndoMoveEvent event) {
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		if (InputValidationHelper.checkUndoAction(gameController.getGameState(), playerOptional.get(),
-				autoSaveRepo.getNoOfAutoSaves())) {
-			gameController.undoLastAction();
-		}
+		runInput(() -> {
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
+			}
+			if (InputValidationHelper.checkUndoAction(gameController.getGameState(), playerOptional.get(),
+					gameController.getNoOfUndoSteps())) {
+				gameController.undoLastAction();
+			}
+		});
 	}
 
 	/**
@@ -160,13 +174,15 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleBuyPeasant(BuyPeasantEvent event) {
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		if (InputValidationHelper.checkBuyObject(gameController.getGameState(), playerOptional.get(), Unit.class)) {
-			gameController.buyPeasant();
-		}
+		runInput(() -> {
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
+			}
+			if (InputValidationHelper.checkBuyObject(gameController.getGameState(), playerOptional.get(), Unit.class)) {
+				gameController.buyPeasant();
+			}
+		});
 	}
 
 	/**
@@ -176,13 +192,16 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleBuyCastle(BuyCastleEvent event) {
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		if (InputValidationHelper.checkBuyObject(gameController.getGameState(), playerOptional.get(), Castle.class)) {
-			gameController.buyCastle();
-		}
+		runInput(() -> {
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
+			}
+			if (InputValidationHelper.checkBuyObject(gameController.getGameState(), playerOptional.get(),
+					Castle.class)) {
+				gameController.buyCastle();
+			}
+		});
 	}
 
 	/**
@@ -192,18 +211,20 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleBuyAndPlaceCastle(BuyAndPlaceCastleEvent event) {
-		Vector2 hexCoords = HexMapHelper.worldCoordsToHexCoords(event.getWorldCoords());
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		Map<Vector2, HexTile> map = gameController.getGameState().getMap();
-		HexTile tile = map.get(hexCoords);
-		if (InputValidationHelper.checkBuyAndPlaceCastleInstantly(gameController.getGameState(), playerOptional.get(),
-				tile)) {
-			gameController.buyCastle();
-			gameController.placeOwn(tile);
-		}
+		runInput(() -> {
+			Vector2 hexCoords = HexMapHelper.worldCoordsToHexCoords(event.getWorldCoords());
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
+			}
+			Map<Vector2, HexTile> map = gameController.getGameState().getMap();
+			HexTile tile = map.get(hexCoords);
+			if (InputValidationHelper.checkBuyAndPlaceCastleInstantly(gameController.getGameState(),
+					playerOptional.get(), tile)) {
+				gameController.buyCastle();
+				gameController.placeOwn(tile);
+			}
+		});
 	}
 
 	/**
@@ -213,13 +234,15 @@ public class LocalIngameInputHandler {
 	 */
 	@Subscribe
 	public void handleEndTurn(EndTurnEvent event) {
-		Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
-		if (!playerOptional.isPresent()) {
-			return;
-		}
-		if (InputValidationHelper.checkEndTurn(gameController.getGameState(), playerOptional.get())) {
-			gameController.endTurn();
-		}
+		runInput(() -> {
+			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(gameController.getGameState());
+			if (!playerOptional.isPresent()) {
+				return;
+			}
+			if (InputValidationHelper.checkEndTurn(gameController.getGameState(), playerOptional.get())) {
+				gameController.endTurn();
+			}
+		});
 	}
 
 	/**
@@ -232,6 +255,11 @@ public class LocalIngameInputHandler {
 		gameController.startGame();
 	}
 
+	/** Runs an input unless the turn it was made in is over. */
+	private void runInput(Runnable input) {
+		gameController.runInputInGameLoop(gameStateChangeDispatcher.getDeliveredGameState(), input);
+	}
+
 	private TapAction determineTapAction(Player player, HexTile tile, int count) {
 		if (tile == null) {
 			return TapAction.NONE;
@@ -0,0 +1,210 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.ReplayProgressEvent;
+import de.sesu8642.feudaltactics.exceptions.SaveLoadingException;
+import de.sesu8642.feudaltactics.ingame.dagger.IngameRenderer;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayPlayer;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
+import de.sesu8642.feudaltactics.renderer.MapRenderer;
+
+/**
+ * Shows the replay of the last game on the map using a {@link ReplayPlayer}.
+ * Loading and seeking replay the bot turns, so they are done by a background
+ * thread. The played game states are not published like the ones of a running
+ * game, so the game UI does not react to them. A {@link ReplayProgressEvent}
+ * is posted whenever another turn is shown.
+ */
+@Singleton
+public class ReplayViewer {
+
+	/** Time between two turns for every playback speed from slow to fast. */
+	static final long[] TURN_INTERVALS_MS = { 1000, 250, 50 };
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	private final ReplayRecorder replayRecorder;
+	private final MapRenderer mapRenderer;
+	private final EventBus eventBus;
+
+	/** Receives the game states of the player instead of the game UI. */
+	private final EventBus playbackEventBus = new EventBus();
+
+	private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("replay-viewer-%d").setDaemon(true).build()));
+
+	/** Player of the shown replay; null if none is shown. */
+	private ReplayPlayer replayPlayer;
+
+	private int speedIndex = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param replayRecorder recorder that wrote the replays
+	 * @param mapRenderer    renderer to show the replay with
+	 * @param eventBus       event bus to post the progress to
+	 */
+	@Inject
+	public ReplayViewer(ReplayRecorder replayRecorder, @IngameRenderer MapRenderer mapRenderer, EventBus eventBus) {
+		this.replayRecorder = replayRecorder;
+		this.mapRenderer = mapRenderer;
+		this.eventBus = eventBus;
+		playbackEventBus.register(this);
+	}
+
+	/**
+	 * Shows the first turn of the newest replay at the slowest speed.
+	 *
+	 * @return future that fails if there is no readable replay
+	 */
+	public ListenableFuture<?> openLatestReplay() {
+		return executor.submit(() -> {
+			// the last records might not be written yet
+			replayRecorder.flush();
+			List<File> replayFiles = replayRecorder.getReplayFiles();
+			if (replayFiles.isEmpty()) {
+				throw new SaveLoadingException("There is no replay to show.");
+			}
+			File file = replayFiles.get(replayFiles.size() - 1);
+			Replay replay;
+			try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+				replay = Replay.read(in);
+			}
+			logger.info("showing the replay {} with {} turns", file, replay.getTurnCount());
+			ReplayPlayer newReplayPlayer = new ReplayPlayer(replay);
+			synchronized (this) {
+				if (replayPlayer != null) {
+					replayPlayer.close();
+				}
+				replayPlayer = newReplayPlayer;
+				speedIndex = 0;
+				show(newReplayPlayer);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Jumps to the beginning of a turn and stops playing.
+	 *
+	 * @param turn number of turns ended before
+	 */
+	public void seekToTurn(int turn) {
+		executor.execute(() -> {
+			synchronized (this) {
+				if (replayPlayer == null) {
+					return;
+				}
+				replayPlayer.stop();
+				replayPlayer.seekToTurn(Math.max(0, Math.min(turn, replayPlayer.getReplay().getTurnCount())));
+				show(replayPlayer);
+			}
+		});
+	}
+
+	/** Starts playing the replay or stops it if it is being played already. */
+	public void togglePlaying() {
+		executor.execute(() -> {
+			synchronized (this) {
+				if (replayPlayer == null) {
+					return;
+				}
+				if (replayPlayer.isPlaying()) {
+					replayPlayer.stop();
+					show(replayPlayer);
+					return;
+				}
+				if (replayPlayer.getCurrentTurn() >= replayPlayer.getReplay().getTurnCount()) {
+					// start over
+					replayPlayer.seekToTurn(0);
+				}
+				replayPlayer.play(playbackEventBus, TURN_INTERVALS_MS[speedIndex]);
+			}
+		});
+	}
+
+	/**
+	 * Switches to the next faster playback speed or back to the slowest one.
+	 *
+	 * @return how many times faster than the slowest speed the new one is
+	 */
+	public synchronized long changeSpeed() {
+		speedIndex = (speedIndex + 1) % TURN_INTERVALS_MS.length;
+		if (replayPlayer != null && replayPlayer.isPlaying()) {
+			ReplayPlayer playingReplayPlayer = replayPlayer;
+			executor.execute(() -> {
+				synchronized (this) {
+					if (replayPlayer == playingReplayPlayer && playingReplayPlayer.isPlaying()) {
+						playingReplayPlayer.play(playbackEventBus, TURN_INTERVALS_MS[speedIndex]);
+					}
+				}
+			});
+		}
+		return TURN_INTERVALS_MS[0] / TURN_INTERVALS_MS[speedIndex];
+	}
+
+	/** Stops showing the replay. */
+	public synchronized void close() {
+		if (replayPlayer != null) {
+			replayPlayer.close();
+			replayPlayer = null;
+		}
+	}
+
+	/**
+	 * Event handler for the game states played by the {@link ReplayPlayer}.
+	 *
+	 * @param event event to handle
+	 */
+	// synchronized by itself; the event bus must not lock before this does
+	@Subscribe
+	@AllowConcurrentEvents
+	public synchronized void handlePlayedGameState(GameStateChangeEvent event) {
+		if (replayPlayer == null) {
+			// closed in the meantime
+			return;
+		}
+		mapRenderer.updateMap(event.getGameState());
+		// the player stops by itself after the last turn
+		boolean playing = replayPlayer.isPlaying()
+				&& replayPlayer.getCurrentTurn() < replayPlayer.getReplay().getTurnCount();
+		eventBus.post(new ReplayProgressEvent(replayPlayer.getCurrentTurn(), replayPlayer.getReplay().getTurnCount(),
+				playing));
+	}
+
+	private void show(ReplayPlayer shownReplayPlayer) {
+		// the player continues to change its game state
+		GameState gameState = GameStateHelper.getCopy(shownReplayPlayer.getGameState());
+		mapRenderer.updateMap(gameState);
+		eventBus.post(new ReplayProgressEvent(shownReplayPlayer.getCurrentTurn(),
+				shownReplayPlayer.getReplay().getTurnCount(), shownReplayPlayer.isPlaying()));
+	}
+
+}
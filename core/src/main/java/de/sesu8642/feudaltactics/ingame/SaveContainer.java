@@ -0,0 +1,187 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Container for the payloads of saves. It consists of a header with the format
+ * version, the codec and the length and CRC of the payload, followed by the
+ * payload. The payload is compressed with deflate if it is long enough to be
+ * worth it. The compressor is primed with a dictionary of the byte sequences
+ * that are common in saves, so even small game states compress well.
+ * Unwrapping checks the CRC, so a corrupt save is detected instead of being
+ * loaded. Thread-safe.
+ */
+public class SaveContainer {
+
+	public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+	static final int VERSION = 1;
+
+	/** Version, codec, payload length and CRC. */
+	private static final int HEADER_LENGTH = 1 + 1 + 4 + 4;
+
+	private static final int CODEC_NONE = 0;
+	private static final int CODEC_DEFLATE = 1;
+
+	/** Payloads shorter than this are stored as they are, e.g. the moves. */
+	private static final int MIN_COMPRESSED_LENGTH = 64;
+
+	/**
+	 * Preset dictionary: the start of a binary game state and the keys of the
+	 * JSON format of older versions. The most common sequences are at the end
+	 * because deflate encodes close matches more compactly.
+	 */
+	private static final byte[] DICTIONARY = ("\"bot_intelligence\":\"LEVEL_\"seed\":\"winner_id\":"
+			+ "\"active_kingdom_id\":\"round\":\"random_state\":\"held_obj\":{\"class\":\"player_turn\":"
+			+ "\"players\":[{\"id\":1,\"color\":{\"r\":"
+			+ "\"g\":\"b\":\"a\":1},\"type\":\"LOCAL_PLAYER\"},\"type\":\"LOCAL_BOT\"},\"defeated\":true"
+			+ "\"kingdoms\":[{\"id\":\"savings\":\"wasActiveInCurrentTurn\":false,\"tile_ids\":["
+			+ "\"class\":\"Capital\"}\"class\":\"Castle\"}\"class\":\"PalmTree\"}\"class\":\"Gravestone\"}"
+			+ "\"class\":\"Unit\",\"canAct\":false,\"unitType\":\"PEASANT\"}\"class\":\"Tree\"}},"
+			+ "\"tiles\":[{\"id\":\"player_id\":\"position\":{\"x\":\"y\":-},\"content\":{\"id\":FTGS")
+					.getBytes(StandardCharsets.UTF_8);
+
+	private final int compressionLevel;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param compressionLevel deflate compression level from
+	 *                         {@link Deflater#BEST_SPEED} to
+	 *                         {@link Deflater#BEST_COMPRESSION}; higher levels
+	 *                         make the saves smaller but take longer
+	 */
+	public SaveContainer(int compressionLevel) {
+		if (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+		}
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Wraps a payload in a container.
+	 *
+	 * @param payload payload to wrap
+	 * @return container
+	 */
+	public byte[] wrap(byte[] payload) {
+		byte[] body = payload;
+		int codec = CODEC_NONE;
+		if (payload.length >= MIN_COMPRESSED_LENGTH) {
+			byte[] compressed = compress(payload);
+			if (compressed.length < payload.length) {
+				body = compressed;
+				codec = CODEC_DEFLATE;
+			}
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + body.length);
+		buffer.put((byte) VERSION);
+		buffer.put((byte) codec);
+		buffer.putInt(payload.length);
+		buffer.putInt(computeCrc(payload));
+		buffer.put(body);
+		return buffer.array();
+	}
+
+	/**
+	 * Unwraps the payload of a container.
+	 *
+	 * @param container container to unwrap
+	 * @return payload
+	 * @throws IOException if the container is corrupt or not supported
+	 */
+	public byte[] unwrap(byte[] container) throws IOException {
+		if (container.length < HEADER_LENGTH) {
+			throw new IOException("Save container is truncated");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(container);
+		int version = buffer.get();
+		if (version != VERSION) {
+			throw new IOException("Unsupported save container version " + version);
+		}
+		int codec = buffer.get();
+		int payloadLength = buffer.getInt();
+		int crc = buffer.getInt();
+		if (payloadLength < 0) {
+			throw new IOException("Invalid payload length " + payloadLength);
+		}
+		byte[] payload;
+		switch (codec) {
+		case CODEC_NONE:
+			if (payloadLength != container.length - HEADER_LENGTH) {
+				throw new IOException("Save container has the wrong length");
+			}
+			payload = new byte[payloadLength];
+			buffer.get(payload);
+			break;
+		case CODEC_DEFLATE:
+			payload = decompress(container, payloadLength);
+			break;
+		default:
+			throw new IOException("Unknown save container codec " + codec);
+		}
+		if (computeCrc(payload) != crc) {
+			throw new IOException("Save container checksum mismatch");
+		}
+		return payload;
+	}
+
+	private byte[] compress(byte[] payload) {
+		// no zlib header and checksum; the container has its own
+		Deflater deflater = new Deflater(compressionLevel, true);
+		try {
+			deflater.setDictionary(DICTIONARY);
+			deflater.setInput(payload);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 16);
+			byte[] chunk = new byte[Math.min(payload.length, 8192)];
+			while (!deflater.finished()) {
+				out.write(chunk, 0, deflater.deflate(chunk));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] decompress(byte[] container, int payloadLength) throws IOException {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setDictionary(DICTIONARY);
+			inflater.setInput(container, HEADER_LENGTH, container.length - HEADER_LENGTH);
+			byte[] payload = new byte[payloadLength];
+			int length = 0;
+			while (length < payloadLength) {
+				int inflated = inflater.inflate(payload, length, payloadLength - length);
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != payloadLength || !inflater.finished()) {
+				throw new IOException("Save container payload is truncated");
+			}
+			return payload;
+		} catch (DataFormatException e) {
+			throw new IOException("Save container payload is corrupt", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static int computeCrc(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		return (int) crc.getValue();
+	}
+
+}
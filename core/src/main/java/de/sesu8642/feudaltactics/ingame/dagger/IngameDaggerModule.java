@@ -7,8 +7,10 @@ import java.util.concurrent.Executors;
 
 import javax.inject.Singleton;
 
+import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
@@ -21,9 +23,12 @@ import dagger.Provides;
 import de.sesu8642.feudaltactics.dagger.EnableDeepWaterRenderingProperty;
 import de.sesu8642.feudaltactics.dagger.PreferencesPrefixProperty;
 import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
+import de.sesu8642.feudaltactics.ingame.AutoSaveStore;
+import de.sesu8642.feudaltactics.ingame.GameStateChangeDispatcher;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferencesDao;
 import de.sesu8642.feudaltactics.lib.ingame.GameController;
 import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
 import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
 import de.sesu8642.feudaltactics.renderer.MapRenderer;
 
@@ -31,6 +36,11 @@ import de.sesu8642.feudaltactics.renderer.MapRenderer;
 @Module
 public class IngameDaggerModule {
 
+	/** Directory libGDX puts the preferences in on desktop. */
+	private static final String DESKTOP_PREFERENCES_DIRECTORY = ".prefs/";
+
+	private static final String REPLAY_DIRECTORY_NAME = "replays";
+
 	private IngameDaggerModule() {
 		// prevent instantiation
 		throw new AssertionError();
@@ -44,9 +54,15 @@ public class IngameDaggerModule {
 
 	@Provides
 	@Singleton
-	static GameController provideGameController(EventBus eventBus, ExecutorService botTurnExecutor, BotAi botAi,
-			AutoSaveRepository autoSaveRepo) {
-		return new GameController(eventBus, botTurnExecutor, botAi, autoSaveRepo);
+	static GameController provideGameController(EventBus eventBus, ExecutorService gameLoopExecutor, BotAi botAi,
+			AutoSaveRepository autoSaveRepo, ReplayRecorder replayRecorder) {
+		return new GameController(eventBus, gameLoopExecutor, botAi, autoSaveRepo, replayRecorder);
+	}
+
+	@Provides
+	@Singleton
+	static GameStateChangeDispatcher provideGameStateChangeDispatcher(EventBus eventBus) {
+		return new GameStateChangeDispatcher(eventBus, runnable -> Gdx.app.postRunnable(runnable));
 	}
 
 	@Provides
@@ -84,8 +100,30 @@ public class IngameDaggerModule {
 
 	@Provides
 	@Singleton
-	static ExecutorService provideBotAiExecutor() {
-		return Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("botai-%d").build());
+	static AutoSaveStore provideAutoSaveStore(@PreferencesPrefixProperty String prefix) {
+		String fileName = prefix + AutoSaveRepository.AUTO_SAVE_FILE_NAME;
+		// on desktop, the working directory can be anywhere; put it next to the
+		// preferences instead
+		FileHandle fileHandle = Gdx.app.getType() == ApplicationType.Desktop
+				? Gdx.files.external(DESKTOP_PREFERENCES_DIRECTORY + fileName)
+				: Gdx.files.local(fileName);
+		return new AutoSaveStore(fileHandle.file());
+	}
+
+	@Provides
+	@Singleton
+	static ReplayRecorder provideReplayRecorder(@PreferencesPrefixProperty String prefix) {
+		String directoryName = prefix + REPLAY_DIRECTORY_NAME;
+		FileHandle fileHandle = Gdx.app.getType() == ApplicationType.Desktop
+				? Gdx.files.external(DESKTOP_PREFERENCES_DIRECTORY + directoryName)
+				: Gdx.files.local(directoryName);
+		return new ReplayRecorder(fileHandle.file());
+	}
+
+	@Provides
+	@Singleton
+	static ExecutorService provideGameLoopExecutor() {
+		return Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("gameloop-%d").build());
 	}
 
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 
 import javax.inject.Inject;
 
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.scenes.scene2d.Stage;
@@ -18,6 +19,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Stack;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.ui.Value;
 import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
@@ -48,16 +50,21 @@ public class HudStage extends ResizableResettableStage {
 	private Image handContent;
 	ImageButton undoButton;
 	ImageButton endTurnButton;
+	TextButton hintButton;
 	ImageButton buyPeasantButton;
 	ImageButton buyCastleButton;
 	ImageButton speedButton;
 	ImageButton skipButton;
+	ImageButton stopFastForwardButton;
 	ImageButton menuButton;
 	private Table bottomTable;
+	private Table landmassTable;
 	private List<ImageButton> playerTurnButtons = new ArrayList<>();
 	private List<ImageButton> enemyTurnButtons = new ArrayList<>();
 
 	private boolean enemyTurnButtonsShown = false;
+	private boolean fastForwardButtonsShown = false;
+	private float fontScale = 1F;
 
 	/**
 	 * Constructor.
@@ -97,6 +104,8 @@ public class HudStage extends ResizableResettableStage {
 		for (ImageButton button : playerTurnButtons) {
 			button.getImageCell().expand().fill();
 		}
+		// there is no icon for it
+		hintButton = new TextButton("?", skin);
 
 		// buttons visible during enemies' turns
 		speedButton = new ImageButton(new SpriteDrawable(textureAtlas.createSprite("1x")),
@@ -110,6 +119,12 @@ public class HudStage extends ResizableResettableStage {
 			button.getImage().setColor(FeudalTactics.buttonIconColor);
 		}
 
+		// button visible while fast-forwarding; continues at normal speed
+		stopFastForwardButton = new ImageButton(new SpriteDrawable(textureAtlas.createSprite("1x")),
+				new SpriteDrawable(textureAtlas.createSprite("1x_pressed")));
+		stopFastForwardButton.getImageCell().expand().fill();
+		stopFastForwardButton.getImage().setColor(FeudalTactics.buttonIconColor);
+
 		handStack = new Stack();
 		handContentTable = new Table();
 		handContent = new Image();
@@ -123,18 +138,20 @@ public class HudStage extends ResizableResettableStage {
 		Image thumbImage = new Image(thumbSprite);
 		thumbImage.setColor(FeudalTactics.buttonIconColor);
 		infoTextLabel = new Label("", skin);
+		landmassTable = new Table();
 
 		rootTable = new Table();
 		rootTable.setFillParent(true);
 		rootTable.add(infoTextLabel).left().top().pad(10);
 		rootTable.add(menuButton).right().size(ValueWithSize.percentSize(0.075F, rootTable)).pad(10);
 		rootTable.row();
-		rootTable.add();
+		rootTable.add(landmassTable).left().top().padLeft(10);
 		rootTable.add(handStack).right().size(ValueWithSize.percentSize(0.1F, rootTable));
 		rootTable.row();
 
 		bottomTable = new Table();
 		bottomTable.defaults().fill().expand().minSize(0);
+		bottomTable.add(hintButton);
 		bottomTable.add(undoButton);
 		bottomTable.add(buyPeasantButton);
 		bottomTable.add(buyCastleButton);
@@ -203,7 +220,10 @@ public class HudStage extends ResizableResettableStage {
 	/** Shows the buttons for the local player to do their turn. */
 	public void showPlayerTurnButtons() {
 		enemyTurnButtonsShown = false;
+		fastForwardButtonsShown = false;
+		landmassTable.clear();
 		bottomTable.clear();
+		bottomTable.add(hintButton);
 		for (ImageButton button : playerTurnButtons) {
 			bottomTable.add(button);
 		}
@@ -212,17 +232,45 @@ public class HudStage extends ResizableResettableStage {
 	/** Shows the buttons to monitor the other players' turns. */
 	public void showEnemyTurnButtons() {
 		enemyTurnButtonsShown = true;
+		fastForwardButtonsShown = false;
+		landmassTable.clear();
 		bottomTable.clear();
 		for (ImageButton button : enemyTurnButtons) {
 			bottomTable.add(button);
 		}
 	}
 
+	/** Shows the button to stop fast-forwarding. */
+	public void showFastForwardButtons() {
+		enemyTurnButtonsShown = false;
+		fastForwardButtonsShown = true;
+		bottomTable.clear();
+		bottomTable.add(stopFastForwardButton);
+	}
+
+	/**
+	 * Shows how much of the land each player owns.
+	 * 
+	 * @param colors              colors of the players
+	 * @param landmassPercentages index = player index; value: percentage of the
+	 *                            kingdom tiles the player owns
+	 */
+	public void setLandmassPercentages(List<Color> colors, List<Integer> landmassPercentages) {
+		landmassTable.clear();
+		for (int i = 0; i < colors.size(); i++) {
+			Label label = new Label(landmassPercentages.get(i) + "%", skin);
+			label.setColor(colors.get(i));
+			label.setFontScale(fontScale);
+			landmassTable.add(label).padRight(10);
+		}
+	}
+
 	public void setInfoText(String newText) {
 		infoTextLabel.setText(newText);
 	}
 
 	public void setFontScale(Float fontScale) {
+		this.fontScale = fontScale;
 		infoTextLabel.setFontScale(fontScale);
 	}
 
@@ -239,4 +287,8 @@ public class HudStage extends ResizableResettableStage {
 		this.enemyTurnButtonsShown = enemyTurnButtonsShown;
 	}
 
+	public boolean isFastForwardButtonsShown() {
+		return fastForwardButtonsShown;
+	}
+
 }
@@ -2,7 +2,9 @@
 
 package de.sesu8642.feudaltactics.ingame.ui;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Stream;
@@ -10,6 +12,9 @@ import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.Screen;
@@ -22,23 +27,31 @@ import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 
+import de.sesu8642.feudaltactics.FeudalTactics;
 import de.sesu8642.feudaltactics.events.BotTurnSkippedEvent;
 import de.sesu8642.feudaltactics.events.BotTurnSpeedChangedEvent;
 import de.sesu8642.feudaltactics.events.CenterMapEvent;
+import de.sesu8642.feudaltactics.events.FastForwardStartedEvent;
+import de.sesu8642.feudaltactics.events.FastForwardStoppedEvent;
 import de.sesu8642.feudaltactics.events.GameExitedEvent;
 import de.sesu8642.feudaltactics.events.RegenerateMapEvent;
 import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent;
 import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent.ScreenTransitionTarget;
+import de.sesu8642.feudaltactics.events.ShowHintsEvent;
 import de.sesu8642.feudaltactics.events.moves.BuyCastleEvent;
 import de.sesu8642.feudaltactics.events.moves.BuyPeasantEvent;
 import de.sesu8642.feudaltactics.events.moves.EndTurnEvent;
 import de.sesu8642.feudaltactics.events.moves.GameStartEvent;
 import de.sesu8642.feudaltactics.events.moves.UndoMoveEvent;
-import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
+import de.sesu8642.feudaltactics.ingame.GameStateChangeDispatcher;
 import de.sesu8642.feudaltactics.ingame.MapParameters;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferences;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferencesDao;
+import de.sesu8642.feudaltactics.ingame.ReplayViewer;
 import de.sesu8642.feudaltactics.ingame.dagger.IngameCamera;
 import de.sesu8642.feudaltactics.ingame.dagger.IngameRenderer;
 import de.sesu8642.feudaltactics.input.CombinedInputProcessor;
@@ -66,9 +79,10 @@ import de.sesu8642.feudaltactics.renderer.MapRenderer;
 @Singleton
 public class IngameScreen extends GameScreen {
 
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
 	private TextureAtlas textureAtlas;
 
-	private AutoSaveRepository autoSaveRepo;
 	private MainPreferencesDao mainPrefsDao;
 
 	private OrthographicCamera ingameCamera;
@@ -82,12 +96,19 @@ public class IngameScreen extends GameScreen {
 	private ParameterInputStage parameterInputStage;
 	private HudStage hudStage;
 	private MenuStage menuStage;
+	private ReplayStage replayStage;
 
 	private DialogFactory dialogFactory;
 
-	/** Cached version of the game state from the game controller. */
+	private ReplayViewer replayViewer;
+
+	/**
+	 * Game state the UI was updated for last. It is a copy that is never changed.
+	 */
 	private GameState cachedGameState;
 
+	private GameStateChangeDispatcher gameStateChangeDispatcher;
+
 	/**
 	 * Winner of the game before the bot players acted. Used to determine whether
 	 * the winner changed in order to display a message.
@@ -102,6 +123,21 @@ public class IngameScreen extends GameScreen {
 	 */
 	private boolean isSpectateMode = false;
 
+	/**
+	 * Whether the rest of the game is being played without displaying it. Reset
+	 * by the first game state change afterwards.
+	 */
+	private volatile boolean isFastForwarding = false;
+
+	/** Whether the game is being resumed and its autosave is not displayed yet. */
+	private boolean isResuming = false;
+
+	/**
+	 * Whether to center the map once there is a game state, e.g. while the
+	 * autosave is loading.
+	 */
+	private boolean isCenteringPending = false;
+
 	/**
 	 * Interactions with the UI must happen in the same thread that does the
 	 * rendering because the UI libs aren't thread-safe. To do that, Runnables can
@@ -112,7 +148,7 @@ public class IngameScreen extends GameScreen {
 
 	/** Stages that can be displayed. */
 	public enum IngameStages {
-		PARAMETERS, HUD, MENU
+		PARAMETERS, HUD, MENU, REPLAY
 	}
 
 	// current speed that the enemy turns are displayed in
@@ -121,7 +157,6 @@ public class IngameScreen extends GameScreen {
 	/**
 	 * Constructor.
 	 * 
-	 * @param autoSaveRepo         repo for interacting with autosave persistence
 	 * @param mainPrefsDao         dao for main preferences
 	 * @param newGamePrefDao       dao for new game preferences
 	 * @param ingameCamera         camera for viewing the map
@@ -138,18 +173,19 @@ public class IngameScreen extends GameScreen {
 	 * @param hudStage             stage for heads up display UI
 	 * @param menuStage            stage for the pause menu UI
 	 * @param parameterInputStage  stage for the new game parameter input UI
+	 * @param replayStage          stage for the controls of the replay viewer
+	 * @param replayViewer         viewer for the replay of the last game
 	 */
 	@Inject
-	public IngameScreen(TextureAtlas textureAtlas, AutoSaveRepository autoSaveRepo, MainPreferencesDao mainPrefsDao,
-			NewGamePreferencesDao newGamePrefDao, @IngameCamera OrthographicCamera ingameCamera,
-			@MenuViewport Viewport viewport, @MenuCamera OrthographicCamera menuCamera,
-			@IngameRenderer MapRenderer mapRenderer, DialogFactory confirmDialogFactory, EventBus eventBus,
-			CombinedInputProcessor inputProcessor, FeudalTacticsGestureDetector gestureDetector,
-			InputMultiplexer inputMultiplexer, HudStage hudStage, IngameMenuStage menuStage,
-			ParameterInputStage parameterInputStage) {
+	public IngameScreen(TextureAtlas textureAtlas, MainPreferencesDao mainPrefsDao, NewGamePreferencesDao newGamePrefDao,
+			@IngameCamera OrthographicCamera ingameCamera, @MenuViewport Viewport viewport,
+			@MenuCamera OrthographicCamera menuCamera, @IngameRenderer MapRenderer mapRenderer,
+			DialogFactory confirmDialogFactory, EventBus eventBus, CombinedInputProcessor inputProcessor,
+			FeudalTacticsGestureDetector gestureDetector, InputMultiplexer inputMultiplexer, HudStage hudStage,
+			IngameMenuStage menuStage, ParameterInputStage parameterInputStage,
+			GameStateChangeDispatcher gameStateChangeDispatcher, ReplayStage replayStage, ReplayViewer replayViewer) {
 		super(ingameCamera, viewport, hudStage);
 		this.textureAtlas = textureAtlas;
-		this.autoSaveRepo = autoSaveRepo;
 		this.mainPrefsDao = mainPrefsDao;
 		this.newGamePrefDao = newGamePrefDao;
 		this.ingameCamera = ingameCamera;
@@ -162,9 +198,13 @@ public class IngameScreen extends GameScreen {
 		this.hudStage = hudStage;
 		this.menuStage = menuStage;
 		this.parameterInputStage = parameterInputStage;
+		this.gameStateChangeDispatcher = gameStateChangeDispatcher;
+		this.replayStage = replayStage;
+		this.replayViewer = replayViewer;
 		addIngameMenuListeners();
 		addParameterInputListeners();
 		addHudListeners();
+		addReplayListeners();
 		loadNewGameParameterValues();
 	}
 
@@ -213,21 +253,29 @@ public class IngameScreen extends GameScreen {
 		cachedGameState = null;
 		winnerBeforeBotTurn = null;
 		isSpectateMode = false;
+		isFastForwarding = false;
 	}
 
 	/**
 	 * Adjusts all the UI elements that need to be adjusted and displays dialogs if
-	 * appropriate.
+	 * appropriate. Called on the render thread at most once per frame.
 	 * 
-	 * @param gameState new game state
+	 * @param gameState     new game state
+	 * @param noOfUndoSteps number of actions that the active player can undo
 	 */
-	public void handleGameStateChange(GameState gameState) {
+	public void handleGameStateChange(GameState gameState, int noOfUndoSteps) {
+		// fast-forwarding is done once the game state is published again
+		isFastForwarding = false;
 		boolean isLocalPlayerTurnNew = gameState.getActivePlayer().getType() == Type.LOCAL_PLAYER;
 		boolean humanPlayerTurnJustStarted = !isLocalPlayerTurn && isLocalPlayerTurnNew;
 		isLocalPlayerTurn = isLocalPlayerTurnNew;
-		boolean winnerChanged = winnerBeforeBotTurn != gameState.getWinner();
+		// every published game state is a new copy, so the players are not identical
+		boolean winnerChanged = !Objects.equals(winnerBeforeBotTurn, gameState.getWinner());
 
 		cachedGameState = gameState;
+		if (isCenteringPending) {
+			centerMap();
+		}
 		// update the UI
 		GameState newGameState = gameState;
 		// hand content
@@ -254,16 +302,13 @@ public class IngameScreen extends GameScreen {
 				infoText = "Your turn";
 			}
 			// buttons
-			if (hudStage.isEnemyTurnButtonsShown()) {
+			if (hudStage.isEnemyTurnButtonsShown() || hudStage.isFastForwardButtonsShown()) {
 				uiChangeActions.add(() -> hudStage.showPlayerTurnButtons());
 			}
 			Optional<Player> playerOptional = GameStateHelper.determineActingLocalPlayer(newGameState);
 			if (playerOptional.isPresent()) {
 				Player player = playerOptional.get();
-				// TODO: the repo shouldn't be needed here, would be better to create a
-				// viewmodel somewhere else
-				boolean canUndo = InputValidationHelper.checkUndoAction(newGameState, player,
-						autoSaveRepo.getNoOfAutoSaves());
+				boolean canUndo = InputValidationHelper.checkUndoAction(newGameState, player, noOfUndoSteps);
 				boolean canBuyPeasant = InputValidationHelper.checkBuyObject(newGameState, player, Unit.class);
 				boolean canBuyCastle = InputValidationHelper.checkBuyObject(newGameState, player, Castle.class);
 				boolean canEndTurn = InputValidationHelper.checkEndTurn(newGameState, player);
@@ -305,10 +350,33 @@ public class IngameScreen extends GameScreen {
 		}
 	}
 
+	/**
+	 * Shows that the game is being resumed until the loaded autosave arrives. The
+	 * autosave is loaded in the background, so the screen is rendered meanwhile.
+	 */
+	void showLoadingState() {
+		if (cachedGameState != null) {
+			// loaded already
+			return;
+		}
+		isResuming = true;
+		hudStage.setInfoText("Loading...");
+		hudStage.setActiveTurnButtonEnabledStatus(false, false, false, false);
+	}
+
 	/** Centers the map in the available screen space. */
 	void centerMap() {
+		// the latest game state might not be delivered yet, e.g. right after
+		// generating a map
+		GameState latestGameState = gameStateChangeDispatcher.getLatestGameState();
+		if (latestGameState == null) {
+			// nothing is loaded yet
+			isCenteringPending = true;
+			return;
+		}
+		isCenteringPending = false;
 		Margin centeringMargin = calculateMapScreenArea();
-		eventBus.post(new CenterMapEvent(cachedGameState, centeringMargin.marginBottom, centeringMargin.marginLeft,
+		eventBus.post(new CenterMapEvent(latestGameState, centeringMargin.marginBottom, centeringMargin.marginLeft,
 				centeringMargin.marginTop, centeringMargin.marginRight));
 	}
 
@@ -366,8 +434,22 @@ public class IngameScreen extends GameScreen {
 	}
 
 	private void showAllEnemiesDefeatedMessage() {
-		Dialog endDialog = dialogFactory.createDialog(result -> exitToMenu());
-		endDialog.button("Exit");
+		Dialog endDialog = dialogFactory.createDialog(result -> {
+			switch ((byte) result) {
+			case 1:
+				// exit button
+				exitToMenu();
+				break;
+			case 4:
+				// watch replay button
+				watchReplay();
+				break;
+			default:
+				break;
+			}
+		});
+		endDialog.button("Exit", (byte) 1);
+		endDialog.button("Watch replay", (byte) 4);
 		endDialog.text("VICTORY! You deafeated all your enemies.");
 		endDialog.show(hudStage);
 	}
@@ -387,6 +469,15 @@ public class IngameScreen extends GameScreen {
 					// spectate button
 					isSpectateMode = true;
 					break;
+				case 3:
+					// fast-forward button
+					isSpectateMode = true;
+					startFastForward();
+					break;
+				case 4:
+					// watch replay button
+					watchReplay();
+					break;
 				default:
 					break;
 			}
@@ -394,12 +485,78 @@ public class IngameScreen extends GameScreen {
 		endDialog.button("Exit", (byte) 1);
 		if (!isSpectateMode) {
 			endDialog.button("Spectate", (byte) 0);
+			endDialog.button("Fast-forward", (byte) 3);
 		}
 		endDialog.button("Retry", (byte) 2);
+		endDialog.button("Watch replay", (byte) 4);
 		endDialog.text("DEFEAT! All of your kingdoms were conquered by the enemy.");
 		endDialog.show(hudStage);
 	}
 
+	private void startFastForward() {
+		isFastForwarding = true;
+		hudStage.showFastForwardButtons();
+		hudStage.setInfoText("Fast-forwarding");
+		eventBus.post(new FastForwardStartedEvent());
+	}
+
+	/**
+	 * Displays the progress of a fast-forwarded game.
+	 * 
+	 * @param round               round the game is in
+	 * @param players             players of the game
+	 * @param landmassPercentages index = player index; value: percentage of the
+	 *                            kingdom tiles the player owns
+	 */
+	public void handleFastForwardProgress(int round, List<Player> players, List<Integer> landmassPercentages) {
+		List<Color> colors = new ArrayList<>();
+		for (Player player : players) {
+			colors.add(player.getColor());
+		}
+		uiChangeActions.add(() -> {
+			// the game state change that ends fast-forwarding might have overtaken this
+			if (isFastForwarding) {
+				hudStage.setInfoText("Fast-forwarding: round " + round);
+				hudStage.setLandmassPercentages(colors, landmassPercentages);
+			}
+		});
+	}
+
+	/** Ends the game and shows its replay. */
+	private void watchReplay() {
+		eventBus.post(new GameExitedEvent());
+		replayStage.reset();
+		activateStage(IngameStages.REPLAY);
+		Futures.addCallback(replayViewer.openLatestReplay(), new FutureCallback<Object>() {
+			@Override
+			public void onSuccess(Object result) {
+				// the progress is posted as an event
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				logger.error("cannot show the replay", t);
+				uiChangeActions.add(() -> replayStage.setInfoText("The replay cannot be shown."));
+			}
+		}, MoreExecutors.directExecutor());
+	}
+
+	/**
+	 * Displays which turn of the replay is shown.
+	 * 
+	 * @param turn      number of turns ended before the shown game state
+	 * @param turnCount number of turns in the replay
+	 * @param playing   whether the replay is being played
+	 */
+	public void handleReplayProgress(int turn, int turnCount, boolean playing) {
+		uiChangeActions.add(() -> replayStage.setProgress(turn, turnCount, playing));
+	}
+
+	private void exitReplay() {
+		replayViewer.close();
+		exitToMenu();
+	}
+
 	private void showLostMessageWithoutSpectate() {
 		// Set isSpectateMode to true so that the dialog spectate option is not offered.
 		isSpectateMode = true;
@@ -426,6 +583,13 @@ public class IngameScreen extends GameScreen {
 			inputMultiplexer.addProcessor(inputProcessor);
 			setActiveStage(parameterInputStage);
 			break;
+		case REPLAY:
+			// without the gesture detector, tapping the map does not change the finished
+			// game
+			inputMultiplexer.addProcessor(replayStage);
+			inputMultiplexer.addProcessor(inputProcessor);
+			setActiveStage(replayStage);
+			break;
 		default:
 			throw new IllegalStateException("Unknown stage " + ingameStage);
 		}
@@ -440,6 +604,13 @@ public class IngameScreen extends GameScreen {
 		centerMap();
 	}
 
+	@Override
+	public void hide() {
+		// e.g. the autosave could not be loaded
+		isResuming = false;
+		isCenteringPending = false;
+	}
+
 	@Override
 	public void render(float delta) {
 		while (!uiChangeActions.isEmpty()) {
@@ -451,6 +622,10 @@ public class IngameScreen extends GameScreen {
 		ingameCamera.update();
 		getActiveStage().draw();
 		getActiveStage().act();
+		if (isResuming && cachedGameState != null) {
+			isResuming = false;
+			FeudalTactics.game.logStartupTime("the resumed game was displayed");
+		}
 	}
 
 	@Override
@@ -459,6 +634,7 @@ public class IngameScreen extends GameScreen {
 		parameterInputStage.dispose();
 		hudStage.dispose();
 		menuStage.dispose();
+		replayStage.dispose();
 		// might try to dispose the same stage twice
 		super.dispose();
 	}
@@ -505,6 +681,8 @@ public class IngameScreen extends GameScreen {
 	private void addHudListeners() {
 		hudStage.undoButton.addListener(new ExceptionLoggingChangeListener(() -> eventBus.post(new UndoMoveEvent())));
 
+		hudStage.hintButton.addListener(new ExceptionLoggingChangeListener(() -> eventBus.post(new ShowHintsEvent())));
+
 		hudStage.endTurnButton.addListener(new ExceptionLoggingChangeListener(() -> handleEndTurnAttempt()));
 
 		hudStage.buyPeasantButton
@@ -536,6 +714,25 @@ public class IngameScreen extends GameScreen {
 		hudStage.skipButton
 				.addListener(new ExceptionLoggingChangeListener(() -> eventBus.post(new BotTurnSkippedEvent())));
 
+		hudStage.stopFastForwardButton
+				.addListener(new ExceptionLoggingChangeListener(() -> eventBus.post(new FastForwardStoppedEvent())));
+
+	}
+
+	private void addReplayListeners() {
+		replayStage.exitButton.addListener(new ExceptionLoggingChangeListener(this::exitReplay));
+
+		replayStage.playButton.addListener(new ExceptionLoggingChangeListener(replayViewer::togglePlaying));
+
+		replayStage.speedButton.addListener(
+				new ExceptionLoggingChangeListener(() -> replayStage.setSpeed(replayViewer.changeSpeed())));
+
+		replayStage.turnSlider.addListener(new ExceptionLoggingChangeListener(() -> {
+			// seeking replays the bot turns, so only seek where the slider is released
+			if (!replayStage.turnSlider.isDragging()) {
+				replayViewer.seekToTurn(Math.round(replayStage.turnSlider.getValue()));
+			}
+		}));
 	}
 
 	private void loadNewGameParameterValues() {
@@ -8,8 +8,10 @@ import com.badlogic.gdx.Gdx;
 import com.google.common.eventbus.Subscribe;
 
 import de.sesu8642.feudaltactics.events.CenterMapUIEvent;
+import de.sesu8642.feudaltactics.events.FastForwardProgressEvent;
 import de.sesu8642.feudaltactics.events.GameResumedEvent;
-import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.GameStateChangeUIEvent;
+import de.sesu8642.feudaltactics.events.ReplayProgressEvent;
 import de.sesu8642.feudaltactics.events.input.EscInputEvent;
 import de.sesu8642.feudaltactics.events.moves.GameStartEvent;
 import de.sesu8642.feudaltactics.ingame.ui.IngameScreen.IngameStages;
@@ -62,6 +64,7 @@ public class IngameScreenEventHandler {
 		// before this, otherwise the wrong state will be shown
 		Gdx.app.postRunnable(() -> {
 			ingameScreen.activateStage(IngameStages.HUD);
+			ingameScreen.showLoadingState();
 		});
 	}
 
@@ -71,8 +74,8 @@ public class IngameScreenEventHandler {
 	 * @param event event to handle
 	 */
 	@Subscribe
-	public void handleGameStateChange(GameStateChangeEvent event) {
-		ingameScreen.handleGameStateChange(event.getGameState());
+	public void handleGameStateChange(GameStateChangeUIEvent event) {
+		ingameScreen.handleGameStateChange(event.getGameState(), event.getNoOfUndoSteps());
 	}
 
 	/**
@@ -85,4 +88,24 @@ public class IngameScreenEventHandler {
 		ingameScreen.centerMap();
 	}
 
+	/**
+	 * Event handler for fast-forward progress events.
+	 * 
+	 * @param event event to handle
+	 */
+	@Subscribe
+	public void handleFastForwardProgress(FastForwardProgressEvent event) {
+		ingameScreen.handleFastForwardProgress(event.getRound(), event.getPlayers(), event.getLandmassPercentages());
+	}
+
+	/**
+	 * Event handler for replay progress events.
+	 * 
+	 * @param event event to handle
+	 */
+	@Subscribe
+	public void handleReplayProgress(ReplayProgressEvent event) {
+		ingameScreen.handleReplayProgress(event.getTurn(), event.getTurnCount(), event.isPlaying());
+	}
+
 }
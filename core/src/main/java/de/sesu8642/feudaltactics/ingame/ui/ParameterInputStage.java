@@ -79,7 +79,7 @@ public class ParameterInputStage extends ResizableResettableStage {
 		// note about checktyle: widgets are declared in the order they appear in the UI
 		Label difficultyLabel = new Label("CPU\nDifficulty", skin);
 		difficultySelect = new SelectBox<>(skin);
-		String[] difficulties = { "Easy", "Medium", "Hard", "Very hard" };
+		String[] difficulties = { "Easy", "Medium", "Hard", "Very hard", "Expert" };
 		difficultySelect.setItems(difficulties);
 		Label sizeLabel = new Label("Map\nSize", skin);
 		sizeSelect = new SelectBox<>(skin);
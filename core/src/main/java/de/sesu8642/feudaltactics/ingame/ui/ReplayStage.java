@@ -0,0 +1,119 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame.ui;
+
+import javax.inject.Inject;
+
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.Slider;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+import de.sesu8642.feudaltactics.menu.common.dagger.MenuViewport;
+import de.sesu8642.feudaltactics.menu.common.ui.ResizableResettableStage;
+import de.sesu8642.feudaltactics.menu.common.ui.ValueWithSize;
+
+/**
+ * {@link Stage} that displays the controls for watching the replay of a game.
+ */
+public class ReplayStage extends ResizableResettableStage {
+
+	private Skin skin;
+
+	private Table rootTable;
+	private Label infoTextLabel;
+	TextButton exitButton;
+	TextButton playButton;
+	TextButton speedButton;
+	Slider turnSlider;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param viewport viewport for the stage
+	 * @param skin     game skin
+	 */
+	@Inject
+	public ReplayStage(@MenuViewport Viewport viewport, Skin skin) {
+		super(viewport);
+		this.skin = skin;
+		initUi();
+	}
+
+	private void initUi() {
+		infoTextLabel = new Label("", skin);
+		exitButton = new TextButton("Exit", skin);
+		playButton = new TextButton("Play", skin);
+		speedButton = new TextButton("1x", skin);
+		turnSlider = new Slider(0, 1, 1, false, skin);
+		// only the user seeks by moving the slider
+		turnSlider.setProgrammaticChangeEvents(false);
+
+		rootTable = new Table();
+		rootTable.setFillParent(true);
+		rootTable.add(infoTextLabel).left().top().pad(10);
+		rootTable.add(exitButton).right().top().pad(10);
+		rootTable.row();
+
+		Table bottomTable = new Table();
+		bottomTable.defaults().pad(10);
+		bottomTable.add(playButton);
+		bottomTable.add(speedButton);
+		bottomTable.add(turnSlider).fillX().expandX();
+		rootTable.add(bottomTable).fill().expand().bottom().colspan(2)
+				.height(ValueWithSize.percentSize(0.1F, rootTable));
+		this.addActor(rootTable);
+	}
+
+	@Override
+	public void updateOnResize(int width, int height) {
+		rootTable.pack();
+	}
+
+	/**
+	 * Shows which turn of the replay is displayed.
+	 *
+	 * @param turn      number of turns ended before the displayed game state
+	 * @param turnCount number of turns in the replay
+	 * @param playing   whether the replay is being played
+	 */
+	public void setProgress(int turn, int turnCount, boolean playing) {
+		turnSlider.setRange(0, Math.max(turnCount, 1));
+		if (!turnSlider.isDragging()) {
+			turnSlider.setValue(turn);
+		}
+		infoTextLabel.setText("Replay: turn " + turn + " of " + turnCount);
+		playButton.setText(playing ? "Pause" : "Play");
+	}
+
+	/**
+	 * Shows the playback speed.
+	 *
+	 * @param speedFactor how many times faster than the slowest speed it is
+	 */
+	public void setSpeed(long speedFactor) {
+		speedButton.setText(speedFactor + "x");
+	}
+
+	/** Shows that the replay is being loaded. */
+	public void showLoading() {
+		infoTextLabel.setText("Loading replay...");
+		playButton.setText("Play");
+	}
+
+	public void setInfoText(String newText) {
+		infoTextLabel.setText(newText);
+	}
+
+	@Override
+	public void reset() {
+		turnSlider.setRange(0, 1);
+		turnSlider.setValue(0);
+		speedButton.setText("1x");
+		showLoading();
+	}
+
+}
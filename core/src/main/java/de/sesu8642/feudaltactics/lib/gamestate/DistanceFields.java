@@ -0,0 +1,269 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+
+/**
+ * Distances of every tile to the nearest tile of some kind, seen from the
+ * active player: enemy kingdoms, land without a kingdom, water and enemy units
+ * of every strength. The distance is the number of steps over land tiles; tiles
+ * that cannot reach any tile of the kind get {@link #UNREACHABLE}. Water counts
+ * as one step away from the beach tiles.
+ *
+ * <p>
+ * The relevant parts of the map are copied into a grid of primitive arrays.
+ * Every field is calculated with one breadth-first search over the grid when it
+ * is needed for the first time, so looking up a distance only needs the
+ * coordinates of the tile. The fields are cached in the game state until its
+ * version changes. Does not depend on the game state after creation and can be
+ * read from multiple threads.
+ * </p>
+ */
+public class DistanceFields {
+
+	/** Distance of tiles that cannot reach any tile of the kind. */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private static final int[] NEIGHBOR_OFFSETS_X = { -1, 0, 1, 1, 0, -1 };
+	private static final int[] NEIGHBOR_OFFSETS_Y = { 0, -1, -1, 0, 1, 1 };
+
+	private static final byte OWN_LAND = 0;
+	private static final byte WATER = 1;
+	private static final byte ENEMY_KINGDOM = 2;
+	private static final byte UNOWNED_LAND = 3;
+
+	private final long version;
+	private final Player player;
+
+	/** Coordinates of the first cell; the grid has a border of water cells. */
+	private final int minX;
+	private final int minY;
+	private final int height;
+
+	/** index = cell; value: kind of the cell. */
+	private final byte[] cellKinds;
+	/** index = cell; value: strength of the enemy unit in the cell or 0. */
+	private final byte[] enemyUnitStrengths;
+
+	// calculated when needed; calculating a field twice in parallel does no harm
+	private volatile int[] enemyKingdomDistances;
+	private volatile int[] unownedLandDistances;
+	private volatile int[] waterDistances;
+	/** index = strength of the unit. */
+	private final AtomicReferenceArray<int[]> enemyUnitDistances = new AtomicReferenceArray<>(
+			UnitTypes.strongest().strength() + 1);
+
+	private DistanceFields(GameState gameState) {
+		version = gameState.getVersion();
+		player = gameState.getActivePlayer();
+
+		int minTileX = 0;
+		int minTileY = 0;
+		int maxTileX = -1;
+		int maxTileY = -1;
+		if (!gameState.getMap().isEmpty()) {
+			minTileX = Integer.MAX_VALUE;
+			minTileY = Integer.MAX_VALUE;
+			maxTileX = Integer.MIN_VALUE;
+			maxTileY = Integer.MIN_VALUE;
+			for (Vector2 position : gameState.getMap().keySet()) {
+				minTileX = Math.min(minTileX, (int) position.x);
+				minTileY = Math.min(minTileY, (int) position.y);
+				maxTileX = Math.max(maxTileX, (int) position.x);
+				maxTileY = Math.max(maxTileY, (int) position.y);
+			}
+		}
+		minX = minTileX - 1;
+		minY = minTileY - 1;
+		height = maxTileY - minY + 2;
+		int cellCount = (maxTileX - minX + 2) * height;
+
+		cellKinds = new byte[cellCount];
+		Arrays.fill(cellKinds, WATER);
+		enemyUnitStrengths = new byte[cellCount];
+		for (HexTile tile : gameState.getMap().values()) {
+			int cell = getCell(tile.getPosition());
+			if (tile.getKingdom() == null) {
+				cellKinds[cell] = UNOWNED_LAND;
+			} else if (tile.getPlayer() != player) {
+				cellKinds[cell] = ENEMY_KINGDOM;
+				if (tile.getContent() != null
+						&& ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+					enemyUnitStrengths[cell] = (byte) tile.getContent().getStrength();
+				}
+			} else {
+				cellKinds[cell] = OWN_LAND;
+			}
+		}
+	}
+
+	/**
+	 * Returns the distance fields for the active player of the game state.
+	 * Calculates them only if the game state changed since the last call.
+	 *
+	 * @param gameState game state to analyze
+	 * @return distance fields
+	 */
+	public static DistanceFields of(GameState gameState) {
+		DistanceFields cached = gameState.getCachedDistanceFields();
+		if (cached != null && cached.version == gameState.getVersion()
+				&& cached.player == gameState.getActivePlayer()) {
+			return cached;
+		}
+		DistanceFields result = new DistanceFields(gameState);
+		gameState.setCachedDistanceFields(result);
+		return result;
+	}
+
+	/**
+	 * Multi-source breadth-first search that expands over land cells only.
+	 *
+	 * @param sourceKind     kind of the cells with a distance of 0
+	 * @param sourceStrength strength of the enemy units in the cells with a
+	 *                       distance of 0; 0 if only the kind matters
+	 * @return distance for every cell
+	 */
+	private int[] search(byte sourceKind, int sourceStrength) {
+		int[] distances = new int[cellKinds.length];
+		Arrays.fill(distances, UNREACHABLE);
+		// every cell is enqueued at most once
+		int[] queue = new int[cellKinds.length];
+		int tail = 0;
+		for (int cell = 0; cell < cellKinds.length; cell++) {
+			if (cellKinds[cell] == sourceKind && (sourceStrength == 0 || enemyUnitStrengths[cell] == sourceStrength)) {
+				distances[cell] = 0;
+				queue[tail++] = cell;
+			}
+		}
+		int head = 0;
+		while (head < tail) {
+			int cell = queue[head++];
+			int x = cell / height;
+			int y = cell % height;
+			int nextDistance = distances[cell] + 1;
+			for (int i = 0; i < NEIGHBOR_OFFSETS_X.length; i++) {
+				int neighborX = x + NEIGHBOR_OFFSETS_X[i];
+				int neighborY = y + NEIGHBOR_OFFSETS_Y[i];
+				if (neighborY < 0 || neighborY >= height || neighborX < 0 || neighborX * height >= distances.length) {
+					continue;
+				}
+				int neighbor = neighborX * height + neighborY;
+				if (cellKinds[neighbor] != WATER && distances[neighbor] == UNREACHABLE) {
+					distances[neighbor] = nextDistance;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+		return distances;
+	}
+
+	private int getCell(Vector2 position) {
+		return ((int) position.x - minX) * height + (int) position.y - minY;
+	}
+
+	private int getDistance(int[] distances, HexTile tile) {
+		int cell = getCell(tile.getPosition());
+		if (cell < 0 || cell >= distances.length || cellKinds[cell] == WATER) {
+			throw new IllegalArgumentException(String.format("tile '%s' is not on the analyzed map", tile));
+		}
+		return distances[cell];
+	}
+
+	/**
+	 * Getter for the distance to the nearest tile of a kingdom of another player.
+	 *
+	 * @param tile tile on the map
+	 * @return distance, 0 if the tile itself belongs to an enemy kingdom
+	 */
+	public int getEnemyKingdomDistance(HexTile tile) {
+		int[] distances = enemyKingdomDistances;
+		if (distances == null) {
+			distances = search(ENEMY_KINGDOM, 0);
+			enemyKingdomDistances = distances;
+		}
+		return getDistance(distances, tile);
+	}
+
+	/**
+	 * Getter for the distance to the nearest tile that does not belong to any
+	 * kingdom.
+	 *
+	 * @param tile tile on the map
+	 * @return distance, 0 if the tile itself does not belong to a kingdom
+	 */
+	public int getUnownedLandDistance(HexTile tile) {
+		int[] distances = unownedLandDistances;
+		if (distances == null) {
+			distances = search(UNOWNED_LAND, 0);
+			unownedLandDistances = distances;
+		}
+		return getDistance(distances, tile);
+	}
+
+	/**
+	 * Getter for the distance to the nearest water.
+	 *
+	 * @param tile tile on the map
+	 * @return distance, 1 for beach tiles
+	 */
+	public int getWaterDistance(HexTile tile) {
+		int[] distances = waterDistances;
+		if (distances == null) {
+			distances = search(WATER, 0);
+			waterDistances = distances;
+		}
+		return getDistance(distances, tile);
+	}
+
+	/**
+	 * Getter for the distance to the nearest unit with the given strength in a
+	 * kingdom of another player.
+	 *
+	 * @param tile     tile on the map
+	 * @param strength strength of the unit
+	 * @return distance, 0 if the tile itself contains such a unit
+	 */
+	public int getEnemyUnitDistance(HexTile tile, int strength) {
+		if (strength < 1 || strength >= enemyUnitDistances.length()) {
+			throw new IllegalArgumentException(String.format("there are no units with strength %s", strength));
+		}
+		int[] distances = enemyUnitDistances.get(strength);
+		if (distances == null) {
+			distances = search(ENEMY_KINGDOM, strength);
+			enemyUnitDistances.set(strength, distances);
+		}
+		return getDistance(distances, tile);
+	}
+
+	/**
+	 * Getter for the distance to the nearest unit with at least the given strength
+	 * in a kingdom of another player.
+	 *
+	 * @param tile        tile on the map
+	 * @param minStrength minimum strength of the unit
+	 * @return distance, 0 if the tile itself contains such a unit
+	 */
+	public int getEnemyUnitDistanceWithMinStrength(HexTile tile, int minStrength) {
+		int result = UNREACHABLE;
+		for (int strength = Math.max(1, minStrength); strength < enemyUnitDistances.length(); strength++) {
+			result = Math.min(result, getEnemyUnitDistance(tile, strength));
+		}
+		return result;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public Player getPlayer() {
+		return player;
+	}
+
+}
@@ -0,0 +1,110 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.Random;
+
+/**
+ * Splittable random number generator whose whole state is a single long, so it
+ * can be stored in the {@link GameState}, copied and saved along with it. The
+ * game's generator is jumped once per turn; everything random in a turn uses an
+ * independent sub-stream split off it, so the results do not depend on the
+ * order in which e.g. parallel workers use their streams. Based on SplitMix64.
+ * Not thread-safe.
+ */
+public class GameRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Sub-stream for spreading the trees at the end of a round. */
+	public static final long TREE_SPREADING_STREAM = 1;
+
+	/** Sub-stream for the tree search of a bot turn; split further per worker. */
+	public static final long TREE_SEARCH_STREAM = 2;
+
+	/** Sub-stream for the turn of the player with index 0; add the index. */
+	public static final long BOT_PLAYER_STREAM_BASE = 1000;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private long state;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param seed initial state
+	 */
+	public GameRandom(long seed) {
+		super(seed);
+	}
+
+	/**
+	 * Returns an independent generator for a purpose. Does not change this
+	 * generator, so it returns the same numbers for the same stream until this
+	 * generator is used or jumped.
+	 *
+	 * @param streamId id of the purpose, e.g. {@link #TREE_SPREADING_STREAM}
+	 * @return generator of the sub-stream
+	 */
+	public GameRandom split(long streamId) {
+		return new GameRandom(mix64(state ^ mix64(streamId * GOLDEN_GAMMA)));
+	}
+
+	/** Jumps to the next state, e.g. to get new sub-streams for the next turn. */
+	public void jump() {
+		state += GOLDEN_GAMMA;
+	}
+
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix64(state);
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		// called by the super constructor
+		state = seed;
+	}
+
+	public long getState() {
+		return state;
+	}
+
+	public void setState(long state) {
+		this.state = state;
+	}
+
+	private static long mix64(long value) {
+		long result = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+		return result ^ (result >>> 31);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(state);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		return state == ((GameRandom) obj).state;
+	}
+
+	@Override
+	public String toString() {
+		return "GameRandom [state=" + state + "]";
+	}
+
+}
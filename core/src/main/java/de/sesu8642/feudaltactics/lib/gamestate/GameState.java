@@ -28,6 +28,17 @@ public class GameState {
 	/** A round consists of one turn per player. */
 	private int round = 0;
 
+	/** Source of everything random that happens during the game. */
+	private final GameRandom random = new GameRandom(0);
+
+	/**
+	 * Incremented by every change made through the {@link GameStateHelper}
+	 * methods, so data derived from the game state can be cached until the next
+	 * change. Not part of the game.
+	 */
+	private long version = 0;
+	private DistanceFields cachedDistanceFields;
+
 	public GameState() {
 		// no fields must be set on construction
 	}
@@ -116,12 +127,36 @@ public class GameState {
 		this.round = round;
 	}
 
+	public GameRandom getRandom() {
+		return random;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Increments the version. Must be called by code that changes the game state
+	 * without using the {@link GameStateHelper} methods.
+	 */
+	public void incrementVersion() {
+		version++;
+	}
+
+	public DistanceFields getCachedDistanceFields() {
+		return cachedDistanceFields;
+	}
+
+	public void setCachedDistanceFields(DistanceFields cachedDistanceFields) {
+		this.cachedDistanceFields = cachedDistanceFields;
+	}
+
 	@Override
 	public int hashCode() {
 		// calculating with enum strings because the hashcode must be consistent across
 		// runs
 		return Objects.hash(activeKingdom, botIntelligence.toString(), heldObject, kingdoms, map, playerTurn, players,
-				round, seed, winner);
+				random, round, seed, winner);
 	}
 
 	@Override
@@ -139,8 +174,8 @@ public class GameState {
 		return Objects.equals(activeKingdom, other.activeKingdom) && botIntelligence == other.botIntelligence
 				&& Objects.equals(heldObject, other.heldObject) && Objects.equals(kingdoms, other.kingdoms)
 				&& Objects.equals(map, other.map) && playerTurn == other.playerTurn
-				&& Objects.equals(players, other.players) && round == other.round && Objects.equals(seed, other.seed)
-				&& Objects.equals(winner, other.winner);
+				&& Objects.equals(players, other.players) && random.equals(other.random) && round == other.round
+				&& Objects.equals(seed, other.seed) && Objects.equals(winner, other.winner);
 	}
 
 }
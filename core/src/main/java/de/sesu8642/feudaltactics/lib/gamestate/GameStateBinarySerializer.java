@@ -0,0 +1,338 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+
+/**
+ * Compact binary serializer for the {@link GameState} class. Much smaller and
+ * faster than the JSON {@link GameStateSerializer}. Objects are referenced by
+ * their index as variable-length integers: the tiles are written as a table in
+ * map order with their position relative to the previous tile, and the tile
+ * content is encoded together with the tile's player in a single small number.
+ **/
+public class GameStateBinarySerializer {
+
+	/** Bytes every binary game state starts with. */
+	static final byte[] MAGIC = { 'F', 'T', 'G', 'S' };
+
+	static final int VERSION = 1;
+
+	// palette of the tile contents; units use the upper half
+	private static final int CONTENT_NONE = 0;
+	private static final int CONTENT_CAPITAL = 1;
+	private static final int CONTENT_CASTLE = 2;
+	private static final int CONTENT_TREE = 3;
+	private static final int CONTENT_PALM_TREE = 4;
+	private static final int CONTENT_GRAVESTONE = 5;
+	private static final int CONTENT_UNIT = 8;
+	private static final int CONTENT_BITS = 4;
+
+	private static final int PLAYER_DEFEATED_FLAG = 1;
+	private static final int KINGDOM_WAS_ACTIVE_FLAG = 1;
+	private static final int KINGDOM_DONE_MOVING_FLAG = 2;
+
+	/**
+	 * Writes a game state.
+	 *
+	 * @param gameState game state to write
+	 * @param out       stream to write to; should be buffered
+	 * @throws IOException if writing to the stream fails
+	 */
+	public void write(GameState gameState, OutputStream out) throws IOException {
+		out.write(MAGIC);
+		writeVarInt(out, VERSION);
+
+		Map<Player, Integer> playerIndices = new IdentityHashMap<>();
+		writeVarInt(out, gameState.getPlayers().size());
+		for (Player player : gameState.getPlayers()) {
+			playerIndices.put(player, playerIndices.size());
+			Color color = player.getColor();
+			writeInt(out, Float.floatToIntBits(color.r));
+			writeInt(out, Float.floatToIntBits(color.g));
+			writeInt(out, Float.floatToIntBits(color.b));
+			writeInt(out, Float.floatToIntBits(color.a));
+			int flags = player.isDefeated() ? PLAYER_DEFEATED_FLAG : 0;
+			writeVarInt(out, player.getType().ordinal() << 1 | flags);
+		}
+
+		Map<HexTile, Integer> tileIndices = new IdentityHashMap<>();
+		writeVarInt(out, gameState.getMap().size());
+		int previousX = 0;
+		int previousY = 0;
+		for (HexTile tile : gameState.getMap().values()) {
+			tileIndices.put(tile, tileIndices.size());
+			int x = (int) tile.getPosition().x;
+			int y = (int) tile.getPosition().y;
+			writeSignedVarInt(out, x - previousX);
+			writeSignedVarInt(out, y - previousY);
+			previousX = x;
+			previousY = y;
+			writeVarInt(out, getReference(playerIndices, tile.getPlayer()) << CONTENT_BITS
+					| getContentCode(tile.getContent()));
+		}
+
+		Map<Kingdom, Integer> kingdomIndices = new IdentityHashMap<>();
+		writeVarInt(out, gameState.getKingdoms().size());
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			kingdomIndices.put(kingdom, kingdomIndices.size());
+			writeVarInt(out, getReference(playerIndices, kingdom.getPlayer()));
+			writeSignedVarInt(out, kingdom.getSavings());
+			int flags = (kingdom.isWasActiveInCurrentTurn() ? KINGDOM_WAS_ACTIVE_FLAG : 0)
+					| (kingdom.isDoneMoving() ? KINGDOM_DONE_MOVING_FLAG : 0);
+			writeVarInt(out, flags);
+			writeVarInt(out, kingdom.getTiles().size());
+			int previousIndex = 0;
+			for (HexTile tile : kingdom.getTiles()) {
+				int index = tileIndices.get(tile);
+				writeSignedVarInt(out, index - previousIndex);
+				previousIndex = index;
+			}
+		}
+
+		writeVarInt(out, getContentCode(gameState.getHeldObject()));
+		writeVarInt(out, gameState.getPlayerTurn());
+		writeVarInt(out, gameState.getBotIntelligence().ordinal());
+		writeVarInt(out, gameState.getRound());
+		writeVarInt(out, getReference(playerIndices, gameState.getWinner()));
+		writeVarInt(out, getReference(kingdomIndices, gameState.getActiveKingdom()));
+		out.write(gameState.getSeed() != null ? 1 : 0);
+		if (gameState.getSeed() != null) {
+			writeLong(out, gameState.getSeed());
+		}
+		writeLong(out, gameState.getRandom().getState());
+	}
+
+	/**
+	 * Reads a game state.
+	 *
+	 * @param in stream to read from; should be buffered
+	 * @return read game state
+	 * @throws IOException if reading from the stream fails or the data is not a
+	 *                     valid binary game state
+	 */
+	public GameState read(InputStream in) throws IOException {
+		for (byte magicByte : MAGIC) {
+			if (readByte(in) != magicByte) {
+				throw new IOException("Not a binary game state");
+			}
+		}
+		int version = readVarInt(in);
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary game state version " + version);
+		}
+		GameState result = new GameState();
+
+		int playerCount = readVarInt(in);
+		List<Player> players = new ArrayList<>(playerCount);
+		for (int i = 0; i < playerCount; i++) {
+			Color color = new Color(Float.intBitsToFloat(readInt(in)), Float.intBitsToFloat(readInt(in)),
+					Float.intBitsToFloat(readInt(in)), Float.intBitsToFloat(readInt(in)));
+			int flags = readVarInt(in);
+			Player.Type type = getByOrdinal(Player.Type.values(), flags >>> 1);
+			players.add(new Player(color, (flags & PLAYER_DEFEATED_FLAG) != 0, type));
+		}
+		result.setPlayers(players);
+
+		int tileCount = readVarInt(in);
+		List<HexTile> tiles = new ArrayList<>(tileCount);
+		LinkedHashMap<Vector2, HexTile> map = new LinkedHashMap<>();
+		int x = 0;
+		int y = 0;
+		for (int i = 0; i < tileCount; i++) {
+			x += readSignedVarInt(in);
+			y += readSignedVarInt(in);
+			int code = readVarInt(in);
+			HexTile tile = new HexTile(resolveReference(players, code >>> CONTENT_BITS), new Vector2(x, y));
+			tile.setContent(createContent(code & ((1 << CONTENT_BITS) - 1)));
+			tiles.add(tile);
+			map.put(tile.getPosition(), tile);
+		}
+		result.setMap(map);
+
+		int kingdomCount = readVarInt(in);
+		List<Kingdom> kingdoms = new ArrayList<>(kingdomCount);
+		for (int i = 0; i < kingdomCount; i++) {
+			Kingdom kingdom = new Kingdom(resolveReference(players, readVarInt(in)));
+			kingdom.setSavings(readSignedVarInt(in));
+			int flags = readVarInt(in);
+			kingdom.setWasActiveInCurrentTurn((flags & KINGDOM_WAS_ACTIVE_FLAG) != 0);
+			kingdom.setDoneMoving((flags & KINGDOM_DONE_MOVING_FLAG) != 0);
+			int kingdomTileCount = readVarInt(in);
+			int index = 0;
+			for (int j = 0; j < kingdomTileCount; j++) {
+				index += readSignedVarInt(in);
+				HexTile tile = getByIndex(tiles, index);
+				kingdom.getTiles().add(tile);
+				tile.setKingdom(kingdom);
+			}
+			kingdoms.add(kingdom);
+		}
+		result.setKingdoms(kingdoms);
+
+		result.setHeldObject(createContent(readVarInt(in)));
+		result.setPlayerTurn(readVarInt(in));
+		result.setBotIntelligence(getByOrdinal(Intelligence.values(), readVarInt(in)));
+		result.setRound(readVarInt(in));
+		result.setWinner(resolveReference(players, readVarInt(in)));
+		result.setActiveKingdom(resolveReference(kingdoms, readVarInt(in)));
+		if (readByte(in) != 0) {
+			result.setSeed(readLong(in));
+		}
+		result.getRandom().setState(readLong(in));
+		return result;
+	}
+
+	/** Returns 0 for null and the index + 1 otherwise. */
+	private static <T> int getReference(Map<T, Integer> indices, T object) {
+		if (object == null) {
+			return 0;
+		}
+		return indices.get(object) + 1;
+	}
+
+	private static <T> T resolveReference(List<T> objects, int reference) throws IOException {
+		if (reference == 0) {
+			return null;
+		}
+		return getByIndex(objects, reference - 1);
+	}
+
+	private static <T> T getByIndex(List<T> objects, int index) throws IOException {
+		if (index < 0 || index >= objects.size()) {
+			throw new IOException("Invalid reference " + index);
+		}
+		return objects.get(index);
+	}
+
+	private static <T> T getByOrdinal(T[] values, int ordinal) throws IOException {
+		if (ordinal < 0 || ordinal >= values.length) {
+			throw new IOException("Invalid ordinal " + ordinal);
+		}
+		return values[ordinal];
+	}
+
+	private static int getContentCode(MapObject content) {
+		if (content == null) {
+			return CONTENT_NONE;
+		}
+		if (content instanceof Unit) {
+			Unit unit = (Unit) content;
+			return CONTENT_UNIT | unit.getUnitType().ordinal() << 1 | (unit.isCanAct() ? 1 : 0);
+		}
+		if (content instanceof Capital) {
+			return CONTENT_CAPITAL;
+		}
+		if (content instanceof Castle) {
+			return CONTENT_CASTLE;
+		}
+		if (content instanceof Tree) {
+			return CONTENT_TREE;
+		}
+		if (content instanceof PalmTree) {
+			return CONTENT_PALM_TREE;
+		}
+		if (content instanceof Gravestone) {
+			return CONTENT_GRAVESTONE;
+		}
+		throw new IllegalArgumentException("Unknown map object " + content.getClass().getName());
+	}
+
+	private static MapObject createContent(int code) throws IOException {
+		if ((code & CONTENT_UNIT) != 0) {
+			Unit unit = new Unit(getByOrdinal(UnitTypes.values(), (code & ~CONTENT_UNIT) >>> 1));
+			unit.setCanAct((code & 1) != 0);
+			return unit;
+		}
+		switch (code) {
+		case CONTENT_NONE:
+			return null;
+		case CONTENT_CAPITAL:
+			return new Capital();
+		case CONTENT_CASTLE:
+			return new Castle();
+		case CONTENT_TREE:
+			return new Tree();
+		case CONTENT_PALM_TREE:
+			return new PalmTree();
+		case CONTENT_GRAVESTONE:
+			return new Gravestone();
+		default:
+			throw new IOException("Invalid map object code " + code);
+		}
+	}
+
+	static void writeVarInt(OutputStream out, int value) throws IOException {
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			out.write(remaining & 0x7F | 0x80);
+			remaining >>>= 7;
+		}
+		out.write(remaining);
+	}
+
+	static void writeSignedVarInt(OutputStream out, int value) throws IOException {
+		// zigzag encoding so that small negative numbers are short as well
+		writeVarInt(out, value << 1 ^ value >> 31);
+	}
+
+	static void writeInt(OutputStream out, int value) throws IOException {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	static void writeLong(OutputStream out, long value) throws IOException {
+		writeInt(out, (int) (value >>> 32));
+		writeInt(out, (int) value);
+	}
+
+	static int readVarInt(InputStream in) throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int value = readByte(in);
+			result |= (value & 0x7F) << shift;
+			if ((value & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+
+	static int readSignedVarInt(InputStream in) throws IOException {
+		int value = readVarInt(in);
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	static int readInt(InputStream in) throws IOException {
+		return readByte(in) << 24 | (readByte(in) & 0xFF) << 16 | (readByte(in) & 0xFF) << 8 | readByte(in) & 0xFF;
+	}
+
+	static long readLong(InputStream in) throws IOException {
+		return (long) readInt(in) << 32 | readInt(in) & 0xFFFFFFFFL;
+	}
+
+	private static int readByte(InputStream in) throws IOException {
+		int value = in.read();
+		if (value < 0) {
+			throw new EOFException("Unexpected end of binary game state");
+		}
+		return value;
+	}
+
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,8 +42,9 @@ public class GameStateHelper {
 	}
 
 	/**
-	 * Creates a mostly deep copy of the original. Exception: The random uses a seed
-	 * that is derived from the old randoms output.
+	 * Creates a deep copy of the original. Exception: the color of the players is
+	 * the same instance as the original one. The tiles of the kingdoms keep their
+	 * order, so the copy has the same hash code and bots act the same way on it.
 	 * 
 	 * @param original Original to copy
 	 * @return copy Copy of the original
@@ -50,48 +52,52 @@ public class GameStateHelper {
 	public static GameState getCopy(GameState original) {
 		GameState result = new GameState();
 
-		List<Player> copiedPlayers = new ArrayList<>();
+		// identity maps because the equals methods are expensive and not unique
+		Map<Player, Player> copiedPlayersByOriginal = new IdentityHashMap<>();
+		List<Player> copiedPlayers = new ArrayList<>(original.getPlayers().size());
 		for (Player originalPlayer : original.getPlayers()) {
 			Player newPlayer = Player.copyOf(originalPlayer);
 			copiedPlayers.add(newPlayer);
+			copiedPlayersByOriginal.put(originalPlayer, newPlayer);
 		}
 		result.setPlayers(copiedPlayers);
 		if (original.getWinner() != null) {
-			result.setWinner(copiedPlayers.get(original.getPlayers().indexOf(original.getWinner())));
+			result.setWinner(copiedPlayersByOriginal.get(original.getWinner()));
 		}
 
-		List<Kingdom> copiedKingdoms = new ArrayList<>();
-		for (Kingdom originalKingdom : original.getKingdoms()) {
-			Kingdom newKingdom = new Kingdom(
-					copiedPlayers.get(original.getPlayers().indexOf(originalKingdom.getPlayer())));
-			newKingdom.setSavings(originalKingdom.getSavings());
-			newKingdom.setDoneMoving(originalKingdom.isDoneMoving());
-			newKingdom.setWasActiveInCurrentTurn(originalKingdom.isWasActiveInCurrentTurn());
-			copiedKingdoms.add(newKingdom);
-		}
-		result.setKingdoms(copiedKingdoms);
-
 		LinkedHashMap<Vector2, HexTile> copiedMap = new LinkedHashMap<>();
-		// note: this potentially results in a different tile order in the new kingdom
-		// vs the other
+		Map<HexTile, HexTile> copiedTilesByOriginal = new IdentityHashMap<>();
 		for (Entry<Vector2, HexTile> originalTileEntry : original.getMap().entrySet()) {
 			HexTile originalTile = originalTileEntry.getValue();
-			HexTile newTile = new HexTile(copiedPlayers.get(original.getPlayers().indexOf(originalTile.getPlayer())),
+			HexTile newTile = new HexTile(copiedPlayersByOriginal.get(originalTile.getPlayer()),
 					new Vector2(originalTileEntry.getKey()));
-			if (originalTile.getKingdom() != null) {
-				newTile.setKingdom(copiedKingdoms.get(original.getKingdoms().indexOf(originalTile.getKingdom())));
-				newTile.getKingdom().getTiles().add(newTile);
-			}
 			if (originalTile.getContent() != null) {
 				newTile.setContent(originalTile.getContent().getCopy());
 			}
 			copiedMap.put(newTile.getPosition(), newTile);
+			copiedTilesByOriginal.put(originalTile, newTile);
 		}
 		result.setMap(copiedMap);
 
-		if (original.getActiveKingdom() != null) {
-			result.setActiveKingdom(copiedKingdoms.get(original.getKingdoms().indexOf(original.getActiveKingdom())));
+		List<Kingdom> copiedKingdoms = new ArrayList<>(original.getKingdoms().size());
+		for (Kingdom originalKingdom : original.getKingdoms()) {
+			Kingdom newKingdom = new Kingdom(copiedPlayersByOriginal.get(originalKingdom.getPlayer()));
+			newKingdom.setSavings(originalKingdom.getSavings());
+			newKingdom.setDoneMoving(originalKingdom.isDoneMoving());
+			newKingdom.setWasActiveInCurrentTurn(originalKingdom.isWasActiveInCurrentTurn());
+			List<HexTile> newKingdomTiles = new ArrayList<>(originalKingdom.getTiles().size());
+			for (HexTile originalKingdomTile : originalKingdom.getTiles()) {
+				HexTile newTile = copiedTilesByOriginal.get(originalKingdomTile);
+				newTile.setKingdom(newKingdom);
+				newKingdomTiles.add(newTile);
+			}
+			newKingdom.setTiles(newKingdomTiles);
+			copiedKingdoms.add(newKingdom);
+			if (originalKingdom == original.getActiveKingdom()) {
+				result.setActiveKingdom(newKingdom);
+			}
 		}
+		result.setKingdoms(copiedKingdoms);
 
 		if (original.getHeldObject() != null) {
 			result.setHeldObject(original.getHeldObject().getCopy());
@@ -101,7 +107,10 @@ public class GameStateHelper {
 			result.setSeed(original.getSeed());
 		}
 
+		result.setPlayerTurn(original.getPlayerTurn());
+		result.setBotIntelligence(original.getBotIntelligence());
 		result.setRound(original.getRound());
+		result.getRandom().setState(original.getRandom().getState());
 
 		return result;
 	}
@@ -127,7 +136,9 @@ public class GameStateHelper {
 		if (vegetationDensity == null) {
 			vegetationDensity = DEAFULT_INITIAL_TREE_DENSITY;
 		}
+		gameState.incrementVersion();
 		gameState.setSeed(mapSeed);
+		gameState.getRandom().setState(mapSeed);
 		gameState.setPlayers(players);
 		gameState.setMap(new LinkedHashMap<>());
 		gameState.setKingdoms(new ArrayList<>());
@@ -408,6 +419,24 @@ public class GameStateHelper {
 	 * @param kingdom   kingdom to be activated
 	 */
 	public static void activateKingdom(GameState gameState, Kingdom kingdom) {
+		activateKingdom(gameState, kingdom, null);
+	}
+
+	/**
+	 * Activates a kingdom and records the changes so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param kingdom    kingdom to be activated
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void activateKingdom(GameState gameState, Kingdom kingdom, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordGameState(gameState);
+			undoRecord.recordKingdom(kingdom);
+		}
+
+		gameState.incrementVersion();
 		kingdom.setWasActiveInCurrentTurn(true);
 		gameState.setActiveKingdom(kingdom);
 	}
@@ -419,6 +448,24 @@ public class GameStateHelper {
 	 * @param tile      tile that contains the object
 	 */
 	public static void pickupObject(GameState gameState, HexTile tile) {
+		pickupObject(gameState, tile, null);
+	}
+
+	/**
+	 * Picks up an object and records the changes so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param tile       tile that contains the object
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void pickupObject(GameState gameState, HexTile tile, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordGameState(gameState);
+			undoRecord.recordTile(tile);
+		}
+
+		gameState.incrementVersion();
 		gameState.setHeldObject(tile.getContent());
 		tile.setContent(null);
 	}
@@ -430,6 +477,25 @@ public class GameStateHelper {
 	 * @param tile      tile to place to object on
 	 */
 	public static void placeOwn(GameState gameState, HexTile tile) {
+		placeOwn(gameState, tile, null);
+	}
+
+	/**
+	 * Places a held object on a tile in the own kingdom and records the changes
+	 * so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param tile       tile to place to object on
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void placeOwn(GameState gameState, HexTile tile, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordGameState(gameState);
+			undoRecord.recordTile(tile);
+		}
+
+		gameState.incrementVersion();
 		// units can't act after removing blocking stuff
 		if (tile.getContent() != null
 				&& ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())) {
@@ -445,6 +511,25 @@ public class GameStateHelper {
 	 * @param tile      tile that contains the unit on the map
 	 */
 	public static void combineUnits(GameState gameState, HexTile tile) {
+		combineUnits(gameState, tile, null);
+	}
+
+	/**
+	 * Combines the held unit with a unit on the map and records the changes so
+	 * they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param tile       tile that contains the unit on the map
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void combineUnits(GameState gameState, HexTile tile, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordGameState(gameState);
+			undoRecord.recordTile(tile);
+		}
+
+		gameState.incrementVersion();
 		// place resulting unit as held object
 		// the unit that is not the peasant will be upgraded
 		Unit oldUnit;
@@ -480,6 +565,23 @@ public class GameStateHelper {
 	 * @param tile      tile to conquer
 	 */
 	public static void conquer(GameState gameState, HexTile tile) {
+		conquer(gameState, tile, null);
+	}
+
+	/**
+	 * Conquers an enemy tile and records the changes so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param tile       tile to conquer
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void conquer(GameState gameState, HexTile tile, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			recordConquer(gameState, tile, undoRecord);
+		}
+
+		gameState.incrementVersion();
 		Kingdom oldTileKingdom = tile.getKingdom();
 		// units can't act after conquering
 		((Unit) gameState.getHeldObject()).setCanAct(false);
@@ -573,6 +675,31 @@ public class GameStateHelper {
 		placeObject(gameState, tile);
 	}
 
+	/**
+	 * Records everything a conquer can change: the kingdom of the conquered tile
+	 * may be split and the active kingdom may be merged with other kingdoms of
+	 * the player next to the tile.
+	 */
+	private static void recordConquer(GameState gameState, HexTile tile, UndoRecord undoRecord) {
+		undoRecord.recordGameState(gameState);
+		undoRecord.recordTile(tile);
+		Kingdom activeKingdom = gameState.getActiveKingdom();
+		undoRecord.recordKingdom(activeKingdom);
+		if (tile.getKingdom() != null) {
+			undoRecord.recordKingdomAndTiles(tile.getKingdom());
+		}
+		for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+			if (neighborTile == null || neighborTile.getPlayer() != activeKingdom.getPlayer()) {
+				continue;
+			}
+			if (neighborTile.getKingdom() == null) {
+				undoRecord.recordTile(neighborTile);
+			} else if (neighborTile.getKingdom() != activeKingdom) {
+				undoRecord.recordKingdomAndTiles(neighborTile.getKingdom());
+			}
+		}
+	}
+
 	private static void placeObject(GameState gameState, HexTile tile) {
 		tile.setContent(gameState.getHeldObject());
 		gameState.setHeldObject(null);
@@ -674,8 +801,29 @@ public class GameStateHelper {
 	 * Ends the turn.
 	 * 
 	 * @param gameState GameState to act on
+	 * @return the given game state
 	 */
 	public static GameState endTurn(GameState gameState) {
+		return endTurn(gameState, null);
+	}
+
+	/**
+	 * Ends the turn and records the changes so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 * @return the given game state
+	 */
+	public static GameState endTurn(GameState gameState, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			// everything else is recorded right before it is changed
+			undoRecord.recordGameState(gameState);
+		}
+
+		gameState.incrementVersion();
+		// everything random in the next turn uses new sub-streams
+		gameState.getRandom().jump();
 		// check win condition; the winner can change if a player recovers from
 		// a really bad situation
 		// tiles that belong to no kingdom are irrelevant as they help no player
@@ -693,9 +841,9 @@ public class GameStateHelper {
 			// round ended
 			gameState.setRound(gameState.getRound() + 1);
 			gameState.setPlayerTurn(0);
-			spreadTrees(gameState);
+			spreadTrees(gameState, undoRecord);
 		}
-		progressBlockingObjects(gameState, gameState.getActivePlayer());
+		progressBlockingObjects(gameState, gameState.getActivePlayer(), undoRecord);
 		// check defeat condition
 		playerLoop: for (Player player : gameState.getPlayers()) {
 			if (player.isDefeated()) {
@@ -707,6 +855,9 @@ public class GameStateHelper {
 				}
 			}
 			// player has no kingdoms --> is defeated
+			if (undoRecord != null) {
+				undoRecord.recordPlayer(player);
+			}
 			player.setDefeated(true);
 		}
 		// reset active kingdom
@@ -714,6 +865,9 @@ public class GameStateHelper {
 		for (Kingdom kingdom : gameState.getKingdoms()) {
 			// update savings
 			if (kingdom.getPlayer() == gameState.getActivePlayer()) {
+				if (undoRecord != null) {
+					undoRecord.recordKingdomAndTiles(kingdom);
+				}
 				kingdom.setSavings(kingdom.getSavings() + getKingdomIncome(kingdom));
 				if (kingdom.getSavings() < getKingdomSalaries(gameState, kingdom)) {
 					// kill all units if they cannot get paid
@@ -730,10 +884,15 @@ public class GameStateHelper {
 					for (HexTile tile : kingdom.getTiles()) {
 						if (tile.getContent() != null
 								&& ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+							if (undoRecord != null) {
+								undoRecord.recordUnit((Unit) tile.getContent());
+							}
 							((Unit) tile.getContent()).setCanAct(true);
 						}
 					}
 				}
+			} else if (undoRecord != null && kingdom.isWasActiveInCurrentTurn()) {
+				undoRecord.recordKingdom(kingdom);
 			}
 			// reset wasActiveInCurrentTurn
 			kingdom.setWasActiveInCurrentTurn(false);
@@ -741,8 +900,8 @@ public class GameStateHelper {
 		return gameState;
 	}
 
-	private static void spreadTrees(GameState gameState) {
-		Random random = new Random(gameState.hashCode());
+	private static void spreadTrees(GameState gameState, UndoRecord undoRecord) {
+		Random random = gameState.getRandom().split(GameRandom.TREE_SPREADING_STREAM);
 		// keep track of the tiles with trees that are new or have already participated
 		// in spreading; those shouldn't spread again in that turn
 		HashSet<HexTile> tileBlackList = new HashSet<>();
@@ -769,7 +928,7 @@ public class GameStateHelper {
 				}
 				if (neighborTreeTile != null && !candidates.isEmpty()) {
 					HexTile newTreeTile = candidates.get(random.nextInt(candidates.size()));
-					spawnTree(gameState, newTreeTile);
+					spawnTree(gameState, newTreeTile, undoRecord);
 					tileBlackList.add(tile);
 					tileBlackList.add(newTreeTile);
 					tileBlackList.add(neighborTreeTile);
@@ -782,22 +941,25 @@ public class GameStateHelper {
 						.getNeighborTiles(gameState.getMap(), tile).stream().filter(neighbor -> neighbor != null
 								&& neighbor.getContent() == null && isCoastTile(gameState, neighbor))
 						.limit(1).forEach(newTreeTile -> {
-							spawnTree(gameState, newTreeTile);
+							spawnTree(gameState, newTreeTile, undoRecord);
 							tileBlackList.add(newTreeTile);
 						});
 			}
 		}
 	}
 
-	private static void progressBlockingObjects(GameState gameState, Player player) {
+	private static void progressBlockingObjects(GameState gameState, Player player, UndoRecord undoRecord) {
 		for (HexTile tile : gameState.getMap().values()) {
 			// gravestones become trees/palms at the start of the player turn
 			if (tile.getPlayer() == player && tile.getContent() != null) {
 				if (ClassReflection.isAssignableFrom(Gravestone.class, tile.getContent().getClass())) {
-					spawnTree(gameState, tile);
+					spawnTree(gameState, tile, undoRecord);
 				} else if (tile.getKingdom() == null
 						&& ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
 					// cut off units become gravestones at the start of the player turn
+					if (undoRecord != null) {
+						undoRecord.recordTile(tile);
+					}
 					tile.setContent(new Gravestone());
 				}
 			}
@@ -806,6 +968,13 @@ public class GameStateHelper {
 
 	/** Spawns a regular or palm tree depending on the position. */
 	private static void spawnTree(GameState gameState, HexTile tile) {
+		spawnTree(gameState, tile, null);
+	}
+
+	private static void spawnTree(GameState gameState, HexTile tile, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordTile(tile);
+		}
 		if (isCoastTile(gameState, tile)) {
 			tile.setContent(new PalmTree());
 		} else {
@@ -824,6 +993,23 @@ public class GameStateHelper {
 	 * @param gameState GameState to act on
 	 */
 	public static void buyPeasant(GameState gameState) {
+		buyPeasant(gameState, null);
+	}
+
+	/**
+	 * Buys a peasant and records the changes so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void buyPeasant(GameState gameState, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordGameState(gameState);
+			undoRecord.recordKingdom(gameState.getActiveKingdom());
+		}
+
+		gameState.incrementVersion();
 		gameState.getActiveKingdom().setSavings(gameState.getActiveKingdom().getSavings() - Unit.COST);
 		if (gameState.getHeldObject() == null) {
 			gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
@@ -841,6 +1027,23 @@ public class GameStateHelper {
 	 * @param gameState GameState to act on
 	 */
 	public static void buyCastle(GameState gameState) {
+		buyCastle(gameState, null);
+	}
+
+	/**
+	 * Buys a castle and records the changes so they can be undone.
+	 * 
+	 * @param gameState  GameState to act on
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public static void buyCastle(GameState gameState, UndoRecord undoRecord) {
+		if (undoRecord != null) {
+			undoRecord.recordGameState(gameState);
+			undoRecord.recordKingdom(gameState.getActiveKingdom());
+		}
+
+		gameState.incrementVersion();
 		gameState.getActiveKingdom().setSavings(gameState.getActiveKingdom().getSavings() - Castle.COST);
 		gameState.setHeldObject(new Castle());
 	}
@@ -853,6 +1056,7 @@ public class GameStateHelper {
 	 * @param player    player that should own the tile
 	 */
 	public static void placeTile(GameState gameState, Vector2 hexCoords, Player player) {
+		gameState.incrementVersion();
 		HexTile newTile = new HexTile(player, hexCoords);
 		gameState.getMap().put(hexCoords, newTile);
 	}
@@ -864,6 +1068,7 @@ public class GameStateHelper {
 	 * @param hexCoords coords of the tile
 	 */
 	public static void deleteTile(GameState gameState, Vector2 hexCoords) {
+		gameState.incrementVersion();
 		gameState.getMap().remove(hexCoords);
 	}
 
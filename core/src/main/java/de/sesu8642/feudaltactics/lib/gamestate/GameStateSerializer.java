@@ -2,33 +2,42 @@
 
 package de.sesu8642.feudaltactics.lib.gamestate;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-import com.badlogic.gdx.utils.Json;
-import com.badlogic.gdx.utils.Json.Serializer;
-import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
 
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
 
-/** JSON serializer for the {@link GameState} class. **/
-public class GameStateSerializer implements Serializer<GameState> {
+/**
+ * JSON serializer for the {@link GameState} class. Streams the state with a
+ * hand-written writer and pull parser for the save schema, so it neither builds
+ * an intermediate tree nor uses reflection and takes time proportional to the
+ * size of the JSON. The output is byte-compatible with the saves written by
+ * older versions with the libGDX Json class. Objects are referenced by ids
+ * like there: the players, tiles and kingdoms get the ids in the order they are
+ * written, and fields with default values are left out.
+ **/
+public class GameStateSerializer {
 
-	private static final String KINGDOM_FIELD_NAME = "kingdom";
-	private static final String MAPOBJECTS_CLASS_BASE_NAME = "de.sesu8642.feudaltactics.lib.gamestate.";
 	private static final String ACTIVE_KINGDOM_ID_NAME = "active_kingdom_id";
 	private static final String WINNER_ID_NAME = "winner_id";
 	private static final String BOT_INTELLIGENCE_NAME = "bot_intelligence";
-	private static final String BOT_INTELLIGENCE_FIELD_NAME = "botIntelligence";
-	private static final String PLAYER_TURN_FIELD_NAME = "playerTurn";
 	private static final String PLAYER_TURN_NAME = "player_turn";
 	private static final String HELD_OBJ_NAME = "held_obj";
 	private static final String TILE_IDS_NAME = "tile_ids";
 	private static final String SAVINGS_NAME = "savings";
 	private static final String WAS_ACTIVE_IN_CURRENT_TURN_NAME = "wasActiveInCurrentTurn";
+	private static final String DONE_MOVING_NAME = "doneMoving";
 	private static final String KINGDOMS_NAME = "kingdoms";
 	private static final String CLASS_NAME = "class";
 	private static final String CONTENT_NAME = "content";
@@ -37,181 +46,499 @@ public class GameStateSerializer implements Serializer<GameState> {
 	private static final String TILES_NAME = "tiles";
 	private static final String ID_NAME = "id";
 	private static final String PLAYERS_NAME = "players";
-	private static final String SEED_FIELD_NAME = "seed";
+	private static final String COLOR_NAME = "color";
+	private static final String TYPE_NAME = "type";
+	private static final String DEFEATED_NAME = "defeated";
+	private static final String CAN_ACT_NAME = "canAct";
+	private static final String UNIT_TYPE_NAME = "unitType";
 	private static final String SEED_NAME = "seed";
-	private static final String ROUND_FIELD_NAME = "round";
 	private static final String ROUND_NAME = "round";
+	private static final String RANDOM_STATE_NAME = "random_state";
 
-	Integer lastId = 0;
-
-	private int getId(Map<Object, Integer> idMap, Object obj) {
-		Integer exisingId = idMap.get(obj);
-		if (exisingId == null) {
-			int newId = ++lastId;
-			idMap.put(obj, newId);
-			return newId;
-		} else {
-			return exisingId;
-		}
-	}
-
-	@Override
-	public void write(Json json, GameState object, @SuppressWarnings("rawtypes") Class knownType) {
-		lastId = 0;
+	/**
+	 * Writes a game state as JSON.
+	 *
+	 * @param gameState game state to write
+	 * @param writer    writer to write to; should be buffered
+	 * @throws IOException if writing fails
+	 */
+	public void write(GameState gameState, Writer writer) throws IOException {
+		JsonStreamWriter json = new JsonStreamWriter(writer);
+		// equal objects share an id; needed to produce the same output as before
 		Map<Object, Integer> idMap = new HashMap<>();
-		json.writeObjectStart();
-		json.writeArrayStart(PLAYERS_NAME);
-		for (Player player : object.getPlayers()) {
-			json.writeObjectStart();
-			json.writeValue(ID_NAME, getId(idMap, player));
-			json.writeFields(player);
-			json.writeObjectEnd();
-		}
-		json.writeArrayEnd();
-		json.writeArrayStart(TILES_NAME);
-		for (HexTile tile : object.getMap().values()) {
-			json.writeObjectStart();
-			json.writeValue(ID_NAME, getId(idMap, tile));
-			json.writeValue(PLAYER_ID_NAME, getId(idMap, tile.getPlayer()));
-			json.writeField(tile, POSITION_NAME);
+		json.objectStart();
+		json.arrayStart(PLAYERS_NAME);
+		for (Player player : gameState.getPlayers()) {
+			json.objectStart();
+			json.value(ID_NAME, getId(idMap, player));
+			writePlayerFields(json, player);
+			json.objectEnd();
+		}
+		json.arrayEnd();
+		json.arrayStart(TILES_NAME);
+		for (HexTile tile : gameState.getMap().values()) {
+			json.objectStart();
+			json.value(ID_NAME, getId(idMap, tile));
+			json.value(PLAYER_ID_NAME, getId(idMap, tile.getPlayer()));
+			json.objectStart(POSITION_NAME);
+			writeVector(json, tile.getPosition());
+			json.objectEnd();
 			if (tile.getContent() != null) {
-				json.writeObjectStart(CONTENT_NAME);
-				json.writeValue(ID_NAME, getId(idMap, tile.getContent()));
-				json.writeValue(CLASS_NAME, tile.getContent().getClass().getSimpleName());
-				json.writeFields(tile.getContent());
-				json.writeObjectEnd();
+				json.objectStart(CONTENT_NAME);
+				json.value(ID_NAME, getId(idMap, tile.getContent()));
+				writeMapObjectFields(json, tile.getContent());
+				json.objectEnd();
 			}
-			json.writeObjectEnd();
-		}
-		json.writeArrayEnd();
-		json.writeArrayStart(KINGDOMS_NAME);
-		for (Kingdom kingdom : object.getKingdoms()) {
-			json.writeObjectStart();
-			json.writeValue(ID_NAME, getId(idMap, kingdom));
-			json.writeValue(PLAYER_ID_NAME, getId(idMap, kingdom.getPlayer()));
-			json.writeField(kingdom, SAVINGS_NAME);
-			json.writeField(kingdom, WAS_ACTIVE_IN_CURRENT_TURN_NAME);
-			json.writeArrayStart(TILE_IDS_NAME);
+			json.objectEnd();
+		}
+		json.arrayEnd();
+		json.arrayStart(KINGDOMS_NAME);
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			json.objectStart();
+			json.value(ID_NAME, getId(idMap, kingdom));
+			json.value(PLAYER_ID_NAME, getId(idMap, kingdom.getPlayer()));
+			json.value(SAVINGS_NAME, kingdom.getSavings());
+			json.value(WAS_ACTIVE_IN_CURRENT_TURN_NAME, kingdom.isWasActiveInCurrentTurn());
+			json.arrayStart(TILE_IDS_NAME);
 			for (HexTile tile : kingdom.getTiles()) {
-				json.writeValue(getId(idMap, tile));
+				json.value(getId(idMap, tile));
 			}
-			json.writeArrayEnd();
-			json.writeObjectEnd();
+			json.arrayEnd();
+			json.objectEnd();
+		}
+		json.arrayEnd();
+		if (gameState.getHeldObject() != null) {
+			json.objectStart(HELD_OBJ_NAME);
+			writeMapObjectFields(json, gameState.getHeldObject());
+			json.objectEnd();
+		}
+		json.value(PLAYER_TURN_NAME, gameState.getPlayerTurn());
+		json.value(BOT_INTELLIGENCE_NAME,
+				gameState.getBotIntelligence() == null ? null : gameState.getBotIntelligence().name());
+		json.name(SEED_NAME);
+		if (gameState.getSeed() == null) {
+			json.value((String) null);
+		} else {
+			json.value(gameState.getSeed());
 		}
-		json.writeArrayEnd();
-		if (object.getHeldObject() != null) {
-			json.writeObjectStart(HELD_OBJ_NAME);
-			json.writeValue(CLASS_NAME, object.getHeldObject().getClass().getSimpleName());
-			json.writeFields(object.getHeldObject());
-			json.writeObjectEnd();
+		if (gameState.getWinner() != null) {
+			json.value(WINNER_ID_NAME, getId(idMap, gameState.getWinner()));
 		}
-		json.writeField(object, PLAYER_TURN_FIELD_NAME, PLAYER_TURN_NAME);
-		json.writeField(object, BOT_INTELLIGENCE_FIELD_NAME, BOT_INTELLIGENCE_NAME);
-		json.writeField(object, SEED_FIELD_NAME, SEED_NAME);
-		if (object.getWinner() != null) {
-			json.writeValue(WINNER_ID_NAME, getId(idMap, object.getWinner()));
+		if (gameState.getActiveKingdom() != null) {
+			json.value(ACTIVE_KINGDOM_ID_NAME, getId(idMap, gameState.getActiveKingdom()));
 		}
-		if (object.getActiveKingdom() != null) {
-			json.writeValue(ACTIVE_KINGDOM_ID_NAME, getId(idMap, object.getActiveKingdom()));
+		json.value(ROUND_NAME, gameState.getRound());
+		json.value(RANDOM_STATE_NAME, gameState.getRandom().getState());
+		json.objectEnd();
+	}
+
+	/**
+	 * Writes a game state as JSON string.
+	 *
+	 * @param gameState game state to write
+	 * @return JSON string
+	 */
+	public String toJson(GameState gameState) {
+		StringWriter writer = new StringWriter();
+		try {
+			write(gameState, writer);
+		} catch (IOException e) {
+			// a string writer does not throw
+			throw new AssertionError(e);
+		}
+		return writer.toString();
+	}
+
+	private static int getId(Map<Object, Integer> idMap, Object obj) {
+		Integer existingId = idMap.get(obj);
+		if (existingId != null) {
+			return existingId;
 		}
-		json.writeField(object, ROUND_FIELD_NAME, ROUND_NAME);
-		json.writeObjectEnd();
+		int newId = idMap.size() + 1;
+		idMap.put(obj, newId);
+		return newId;
 	}
 
-	@Override
-	public GameState read(Json json, JsonValue jsonData, @SuppressWarnings("rawtypes") Class type) {
-		Map<Integer, Object> reverseIdMap = new HashMap<>();
+	private static void writePlayerFields(JsonStreamWriter json, Player player) throws IOException {
+		// the default values of a new player are left out
+		if (player.getColor() != null) {
+			Color color = player.getColor();
+			json.objectStart(COLOR_NAME);
+			writeNonZero(json, "r", color.r);
+			writeNonZero(json, "g", color.g);
+			writeNonZero(json, "b", color.b);
+			writeNonZero(json, "a", color.a);
+			json.objectEnd();
+		}
+		if (player.getType() != null) {
+			json.value(TYPE_NAME, player.getType().name());
+		}
+		if (player.isDefeated()) {
+			json.value(DEFEATED_NAME, true);
+		}
+	}
 
+	private static void writeVector(JsonStreamWriter json, Vector2 vector) throws IOException {
+		writeNonZero(json, "x", vector.x);
+		writeNonZero(json, "y", vector.y);
+	}
+
+	private static void writeNonZero(JsonStreamWriter json, String name, float value) throws IOException {
+		// compared like Float.equals, so -0 is written
+		if (Float.floatToIntBits(value) != 0) {
+			json.value(name, value);
+		}
+	}
+
+	private static void writeMapObjectFields(JsonStreamWriter json, MapObject mapObject) throws IOException {
+		json.value(CLASS_NAME, mapObject.getClass().getSimpleName());
+		if (mapObject instanceof Unit) {
+			Unit unit = (Unit) mapObject;
+			if (!unit.isCanAct()) {
+				json.value(CAN_ACT_NAME, false);
+			}
+			json.value(UNIT_TYPE_NAME, unit.getUnitType().name());
+		}
+	}
+
+	/**
+	 * Reads a game state from JSON.
+	 *
+	 * @param reader reader to read from; does not need to be buffered
+	 * @return read game state
+	 * @throws IOException if reading fails or the JSON is not a valid game state
+	 */
+	public GameState read(Reader reader) throws IOException {
+		JsonStreamReader json = new JsonStreamReader(reader);
+		Map<Integer, Object> objectsById = new HashMap<>();
 		GameState result = new GameState();
 		result.setPlayers(new ArrayList<>());
-		JsonValue playersJson = jsonData.get(PLAYERS_NAME);
-		playersJson.forEach(playerJson -> {
-			int id = playerJson.getInt(ID_NAME);
-			playerJson.remove(ID_NAME);
-			Player player = json.fromJson(Player.class, playerJson.toString());
-			reverseIdMap.put(id, player);
-			result.getPlayers().add(player);
-		});
 		result.setMap(new LinkedHashMap<>());
-		JsonValue tilesJson = jsonData.get(TILES_NAME);
-		tilesJson.forEach(tileJson -> {
-			final int id = tileJson.getInt(ID_NAME);
-			final int playerId = tileJson.getInt(PLAYER_ID_NAME);
-			tileJson.remove(ID_NAME);
-			tileJson.remove(PLAYER_ID_NAME);
-			JsonValue contentJson = tileJson.get(CONTENT_NAME);
-			int contentId = -1;
-			if (contentJson != null) {
-				contentId = contentJson.getInt(ID_NAME);
-				contentJson.remove(ID_NAME);
-				// replace short class name with full one
-				String shortClassName = contentJson.getString(CLASS_NAME);
-				contentJson.remove(CLASS_NAME);
-				contentJson.addChild(CLASS_NAME, new JsonValue(MAPOBJECTS_CLASS_BASE_NAME + shortClassName));
+		result.setKingdoms(new ArrayList<>());
+		// these refer to objects that might be read later
+		Integer winnerId = null;
+		Integer activeKingdomId = null;
+		boolean hasRandomState = false;
+
+		json.beginObject();
+		while (json.hasNext()) {
+			String name = json.nextName();
+			switch (name) {
+			case PLAYERS_NAME:
+				json.beginArray();
+				while (json.hasNext()) {
+					result.getPlayers().add(readPlayer(json, objectsById));
+				}
+				json.endArray();
+				break;
+			case TILES_NAME:
+				json.beginArray();
+				while (json.hasNext()) {
+					HexTile tile = readTile(json, objectsById);
+					result.getMap().put(tile.getPosition(), tile);
+				}
+				json.endArray();
+				break;
+			case KINGDOMS_NAME:
+				json.beginArray();
+				while (json.hasNext()) {
+					result.getKingdoms().add(readKingdom(json, objectsById));
+				}
+				json.endArray();
+				break;
+			case HELD_OBJ_NAME:
+				result.setHeldObject(readMapObject(json, null));
+				break;
+			case PLAYER_TURN_NAME:
+				result.setPlayerTurn(json.nextInt());
+				break;
+			case BOT_INTELLIGENCE_NAME:
+				String botIntelligence = json.nextString();
+				result.setBotIntelligence(
+						botIntelligence == null ? null : parseEnum(Intelligence.class, botIntelligence));
+				break;
+			case SEED_NAME:
+				result.setSeed(json.nextNull() ? null : json.nextLong());
+				break;
+			case ROUND_NAME:
+				result.setRound(json.nextInt());
+				break;
+			case RANDOM_STATE_NAME:
+				result.getRandom().setState(json.nextLong());
+				hasRandomState = true;
+				break;
+			case WINNER_ID_NAME:
+				winnerId = json.nextInt();
+				break;
+			case ACTIVE_KINGDOM_ID_NAME:
+				activeKingdomId = json.nextInt();
+				break;
+			default:
+				json.skipValue();
 			}
-			HexTile tile = json.fromJson(HexTile.class, tileJson.toString());
-			if (tile.getContent() != null) {
-				reverseIdMap.put(contentId, tile.getContent());
+		}
+		json.endObject();
+		json.endDocument();
+
+		if (!hasRandomState) {
+			// saved before the state was saved; continue with numbers that depend on
+			// the progress of the game like before
+			long seed = result.getSeed() == null ? 0 : result.getSeed();
+			result.getRandom().setState(seed * 31 + result.getRound());
+		}
+		if (winnerId != null) {
+			result.setWinner(resolve(objectsById, winnerId, Player.class));
+		}
+		if (activeKingdomId != null) {
+			result.setActiveKingdom(resolve(objectsById, activeKingdomId, Kingdom.class));
+		}
+		return result;
+	}
+
+	private static Player readPlayer(JsonStreamReader json, Map<Integer, Object> objectsById) throws IOException {
+		Integer id = null;
+		Color color = null;
+		Player.Type type = null;
+		boolean defeated = false;
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case ID_NAME:
+				id = json.nextInt();
+				break;
+			case COLOR_NAME:
+				color = readColor(json);
+				break;
+			case TYPE_NAME:
+				type = parseEnum(Player.Type.class, json.nextString());
+				break;
+			case DEFEATED_NAME:
+				defeated = json.nextBoolean();
+				break;
+			default:
+				json.skipValue();
 			}
-			tile.setPlayer((Player) reverseIdMap.get(playerId));
-			reverseIdMap.put(id, tile);
-			result.getMap().put(tile.getPosition(), tile);
-		});
-		result.setKingdoms(new ArrayList<>());
-		JsonValue kingdomsJson = jsonData.get(KINGDOMS_NAME);
-		kingdomsJson.forEach(kingdomJson -> {
-			final int id = kingdomJson.getInt(ID_NAME);
-			final int playerId = kingdomJson.getInt(PLAYER_ID_NAME);
-			JsonValue tileIdsJson = kingdomJson.get(TILE_IDS_NAME);
-			ArrayList<HexTile> kingdomTiles = new ArrayList<>();
-			tileIdsJson.forEach(tileIdJson -> {
-				int tileId = tileIdJson.asInt();
-				kingdomTiles.add((HexTile) reverseIdMap.get(tileId));
-			});
-			kingdomJson.remove(TILE_IDS_NAME);
-			kingdomJson.remove(ID_NAME);
-			kingdomJson.remove(PLAYER_ID_NAME);
-			Kingdom kingdom = json.fromJson(Kingdom.class, kingdomJson.toString());
-			kingdom.setPlayer((Player) reverseIdMap.get(playerId));
-			kingdom.setTiles(kingdomTiles);
-			reverseIdMap.put(id, kingdom);
-			result.getKingdoms().add(kingdom);
-		});
-		if (jsonData.has(HELD_OBJ_NAME)) {
-			JsonValue heldObjJson = jsonData.get(HELD_OBJ_NAME);
-			// replace short class name with full one
-			String shortClassName = heldObjJson.getString(CLASS_NAME);
-			heldObjJson.remove(CLASS_NAME);
-			heldObjJson.addChild(CLASS_NAME, new JsonValue(MAPOBJECTS_CLASS_BASE_NAME + shortClassName));
-			heldObjJson.remove(KINGDOM_FIELD_NAME);
-			// toString causes an error here... maybe because of the enum?
-			MapObject heldObject = json.fromJson(MapObject.class, heldObjJson.prettyPrint(OutputType.json, 1));
-			result.setHeldObject(heldObject);
-		}
-		result.setPlayerTurn(jsonData.getInt(PLAYER_TURN_NAME));
-		JsonValue botIntelligenceJson = jsonData.get(BOT_INTELLIGENCE_NAME);
-		result.setBotIntelligence(Intelligence.valueOf(botIntelligenceJson.asString()));
-		JsonValue seedJson = jsonData.get(SEED_NAME);
-		result.setSeed(seedJson.asLong());
-		JsonValue roundJson = jsonData.get(ROUND_NAME);
-		result.setRound(roundJson.asInt());
-		if (jsonData.has(WINNER_ID_NAME)) {
-			Integer winnerId = jsonData.getInt(WINNER_ID_NAME);
-			Player winner = (Player) reverseIdMap.get(winnerId);
-			result.setWinner(winner);
-		}
-		if (jsonData.has(ACTIVE_KINGDOM_ID_NAME)) {
-			Integer activeKingdomId = jsonData.getInt(ACTIVE_KINGDOM_ID_NAME);
-			Kingdom activeKingdom = (Kingdom) reverseIdMap.get(activeKingdomId);
-			result.setActiveKingdom(activeKingdom);
-		}
-		// add missing references
-		for (Kingdom kingdom : result.getKingdoms()) {
-			for (HexTile tile : kingdom.getTiles()) {
-				tile.setKingdom(kingdom);
+		}
+		json.endObject();
+		Player player = new Player(color, defeated, type);
+		register(objectsById, id, player);
+		return player;
+	}
+
+	private static Color readColor(JsonStreamReader json) throws IOException {
+		if (json.nextNull()) {
+			return null;
+		}
+		Color color = new Color();
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case "r":
+				color.r = json.nextFloat();
+				break;
+			case "g":
+				color.g = json.nextFloat();
+				break;
+			case "b":
+				color.b = json.nextFloat();
+				break;
+			case "a":
+				color.a = json.nextFloat();
+				break;
+			default:
+				json.skipValue();
+			}
+		}
+		json.endObject();
+		return color;
+	}
+
+	private static HexTile readTile(JsonStreamReader json, Map<Integer, Object> objectsById) throws IOException {
+		Integer id = null;
+		Player player = null;
+		Vector2 position = null;
+		MapObject content = null;
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case ID_NAME:
+				id = json.nextInt();
+				break;
+			case PLAYER_ID_NAME:
+				player = resolve(objectsById, json.nextInt(), Player.class);
+				break;
+			case POSITION_NAME:
+				position = readVector(json);
+				break;
+			case CONTENT_NAME:
+				content = readMapObject(json, objectsById);
+				break;
+			default:
+				json.skipValue();
+			}
+		}
+		json.endObject();
+		if (position == null) {
+			throw new IOException("Tile " + id + " has no position");
+		}
+		HexTile tile = new HexTile(player, position);
+		tile.setContent(content);
+		register(objectsById, id, tile);
+		return tile;
+	}
+
+	private static Vector2 readVector(JsonStreamReader json) throws IOException {
+		Vector2 vector = new Vector2();
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case "x":
+				vector.x = json.nextFloat();
+				break;
+			case "y":
+				vector.y = json.nextFloat();
+				break;
+			default:
+				json.skipValue();
+			}
+		}
+		json.endObject();
+		return vector;
+	}
+
+	/**
+	 * Reads a map object.
+	 *
+	 * @param json        reader positioned at the object
+	 * @param objectsById map to register the object's id in; null if it has none
+	 */
+	private static MapObject readMapObject(JsonStreamReader json, Map<Integer, Object> objectsById)
+			throws IOException {
+		if (json.nextNull()) {
+			return null;
+		}
+		Integer id = null;
+		String className = null;
+		boolean canAct = true;
+		UnitTypes unitType = null;
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case ID_NAME:
+				id = json.nextInt();
+				break;
+			case CLASS_NAME:
+				className = json.nextString();
+				break;
+			case CAN_ACT_NAME:
+				canAct = json.nextBoolean();
+				break;
+			case UNIT_TYPE_NAME:
+				unitType = parseEnum(UnitTypes.class, json.nextString());
+				break;
+			default:
+				// e.g. the kingdom that older versions saved with the held object
+				json.skipValue();
 			}
 		}
+		json.endObject();
+		MapObject result = createMapObject(className, canAct, unitType);
+		if (objectsById != null) {
+			register(objectsById, id, result);
+		}
 		return result;
 	}
 
+	private static MapObject createMapObject(String className, boolean canAct, UnitTypes unitType)
+			throws IOException {
+		if (className == null) {
+			throw new IOException("Map object without class");
+		}
+		switch (className) {
+		case "Unit":
+			if (unitType == null) {
+				throw new IOException("Unit without type");
+			}
+			Unit unit = new Unit(unitType);
+			unit.setCanAct(canAct);
+			return unit;
+		case "Capital":
+			return new Capital();
+		case "Castle":
+			return new Castle();
+		case "Tree":
+			return new Tree();
+		case "PalmTree":
+			return new PalmTree();
+		case "Gravestone":
+			return new Gravestone();
+		default:
+			throw new IOException("Unknown map object class " + className);
+		}
+	}
+
+	private static Kingdom readKingdom(JsonStreamReader json, Map<Integer, Object> objectsById) throws IOException {
+		Integer id = null;
+		Kingdom kingdom = new Kingdom();
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case ID_NAME:
+				id = json.nextInt();
+				break;
+			case PLAYER_ID_NAME:
+				kingdom.setPlayer(resolve(objectsById, json.nextInt(), Player.class));
+				break;
+			case SAVINGS_NAME:
+				kingdom.setSavings(json.nextInt());
+				break;
+			case WAS_ACTIVE_IN_CURRENT_TURN_NAME:
+				kingdom.setWasActiveInCurrentTurn(json.nextBoolean());
+				break;
+			case DONE_MOVING_NAME:
+				kingdom.setDoneMoving(json.nextBoolean());
+				break;
+			case TILE_IDS_NAME:
+				List<HexTile> tiles = new ArrayList<>();
+				json.beginArray();
+				while (json.hasNext()) {
+					HexTile tile = resolve(objectsById, json.nextInt(), HexTile.class);
+					tile.setKingdom(kingdom);
+					tiles.add(tile);
+				}
+				json.endArray();
+				kingdom.setTiles(tiles);
+				break;
+			default:
+				json.skipValue();
+			}
+		}
+		json.endObject();
+		register(objectsById, id, kingdom);
+		return kingdom;
+	}
+
+	private static void register(Map<Integer, Object> objectsById, Integer id, Object object) throws IOException {
+		if (id == null) {
+			throw new IOException(object.getClass().getSimpleName() + " without id");
+		}
+		objectsById.put(id, object);
+	}
+
+	private static <T> T resolve(Map<Integer, Object> objectsById, int id, Class<T> type) throws IOException {
+		Object object = objectsById.get(id);
+		if (!type.isInstance(object)) {
+			throw new IOException("Invalid " + type.getSimpleName() + " reference " + id);
+		}
+		return type.cast(object);
+	}
+
+	private static <T extends Enum<T>> T parseEnum(Class<T> type, String name) throws IOException {
+		try {
+			return Enum.valueOf(type, name);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw new IOException("Invalid " + type.getSimpleName() + " " + name, e);
+		}
+	}
+
 }
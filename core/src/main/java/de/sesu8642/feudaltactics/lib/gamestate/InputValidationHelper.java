@@ -2,6 +2,10 @@
 
 package de.sesu8642.feudaltactics.lib.gamestate;
 
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 
 import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
@@ -110,17 +114,7 @@ public class InputValidationHelper {
 		if (gameState.getActiveKingdom() != tile.getKingdom()) {
 			return false;
 		}
-		if (tile.getContent() != null && ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())
-				&& !ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
-			// non-unit on blocking object
-			return false;
-		}
-		if (tile.getContent() != null
-				&& !ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())) {
-			// not empty or blocking object
-			return false;
-		}
-		return true;
+		return canPlaceOn(gameState.getHeldObject(), tile.getContent());
 	}
 
 	/**
@@ -150,12 +144,7 @@ public class InputValidationHelper {
 		if (gameState.getActiveKingdom() != tile.getKingdom()) {
 			return false;
 		}
-		if (tile.getContent() != null
-				&& !ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())) {
-			// not empty or blocking object
-			return false;
-		}
-		return true;
+		return canPlaceUnitOn(tile.getContent());
 	}
 
 	/**
@@ -172,14 +161,7 @@ public class InputValidationHelper {
 			return false;
 		}
 		// first check whether buying is possible
-		Kingdom activeKingdom = gameState.getActiveKingdom();
-		if (activeKingdom == null) {
-			return false;
-		}
-		if (activeKingdom.getSavings() < Castle.COST) {
-			return false;
-		}
-		if (gameState.getHeldObject() != null) {
+		if (!canBuyCastle(gameState.getActiveKingdom(), gameState.getHeldObject())) {
 			return false;
 		}
 		// then check whether placing is possible
@@ -229,23 +211,13 @@ public class InputValidationHelper {
 		if (gameState.getActiveKingdom() != tile.getKingdom()) {
 			return false;
 		}
-		if (!ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+		if (!isUnit(gameState.getHeldObject())) {
 			return false;
 		}
-		if (!ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
-			return false;
-		}
-		if (((Unit) gameState.getHeldObject()).getUnitType() != UnitTypes.PEASANT
-				&& ((Unit) tile.getContent()).getUnitType() != UnitTypes.PEASANT) {
-			// not at least one peasant
+		if (!isUnit(tile.getContent())) {
 			return false;
 		}
-		if (((Unit) gameState.getHeldObject()).getUnitType() == UnitTypes.BARON
-				|| ((Unit) tile.getContent()).getUnitType() == UnitTypes.BARON) {
-			// cannot upgrade a baron
-			return false;
-		}
-		return true;
+		return isCombinable((Unit) gameState.getHeldObject(), (Unit) tile.getContent());
 	}
 
 	/**
@@ -266,39 +238,12 @@ public class InputValidationHelper {
 		if (gameState.getHeldObject() == null) {
 			return false;
 		}
-		if (tile.getPlayer() == player) {
-			return false;
-		}
-		if (!ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+		if (!isUnit(gameState.getHeldObject())) {
 			// not a unit
 			return false;
 		}
-		if (tile.getContent() != null && tile.getContent().getStrength() >= gameState.getHeldObject().getStrength()) {
-			// too strong object on the tile
-			return false;
-		}
-		boolean isNextoToOwnKingdom = false;
-		for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
-			if (isWater(neighborTile)) {
-				// skip water
-				continue;
-			}
-			// check if tile is next to own kingdom
-			if (neighborTile.getKingdom() == gameState.getActiveKingdom()) {
-				isNextoToOwnKingdom = true;
-			}
-			MapObject neighborContent = neighborTile.getContent();
-			// check if there is no stronger object next to it protecting it
-			if (tile.getKingdom() != null && neighborTile.getKingdom() == tile.getKingdom() && neighborContent != null
-					&& neighborContent.getStrength() >= gameState.getHeldObject().getStrength()) {
-				return false;
-			}
-		}
-		if (!isNextoToOwnKingdom) {
-			// not next to the unit's kingdom
-			return false;
-		}
-		return true;
+		return isConquerable(gameState.getMap(), tile, player, gameState.getActiveKingdom(),
+				gameState.getHeldObject().getStrength());
 	}
 
 	/**
@@ -327,28 +272,13 @@ public class InputValidationHelper {
 		if (!isCorrectPlayersTurn(gameState, player)) {
 			return false;
 		}
-		Kingdom activeKingdom = gameState.getActiveKingdom();
-		if (activeKingdom == null) {
-			return false;
-		}
-		int cost;
 		if (Unit.class.isAssignableFrom(targetClass)) {
-			cost = Unit.COST;
+			return canBuyUnit(gameState.getActiveKingdom(), gameState.getHeldObject());
 		} else if (Castle.class.isAssignableFrom(targetClass)) {
-			cost = Castle.COST;
+			return canBuyCastle(gameState.getActiveKingdom(), gameState.getHeldObject());
 		} else {
 			throw new IllegalStateException("Unexpected class to buy " + targetClass);
 		}
-		if (activeKingdom.getSavings() < cost) {
-			return false;
-		}
-		// allow upgrading a held unit
-		if (!(gameState.getHeldObject() == null || (Unit.class.isAssignableFrom(gameState.getHeldObject().getClass())
-				&& ((Unit) gameState.getHeldObject()).getStrength() < UnitTypes.strongest().strength()
-				&& Unit.class.isAssignableFrom(targetClass)))) {
-			return false;
-		}
-		return true;
 	}
 
 	/**
@@ -356,14 +286,132 @@ public class InputValidationHelper {
 	 * 
 	 * @param gameState     game state of the current game
 	 * @param player        player attempting the action
-	 * @param noOfAutoSaves number of available autosaves
+	 * @param noOfUndoSteps number of actions that can be undone
 	 * @return whether the action is allowed
 	 */
-	public static boolean checkUndoAction(GameState gameState, Player player, int noOfAutoSaves) {
+	public static boolean checkUndoAction(GameState gameState, Player player, int noOfUndoSteps) {
 		if (!isCorrectPlayersTurn(gameState, player)) {
 			return false;
 		}
-		return (noOfAutoSaves > 1);
+		return (noOfUndoSteps > 0);
+	}
+
+	/**
+	 * Checks whether the active kingdom can buy a unit. A held unit can be upgraded
+	 * unless it is the strongest one already.
+	 * 
+	 * @param activeKingdom active kingdom; may be null
+	 * @param heldObject    held object; may be null
+	 * @return whether a unit can be bought
+	 */
+	static boolean canBuyUnit(Kingdom activeKingdom, MapObject heldObject) {
+		if (activeKingdom == null || activeKingdom.getSavings() < Unit.COST) {
+			return false;
+		}
+		// allow upgrading a held unit
+		return heldObject == null
+				|| (isUnit(heldObject) && heldObject.getStrength() < UnitTypes.strongest().strength());
+	}
+
+	/**
+	 * Checks whether the active kingdom can buy a castle.
+	 * 
+	 * @param activeKingdom active kingdom; may be null
+	 * @param heldObject    held object; may be null
+	 * @return whether a castle can be bought
+	 */
+	static boolean canBuyCastle(Kingdom activeKingdom, MapObject heldObject) {
+		return activeKingdom != null && activeKingdom.getSavings() >= Castle.COST && heldObject == null;
+	}
+
+	/**
+	 * Checks whether an object can be placed on an own tile with the given
+	 * content. Only units can be placed on blocking objects.
+	 * 
+	 * @param heldObject object to place
+	 * @param content    content of the tile; may be null
+	 * @return whether the object can be placed
+	 */
+	static boolean canPlaceOn(MapObject heldObject, MapObject content) {
+		return content == null || (isBlocking(content) && isUnit(heldObject));
+	}
+
+	/**
+	 * Checks whether a unit can be placed on an own tile with the given content.
+	 * 
+	 * @param content content of the tile; may be null
+	 * @return whether a unit can be placed
+	 */
+	static boolean canPlaceUnitOn(MapObject content) {
+		return content == null || isBlocking(content);
+	}
+
+	/**
+	 * Checks whether two units can be combined. At least one of them must be a
+	 * peasant and a baron cannot be upgraded.
+	 * 
+	 * @param heldUnit held unit
+	 * @param unit     unit on the tile
+	 * @return whether the units can be combined
+	 */
+	static boolean isCombinable(Unit heldUnit, Unit unit) {
+		if (heldUnit.getUnitType() != UnitTypes.PEASANT && unit.getUnitType() != UnitTypes.PEASANT) {
+			// not at least one peasant
+			return false;
+		}
+		// cannot upgrade a baron
+		return heldUnit.getUnitType() != UnitTypes.BARON && unit.getUnitType() != UnitTypes.BARON;
+	}
+
+	/**
+	 * Checks whether a unit of the active kingdom can conquer a tile. Iterates the
+	 * neighbors by index so it does not allocate anything.
+	 * 
+	 * @param map               map of the game
+	 * @param tile              tile to conquer
+	 * @param player            player attempting the action
+	 * @param activeKingdom     kingdom the unit belongs to
+	 * @param attackingStrength strength of the unit
+	 * @return whether the tile can be conquered
+	 */
+	static boolean isConquerable(Map<Vector2, HexTile> map, HexTile tile, Player player, Kingdom activeKingdom,
+			int attackingStrength) {
+		if (tile.getPlayer() == player) {
+			return false;
+		}
+		if (tile.getContent() != null && tile.getContent().getStrength() >= attackingStrength) {
+			// too strong object on the tile
+			return false;
+		}
+		boolean isNextToOwnKingdom = false;
+		List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(map, tile);
+		for (int i = 0; i < neighborTiles.size(); i++) {
+			HexTile neighborTile = neighborTiles.get(i);
+			if (isWater(neighborTile)) {
+				// skip water
+				continue;
+			}
+			// check if tile is next to own kingdom
+			if (neighborTile.getKingdom() == activeKingdom) {
+				isNextToOwnKingdom = true;
+			}
+			MapObject neighborContent = neighborTile.getContent();
+			// check if there is no stronger object next to it protecting it
+			if (tile.getKingdom() != null && neighborTile.getKingdom() == tile.getKingdom() && neighborContent != null
+					&& neighborContent.getStrength() >= attackingStrength) {
+				return false;
+			}
+		}
+		// must be next to the unit's kingdom
+		return isNextToOwnKingdom;
+	}
+
+	static boolean isUnit(MapObject mapObject) {
+		return ClassReflection.isAssignableFrom(Unit.class, mapObject.getClass());
+	}
+
+	static boolean isBlocking(MapObject mapObject) {
+		return ClassReflection.isAssignableFrom(Blocking.class, mapObject.getClass());
 	}
 
 	private static boolean isWater(HexTile tile) {
@@ -0,0 +1,324 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull parser reading JSON token by token without building a tree first. The
+ * caller asks for the tokens it expects; anything else is reported as an
+ * {@link IOException} with the offset it was found at. The elements of objects
+ * and arrays are iterated with {@link #hasNext}. Not thread-safe.
+ */
+class JsonStreamReader {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int bufferPosition = 0;
+	private int bufferLimit = 0;
+
+	/** Number of characters consumed before the buffer. */
+	private long bufferOffset = 0;
+
+	/** Whether the next element in the current object or array needs a comma. */
+	private boolean needsComma = false;
+
+	private final StringBuilder token = new StringBuilder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reader reader to read from; does not need to be buffered
+	 */
+	JsonStreamReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	void beginObject() throws IOException {
+		expect('{');
+		needsComma = false;
+	}
+
+	void endObject() throws IOException {
+		expect('}');
+		needsComma = true;
+	}
+
+	void beginArray() throws IOException {
+		expect('[');
+		needsComma = false;
+	}
+
+	void endArray() throws IOException {
+		expect(']');
+		needsComma = true;
+	}
+
+	/**
+	 * Returns whether the current object or array has another element. Consumes
+	 * the comma in front of it.
+	 *
+	 * @return false if the end of the object or array is next
+	 * @throws IOException if reading fails
+	 */
+	boolean hasNext() throws IOException {
+		int c = peekNonWhitespace();
+		if (c == '}' || c == ']') {
+			return false;
+		}
+		if (needsComma) {
+			expect(',');
+			needsComma = false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the name of the next field of an object and the colon after it.
+	 *
+	 * @return name
+	 * @throws IOException if reading fails or the next token is not a name
+	 */
+	String nextName() throws IOException {
+		String name = readString();
+		expect(':');
+		needsComma = false;
+		return name;
+	}
+
+	/**
+	 * Reads a string value.
+	 *
+	 * @return string; null if the value is null
+	 * @throws IOException if reading fails or the next token is not a string
+	 */
+	String nextString() throws IOException {
+		if (nextNull()) {
+			return null;
+		}
+		String result = readString();
+		needsComma = true;
+		return result;
+	}
+
+	boolean nextBoolean() throws IOException {
+		String literal = readLiteral();
+		if ("true".equals(literal)) {
+			return true;
+		}
+		if ("false".equals(literal)) {
+			return false;
+		}
+		throw syntaxError("Expected a boolean but found " + literal);
+	}
+
+	long nextLong() throws IOException {
+		String number = readLiteral();
+		try {
+			return Long.parseLong(number);
+		} catch (NumberFormatException e) {
+			// whole numbers might have been written with a fraction or an exponent
+			double value = parseDouble(number);
+			if (value != (long) value) {
+				throw syntaxError("Expected a whole number but found " + number);
+			}
+			return (long) value;
+		}
+	}
+
+	int nextInt() throws IOException {
+		long value = nextLong();
+		if (value != (int) value) {
+			throw syntaxError("Number " + value + " is too large");
+		}
+		return (int) value;
+	}
+
+	float nextFloat() throws IOException {
+		// parsed as a double first like libGDX does, so that the results are the same
+		return (float) parseDouble(readLiteral());
+	}
+
+	/**
+	 * Consumes the next value if it is null.
+	 *
+	 * @return whether the value was null
+	 * @throws IOException if reading fails
+	 */
+	boolean nextNull() throws IOException {
+		if (peekNonWhitespace() != 'n') {
+			return false;
+		}
+		String literal = readLiteral();
+		if (!"null".equals(literal)) {
+			throw syntaxError("Expected null but found " + literal);
+		}
+		return true;
+	}
+
+	/** Skips the next value including everything nested in it. */
+	void skipValue() throws IOException {
+		int c = peekNonWhitespace();
+		if (c == '{') {
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+		} else if (c == '[') {
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+		} else if (c == '"') {
+			nextString();
+		} else {
+			readLiteral();
+		}
+	}
+
+	/**
+	 * Checks that nothing but whitespace follows.
+	 *
+	 * @throws IOException if reading fails or there is more
+	 */
+	void endDocument() throws IOException {
+		if (peekNonWhitespace() >= 0) {
+			throw syntaxError("Unexpected content after the end");
+		}
+	}
+
+	private String readString() throws IOException {
+		expect('"');
+		token.setLength(0);
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return token.toString();
+			}
+			if (c < 0) {
+				throw syntaxError("Unterminated string");
+			}
+			if (c == '\\') {
+				token.append(readEscapedChar());
+			} else {
+				token.append((char) c);
+			}
+		}
+	}
+
+	private char readEscapedChar() throws IOException {
+		int c = read();
+		switch (c) {
+		case '"':
+		case '\\':
+		case '/':
+			return (char) c;
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			int result = 0;
+			for (int i = 0; i < 4; i++) {
+				int digit = Character.digit(read(), 16);
+				if (digit < 0) {
+					throw syntaxError("Invalid unicode escape");
+				}
+				result = result << 4 | digit;
+			}
+			return (char) result;
+		default:
+			throw syntaxError("Invalid escape character");
+		}
+	}
+
+	/** Reads a number, true, false or null. */
+	private String readLiteral() throws IOException {
+		peekNonWhitespace();
+		token.setLength(0);
+		while (true) {
+			int c = peek();
+			if (c < 0 || c == ',' || c == '}' || c == ']' || c == ':' || c == '"' || c == '{' || c == '['
+					|| Character.isWhitespace(c)) {
+				break;
+			}
+			token.append((char) read());
+		}
+		if (token.length() == 0) {
+			throw syntaxError("Expected a value");
+		}
+		needsComma = true;
+		return token.toString();
+	}
+
+	private double parseDouble(String number) throws IOException {
+		try {
+			return Double.parseDouble(number);
+		} catch (NumberFormatException e) {
+			throw syntaxError("Expected a number but found " + number);
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		if (peekNonWhitespace() != expected) {
+			throw syntaxError("Expected '" + expected + "'");
+		}
+		bufferPosition++;
+	}
+
+	private int peekNonWhitespace() throws IOException {
+		int c = peek();
+		while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+			bufferPosition++;
+			c = peek();
+		}
+		return c;
+	}
+
+	private int peek() throws IOException {
+		if (bufferPosition == bufferLimit && !fillBuffer()) {
+			return -1;
+		}
+		return buffer[bufferPosition];
+	}
+
+	private int read() throws IOException {
+		int c = peek();
+		if (c >= 0) {
+			bufferPosition++;
+		}
+		return c;
+	}
+
+	private boolean fillBuffer() throws IOException {
+		bufferOffset += bufferLimit;
+		bufferPosition = 0;
+		bufferLimit = 0;
+		int count;
+		do {
+			count = reader.read(buffer);
+		} while (count == 0);
+		if (count < 0) {
+			return false;
+		}
+		bufferLimit = count;
+		return true;
+	}
+
+	private IOException syntaxError(String message) {
+		return new IOException(message + " at offset " + (bufferOffset + bufferPosition));
+	}
+
+}
@@ -0,0 +1,157 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON token by token without building a tree first. The output is
+ * formatted exactly like the libGDX JsonWriter does with the json output type
+ * so that the saves stay byte-compatible with the ones written by older
+ * versions: no whitespace, and whole numbers are written without a fraction.
+ * Not thread-safe.
+ */
+class JsonStreamWriter {
+
+	private final Writer writer;
+
+	/** Whether the next value in the current object or array needs a comma. */
+	private boolean needsComma = false;
+
+	/** Whether a name was written that still needs its value. */
+	private boolean afterName = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param writer writer to write to; should be buffered
+	 */
+	JsonStreamWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	JsonStreamWriter objectStart() throws IOException {
+		beforeValue();
+		writer.write('{');
+		needsComma = false;
+		return this;
+	}
+
+	JsonStreamWriter objectStart(String name) throws IOException {
+		return name(name).objectStart();
+	}
+
+	JsonStreamWriter objectEnd() throws IOException {
+		writer.write('}');
+		needsComma = true;
+		return this;
+	}
+
+	JsonStreamWriter arrayStart(String name) throws IOException {
+		name(name);
+		beforeValue();
+		writer.write('[');
+		needsComma = false;
+		return this;
+	}
+
+	JsonStreamWriter arrayEnd() throws IOException {
+		writer.write(']');
+		needsComma = true;
+		return this;
+	}
+
+	JsonStreamWriter name(String name) throws IOException {
+		if (needsComma) {
+			writer.write(',');
+		}
+		writer.write(quote(name));
+		writer.write(':');
+		afterName = true;
+		return this;
+	}
+
+	JsonStreamWriter value(String value) throws IOException {
+		beforeValue();
+		writer.write(value == null ? "null" : quote(value));
+		needsComma = true;
+		return this;
+	}
+
+	JsonStreamWriter value(long value) throws IOException {
+		beforeValue();
+		writer.write(Long.toString(value));
+		needsComma = true;
+		return this;
+	}
+
+	JsonStreamWriter value(float value) throws IOException {
+		beforeValue();
+		long longValue = (long) value;
+		// like libGDX, whole numbers are written without a fraction
+		writer.write((double) value == longValue ? Long.toString(longValue) : Float.toString(value));
+		needsComma = true;
+		return this;
+	}
+
+	JsonStreamWriter value(boolean value) throws IOException {
+		beforeValue();
+		writer.write(value ? "true" : "false");
+		needsComma = true;
+		return this;
+	}
+
+	JsonStreamWriter value(String name, String value) throws IOException {
+		return name(name).value(value);
+	}
+
+	JsonStreamWriter value(String name, long value) throws IOException {
+		return name(name).value(value);
+	}
+
+	JsonStreamWriter value(String name, float value) throws IOException {
+		return name(name).value(value);
+	}
+
+	JsonStreamWriter value(String name, boolean value) throws IOException {
+		return name(name).value(value);
+	}
+
+	private void beforeValue() throws IOException {
+		if (afterName) {
+			afterName = false;
+		} else if (needsComma) {
+			writer.write(',');
+		}
+	}
+
+	private static String quote(String value) {
+		StringBuilder result = new StringBuilder(value.length() + 2);
+		result.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				result.append("\\\\");
+				break;
+			case '\r':
+				result.append("\\r");
+				break;
+			case '\n':
+				result.append("\\n");
+				break;
+			case '\t':
+				result.append("\\t");
+				break;
+			case '"':
+				result.append("\\\"");
+				break;
+			default:
+				result.append(c);
+			}
+		}
+		return result.append('"').toString();
+	}
+
+}
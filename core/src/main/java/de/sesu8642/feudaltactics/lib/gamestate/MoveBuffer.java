@@ -0,0 +1,93 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of encoded moves. Only allocates when it needs to grow, so
+ * the same instance can be filled over and over again without creating
+ * garbage. Not thread-safe.
+ */
+public class MoveBuffer {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private int[] moves;
+	private int size = 0;
+
+	public MoveBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialCapacity number of moves that fit in without growing
+	 */
+	public MoveBuffer(int initialCapacity) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("Initial capacity must be positive but was " + initialCapacity);
+		}
+		moves = new int[initialCapacity];
+	}
+
+	/**
+	 * Adds a move.
+	 *
+	 * @param move encoded move
+	 */
+	public void add(int move) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, moves.length * 2);
+		}
+		moves[size++] = move;
+	}
+
+	/**
+	 * Returns the move at the given position.
+	 *
+	 * @param index position of the move
+	 * @return encoded move
+	 */
+	public int get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size);
+		}
+		return moves[index];
+	}
+
+	/**
+	 * Checks whether the buffer contains a move.
+	 *
+	 * @param move encoded move
+	 * @return whether the move is contained
+	 */
+	public boolean contains(int move) {
+		for (int i = 0; i < size; i++) {
+			if (moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all the moves but keeps the allocated capacity. */
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "MoveBuffer [moves=" + Arrays.toString(Arrays.copyOf(moves, size)) + "]";
+	}
+
+}
@@ -0,0 +1,294 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Enumerates all the moves the active player is allowed to make according to
+ * the rules in {@link InputValidationHelper}. Every generated move passes the
+ * matching validator and every move that passes a validator is generated.
+ * Changing the active kingdom is not considered a move.
+ *
+ * <p>
+ * Moves are encoded as ints containing the {@link MoveType} and the index of
+ * the target tile in the iteration order of the map. Generating moves does not
+ * allocate anything unless the map changed since the last call or the buffer
+ * needs to grow. Not thread-safe; every thread needs its own instance.
+ * </p>
+ */
+public class MoveGenerator {
+
+	/** Value returned by {@link #getTileIndex(int)} for moves without a tile. */
+	public static final int NO_TILE = -1;
+
+	private static final int TYPE_BITS = 4;
+	private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+	private static final MoveType[] MOVE_TYPES = MoveType.values();
+
+	private Map<Vector2, HexTile> indexedMap;
+	private HexTile[] tiles = new HexTile[0];
+	private final Map<HexTile, Integer> tileIndices = new IdentityHashMap<>();
+	/** Marks the tiles that were already checked for conquering in this call. */
+	private int[] conquerCheckMarks = new int[0];
+	private int conquerCheckMark = 0;
+	private int[] conquerableTileIndices = new int[0];
+
+	/** Type of a move. */
+	public enum MoveType {
+		PICK_UP(true), PLACE_OWN(true), COMBINE_UNITS(true), CONQUER(true), BUY_PEASANT(false), BUY_CASTLE(false),
+		BUY_AND_PLACE_PEASANT(true), BUY_AND_PLACE_CASTLE(true), END_TURN(false);
+
+		private final boolean targetingTile;
+
+		private MoveType(boolean targetingTile) {
+			this.targetingTile = targetingTile;
+		}
+
+		public boolean isTargetingTile() {
+			return targetingTile;
+		}
+	}
+
+	/**
+	 * Encodes a move.
+	 *
+	 * @param moveType  type of the move
+	 * @param tileIndex index of the target tile in the iteration order of the map;
+	 *                  {@link #NO_TILE} for moves without a tile
+	 * @return encoded move
+	 */
+	public static int encodeMove(MoveType moveType, int tileIndex) {
+		if (moveType.isTargetingTile() == (tileIndex == NO_TILE) || tileIndex < NO_TILE) {
+			throw new IllegalArgumentException("Invalid tile index " + tileIndex + " for move type " + moveType);
+		}
+		return ((tileIndex + 1) << TYPE_BITS) | moveType.ordinal();
+	}
+
+	/**
+	 * Decodes the type of a move.
+	 *
+	 * @param move encoded move
+	 * @return type of the move
+	 */
+	public static MoveType getMoveType(int move) {
+		return MOVE_TYPES[move & TYPE_MASK];
+	}
+
+	/**
+	 * Decodes the target tile index of a move.
+	 *
+	 * @param move encoded move
+	 * @return index of the target tile in the iteration order of the map or
+	 *         {@link #NO_TILE}
+	 */
+	public static int getTileIndex(int move) {
+		return (move >>> TYPE_BITS) - 1;
+	}
+
+	/**
+	 * Returns the target tile of a move.
+	 *
+	 * @param gameState game state the move was generated for
+	 * @param move      encoded move
+	 * @return target tile or null for moves without a tile
+	 */
+	public HexTile getTile(GameState gameState, int move) {
+		int tileIndex = getTileIndex(move);
+		if (tileIndex == NO_TILE) {
+			return null;
+		}
+		ensureIndexed(gameState.getMap());
+		return tiles[tileIndex];
+	}
+
+	/**
+	 * Fills the buffer with all the legal moves of the active player. The buffer is
+	 * cleared first. The moves on the own tiles come first, ordered by tile and
+	 * move type, followed by the conquer moves ordered by tile and the moves
+	 * without a tile.
+	 *
+	 * @param gameState game state to generate the moves for; is not changed
+	 * @param buffer    buffer to put the moves in
+	 */
+	public void generateMoves(GameState gameState, MoveBuffer buffer) {
+		buffer.clear();
+		Map<Vector2, HexTile> map = gameState.getMap();
+		ensureIndexed(map);
+		Player player = gameState.getActivePlayer();
+		Kingdom activeKingdom = gameState.getActiveKingdom();
+		MapObject heldObject = gameState.getHeldObject();
+		boolean isHoldingUnit = heldObject != null && InputValidationHelper.isUnit(heldObject);
+		boolean canBuyUnit = InputValidationHelper.canBuyUnit(activeKingdom, heldObject);
+		boolean canBuyCastle = InputValidationHelper.canBuyCastle(activeKingdom, heldObject);
+
+		for (int i = 0; i < tiles.length; i++) {
+			HexTile tile = tiles[i];
+			MapObject content = tile.getContent();
+			if (tile.getPlayer() != player) {
+				continue;
+			}
+			if (heldObject == null && content != null && InputValidationHelper.isUnit(content)
+					&& ((Unit) content).isCanAct()) {
+				buffer.add(encodeMove(MoveType.PICK_UP, i));
+			}
+			if (tile.getKingdom() == null || tile.getKingdom() != activeKingdom) {
+				continue;
+			}
+			if (heldObject != null) {
+				if (InputValidationHelper.canPlaceOn(heldObject, content)) {
+					buffer.add(encodeMove(MoveType.PLACE_OWN, i));
+				}
+				if (content != null && isHoldingUnit && InputValidationHelper.isUnit(content)
+						&& InputValidationHelper.isCombinable((Unit) heldObject, (Unit) content)) {
+					buffer.add(encodeMove(MoveType.COMBINE_UNITS, i));
+				}
+			}
+			if (canBuyUnit && InputValidationHelper.canPlaceUnitOn(content)) {
+				buffer.add(encodeMove(MoveType.BUY_AND_PLACE_PEASANT, i));
+			}
+			if (canBuyCastle && content == null) {
+				buffer.add(encodeMove(MoveType.BUY_AND_PLACE_CASTLE, i));
+			}
+		}
+
+		if (isHoldingUnit) {
+			generateConquerMoves(map, player, activeKingdom, heldObject.getStrength(), buffer);
+		}
+		if (canBuyUnit) {
+			buffer.add(encodeMove(MoveType.BUY_PEASANT, NO_TILE));
+		}
+		if (canBuyCastle) {
+			buffer.add(encodeMove(MoveType.BUY_CASTLE, NO_TILE));
+		}
+		if (heldObject == null) {
+			buffer.add(encodeMove(MoveType.END_TURN, NO_TILE));
+		}
+	}
+
+	private void generateConquerMoves(Map<Vector2, HexTile> map, Player player, Kingdom activeKingdom,
+			int attackingStrength, MoveBuffer buffer) {
+		if (activeKingdom == null) {
+			// the validation treats tiles without kingdom like the active kingdom then
+			for (int i = 0; i < tiles.length; i++) {
+				if (InputValidationHelper.isConquerable(map, tiles[i], player, activeKingdom, attackingStrength)) {
+					buffer.add(encodeMove(MoveType.CONQUER, i));
+				}
+			}
+			return;
+		}
+		// only the tiles next to the active kingdom can be conquered
+		conquerCheckMark++;
+		if (conquerCheckMark == Integer.MAX_VALUE) {
+			Arrays.fill(conquerCheckMarks, 0);
+			conquerCheckMark = 1;
+		}
+		int conquerableTileCount = 0;
+		List<HexTile> kingdomTiles = activeKingdom.getTiles();
+		for (int i = 0; i < kingdomTiles.size(); i++) {
+			List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(map, kingdomTiles.get(i));
+			for (int j = 0; j < neighborTiles.size(); j++) {
+				HexTile neighborTile = neighborTiles.get(j);
+				if (neighborTile == null || neighborTile.getPlayer() == player) {
+					continue;
+				}
+				int tileIndex = tileIndices.get(neighborTile);
+				if (conquerCheckMarks[tileIndex] == conquerCheckMark) {
+					continue;
+				}
+				conquerCheckMarks[tileIndex] = conquerCheckMark;
+				if (InputValidationHelper.isConquerable(map, neighborTile, player, activeKingdom, attackingStrength)) {
+					conquerableTileIndices[conquerableTileCount++] = tileIndex;
+				}
+			}
+		}
+		Arrays.sort(conquerableTileIndices, 0, conquerableTileCount);
+		for (int i = 0; i < conquerableTileCount; i++) {
+			buffer.add(encodeMove(MoveType.CONQUER, conquerableTileIndices[i]));
+		}
+	}
+
+	/**
+	 * Applies a move the same way the game controller does. The move is not
+	 * validated, so it must have been generated for the given game state.
+	 *
+	 * @param gameState game state to act on
+	 * @param move      encoded move
+	 */
+	public void applyMove(GameState gameState, int move) {
+		applyMove(gameState, move, null);
+	}
+
+	/**
+	 * Applies a move the same way the game controller does and records the changes
+	 * so they can be undone. The move is not validated, so it must have been
+	 * generated for the given game state.
+	 *
+	 * @param gameState  game state to act on
+	 * @param move       encoded move
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public void applyMove(GameState gameState, int move, UndoRecord undoRecord) {
+		HexTile tile = getTile(gameState, move);
+		MoveType moveType = getMoveType(move);
+		switch (moveType) {
+		case PICK_UP:
+			GameStateHelper.pickupObject(gameState, tile, undoRecord);
+			break;
+		case PLACE_OWN:
+			GameStateHelper.placeOwn(gameState, tile, undoRecord);
+			break;
+		case COMBINE_UNITS:
+			GameStateHelper.combineUnits(gameState, tile, undoRecord);
+			break;
+		case CONQUER:
+			GameStateHelper.conquer(gameState, tile, undoRecord);
+			break;
+		case BUY_PEASANT:
+			GameStateHelper.buyPeasant(gameState, undoRecord);
+			break;
+		case BUY_CASTLE:
+			GameStateHelper.buyCastle(gameState, undoRecord);
+			break;
+		case BUY_AND_PLACE_PEASANT:
+			GameStateHelper.buyPeasant(gameState, undoRecord);
+			GameStateHelper.placeOwn(gameState, tile, undoRecord);
+			break;
+		case BUY_AND_PLACE_CASTLE:
+			GameStateHelper.buyCastle(gameState, undoRecord);
+			GameStateHelper.placeOwn(gameState, tile, undoRecord);
+			break;
+		case END_TURN:
+			GameStateHelper.endTurn(gameState, undoRecord);
+			break;
+		default:
+			throw new IllegalStateException("Unknown move type " + moveType);
+		}
+	}
+
+	/**
+	 * Builds the tile index if the map is not the one that was indexed before or
+	 * tiles were added or removed.
+	 */
+	private void ensureIndexed(Map<Vector2, HexTile> map) {
+		if (map == indexedMap && map.size() == tiles.length) {
+			return;
+		}
+		tiles = map.values().toArray(new HexTile[0]);
+		indexedMap = map;
+		tileIndices.clear();
+		for (int i = 0; i < tiles.length; i++) {
+			tileIndices.put(tiles[i], i);
+		}
+		conquerCheckMarks = new int[tiles.length];
+		conquerCheckMark = 0;
+		conquerableTileIndices = new int[tiles.length];
+	}
+
+}
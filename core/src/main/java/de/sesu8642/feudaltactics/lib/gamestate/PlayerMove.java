@@ -0,0 +1,202 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * A single action of a player that can be recorded and applied to a game state
+ * again. The target tile is referenced by its position, so a move is only a few
+ * bytes no matter how big the map is. Applying the moves in the same order to
+ * the same game state always leads to the same result. Immutable.
+ */
+public class PlayerMove {
+
+	/** Type of a player move. */
+	public enum Type {
+		ACTIVATE_KINGDOM(true), PICK_UP(true), PLACE_OWN(true), COMBINE_UNITS(true), CONQUER(true),
+		BUY_PEASANT(false), BUY_CASTLE(false);
+
+		private final boolean targetingTile;
+
+		private Type(boolean targetingTile) {
+			this.targetingTile = targetingTile;
+		}
+
+		public boolean isTargetingTile() {
+			return targetingTile;
+		}
+	}
+
+	private static final Type[] TYPES = Type.values();
+
+	private final Type type;
+	private final int x;
+	private final int y;
+
+	private PlayerMove(Type type, int x, int y) {
+		this.type = type;
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Creates a move targeting a tile.
+	 *
+	 * @param type type of the move; must target a tile
+	 * @param tile target tile
+	 * @return move
+	 */
+	public static PlayerMove of(Type type, HexTile tile) {
+		if (!type.isTargetingTile()) {
+			throw new IllegalArgumentException("Move type " + type + " does not target a tile");
+		}
+		return new PlayerMove(type, (int) tile.getPosition().x, (int) tile.getPosition().y);
+	}
+
+	/**
+	 * Creates a move not targeting a tile.
+	 *
+	 * @param type type of the move; must not target a tile
+	 * @return move
+	 */
+	public static PlayerMove of(Type type) {
+		if (type.isTargetingTile()) {
+			throw new IllegalArgumentException("Move type " + type + " needs a target tile");
+		}
+		return new PlayerMove(type, 0, 0);
+	}
+
+	/**
+	 * Creates a move activating a kingdom.
+	 *
+	 * @param kingdom kingdom to activate
+	 * @return move referencing the first tile of the kingdom
+	 */
+	public static PlayerMove activateKingdom(Kingdom kingdom) {
+		return of(Type.ACTIVATE_KINGDOM, kingdom.getTiles().get(0));
+	}
+
+	/**
+	 * Applies this move to a game state using the {@link GameStateHelper}.
+	 *
+	 * @param gameState game state to change
+	 */
+	public void applyTo(GameState gameState) {
+		applyTo(gameState, null);
+	}
+
+	/**
+	 * Applies this move to a game state using the {@link GameStateHelper} and
+	 * records the changes so they can be undone.
+	 *
+	 * @param gameState  game state to change
+	 * @param undoRecord record to store the previous values in; null if the changes
+	 *                   don't need to be undone
+	 */
+	public void applyTo(GameState gameState, UndoRecord undoRecord) {
+		HexTile tile = null;
+		if (type.isTargetingTile()) {
+			tile = gameState.getMap().get(new Vector2(x, y));
+			if (tile == null) {
+				throw new IllegalArgumentException("There is no tile at " + x + ", " + y + " for " + this);
+			}
+		}
+		switch (type) {
+		case ACTIVATE_KINGDOM:
+			GameStateHelper.activateKingdom(gameState, tile.getKingdom(), undoRecord);
+			break;
+		case PICK_UP:
+			GameStateHelper.pickupObject(gameState, tile, undoRecord);
+			break;
+		case PLACE_OWN:
+			GameStateHelper.placeOwn(gameState, tile, undoRecord);
+			break;
+		case COMBINE_UNITS:
+			GameStateHelper.combineUnits(gameState, tile, undoRecord);
+			break;
+		case CONQUER:
+			GameStateHelper.conquer(gameState, tile, undoRecord);
+			break;
+		case BUY_PEASANT:
+			GameStateHelper.buyPeasant(gameState, undoRecord);
+			break;
+		case BUY_CASTLE:
+			GameStateHelper.buyCastle(gameState, undoRecord);
+			break;
+		default:
+			throw new AssertionError("Unhandled move type " + type);
+		}
+	}
+
+	/**
+	 * Writes this move in a compact binary form.
+	 *
+	 * @param out stream to write to
+	 * @throws IOException if writing to the stream fails
+	 */
+	public void write(OutputStream out) throws IOException {
+		GameStateBinarySerializer.writeVarInt(out, type.ordinal());
+		if (type.isTargetingTile()) {
+			GameStateBinarySerializer.writeSignedVarInt(out, x);
+			GameStateBinarySerializer.writeSignedVarInt(out, y);
+		}
+	}
+
+	/**
+	 * Reads a move written by {@link #write}.
+	 *
+	 * @param in stream to read from
+	 * @return read move
+	 * @throws IOException if reading from the stream fails or the data is not a
+	 *                     valid move
+	 */
+	public static PlayerMove read(InputStream in) throws IOException {
+		int ordinal = GameStateBinarySerializer.readVarInt(in);
+		if (ordinal < 0 || ordinal >= TYPES.length) {
+			throw new IOException("Invalid move type " + ordinal);
+		}
+		Type type = TYPES[ordinal];
+		if (!type.isTargetingTile()) {
+			return new PlayerMove(type, 0, 0);
+		}
+		int x = GameStateBinarySerializer.readSignedVarInt(in);
+		int y = GameStateBinarySerializer.readSignedVarInt(in);
+		return new PlayerMove(type, x, y);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type.toString(), x, y);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		PlayerMove other = (PlayerMove) obj;
+		return type == other.type && x == other.x && y == other.y;
+	}
+
+	@Override
+	public String toString() {
+		if (type.isTargetingTile()) {
+			return "PlayerMove [type=" + type + ", x=" + x + ", y=" + y + "]";
+		}
+		return "PlayerMove [type=" + type + "]";
+	}
+
+}
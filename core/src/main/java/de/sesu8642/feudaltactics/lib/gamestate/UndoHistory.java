@@ -0,0 +1,84 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+/**
+ * Bounded history of {@link UndoRecord}s for undoing the latest actions one by
+ * one. The records are kept in a ring: when it is full, recording another
+ * action drops the oldest one. Undoing an action only restores what the action
+ * changed, so it takes time proportional to the number of changed tiles and
+ * not to the map size. The records are reused, so a warmed up history does not
+ * allocate anything. Not thread-safe.
+ */
+public class UndoHistory {
+
+	private final UndoRecord[] records;
+
+	/** Index of the newest record. */
+	private int newestIndex = -1;
+	private int size = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity maximum number of actions that can be undone
+	 */
+	public UndoHistory(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+		records = new UndoRecord[capacity];
+		for (int i = 0; i < capacity; i++) {
+			records[i] = new UndoRecord();
+		}
+	}
+
+	/**
+	 * Returns an empty record for the next action. The record must be filled
+	 * right away by passing it to the {@link GameStateHelper} method doing the
+	 * action.
+	 *
+	 * @return record for the action
+	 */
+	public UndoRecord startRecording() {
+		newestIndex = (newestIndex + 1) % records.length;
+		if (size < records.length) {
+			size++;
+		}
+		// the oldest action is dropped if the history is full
+		records[newestIndex].clear();
+		return records[newestIndex];
+	}
+
+	/**
+	 * Reverts the newest action.
+	 */
+	public void undo() {
+		if (size == 0) {
+			throw new IllegalStateException("There is no action to undo.");
+		}
+		records[newestIndex].undo();
+		newestIndex = (newestIndex - 1 + records.length) % records.length;
+		size--;
+	}
+
+	/**
+	 * Forgets all the actions, e.g. because the turn ended.
+	 */
+	public void clear() {
+		for (UndoRecord undoRecord : records) {
+			undoRecord.clear();
+		}
+		newestIndex = -1;
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return records.length;
+	}
+
+}
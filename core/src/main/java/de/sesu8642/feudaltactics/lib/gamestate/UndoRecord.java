@@ -0,0 +1,351 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+
+/**
+ * Remembers the previous values of everything a game state mutation changes,
+ * so the mutation can be reverted without copying the whole game state. Filled
+ * by the overloads of the {@link GameStateHelper} methods that accept a record.
+ * Objects created by the mutation are simply dropped when undoing. Can be
+ * reused after undoing or clearing it; the entries are pooled so a warmed up
+ * record does not allocate anything. Not thread-safe.
+ */
+public class UndoRecord {
+
+	private GameState gameState;
+	private final GameStateEntry gameStateEntry = new GameStateEntry();
+
+	private final List<TileEntry> tileEntries = new ArrayList<>();
+	private int tileEntryCount = 0;
+	private final List<KingdomEntry> kingdomEntries = new ArrayList<>();
+	private int kingdomEntryCount = 0;
+	private final List<UnitEntry> unitEntries = new ArrayList<>();
+	private int unitEntryCount = 0;
+	private final List<PlayerEntry> playerEntries = new ArrayList<>();
+	private int playerEntryCount = 0;
+
+	/**
+	 * Records everything that can be changed in the game state. This is needed for
+	 * mutations that do not go through the {@link GameStateHelper} methods. The
+	 * cost is linear in the map size but nothing is copied except references and
+	 * primitive values.
+	 *
+	 * @param gameState game state that is about to be changed
+	 */
+	public void recordFullState(GameState gameState) {
+		recordGameState(gameState);
+		for (HexTile tile : gameState.getMap().values()) {
+			recordTile(tile);
+			if (tile.getContent() != null
+					&& ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+				recordUnit((Unit) tile.getContent());
+			}
+		}
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			recordKingdom(kingdom);
+		}
+		for (Player player : gameState.getPlayers()) {
+			recordPlayer(player);
+		}
+	}
+
+	/**
+	 * Records everything the moves of a kingdom can change except for conquering,
+	 * which the {@link GameStateHelper#conquer(GameState, HexTile, UndoRecord)}
+	 * overload records: the values stored directly in the game state, the
+	 * kingdom, its tiles and the units on them. The cost is linear in the size of
+	 * the kingdom.
+	 *
+	 * @param gameState game state that is about to be changed
+	 * @param kingdom   kingdom that is about to move
+	 */
+	public void recordKingdomMove(GameState gameState, Kingdom kingdom) {
+		recordGameState(gameState);
+		recordKingdomAndTiles(kingdom);
+		for (HexTile tile : kingdom.getTiles()) {
+			if (tile.getContent() != null
+					&& ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+				recordUnit((Unit) tile.getContent());
+			}
+		}
+	}
+
+	/**
+	 * Takes over the changes of a record that was started after this one, e.g.
+	 * one that was kept separately to be able to revert them on their own. The
+	 * other record is cleared.
+	 *
+	 * @param laterRecord record of changes made after the ones in this record
+	 */
+	public void addAll(UndoRecord laterRecord) {
+		if (laterRecord.gameState != null) {
+			if (gameState == null) {
+				gameState = laterRecord.gameState;
+				GameStateEntry laterEntry = laterRecord.gameStateEntry;
+				gameStateEntry.winner = laterEntry.winner;
+				gameStateEntry.playerTurn = laterEntry.playerTurn;
+				gameStateEntry.round = laterEntry.round;
+				gameStateEntry.randomState = laterEntry.randomState;
+				gameStateEntry.activeKingdom = laterEntry.activeKingdom;
+				gameStateEntry.heldObject = laterEntry.heldObject;
+				gameStateEntry.kingdoms.addAll(laterEntry.kingdoms);
+			} else if (gameState != laterRecord.gameState) {
+				throw new IllegalStateException("The record already contains changes of another game state.");
+			}
+			// otherwise the values recorded here are older
+		}
+		for (int i = 0; i < laterRecord.tileEntryCount; i++) {
+			TileEntry laterEntry = laterRecord.tileEntries.get(i);
+			TileEntry entry = nextTileEntry();
+			entry.tile = laterEntry.tile;
+			entry.content = laterEntry.content;
+			entry.kingdom = laterEntry.kingdom;
+			entry.player = laterEntry.player;
+		}
+		for (int i = 0; i < laterRecord.kingdomEntryCount; i++) {
+			KingdomEntry laterEntry = laterRecord.kingdomEntries.get(i);
+			KingdomEntry entry = nextKingdomEntry();
+			entry.kingdom = laterEntry.kingdom;
+			entry.tileList = laterEntry.tileList;
+			entry.tiles.addAll(laterEntry.tiles);
+			entry.savings = laterEntry.savings;
+			entry.doneMoving = laterEntry.doneMoving;
+			entry.wasActiveInCurrentTurn = laterEntry.wasActiveInCurrentTurn;
+		}
+		for (int i = 0; i < laterRecord.unitEntryCount; i++) {
+			UnitEntry laterEntry = laterRecord.unitEntries.get(i);
+			UnitEntry entry = nextUnitEntry();
+			entry.unit = laterEntry.unit;
+			entry.canAct = laterEntry.canAct;
+		}
+		for (int i = 0; i < laterRecord.playerEntryCount; i++) {
+			PlayerEntry laterEntry = laterRecord.playerEntries.get(i);
+			PlayerEntry entry = nextPlayerEntry();
+			entry.player = laterEntry.player;
+			entry.defeated = laterEntry.defeated;
+		}
+		laterRecord.clear();
+	}
+
+	/**
+	 * Reverts all the recorded changes and clears the record afterwards.
+	 */
+	public void undo() {
+		// restore in reverse order so the oldest value of every object wins
+		for (int i = unitEntryCount - 1; i >= 0; i--) {
+			UnitEntry entry = unitEntries.get(i);
+			entry.unit.setCanAct(entry.canAct);
+		}
+		for (int i = tileEntryCount - 1; i >= 0; i--) {
+			TileEntry entry = tileEntries.get(i);
+			entry.tile.setContent(entry.content);
+			entry.tile.setKingdom(entry.kingdom);
+			entry.tile.setPlayer(entry.player);
+		}
+		for (int i = kingdomEntryCount - 1; i >= 0; i--) {
+			KingdomEntry entry = kingdomEntries.get(i);
+			entry.tileList.clear();
+			entry.tileList.addAll(entry.tiles);
+			entry.kingdom.setTiles(entry.tileList);
+			entry.kingdom.setSavings(entry.savings);
+			entry.kingdom.setDoneMoving(entry.doneMoving);
+			entry.kingdom.setWasActiveInCurrentTurn(entry.wasActiveInCurrentTurn);
+		}
+		for (int i = playerEntryCount - 1; i >= 0; i--) {
+			PlayerEntry entry = playerEntries.get(i);
+			entry.player.setDefeated(entry.defeated);
+		}
+		if (gameState != null) {
+			gameState.setWinner(gameStateEntry.winner);
+			gameState.setPlayerTurn(gameStateEntry.playerTurn);
+			gameState.setRound(gameStateEntry.round);
+			gameState.getRandom().setState(gameStateEntry.randomState);
+			gameState.setActiveKingdom(gameStateEntry.activeKingdom);
+			gameState.setHeldObject(gameStateEntry.heldObject);
+			gameState.getKingdoms().clear();
+			gameState.getKingdoms().addAll(gameStateEntry.kingdoms);
+			// not restored because data cached for the changed state must not be used
+			gameState.incrementVersion();
+		}
+		clear();
+	}
+
+	/**
+	 * Forgets all the recorded changes.
+	 */
+	public void clear() {
+		gameState = null;
+		gameStateEntry.winner = null;
+		gameStateEntry.activeKingdom = null;
+		gameStateEntry.heldObject = null;
+		gameStateEntry.kingdoms.clear();
+		for (int i = 0; i < tileEntryCount; i++) {
+			tileEntries.get(i).clear();
+		}
+		tileEntryCount = 0;
+		for (int i = 0; i < kingdomEntryCount; i++) {
+			kingdomEntries.get(i).clear();
+		}
+		kingdomEntryCount = 0;
+		for (int i = 0; i < unitEntryCount; i++) {
+			unitEntries.get(i).unit = null;
+		}
+		unitEntryCount = 0;
+		for (int i = 0; i < playerEntryCount; i++) {
+			playerEntries.get(i).player = null;
+		}
+		playerEntryCount = 0;
+	}
+
+	public boolean isEmpty() {
+		return gameState == null && tileEntryCount == 0 && kingdomEntryCount == 0 && unitEntryCount == 0
+				&& playerEntryCount == 0;
+	}
+
+	/**
+	 * Records the values stored directly in the game state and the held unit.
+	 * Only the first call has an effect until the record is cleared.
+	 */
+	void recordGameState(GameState gameState) {
+		if (this.gameState != null) {
+			if (this.gameState != gameState) {
+				throw new IllegalStateException("The record already contains changes of another game state.");
+			}
+			return;
+		}
+		this.gameState = gameState;
+		gameStateEntry.winner = gameState.getWinner();
+		gameStateEntry.playerTurn = gameState.getPlayerTurn();
+		gameStateEntry.round = gameState.getRound();
+		gameStateEntry.randomState = gameState.getRandom().getState();
+		gameStateEntry.activeKingdom = gameState.getActiveKingdom();
+		gameStateEntry.heldObject = gameState.getHeldObject();
+		gameStateEntry.kingdoms.addAll(gameState.getKingdoms());
+		if (gameState.getHeldObject() != null
+				&& ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+			recordUnit((Unit) gameState.getHeldObject());
+		}
+	}
+
+	void recordTile(HexTile tile) {
+		TileEntry entry = nextTileEntry();
+		entry.tile = tile;
+		entry.content = tile.getContent();
+		entry.kingdom = tile.getKingdom();
+		entry.player = tile.getPlayer();
+	}
+
+	void recordKingdom(Kingdom kingdom) {
+		KingdomEntry entry = nextKingdomEntry();
+		entry.kingdom = kingdom;
+		entry.tileList = kingdom.getTiles();
+		entry.tiles.addAll(kingdom.getTiles());
+		entry.savings = kingdom.getSavings();
+		entry.doneMoving = kingdom.isDoneMoving();
+		entry.wasActiveInCurrentTurn = kingdom.isWasActiveInCurrentTurn();
+	}
+
+	/** Records a kingdom and every one of its tiles. */
+	void recordKingdomAndTiles(Kingdom kingdom) {
+		recordKingdom(kingdom);
+		for (HexTile tile : kingdom.getTiles()) {
+			recordTile(tile);
+		}
+	}
+
+	void recordUnit(Unit unit) {
+		UnitEntry entry = nextUnitEntry();
+		entry.unit = unit;
+		entry.canAct = unit.isCanAct();
+	}
+
+	void recordPlayer(Player player) {
+		PlayerEntry entry = nextPlayerEntry();
+		entry.player = player;
+		entry.defeated = player.isDefeated();
+	}
+
+	private TileEntry nextTileEntry() {
+		if (tileEntryCount == tileEntries.size()) {
+			tileEntries.add(new TileEntry());
+		}
+		return tileEntries.get(tileEntryCount++);
+	}
+
+	private KingdomEntry nextKingdomEntry() {
+		if (kingdomEntryCount == kingdomEntries.size()) {
+			kingdomEntries.add(new KingdomEntry());
+		}
+		return kingdomEntries.get(kingdomEntryCount++);
+	}
+
+	private UnitEntry nextUnitEntry() {
+		if (unitEntryCount == unitEntries.size()) {
+			unitEntries.add(new UnitEntry());
+		}
+		return unitEntries.get(unitEntryCount++);
+	}
+
+	private PlayerEntry nextPlayerEntry() {
+		if (playerEntryCount == playerEntries.size()) {
+			playerEntries.add(new PlayerEntry());
+		}
+		return playerEntries.get(playerEntryCount++);
+	}
+
+	private static class GameStateEntry {
+		Player winner;
+		int playerTurn;
+		int round;
+		long randomState;
+		Kingdom activeKingdom;
+		MapObject heldObject;
+		final List<Kingdom> kingdoms = new ArrayList<>();
+	}
+
+	private static class TileEntry {
+		HexTile tile;
+		MapObject content;
+		Kingdom kingdom;
+		Player player;
+
+		void clear() {
+			tile = null;
+			content = null;
+			kingdom = null;
+			player = null;
+		}
+	}
+
+	private static class KingdomEntry {
+		Kingdom kingdom;
+		/** The list object can be replaced when a kingdom is split. */
+		List<HexTile> tileList;
+		final List<HexTile> tiles = new ArrayList<>();
+		int savings;
+		boolean doneMoving;
+		boolean wasActiveInCurrentTurn;
+
+		void clear() {
+			kingdom = null;
+			tileList = null;
+			tiles.clear();
+		}
+	}
+
+	private static class UnitEntry {
+		Unit unit;
+		boolean canAct;
+	}
+
+	private static class PlayerEntry {
+		Player player;
+		boolean defeated;
+	}
+
+}
@@ -3,8 +3,14 @@
 package de.sesu8642.feudaltactics.lib.ingame;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,8 +18,12 @@ import org.slf4j.LoggerFactory;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import de.sesu8642.feudaltactics.events.FastForwardProgressEvent;
 import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent;
+import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent.ScreenTransitionTarget;
 import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
 import de.sesu8642.feudaltactics.ingame.MapParameters;
 import de.sesu8642.feudaltactics.lib.gamestate.GameState;
@@ -22,10 +32,37 @@ import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
 import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
 import de.sesu8642.feudaltactics.lib.gamestate.Player;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.PlayerMove;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoHistory;
 import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.HintEngine;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.KingdomHint;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
 
-/** Controller for playing the game. */
+/**
+ * Controller for playing the game. The game state is confined to the game loop:
+ * a single thread that runs the commands that read or change it one after the
+ * other in the order they were submitted. This includes the moves of the local
+ * players, which are validated and applied there, and the bot turns. The other
+ * threads get read-only copies of the game state via
+ * {@link GameStateChangeEvent}s. The changes of consecutive commands are
+ * published at once when no more commands are waiting.
+ *
+ * <p>
+ * The actions of the local player in the current turn can be undone with the
+ * {@link UndoHistory} in memory. The autosaves are only there to continue after
+ * the game was closed or crashed. They are kept in sync with the history, but
+ * the history does not depend on them, except for undoing the actions that
+ * were made before loading an autosave.
+ * </p>
+ *
+ * <p>
+ * Every game is recorded by the {@link ReplayRecorder} so that it can be
+ * watched or verified afterwards.
+ * </p>
+ */
 public class GameController {
 
 	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
@@ -34,70 +71,265 @@ public class GameController {
 			new Color(1F, 0.67F, 0.67F, 1), new Color(1F, 1F, 0F, 1), new Color(1F, 1F, 1F, 1),
 			new Color(0F, 1F, 0F, 1) };
 
+	/** Minimum time between two progress events while fast-forwarding. */
+	private static final long FAST_FORWARD_PROGRESS_INTERVAL_MS = 100;
+
+	/** Number of rounds after which fast-forwarding stops even if nobody won. */
+	private static final int MAX_FAST_FORWARD_ROUNDS = 1000;
+
+	/**
+	 * Maximum number of actions that can be undone; one less than the number of
+	 * autosaves that are kept, so the autosaves reach back as far.
+	 */
+	static final int MAX_UNDO_STEPS = 49;
+
 	private final EventBus eventBus;
-	private final ExecutorService botTurnExecutor;
+	private final ExecutorService gameLoopExecutor;
 	private final BotAi botAi;
 	private final AutoSaveRepository autoSaveRepo;
-	private Future<?> botTurnFuture;
+	private final ReplayRecorder replayRecorder;
+	private final HintEngine hintEngine;
+	private volatile Future<?> botTurnFuture;
+	private volatile boolean fastForwardStopRequested = false;
+	private volatile Thread gameLoopThread;
 
-	/** State of the currently running game. */
+	/** Number of commands that were submitted to the game loop but did not end. */
+	private final AtomicInteger pendingCommands = new AtomicInteger();
+
+	/** Whether the game state changed since it was published the last time. */
+	private boolean gameStateChanged = false;
+
+	/** Whether to calculate hints when the game state is published next time. */
+	private boolean hintsWanted = false;
+
+	/** State of the currently running game. Only used by the game loop. */
 	private GameState gameState;
 
+	/** Copy of the game state that was published last. */
+	private volatile GameState publishedGameState;
+
+	/** Actions of the current turn that can be undone. Only used by the game loop. */
+	private final UndoHistory undoHistory = new UndoHistory(MAX_UNDO_STEPS);
+
+	/**
+	 * Number of actions before loading the latest autosave that can be undone by
+	 * loading the autosaves before it. Only used by the game loop.
+	 */
+	private int loadedUndoSteps = 0;
+
+	/** Parameters the current map was generated with; null if it was not generated. */
+	private MapParameters mapParameters;
+
 	/**
 	 * Constructor.
 	 * 
-	 * @param eventBus event bus
-	 * @param botAi    bot AI
+	 * @param eventBus         event bus
+	 * @param gameLoopExecutor single thread executor to run the game loop on
+	 * @param botAi            bot AI
+	 * @param autoSaveRepo     repository for the autosaves
+	 * @param replayRecorder   recorder for the replays of the games
 	 */
-	public GameController(EventBus eventBus, ExecutorService botTurnExecutor, BotAi botAi,
-			AutoSaveRepository autoSaveRepo) {
+	public GameController(EventBus eventBus, ExecutorService gameLoopExecutor, BotAi botAi,
+			AutoSaveRepository autoSaveRepo, ReplayRecorder replayRecorder) {
 		this.eventBus = eventBus;
-		this.botTurnExecutor = botTurnExecutor;
+		this.gameLoopExecutor = gameLoopExecutor;
 		this.botAi = botAi;
 		this.autoSaveRepo = autoSaveRepo;
+		this.replayRecorder = replayRecorder;
+		hintEngine = new HintEngine(botAi);
 		gameState = new GameState();
+		publishedGameState = new GameState();
+	}
+
+	/**
+	 * Runs a command in the game loop. Everything that reads or changes the game
+	 * state must be done this way. The command is run right away if this is called
+	 * by the game loop itself, e.g. by another command or by a handler of an event
+	 * posted there. Otherwise it is queued and this returns immediately.
+	 * 
+	 * @param command command to run
+	 */
+	public void runInGameLoop(Runnable command) {
+		if (Thread.currentThread() == gameLoopThread) {
+			command.run();
+		} else {
+			submit(command);
+		}
+	}
+
+	/**
+	 * Runs an input of a local player in the game loop if it is still the turn in
+	 * which the input was made. The player acts on the game state shown to them,
+	 * which can be outdated by the time the input is run. E.g. taps made while a
+	 * bot was acting are dropped instead of being applied as moves of the next
+	 * turn.
+	 * 
+	 * @param shownGameState game state shown when the input was made; null if none
+	 *                       was shown yet
+	 * @param input          command that validates and applies the input
+	 */
+	public void runInputInGameLoop(GameState shownGameState, Runnable input) {
+		runInGameLoop(() -> {
+			if (shownGameState == null || !Objects.equals(shownGameState.getSeed(), gameState.getSeed())
+					|| shownGameState.getRound() != gameState.getRound()
+					|| shownGameState.getPlayerTurn() != gameState.getPlayerTurn()) {
+				logger.debug("dropping an input that was made in another turn");
+				return;
+			}
+			input.run();
+		});
+	}
+
+	/**
+	 * Like {@link #runInGameLoop} but waits until the command is done. For the
+	 * commands that replace the game state because the callers usually want to
+	 * e.g. center the new map right after.
+	 */
+	private void runInGameLoopAndWait(Runnable command) {
+		if (Thread.currentThread() == gameLoopThread) {
+			command.run();
+			return;
+		}
+		try {
+			submit(command).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// errors are logged by the game loop already
+		}
+	}
+
+	private Future<?> submit(Runnable command) {
+		// wrapped in a future task to be able to cancel it; the wrapper runs anyway to
+		// keep track of the pending commands
+		FutureTask<Void> task = new FutureTask<>(() -> runCommand(command), null);
+		pendingCommands.incrementAndGet();
+		gameLoopExecutor.execute(() -> {
+			gameLoopThread = Thread.currentThread();
+			task.run();
+			// a canceled command may leave the interrupt flag set
+			Thread.interrupted();
+			if (pendingCommands.decrementAndGet() == 0 && gameStateChanged) {
+				publishGameState();
+			}
+		});
+		return task;
+	}
+
+	private void runCommand(Runnable command) {
+		try {
+			command.run();
+		} catch (RuntimeException e) {
+			logger.error("an error happened in the game loop", e);
+		}
+	}
+
+	/** Marks the game state as changed so that it is published after the command. */
+	private void publishLater() {
+		gameStateChanged = true;
+	}
+
+	private void publishGameState() {
+		gameStateChanged = false;
+		GameState snapshot = GameStateHelper.getCopy(gameState);
+		publishedGameState = snapshot;
+		if (hintsWanted) {
+			hintsWanted = false;
+			// defeated players have nothing to do
+			if (!snapshot.getActivePlayer().isDefeated()) {
+				hintEngine.precompute(snapshot);
+			}
+		}
+		eventBus.post(new GameStateChangeEvent(snapshot, getNoOfUndoSteps()));
 	}
 
 	/** Starts the game. Bots will do their turns if they are first. */
 	public void startGame() {
-		logger.info("starting game");
-		// autosave before starting the AI thread, to avoid potential
-		// ConcurrentModificationException
-		autoSaveRepo.deleteAllAutoSaveExceptLatestN(0);
-		autosave();
-		// if a bot begins, make it act
-		if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
-			startBotTurn();
-		}
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.info("starting game");
+			autoSaveRepo.deleteAllAutoSaveExceptLatestN(0);
+			clearUndoHistory();
+			autosave();
+			replayRecorder.startRecording(gameState, mapParameters != null ? mapParameters
+					: new MapParameters(gameState.getSeed(), gameState.getMap().size(), 0));
+			// if a bot begins, make it act
+			if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
+				startBotTurn();
+			} else {
+				hintsWanted = true;
+			}
+			publishGameState();
+		});
 	}
 
 	private void autosave() {
 		autoSaveRepo.autoSaveGameState(gameState);
 	}
 
-	/** Loads the latest autosave. */
-	public void loadLatestAutosave() {
-		logger.info("loading latest autosave");
-		gameState = autoSaveRepo.getLatestAutoSave();
-		// posting the event must happen before starting the AI thread cause the data
-		// for the renderer will be updated and the AI must not change the gamestate
-		// while it is
-		eventBus.post(new GameStateChangeEvent(gameState));
-		if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
-			startBotTurn();
+	private void autosave(PlayerMove move) {
+		autoSaveRepo.autoSaveMove(move, gameState);
+		replayRecorder.recordMove(move);
+		// the oldest autosaves are deleted when there are too many
+		if (loadedUndoSteps > 0 && loadedUndoSteps + undoHistory.size() > MAX_UNDO_STEPS) {
+			loadedUndoSteps--;
 		}
 	}
 
+	private void clearUndoHistory() {
+		undoHistory.clear();
+		loadedUndoSteps = 0;
+	}
+
+	/**
+	 * Loads the latest autosave in the game loop. Returns immediately, so the
+	 * caller, e.g. the render thread on startup, does not wait for the autosave to
+	 * be read. The loaded game state replaces the current one at once and is
+	 * published like any other change. If the autosave cannot be loaded, it is
+	 * deleted and the main menu is shown instead.
+	 */
+	public void loadLatestAutosave() {
+		runInGameLoop(() -> {
+			logger.info("loading latest autosave");
+			long startNanos = System.nanoTime();
+			try {
+				gameState = autoSaveRepo.getLatestAutoSave();
+			} catch (RuntimeException e) {
+				logger.error("unable to load the latest autosave", e);
+				// the game cannot be continued; do not try again on the next start
+				autoSaveRepo.deleteAllAutoSaveExceptLatestN(0);
+				eventBus.post(new ScreenTransitionTriggerEvent(ScreenTransitionTarget.MAIN_MENU_SCREEN));
+				return;
+			}
+			logger.info("loaded the latest autosave in {} ms",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+			undoHistory.clear();
+			loadedUndoSteps = autoSaveRepo.getNoOfAutoSaves() - 1;
+			mapParameters = null;
+			replayRecorder.resumeRecording(gameState);
+			if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
+				startBotTurn();
+			} else {
+				hintsWanted = true;
+			}
+			publishGameState();
+		});
+	}
+
 	/**
-	 * Generates a map.
+	 * Generates a map. Returns when it is generated and published.
 	 * 
 	 * @param botIntelligence intelligence of the bot players
 	 * @param mapParams       map generation parameters
 	 */
 	public void generateGameState(Intelligence botIntelligence, MapParameters mapParams) {
+		runInGameLoopAndWait(() -> doGenerateGameState(botIntelligence, mapParams));
+	}
+
+	private void doGenerateGameState(Intelligence botIntelligence, MapParameters mapParams) {
 		logger.info("generating a new game state with bot intelligence {} and {}", botIntelligence, mapParams);
 		gameState = new GameState();
+		clearUndoHistory();
+		mapParameters = mapParams;
 		gameState.setBotIntelligence(botIntelligence);
 		ArrayList<Player> players = new ArrayList<>();
 		int remainingHumanPlayers = mapParams.getHumanPlayerNo();
@@ -114,7 +346,7 @@ public class GameController {
 		}
 		GameStateHelper.initializeMap(gameState, players, mapParams.getLandMass(), mapParams.getDensity(), null,
 				mapParams.getSeed());
-		eventBus.post(new GameStateChangeEvent(gameState));
+		publishGameState();
 	}
 
 	/**
@@ -123,7 +355,7 @@ public class GameController {
 	 * @param hexCoords coords of the tile
 	 */
 	public void printTileInfo(Vector2 hexCoords) {
-		logger.debug("clicked: {}", gameState.getMap().get(hexCoords));
+		runInGameLoop(() -> logger.debug("clicked: {}", gameState.getMap().get(hexCoords)));
 	}
 
 	/**
@@ -132,11 +364,12 @@ public class GameController {
 	 * @param kingdom kingdom to activate
 	 */
 	public void activateKingdom(Kingdom kingdom) {
-		logger.debug("activating {}", kingdom);
-		GameStateHelper.activateKingdom(gameState, kingdom);
-		autosave();
-		// save first because is is relevant for the undo button status
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("activating {}", kingdom);
+			GameStateHelper.activateKingdom(gameState, kingdom, undoHistory.startRecording());
+			autosave(PlayerMove.activateKingdom(kingdom));
+			publishLater();
+		});
 	}
 
 	/**
@@ -145,10 +378,12 @@ public class GameController {
 	 * @param tile tile that contains the object
 	 */
 	public void pickupObject(HexTile tile) {
-		logger.debug("picking up object from {}", tile);
-		GameStateHelper.pickupObject(gameState, tile);
-		autosave();
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("picking up object from {}", tile);
+			GameStateHelper.pickupObject(gameState, tile, undoHistory.startRecording());
+			autosave(PlayerMove.of(PlayerMove.Type.PICK_UP, tile));
+			publishLater();
+		});
 	}
 
 	/**
@@ -157,10 +392,12 @@ public class GameController {
 	 * @param tile tile to place to object on
 	 */
 	public void placeOwn(HexTile tile) {
-		logger.debug("placing held object on own {}", tile);
-		GameStateHelper.placeOwn(gameState, tile);
-		autosave();
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("placing held object on own {}", tile);
+			GameStateHelper.placeOwn(gameState, tile, undoHistory.startRecording());
+			autosave(PlayerMove.of(PlayerMove.Type.PLACE_OWN, tile));
+			publishLater();
+		});
 	}
 
 	/**
@@ -169,10 +406,12 @@ public class GameController {
 	 * @param tile tile that contains the unit on the map
 	 */
 	public void combineUnits(HexTile tile) {
-		logger.debug("combining held unit with unit on {}", tile);
-		GameStateHelper.combineUnits(gameState, tile);
-		autosave();
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("combining held unit with unit on {}", tile);
+			GameStateHelper.combineUnits(gameState, tile, undoHistory.startRecording());
+			autosave(PlayerMove.of(PlayerMove.Type.COMBINE_UNITS, tile));
+			publishLater();
+		});
 	}
 
 	/**
@@ -181,19 +420,29 @@ public class GameController {
 	 * @param tile tile to conquer
 	 */
 	public void conquer(HexTile tile) {
-		logger.debug("conquering {}", tile);
-		GameStateHelper.conquer(gameState, tile);
-		autosave();
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("conquering {}", tile);
+			GameStateHelper.conquer(gameState, tile, undoHistory.startRecording());
+			autosave(PlayerMove.of(PlayerMove.Type.CONQUER, tile));
+			publishLater();
+		});
 	}
 
 	/**
 	 * Ends the turn.
 	 */
 	public void endTurn() {
+		runInGameLoop(this::doEndTurn);
+	}
+
+	private void doEndTurn() {
 		logger.debug("ending turn of {}", gameState.getActivePlayer());
+		hintEngine.cancel();
+		// actions of previous turns cannot be undone
+		clearUndoHistory();
 		// update gameState
 		gameState = GameStateHelper.endTurn(gameState);
+		replayRecorder.recordEndTurn(gameState);
 		if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
 			// make bots act
 			startBotTurn();
@@ -203,30 +452,148 @@ public class GameController {
 			autosave();
 			// clear autosaves from previous turn
 			autoSaveRepo.deleteAllAutoSaveExceptLatestN(1);
-			eventBus.post(new GameStateChangeEvent(gameState));
+			hintsWanted = true;
+			publishLater();
 		}
 	}
 
+	/**
+	 * Returns the moves the bot would make for the local player in the last
+	 * published game state. They are calculated in the background when the turn
+	 * begins and again if the game state changed since.
+	 * 
+	 * @return future of the hints: one per kingdom of the local player
+	 */
+	public ListenableFuture<List<KingdomHint>> getHints() {
+		return hintEngine.getHints(publishedGameState);
+	}
+
+	/**
+	 * Queues the turn of the active bot player as a command of its own, so that
+	 * the commands submitted in between are run before it. The turn is ended right
+	 * after.
+	 */
 	private void startBotTurn() {
-		botTurnFuture = botTurnExecutor.submit(() -> {
+		botTurnFuture = submit(() -> {
+			// the bot turn takes a while, so show where it starts from
+			if (gameStateChanged) {
+				publishGameState();
+			}
+			botAi.setTurnBudget(BotTurnBudget.forMap(gameState.getMap().size()));
 			try {
 				botAi.doTurn(gameState, gameState.getBotIntelligence());
 			} catch (InterruptedException e) {
 				logger.info("bot turn was canceled");
 				Thread.currentThread().interrupt();
-			} catch (Exception e) {
-				logger.error("an error happened during the enemy turn", e);
+				return;
 			}
+			replayRecorder.recordBotTurn(gameState.getBotIntelligence(), botAi.getTurnBudget(), gameState);
+			doEndTurn();
 		});
 	}
 
-	/** Cancels a bot turn by canceling the future. */
+	/**
+	 * Cancels a bot turn or fast-forwarding by canceling the command, interrupting
+	 * it if it is running already. Stops calculating hints too.
+	 */
 	public void cancelBotTurn() {
+		hintEngine.cancel();
 		if (botTurnFuture != null) {
 			botTurnFuture.cancel(true);
 		}
 	}
 
+	/**
+	 * Plays the rest of a game in which all the local players are defeated as fast
+	 * as possible. The bot turns are done in a single command of the game loop
+	 * without displaying them and without autosaving in between. {@link FastForwardProgressEvent}s
+	 * are posted along the way. Stops when only one player is left or when
+	 * {@link #stopFastForward} is called. The reached game state is then autosaved
+	 * and displayed and the game continues normally from there.
+	 */
+	public void fastForward() {
+		fastForwardStopRequested = false;
+		botTurnFuture = submit(() -> {
+			if (gameState.getPlayers().stream()
+					.anyMatch(player -> player.getType() == Type.LOCAL_PLAYER && !player.isDefeated())) {
+				throw new IllegalStateException("Cannot fast-forward a game with undefeated local players.");
+			}
+			logger.info("fast-forwarding the game from round {}", gameState.getRound());
+			clearUndoHistory();
+			try {
+				doFastForwardTurns();
+			} catch (InterruptedException e) {
+				logger.info("fast-forwarding was canceled");
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				logger.error("an error happened while fast-forwarding", e);
+			}
+			logger.info("finished fast-forwarding in round {}", gameState.getRound());
+			botAi.setSkipDisplayingTurn(false);
+			autosave();
+			autoSaveRepo.deleteAllAutoSaveExceptLatestN(1);
+			publishGameState();
+			if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
+				startBotTurn();
+			}
+		});
+	}
+
+	private void doFastForwardTurns() throws InterruptedException {
+		int maxRound = gameState.getRound() + MAX_FAST_FORWARD_ROUNDS;
+		long nextProgressMillis = 0;
+		botAi.setTurnBudget(BotTurnBudget.forMap(gameState.getMap().size()));
+		// when the game is decided, continue until it is a local player's turn again
+		// to end up in the same situation as after displaying the turns
+		while (!fastForwardStopRequested && gameState.getRound() < maxRound
+				&& !(isOnlyOnePlayerLeft() && gameState.getActivePlayer().getType() == Type.LOCAL_PLAYER)) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException();
+			}
+			if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
+				botAi.doTurnWithoutDisplaying(gameState, gameState.getBotIntelligence());
+				replayRecorder.recordBotTurn(gameState.getBotIntelligence(), botAi.getTurnBudget(), gameState);
+			}
+			gameState = GameStateHelper.endTurn(gameState);
+			replayRecorder.recordEndTurn(gameState);
+			if (System.currentTimeMillis() >= nextProgressMillis) {
+				postFastForwardProgress();
+				nextProgressMillis = System.currentTimeMillis() + FAST_FORWARD_PROGRESS_INTERVAL_MS;
+			}
+		}
+		postFastForwardProgress();
+	}
+
+	private boolean isOnlyOnePlayerLeft() {
+		return gameState.getPlayers().stream().filter(player -> !player.isDefeated()).count() <= 1;
+	}
+
+	private void postFastForwardProgress() {
+		List<Player> players = new ArrayList<>();
+		List<Integer> landmassPercentages = new ArrayList<>();
+		int totalTiles = 0;
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			totalTiles += kingdom.getTiles().size();
+		}
+		for (Player player : gameState.getPlayers()) {
+			int playerTiles = 0;
+			for (Kingdom kingdom : gameState.getKingdoms()) {
+				if (kingdom.getPlayer() == player) {
+					playerTiles += kingdom.getTiles().size();
+				}
+			}
+			players.add(Player.copyOf(player));
+			landmassPercentages.add(totalTiles == 0 ? 0 : Math.round(100F * playerTiles / totalTiles));
+		}
+		eventBus.post(new FastForwardProgressEvent(gameState.getRound(), players, landmassPercentages));
+	}
+
+	/** Stops fast-forwarding after the current turn. */
+	public void stopFastForward() {
+		fastForwardStopRequested = true;
+	}
+
 	/** Skips a bot turn by finishing it instantly. */
 	public void skipBotTurn() {
 		botAi.setSkipDisplayingTurn(true);
@@ -234,40 +601,76 @@ public class GameController {
 
 	/** Buys a peasant. */
 	public void buyPeasant() {
-		logger.debug("buying peasant");
-		GameStateHelper.buyPeasant(gameState);
-		autosave();
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("buying peasant");
+			GameStateHelper.buyPeasant(gameState, undoHistory.startRecording());
+			autosave(PlayerMove.of(PlayerMove.Type.BUY_PEASANT));
+			publishLater();
+		});
 	}
 
 	/** Buys a castle. */
 	public void buyCastle() {
-		logger.debug("buying castle");
-		GameStateHelper.buyCastle(gameState);
-		autosave();
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("buying castle");
+			GameStateHelper.buyCastle(gameState, undoHistory.startRecording());
+			autosave(PlayerMove.of(PlayerMove.Type.BUY_CASTLE));
+			publishLater();
+		});
 	}
 
 	/** Undoes the last action. */
 	public void undoLastAction() {
-		logger.debug("undoing last action");
-		if (autoSaveRepo.getNoOfAutoSaves() > 1) {
-			// 1 means the current state is the only one saved
-			// remove the current state from autosaves
-			autoSaveRepo.deleteLatestAutoSave();
-			// load the previous state
-			GameState loaded = autoSaveRepo.getLatestAutoSave();
-			gameState = loaded;
-		}
-		eventBus.post(new GameStateChangeEvent(gameState));
+		runInGameLoop(() -> {
+			logger.debug("undoing last action");
+			if (undoHistory.size() > 0) {
+				undoHistory.undo();
+				// the autosave of the undone action must not be loaded after a crash
+				autoSaveRepo.deleteLatestAutoSave();
+				replayRecorder.recordUndo();
+			} else if (loadedUndoSteps > 0 && autoSaveRepo.getNoOfAutoSaves() > 1) {
+				// the action was made before loading; rebuild the previous state from the last
+				// keyframe and the moves after it
+				autoSaveRepo.deleteLatestAutoSave();
+				gameState = autoSaveRepo.getLatestAutoSave();
+				loadedUndoSteps--;
+				// the replay has no undo record for actions before resuming it
+				replayRecorder.recordGameState(gameState);
+			} else {
+				logger.warn("there is no action to undo");
+			}
+			publishLater();
+		});
+	}
+
+	/**
+	 * Returns the number of actions of the current turn that can be undone. Must
+	 * only be used in the game loop, see {@link #runInGameLoop}.
+	 * 
+	 * @return number of actions that can be undone
+	 */
+	public int getNoOfUndoSteps() {
+		return undoHistory.size() + loadedUndoSteps;
 	}
 
+	/**
+	 * Returns the state of the running game. Must only be used in the game loop,
+	 * see {@link #runInGameLoop}.
+	 * 
+	 * @return game state
+	 */
 	public GameState getGameState() {
 		return gameState;
 	}
 
-	public void setGameState(GameState gameState) {
-		this.gameState = gameState;
+	/**
+	 * Returns the copy of the game state that was published last. Must not be
+	 * changed.
+	 * 
+	 * @return published game state
+	 */
+	public GameState getPublishedGameState() {
+		return publishedGameState;
 	}
 
 }
\ No newline at end of file
@@ -6,9 +6,10 @@ import javax.inject.Inject;
 
 import com.google.common.eventbus.Subscribe;
 
-import de.sesu8642.feudaltactics.events.BotTurnFinishedEvent;
 import de.sesu8642.feudaltactics.events.BotTurnSkippedEvent;
 import de.sesu8642.feudaltactics.events.BotTurnSpeedChangedEvent;
+import de.sesu8642.feudaltactics.events.FastForwardStartedEvent;
+import de.sesu8642.feudaltactics.events.FastForwardStoppedEvent;
 import de.sesu8642.feudaltactics.events.GameExitedEvent;
 import de.sesu8642.feudaltactics.events.GameResumedEvent;
 import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
@@ -55,34 +56,43 @@ public class GameControllerEventHandler {
 	}
 
 	/**
-	 * Event handler for finished bot turn events.
+	 * Event handler for bot speed change events.
 	 * 
 	 * @param event event to handle
 	 */
 	@Subscribe
-	public void handleBotTurnFinished(BotTurnFinishedEvent event) {
-		gameController.setGameState(event.getGameState());
-		gameController.endTurn();
+	public void handleBotTurnSpeedChanged(BotTurnSpeedChangedEvent event) {
+		botAi.setCurrentSpeed(event.getSpeed());
 	}
 
 	/**
-	 * Event handler for bot speed change events.
+	 * Event handler for bot turn skip events.
 	 * 
 	 * @param event event to handle
 	 */
 	@Subscribe
-	public void handleBotTurnSpeedChanged(BotTurnSpeedChangedEvent event) {
-		botAi.setCurrentSpeed(event.getSpeed());
+	public void handleBotTurnSkipped(BotTurnSkippedEvent event) {
+		botAi.setSkipDisplayingTurn(true);
 	}
 
 	/**
-	 * Event handler for bot turn skip events.
+	 * Event handler for fast-forward start events.
 	 * 
 	 * @param event event to handle
 	 */
 	@Subscribe
-	public void handleBotTurnSkipped(BotTurnSkippedEvent event) {
-		botAi.setSkipDisplayingTurn(true);
+	public void handleFastForwardStarted(FastForwardStartedEvent event) {
+		gameController.fastForward();
+	}
+
+	/**
+	 * Event handler for fast-forward stop events.
+	 * 
+	 * @param event event to handle
+	 */
+	@Subscribe
+	public void handleFastForwardStopped(FastForwardStoppedEvent event) {
+		gameController.stopFastForward();
 	}
 
 }
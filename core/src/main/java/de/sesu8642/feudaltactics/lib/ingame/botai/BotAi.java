@@ -14,6 +14,7 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -23,11 +24,13 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.google.common.eventbus.EventBus;
 
-import de.sesu8642.feudaltactics.events.BotTurnFinishedEvent;
 import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnReport.Phase;
 import de.sesu8642.feudaltactics.lib.gamestate.Blocking;
 import de.sesu8642.feudaltactics.lib.gamestate.Capital;
 import de.sesu8642.feudaltactics.lib.gamestate.Castle;
+import de.sesu8642.feudaltactics.lib.gamestate.DistanceFields;
+import de.sesu8642.feudaltactics.lib.gamestate.GameRandom;
 import de.sesu8642.feudaltactics.lib.gamestate.GameState;
 import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
 import de.sesu8642.feudaltactics.lib.gamestate.Gravestone;
@@ -37,6 +40,7 @@ import de.sesu8642.feudaltactics.lib.gamestate.InputValidationHelper;
 import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
 import de.sesu8642.feudaltactics.lib.gamestate.PalmTree;
 import de.sesu8642.feudaltactics.lib.gamestate.Tree;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
 import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
@@ -55,9 +59,32 @@ public class BotAi {
 	/** Whether to skip displaying the current turn. */
 	private boolean skipDisplayingTurn = false;
 
+	/** Search used for choosing a turn plan if the intelligence level asks for it. */
+	private final TurnPlanSearch turnPlanSearch;
+
+	/** Parameters for the search; can be changed e.g. for benchmarking. */
+	private TreeSearchParameters treeSearchParameters = TreeSearchParameters.DEFAULT;
+
+	/**
+	 * Limits the work done in a turn, including the simulated ones. Set for every
+	 * bot turn of a running game by the game controller.
+	 */
+	private volatile BotTurnBudget turnBudget = BotTurnBudget.UNLIMITED;
+
+	/**
+	 * Cache of the kingdom moves of the tree search and of the turns it chose;
+	 * null to calculate every move.
+	 */
+	private volatile TranspositionCache transpositionCache = new TranspositionCache(
+			TranspositionCache.DEFAULT_MAXIMUM_SIZE);
+
+	/** Report of the last turn done with {@link #doTurn}. */
+	private volatile BotTurnReport lastTurnReport;
+
 	public BotAi(EventBus eventBus, MainPreferencesDao mainPrefsDao) {
 		this.eventBus = eventBus;
 		this.mainPrefsDao = mainPrefsDao;
+		turnPlanSearch = new TurnPlanSearch(this);
 	}
 
 	/**
@@ -68,14 +95,97 @@ public class BotAi {
 	 * @throws InterruptedException if interrupted
 	 */
 	public void doTurn(GameState gameState, Intelligence intelligence) throws InterruptedException {
+		lastTurnReport = doTurn(gameState, intelligence, true);
+	}
+
+	/**
+	 * Does the current players turn without displaying anything and without
+	 * posting any events, e.g. to fast-forward a game in which only bots are left.
+	 * 
+	 * @param gameState    game state to do the turn in
+	 * @param intelligence intelligence level to use for the turn
+	 * @throws InterruptedException if interrupted
+	 */
+	public void doTurnWithoutDisplaying(GameState gameState, Intelligence intelligence) throws InterruptedException {
+		lastTurnReport = doTurn(gameState, intelligence, false);
+	}
+
+	/**
+	 * Does the current players turn without changing the last turn report, e.g. to
+	 * suggest a turn to a human player.
+	 * 
+	 * @param gameState    game state to do the turn in
+	 * @param intelligence intelligence level to use for the turn
+	 * @param display      whether to display the turn
+	 * @return report of the work done in the turn
+	 * @throws InterruptedException if interrupted
+	 */
+	BotTurnReport doTurn(GameState gameState, Intelligence intelligence, boolean display)
+			throws InterruptedException {
 		logger.debug("doing the turn for bot player '{}' with intelligence level '{}'", gameState.getActivePlayer(),
 				intelligence);
-		Random random = new Random(gameState.hashCode());
+		BotTurnReport report;
+		if (intelligence.usesTreeSearch) {
+			TurnPlanSearchResult searchResult = turnPlanSearch.search(gameState, treeSearchParameters);
+			TurnPlan plan = searchResult.getBestPlan();
+			// the search already made the moves of the chosen plan in its first turn
+			report = doTurnMoves(gameState, plan.intelligence.getParameters(), plan.getChanceToConquer(), display,
+					transpositionCache, null);
+		} else {
+			report = doTurnMoves(gameState, intelligence.getParameters(),
+					intelligence.getParameters().getChanceToConquerPerTurn(), display, null, null);
+		}
+		logger.debug("finished bot turn: {}", report);
+		return report;
+	}
+
+	/**
+	 * Does the current players turn without displaying anything and without
+	 * posting any events. Used for simulating games, e.g. when searching for the
+	 * best plan or tuning the intelligence parameters.
+	 * 
+	 * @param gameState       game state to do the turn in
+	 * @param intelligence    parameters of the heuristic turn
+	 * @param chanceToConquer chance that the bot will try to conquer anything
+	 * @param useCache        whether to use the {@link TranspositionCache}; only
+	 *                        pays off if the same game states come up again
+	 * @param undoRecord      record to store the previous values in; null if the
+	 *                        changes don't need to be undone
+	 * @return report of the work done in the turn
+	 */
+	BotTurnReport simulateTurn(GameState gameState, IntelligenceParameters intelligence, float chanceToConquer,
+			boolean useCache, UndoRecord undoRecord) {
+		try {
+			return doTurnMoves(gameState, intelligence, chanceToConquer, false, useCache ? transpositionCache : null,
+					undoRecord);
+		} catch (InterruptedException e) {
+			// cannot happen because nothing is displayed
+			Thread.currentThread().interrupt();
+			return new BotTurnReport(turnBudget);
+		}
+	}
+
+	private BotTurnReport doTurnMoves(GameState gameState, IntelligenceParameters intelligence, float chanceToConquer,
+			boolean display, TranspositionCache cache, UndoRecord undoRecord) throws InterruptedException {
+		BotTurnReport report = new BotTurnReport(turnBudget);
+		Random random = gameState.getRandom()
+				.split(GameRandom.BOT_PLAYER_STREAM_BASE + gameState.getPlayerTurn());
 		Optional<Kingdom> nextKingdomOptional = getNextKingdom(gameState);
 		while (nextKingdomOptional.isPresent()) {
 			Kingdom nextKingdom = nextKingdomOptional.get();
+			if (undoRecord != null) {
+				// only conquering changes anything outside of the kingdom and records itself
+				undoRecord.recordKingdomMove(gameState, nextKingdom);
+			}
 			nextKingdom.setDoneMoving(true);
-			doKingdomMove(gameState, nextKingdom, intelligence, random);
+			if (report.isTurnBudgetExhausted()) {
+				// leave the kingdom as it is instead of picking up its units without time to
+				// place them well
+				report.skipKingdom();
+			} else {
+				doKingdomMove(gameState, nextKingdom, intelligence, random, chanceToConquer, display, cache, report,
+						undoRecord);
+			}
 			nextKingdomOptional = getNextKingdom(gameState);
 		}
 		// reset kingdom done moving state
@@ -84,7 +194,7 @@ public class BotAi {
 				kingdom.setDoneMoving(false);
 			}
 		}
-		eventBus.post(new BotTurnFinishedEvent(gameState));
+		return report;
 	}
 
 	private Optional<Kingdom> getNextKingdom(GameState gameState) {
@@ -96,59 +206,107 @@ public class BotAi {
 		return Optional.empty();
 	}
 
-	private GameState doKingdomMove(GameState gameState, Kingdom kingdom, Intelligence intelligence, Random random)
-			throws InterruptedException {
+	private GameState doKingdomMove(GameState gameState, Kingdom kingdom, IntelligenceParameters intelligence,
+			Random random, float chanceToConquer, boolean display, TranspositionCache cache, BotTurnReport report,
+			UndoRecord undoRecord) throws InterruptedException {
 		logger.debug("doing moves in kingdom '{}'", kingdom);
+		report.startKingdom();
 		gameState.setActiveKingdom(kingdom);
-		delayForPreview(gameState);
+		delayForPreview(gameState, display);
+		boolean conquering = random.nextFloat() <= chanceToConquer;
+		TranspositionCache.Key cacheKey = null;
+		if (cache != null) {
+			cacheKey = new TranspositionCache.Key(gameState, intelligence, conquering);
+			if (cache.repeat(cacheKey, gameState, report, undoRecord)) {
+				logger.debug("repeated the cached move");
+				report.repeatKingdom();
+				delayForPreview(gameState, display);
+				return gameState;
+			}
+		}
+		KingdomMove move = new KingdomMove(gameState, report);
 		// pick up all units
-		PickedUpUnits pickedUpUnits = new PickedUpUnits();
-		pickUpAllAvailableUnits(kingdom, pickedUpUnits);
+		PickedUpUnits pickedUpUnits = new PickedUpUnits(gameState);
+		pickUpAllAvailableUnits(gameState, kingdom, pickedUpUnits);
 		// remember the tiles where a castle was placed to possibly reverse the decision
 		// later after conquering
 		Set<HexTile> placedCastleTiles = new HashSet<>();
 
-		removeBlockingObjects(gameState, pickedUpUnits, intelligence.blockingObjectRemovalScoreTreshold);
-		defendMostImportantTiles(gameState, intelligence, pickedUpUnits, placedCastleTiles);
-		if (random.nextFloat() <= intelligence.chanceToConquerPerTurn) {
-			conquerAsMuchAsPossible(gameState, intelligence, pickedUpUnits);
-		}
-		if (intelligence.reconsidersWhichTilesToProtect) {
-			sellCastles(gameState.getActiveKingdom(), placedCastleTiles);
-			pickUpAllAvailableUnits(gameState.getActiveKingdom(), pickedUpUnits);
-			defendMostImportantTiles(gameState, intelligence, pickedUpUnits, placedCastleTiles);
-			conquerAsMuchAsPossible(gameState, intelligence, pickedUpUnits);
-		}
-		removeBlockingObjects(gameState, pickedUpUnits, 0);
-		protectWithLeftoverUnits(gameState, intelligence, pickedUpUnits);
-
-		delayForPreview(gameState);
+		runPhase(report, Phase.REMOVE_BLOCKING_OBJECTS, () -> removeBlockingObjects(gameState, pickedUpUnits,
+				intelligence.getBlockingObjectRemovalScoreTreshold(), report));
+		runPhase(report, Phase.DEFEND_MOST_IMPORTANT_TILES,
+				() -> defendMostImportantTiles(gameState, intelligence, pickedUpUnits, placedCastleTiles, report));
+		if (conquering) {
+			runPhase(report, Phase.CONQUER_AS_MUCH_AS_POSSIBLE,
+					() -> conquerAsMuchAsPossible(gameState, intelligence, pickedUpUnits, move, report,
+							undoRecord));
+		}
+		if (intelligence.isReconsidersWhichTilesToProtect() && !report.isBudgetExhausted()) {
+			sellCastles(gameState, gameState.getActiveKingdom(), placedCastleTiles);
+			pickUpAllAvailableUnits(gameState, gameState.getActiveKingdom(), pickedUpUnits);
+			runPhase(report, Phase.DEFEND_MOST_IMPORTANT_TILES,
+					() -> defendMostImportantTiles(gameState, intelligence, pickedUpUnits, placedCastleTiles, report));
+			runPhase(report, Phase.CONQUER_AS_MUCH_AS_POSSIBLE,
+					() -> conquerAsMuchAsPossible(gameState, intelligence, pickedUpUnits, move, report,
+							undoRecord));
+		}
+		runPhase(report, Phase.REMOVE_BLOCKING_OBJECTS,
+				() -> removeBlockingObjects(gameState, pickedUpUnits, 0, report));
+		runPhase(report, Phase.PROTECT_WITH_LEFTOVER_UNITS,
+				() -> protectWithLeftoverUnits(gameState, intelligence, pickedUpUnits, report));
+		// moves stopped by the budget depend on the work done before, so they are not
+		// cached
+		if (cacheKey != null && !report.isBudgetExhausted()) {
+			move.finish(gameState, report);
+			cache.put(cacheKey, move);
+		}
+
+		delayForPreview(gameState, display);
 		return gameState;
 	}
 
+	/**
+	 * Runs a phase and records its work, the CPU time it took and whether it
+	 * stopped early.
+	 * 
+	 * @param report      report of the current turn
+	 * @param phase       phase to run
+	 * @param phaseAction the phase; returns whether it hit the deadline
+	 */
+	private void runPhase(BotTurnReport report, Phase phase, BooleanSupplier phaseAction) {
+		long workUnitsBefore = report.getUsedWorkUnits();
+		long cpuNanosBefore = ThreadCpuClock.nanos();
+		boolean hitDeadline = phaseAction.getAsBoolean();
+		report.recordPhase(phase, report.getUsedWorkUnits() - workUnitsBefore,
+				ThreadCpuClock.nanos() - cpuNanosBefore, hitDeadline);
+	}
+
 	/**
 	 * Delays a little for the user to see what is happening.
 	 * 
 	 * @param gameState intermediate gameState to display as a preview
+	 * @param display   whether the turn is displayed at all
 	 * @throws InterruptedException if interrupted
 	 */
-	private void delayForPreview(GameState gameState) throws InterruptedException {
+	private void delayForPreview(GameState gameState, boolean display) throws InterruptedException {
 		// no need to update the game state if there is no delay to see it anyway
-		if (skipDisplayingTurn || !mainPrefsDao.getMainPreferences().isShowEnemyTurns()) {
+		if (!display || skipDisplayingTurn || !mainPrefsDao.getMainPreferences().isShowEnemyTurns()) {
 			return;
 		}
-		eventBus.post(new GameStateChangeEvent(gameState));
+		// the game state is changed further while it is displayed
+		eventBus.post(new GameStateChangeEvent(GameStateHelper.getCopy(gameState)));
 		Thread.sleep(currentSpeed.tickDelayMs);
 	}
 
-	private void pickUpAllAvailableUnits(Kingdom kingdom, PickedUpUnits pickedUpUnits) {
+	private void pickUpAllAvailableUnits(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits) {
 		logger.debug("picking up all available units");
+		gameState.incrementVersion();
 		for (HexTile tile : kingdom.getTiles()) {
 			if (tile.getContent() != null && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())
 					&& ((Unit) tile.getContent()).isCanAct()) {
-				int strength = ((Unit) tile.getContent()).getStrength();
-				pickedUpUnits.addUnitOfStrength(strength);
+				pickedUpUnits.pickUpFromMap((Unit) tile.getContent());
 				tile.setContent(null);
+				ledgerUpdated(gameState, pickedUpUnits);
 			}
 		}
 	}
@@ -160,75 +318,104 @@ public class BotAi {
 	 * @param pickedUpUnits               picked up units that can be used
 	 * @param minimumRemovalScoreTreshold minimum score a tile must have to be
 	 *                                    removed
+	 * @param report                      report of the current turn
+	 * @return whether the phase stopped early because of the budget
 	 */
-	private void removeBlockingObjects(GameState gameState, PickedUpUnits pickedUpUnits,
-			int minimumRemovalScoreTreshold) {
+	private boolean removeBlockingObjects(GameState gameState, PickedUpUnits pickedUpUnits,
+			int minimumRemovalScoreTreshold, BotTurnReport report) {
 		logger.debug("removing blocking objects");
+		if (report.isBudgetExhausted()) {
+			return true;
+		}
 		// not using a hashset because the tiles are changed in this function which
 		// changes their hashcode as well
 		Map<Vector2, HexTile> tilesWithBlockingObjects = gameState.getActiveKingdom().getTiles().stream().filter(
 				tile -> tile.getContent() != null && Blocking.class.isAssignableFrom(tile.getContent().getClass()))
 				.collect(Collectors.toMap(HexTile::getPosition, tile -> tile));
 		TileScoreInfo bestRemovalCandidate = getBestBlockingObjectRemovalScore(gameState,
-				tilesWithBlockingObjects.values());
+				tilesWithBlockingObjects.values(), report);
 		while (bestRemovalCandidate.score >= minimumRemovalScoreTreshold) {
-			if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 1 || acquireUnit(gameState, gameState.getActiveKingdom(),
+			if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 1 || acquireUnit(gameState.getActiveKingdom(),
 					pickedUpUnits, UnitTypes.PEASANT.strength())) {
 				logger.debug("removing blocking object with score {} from tile {}", bestRemovalCandidate.score,
 						bestRemovalCandidate.tile);
 				pickedUpUnits.removeUnit(UnitTypes.PEASANT);
 				gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
-				GameStateHelper.placeOwn(gameState, bestRemovalCandidate.tile);
+				placeHeldObject(gameState, bestRemovalCandidate.tile, pickedUpUnits);
 				tilesWithBlockingObjects.remove(bestRemovalCandidate.tile.getPosition());
-				bestRemovalCandidate = getBestBlockingObjectRemovalScore(gameState, tilesWithBlockingObjects.values());
+				if (report.isBudgetExhausted()) {
+					return true;
+				}
+				bestRemovalCandidate = getBestBlockingObjectRemovalScore(gameState, tilesWithBlockingObjects.values(),
+						report);
 			} else {
-				return;
+				return false;
 			}
 		}
+		return false;
 	}
 
-	private void defendMostImportantTiles(GameState gameState, Intelligence intelligence, PickedUpUnits pickedUpUnits,
-			Set<HexTile> placedCastleTiles) {
+	private boolean defendMostImportantTiles(GameState gameState, IntelligenceParameters intelligence,
+			PickedUpUnits pickedUpUnits, Set<HexTile> placedCastleTiles, BotTurnReport report) {
 		logger.debug("defending most important tiles");
-		Set<HexTile> interestingProtectionTiles = getInterestingProtectionTiles(gameState);
-		TileScoreInfo bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence,
-				interestingProtectionTiles);
-		while (bestProtectionCandidate.score >= intelligence.protectWithCastleScoreTreshold) {
+		if (report.isBudgetExhausted()) {
+			return true;
+		}
+		// placing own objects does not change the distances to the enemies, so the
+		// fields can be used until the next conquest
+		DistanceFields distanceFields = DistanceFields.of(gameState);
+		Set<HexTile> interestingProtectionTiles = getInterestingProtectionTiles(gameState, distanceFields);
+		TileScoreInfo bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, distanceFields,
+				interestingProtectionTiles, report);
+		while (bestProtectionCandidate.score >= intelligence.getProtectWithCastleScoreTreshold()) {
 			// if enough money buy castle
 			if (InputValidationHelper.checkBuyObject(gameState, gameState.getActivePlayer(), Castle.class)) {
 				GameStateHelper.buyCastle(gameState);
-				GameStateHelper.placeOwn(gameState, bestProtectionCandidate.tile);
+				placeHeldObject(gameState, bestProtectionCandidate.tile, pickedUpUnits);
 				placedCastleTiles.add(bestProtectionCandidate.tile);
 			} else if (pickedUpUnits.ofType(UnitTypes.PEASANT) > 0) {
 				// protect with existing peasant
 				pickedUpUnits.removeUnit(UnitTypes.PEASANT);
 				gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
-				GameStateHelper.placeOwn(gameState, bestProtectionCandidate.tile);
+				placeHeldObject(gameState, bestProtectionCandidate.tile, pickedUpUnits);
 			} else if (InputValidationHelper.checkBuyObject(gameState, gameState.getActivePlayer(), Unit.class)) {
 				// protect with new peasant
 				GameStateHelper.buyPeasant(gameState);
-				GameStateHelper.placeOwn(gameState, bestProtectionCandidate.tile);
+				placeHeldObject(gameState, bestProtectionCandidate.tile, pickedUpUnits);
 			} else {
 				break;
 			}
-			bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, interestingProtectionTiles);
+			if (report.isBudgetExhausted()) {
+				return true;
+			}
+			bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, distanceFields,
+					interestingProtectionTiles, report);
 		}
-		while (bestProtectionCandidate.score >= intelligence.protectWithUnitScoreTreshold) {
-			if (pickedUpUnits.ofType(UnitTypes.PEASANT) > 0 || acquireUnit(gameState, gameState.getActiveKingdom(),
+		while (bestProtectionCandidate.score >= intelligence.getProtectWithUnitScoreTreshold()) {
+			if (pickedUpUnits.ofType(UnitTypes.PEASANT) > 0 || acquireUnit(gameState.getActiveKingdom(),
 					pickedUpUnits, UnitTypes.PEASANT.strength())) {
 				// protect with existing peasant
 				pickedUpUnits.removeUnit(UnitTypes.PEASANT);
 				gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
-				GameStateHelper.placeOwn(gameState, bestProtectionCandidate.tile);
+				placeHeldObject(gameState, bestProtectionCandidate.tile, pickedUpUnits);
 			} else {
 				break;
 			}
-			bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, interestingProtectionTiles);
+			if (report.isBudgetExhausted()) {
+				return true;
+			}
+			bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, distanceFields,
+					interestingProtectionTiles, report);
 		}
+		return false;
 	}
 
-	private void conquerAsMuchAsPossible(GameState gameState, Intelligence intelligence, PickedUpUnits pickedUpUnits) {
+	private boolean conquerAsMuchAsPossible(GameState gameState, IntelligenceParameters intelligence,
+			PickedUpUnits pickedUpUnits, KingdomMove move, BotTurnReport report, UndoRecord undoRecord) {
 		logger.debug("conquering as much as possible");
+		if (report.isBudgetExhausted()) {
+			return true;
+		}
 		boolean unableToConquerAnyMore = false;
 		whileloop: while (!unableToConquerAnyMore) {
 			// need a list here to be deterministic
@@ -237,6 +424,7 @@ public class BotAi {
 				// the bot actually won the game
 				break;
 			}
+			report.consumeWorkUnits(possibleConquerTiles.size());
 
 			// determine how "valuable" the tiles are for conquering
 			Set<OffenseTileScoreInfo> offenseTileScoreInfoSet = Collections
@@ -259,8 +447,11 @@ public class BotAi {
 				}
 				for (int i = offenseTileScoreInfo.requiredStrength; i <= UnitTypes.strongest().strength(); i++) {
 					if (conquerTileWithStoredUnit(gameState, offenseTileScoreInfo.tile, UnitTypes.ofStrength(i),
-							pickedUpUnits.ofStrength(i))) {
-						pickedUpUnits.removeUnitOfStrength(i);
+							pickedUpUnits, move, undoRecord)) {
+						if (report.isBudgetExhausted()) {
+							// the units that were not used yet will be placed in the last phase
+							return true;
+						}
 						continue whileloop;
 					}
 				}
@@ -271,11 +462,16 @@ public class BotAi {
 					.stream().min((OffenseTileScoreInfo t1, OffenseTileScoreInfo t2) -> Integer
 							.compare(t1.requiredStrength, t2.requiredStrength))
 					.orElse(new OffenseTileScoreInfo(null, -1, -1)).requiredStrength;
-			if (!acquireUnit(gameState, gameState.getActiveKingdom(), pickedUpUnits,
+			if (report.isBudgetExhausted()) {
+				// don't buy units there is no time left to use
+				return true;
+			}
+			if (!acquireUnit(gameState.getActiveKingdom(), pickedUpUnits,
 					minimumRequiredStrengthForConquering)) {
 				unableToConquerAnyMore = true;
 			}
 		}
+		return false;
 	}
 
 	private List<HexTile> determineNeighboringEnemyTiles(GameState gameState) {
@@ -291,50 +487,50 @@ public class BotAi {
 		return result;
 	}
 
-	private boolean acquireUnit(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits, int strength) {
+	private boolean acquireUnit(Kingdom kingdom, PickedUpUnits pickedUpUnits, int strength) {
 		logger.debug("acquiring a new unit");
 		// this could probably be done in much less lines but be 5x less readable
 		// could try with recursion: acquire the next weaker unit first
 		switch (strength) {
 		case 1:
-			return acquirePeasant(gameState, kingdom, pickedUpUnits);
+			return acquirePeasant(kingdom, pickedUpUnits);
 		case 2:
-			return acquireSpearman(gameState, kingdom, pickedUpUnits);
+			return acquireSpearman(kingdom, pickedUpUnits);
 		case 3:
-			return acquireKnight(gameState, kingdom, pickedUpUnits);
+			return acquireKnight(kingdom, pickedUpUnits);
 		case 4:
-			return acquireBaron(gameState, kingdom, pickedUpUnits);
+			return acquireBaron(kingdom, pickedUpUnits);
 		default:
 			// the requested strength is greater than the strongest unit --> not possible
 			return false;
 		}
 	}
 
-	private boolean acquirePeasant(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits) {
-		if (canKingdomSustainNewUnit(gameState, kingdom, pickedUpUnits, UnitTypes.PEASANT)) {
+	private boolean acquirePeasant(Kingdom kingdom, PickedUpUnits pickedUpUnits) {
+		if (canKingdomSustainNewUnit(kingdom, pickedUpUnits, UnitTypes.PEASANT)) {
 			buyUnitDirectly(kingdom, pickedUpUnits, UnitTypes.PEASANT);
 			return true;
 		}
 		return false;
 	}
 
-	private boolean acquireSpearman(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits) {
+	private boolean acquireSpearman(Kingdom kingdom, PickedUpUnits pickedUpUnits) {
 		if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 2) {
 			// combine 2 existing peasants
 			pickedUpUnits.removeUnit(UnitTypes.PEASANT, 2);
 			pickedUpUnits.addUnit(UnitTypes.SPEARMAN);
 			return true;
 		} else if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 1
-				&& (GameStateHelper.getKingdomIncome(kingdom)
-						- getActualKingdomSalaries(gameState, kingdom, pickedUpUnits) - UnitTypes.SPEARMAN.salary()
-						+ UnitTypes.PEASANT.salary() >= 0 || kingdom.getSavings() > UnitTypes.SPEARMAN.salary() * 3)
+				&& (pickedUpUnits.getKingdomIncome() - pickedUpUnits.getActualKingdomSalaries()
+						- UnitTypes.SPEARMAN.salary() + UnitTypes.PEASANT.salary() >= 0
+						|| kingdom.getSavings() > UnitTypes.SPEARMAN.salary() * 3)
 				&& kingdom.getSavings() >= Unit.COST) {
 			// buy 1 peasant and combine with an existing one
 			kingdom.setSavings(kingdom.getSavings() - Unit.COST);
 			pickedUpUnits.addUnit(UnitTypes.SPEARMAN);
 			pickedUpUnits.removeUnit(UnitTypes.PEASANT);
 			return true;
-		} else if (canKingdomSustainNewUnit(gameState, kingdom, pickedUpUnits, UnitTypes.SPEARMAN)) {
+		} else if (canKingdomSustainNewUnit(kingdom, pickedUpUnits, UnitTypes.SPEARMAN)) {
 			// buy 2 peasants = 1 spearman
 			buyUnitDirectly(kingdom, pickedUpUnits, UnitTypes.SPEARMAN);
 			return true;
@@ -342,7 +538,7 @@ public class BotAi {
 		return false;
 	}
 
-	private boolean acquireKnight(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits) {
+	private boolean acquireKnight(Kingdom kingdom, PickedUpUnits pickedUpUnits) {
 		if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 1 && pickedUpUnits.ofType(UnitTypes.SPEARMAN) >= 1) {
 			// combine spearman and peasant
 			pickedUpUnits.removeUnit(UnitTypes.PEASANT);
@@ -350,16 +546,16 @@ public class BotAi {
 			pickedUpUnits.addUnit(UnitTypes.KNIGHT);
 			return true;
 		} else if (pickedUpUnits.ofType(UnitTypes.SPEARMAN) >= 1
-				&& (GameStateHelper.getKingdomIncome(kingdom)
-						- getActualKingdomSalaries(gameState, kingdom, pickedUpUnits) - UnitTypes.KNIGHT.salary()
-						+ UnitTypes.SPEARMAN.salary() >= 0 || kingdom.getSavings() > UnitTypes.KNIGHT.salary() * 3)
+				&& (pickedUpUnits.getKingdomIncome() - pickedUpUnits.getActualKingdomSalaries()
+						- UnitTypes.KNIGHT.salary() + UnitTypes.SPEARMAN.salary() >= 0
+						|| kingdom.getSavings() > UnitTypes.KNIGHT.salary() * 3)
 				&& kingdom.getSavings() > Unit.COST) {
 			// buy 1 peasant and combine with an existing spearman
 			kingdom.setSavings(kingdom.getSavings() - Unit.COST);
 			pickedUpUnits.removeUnit(UnitTypes.SPEARMAN);
 			pickedUpUnits.addUnit(UnitTypes.KNIGHT);
 			return true;
-		} else if (canKingdomSustainNewUnit(gameState, kingdom, pickedUpUnits, UnitTypes.KNIGHT)) {
+		} else if (canKingdomSustainNewUnit(kingdom, pickedUpUnits, UnitTypes.KNIGHT)) {
 			// buy 3 peasants = 1 knight
 			buyUnitDirectly(kingdom, pickedUpUnits, UnitTypes.KNIGHT);
 			return true;
@@ -367,7 +563,7 @@ public class BotAi {
 		return false;
 	}
 
-	private boolean acquireBaron(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits) {
+	private boolean acquireBaron(Kingdom kingdom, PickedUpUnits pickedUpUnits) {
 		// this does not have all possible combination options to get a baron
 		if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 1 && pickedUpUnits.ofType(UnitTypes.KNIGHT) >= 1) {
 			// combine knight and peasant
@@ -376,16 +572,16 @@ public class BotAi {
 			pickedUpUnits.addUnit(UnitTypes.BARON);
 			return true;
 		} else if (pickedUpUnits.ofType(UnitTypes.KNIGHT) >= 1
-				&& (GameStateHelper.getKingdomIncome(kingdom)
-						- getActualKingdomSalaries(gameState, kingdom, pickedUpUnits) - UnitTypes.BARON.salary()
-						+ UnitTypes.KNIGHT.salary() >= 0 || kingdom.getSavings() > UnitTypes.BARON.salary() * 3)
+				&& (pickedUpUnits.getKingdomIncome() - pickedUpUnits.getActualKingdomSalaries()
+						- UnitTypes.BARON.salary() + UnitTypes.KNIGHT.salary() >= 0
+						|| kingdom.getSavings() > UnitTypes.BARON.salary() * 3)
 				&& kingdom.getSavings() >= Unit.COST) {
 			// buy 1 peasant and combine with an existing knight
 			kingdom.setSavings(kingdom.getSavings() - Unit.COST);
 			pickedUpUnits.removeUnit(UnitTypes.KNIGHT);
 			pickedUpUnits.addUnit(UnitTypes.BARON);
 			return true;
-		} else if (canKingdomSustainNewUnit(gameState, kingdom, pickedUpUnits, UnitTypes.BARON)) {
+		} else if (canKingdomSustainNewUnit(kingdom, pickedUpUnits, UnitTypes.BARON)) {
 			// buy 4 peasants = 1 baron
 			buyUnitDirectly(kingdom, pickedUpUnits, UnitTypes.BARON);
 			return true;
@@ -393,12 +589,12 @@ public class BotAi {
 		return false;
 	}
 
-	private boolean canKingdomSustainNewUnit(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits,
+	private boolean canKingdomSustainNewUnit(Kingdom kingdom, PickedUpUnits pickedUpUnits,
 			UnitTypes unitType) {
 		// this does not account for units that will no longer be there after combining
 		// them to get the new one
-		return ((GameStateHelper.getKingdomIncome(kingdom) - getActualKingdomSalaries(gameState, kingdom, pickedUpUnits)
-				- unitType.salary() >= 0 || kingdom.getSavings() > unitType.salary() * 3)
+		return ((pickedUpUnits.getKingdomIncome() - pickedUpUnits.getActualKingdomSalaries() - unitType.salary() >= 0
+				|| kingdom.getSavings() > unitType.salary() * 3)
 				&& kingdom.getSavings() >= Unit.COST * unitType.strength());
 	}
 
@@ -407,11 +603,19 @@ public class BotAi {
 		pickedUpUnits.addUnit(unitType);
 	}
 
-	private void protectWithLeftoverUnits(GameState gameState, Intelligence intelligence, PickedUpUnits pickedUpUnits) {
+	private boolean protectWithLeftoverUnits(GameState gameState, IntelligenceParameters intelligence,
+			PickedUpUnits pickedUpUnits, BotTurnReport report) {
 		logger.debug("protecting the kingdom with leftover units");
-		Set<HexTile> interestingProtectionTiles = getInterestingProtectionTiles(gameState);
-		TileScoreInfo bestDefenseTileScore = getBestDefenseTileScore(gameState, intelligence,
-				interestingProtectionTiles);
+		if (report.isBudgetExhausted()) {
+			// the units must be placed anyway
+			placeLeftOverUnitsSomeWhere(gameState, pickedUpUnits);
+			return true;
+		}
+		boolean hitDeadline = false;
+		DistanceFields distanceFields = DistanceFields.of(gameState);
+		Set<HexTile> interestingProtectionTiles = getInterestingProtectionTiles(gameState, distanceFields);
+		TileScoreInfo bestDefenseTileScore = getBestDefenseTileScore(gameState, intelligence, distanceFields,
+				interestingProtectionTiles, report);
 		while (bestDefenseTileScore.score >= 0) {
 			if (pickedUpUnits.getTotalNoOfUnits() == 0) {
 				break;
@@ -422,24 +626,31 @@ public class BotAi {
 					.sorted(Comparator.comparingInt(type -> type.strength() * -1)).collect(Collectors.toList());
 			for (UnitTypes type : orderedUnitTypes) {
 				if (pickedUpUnits.ofType(type) > 0) {
-					gameState.setHeldObject(new Unit(type));
-					GameStateHelper.placeOwn(gameState, bestDefenseTileScore.tile);
 					pickedUpUnits.removeUnit(type);
+					gameState.setHeldObject(new Unit(type));
+					placeHeldObject(gameState, bestDefenseTileScore.tile, pickedUpUnits);
 					break;
 				}
 			}
-			bestDefenseTileScore = getBestDefenseTileScore(gameState, intelligence, interestingProtectionTiles);
+			if (pickedUpUnits.getTotalNoOfUnits() > 0 && report.isBudgetExhausted()) {
+				hitDeadline = true;
+				break;
+			}
+			bestDefenseTileScore = getBestDefenseTileScore(gameState, intelligence, distanceFields,
+					interestingProtectionTiles, report);
 		}
 		placeLeftOverUnitsSomeWhere(gameState, pickedUpUnits);
+		return hitDeadline;
 	}
 
 	private void placeLeftOverUnitsSomeWhere(GameState gameState, PickedUpUnits pickedUpUnits) {
 		for (UnitTypes type : UnitTypes.values()) {
-			for (int i = 0; i < pickedUpUnits.ofType(type); i++) {
+			while (pickedUpUnits.ofType(type) > 0) {
 				Optional<HexTile> emptyOrTreeTileOptional = findEmptyOrTreeTileInActiveKingdom(gameState);
+				pickedUpUnits.removeUnit(type);
 				if (emptyOrTreeTileOptional.isPresent()) {
 					gameState.setHeldObject(new Unit(type));
-					GameStateHelper.placeOwn(gameState, emptyOrTreeTileOptional.get());
+					placeHeldObject(gameState, emptyOrTreeTileOptional.get(), pickedUpUnits);
 				} else {
 					logger.error("Unable to place leftover unit because there are no available spaces.");
 				}
@@ -452,8 +663,9 @@ public class BotAi {
 				|| ClassReflection.isAssignableFrom(Tree.class, tile.getContent().getClass())).findFirst();
 	}
 
-	private void sellCastles(Kingdom kingdom, Set<HexTile> placedCastleTiles) {
+	private void sellCastles(GameState gameState, Kingdom kingdom, Set<HexTile> placedCastleTiles) {
 		logger.debug("selling previously bought castles again");
+		gameState.incrementVersion();
 		// sell the castles bought earlier to re-assess the situation after conquering
 		for (HexTile tile : placedCastleTiles) {
 			tile.setContent(null);
@@ -461,31 +673,20 @@ public class BotAi {
 		}
 	}
 
-	private int getActualKingdomSalaries(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits) {
-		int result = GameStateHelper.getKingdomSalaries(gameState, kingdom);
-		for (UnitTypes type : UnitTypes.values()) {
-			result += pickedUpUnits.ofType(type) * type.salary();
-		}
-		return result;
-	}
-
-	private Set<HexTile> getInterestingProtectionTiles(GameState gameState) {
+	private Set<HexTile> getInterestingProtectionTiles(GameState gameState, DistanceFields distanceFields) {
 		HashSet<HexTile> interestingPlacementTiles = new HashSet<>();
 		for (HexTile tile : gameState.getActiveKingdom().getTiles()) {
-			// tile is interesting for placement if it is close to another kingdom
-			List<HexTile> neighborsNeighbors = HexMapHelper.getNeighborsNeighborTiles(gameState.getMap(), tile);
-			for (HexTile neighborsNeighbor : neighborsNeighbors) {
-				if (neighborsNeighbor != null && neighborsNeighbor.getKingdom() != gameState.getActiveKingdom()) {
-					interestingPlacementTiles.add(tile);
-					break;
-				}
+			// tile is interesting for placement if it is close to an enemy kingdom
+			if (distanceFields.getEnemyKingdomDistance(tile) <= 2) {
+				interestingPlacementTiles.add(tile);
 			}
 		}
 		return interestingPlacementTiles;
 	}
 
 	private TileScoreInfo getBestBlockingObjectRemovalScore(GameState gameState,
-			Collection<HexTile> tilesWithBlockingObjects) {
+			Collection<HexTile> tilesWithBlockingObjects, BotTurnReport report) {
+		report.consumeWorkUnits(tilesWithBlockingObjects.size());
 		Set<TileScoreInfo> scores = Collections.newSetFromMap(new ConcurrentHashMap<TileScoreInfo, Boolean>());
 		tilesWithBlockingObjects.parallelStream()
 				.forEach(tile -> scores.add(new TileScoreInfo(tile, getBlockingObjectRemovalScore(gameState, tile))));
@@ -567,11 +768,12 @@ public class BotAi {
 		return tile.getContent() != null;
 	}
 
-	private TileScoreInfo getBestDefenseTileScore(GameState gameState, Intelligence intelligence,
-			Set<HexTile> interestingProtectionTiles) {
+	private TileScoreInfo getBestDefenseTileScore(GameState gameState, IntelligenceParameters intelligence,
+			DistanceFields distanceFields, Set<HexTile> interestingProtectionTiles, BotTurnReport report) {
+		report.consumeWorkUnits(interestingProtectionTiles.size());
 		Set<TileScoreInfo> results = Collections.newSetFromMap(new ConcurrentHashMap<TileScoreInfo, Boolean>());
-		interestingProtectionTiles.parallelStream().forEach(
-				tile -> results.add(new TileScoreInfo(tile, getTileDefenseScore(gameState, intelligence, tile))));
+		interestingProtectionTiles.parallelStream().forEach(tile -> results
+				.add(new TileScoreInfo(tile, getTileDefenseScore(gameState, intelligence, distanceFields, tile))));
 		return results.stream().max((TileScoreInfo t1, TileScoreInfo t2) -> {
 			int result = Integer.compare(t1.score, t2.score);
 			// if the score is the same, use the coordinates to eliminate randomness
@@ -588,50 +790,40 @@ public class BotAi {
 	 * tiles get a score of -1. Depending of the intelligence level, all other tiles
 	 * may get a score of 0. The highest possible value should be 60 (I think).
 	 * 
-	 * @param gameStategame state to work with
-	 * @param intelligence  intelligence level of the bot player
-	 * @param tile          tiles to calculate the score of
+	 * @param gameState      game state to work with
+	 * @param intelligence   intelligence parameters of the bot player
+	 * @param distanceFields distance fields of the bot player
+	 * @param tile           tiles to calculate the score of
 	 * @return defense score
 	 */
-	private int getTileDefenseScore(GameState gameState, Intelligence intelligence, HexTile tile) {
+	private int getTileDefenseScore(GameState gameState, IntelligenceParameters intelligence,
+			DistanceFields distanceFields, HexTile tile) {
 		if (tile.getContent() != null) {
 			// already occupied
 			return -1;
 		}
 		// count the tiles that will be protected
-		boolean tileIsBorder = false;
+		boolean tileIsBorder = distanceFields.getEnemyKingdomDistance(tile) == 1;
 		boolean tileIsProtected = false;
 		int score = 0;
-		List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(gameState.getMap(), tile);
-		for (HexTile neighborTile : neighborTiles) {
-			boolean neighborIsBorder = false;
+		for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+			if (neighborTile == null || neighborTile.getKingdom() != tile.getKingdom()) {
+				continue;
+			}
 			boolean neighborIsProtected = false;
-			if (neighborTile != null && neighborTile.getKingdom() != null) {
-				if (neighborTile.getKingdom() != tile.getKingdom()) {
-					// the tile itself is worth protecting
-					tileIsBorder = true;
-				} else {
-					if (neighborTile.getContent() != null && neighborTile.getContent().getStrength() > 0) {
-						// the tile is already (somewhat) protected
-						tileIsProtected = true;
+			if (isProtectingTile(neighborTile)) {
+				// the tile is already (somewhat) protected
+				tileIsProtected = true;
+				neighborIsProtected = true;
+			}
+			if (distanceFields.getEnemyKingdomDistance(neighborTile) == 1) {
+				for (HexTile neighborsNeighbor : HexMapHelper.getNeighborTiles(gameState.getMap(), neighborTile)) {
+					if (neighborsNeighbor != null && neighborsNeighbor.getKingdom() == tile.getKingdom()
+							&& isProtectingTile(neighborsNeighbor)) {
 						neighborIsProtected = true;
-					}
-					List<HexTile> neighborsNeighbors = HexMapHelper.getNeighborTiles(gameState.getMap(), neighborTile);
-					for (HexTile neighborsNeighbor : neighborsNeighbors) {
-						if (neighborsNeighbor != null) {
-							if (neighborsNeighbor.getKingdom() != null
-									&& neighborsNeighbor.getKingdom() != tile.getKingdom()) {
-								neighborIsBorder = true;
-							} else if (neighborsNeighbor.getKingdom() == tile.getKingdom()
-									&& neighborsNeighbor.getContent() != null
-									&& neighborsNeighbor.getContent().getStrength() > 0) {
-								neighborIsProtected = true;
-							}
-						}
+						break;
 					}
 				}
-			}
-			if (neighborIsBorder) {
 				// the 1 is there because it is better to protect a tile twice than to place
 				// the unit somewhere useless
 				score += neighborIsProtected ? 1 : 10;
@@ -642,13 +834,18 @@ public class BotAi {
 			// border
 			score += tileIsProtected ? 1 : 5;
 		}
-		if (!intelligence.smartDefending) {
+		if (!intelligence.isSmartDefending()) {
 			return 0;
 		}
 		return score;
 	}
 
-	private OffenseTileScoreInfo getOffenseTileScoreInfo(GameState gameState, Intelligence intelligence, HexTile tile) {
+	private boolean isProtectingTile(HexTile tile) {
+		return tile.getContent() != null && tile.getContent().getStrength() > 0;
+	}
+
+	private OffenseTileScoreInfo getOffenseTileScoreInfo(GameState gameState, IntelligenceParameters intelligence,
+			HexTile tile) {
 		int score;
 		int requiredStrength = tile.getContent() == null ? 1 : tile.getContent().getStrength() + 1;
 		if (tile.getKingdom() == null) {
@@ -685,23 +882,55 @@ public class BotAi {
 				}
 			}
 		}
-		if (!intelligence.smartAttacking) {
+		if (!intelligence.isSmartAttacking()) {
 			score = 0;
 		}
 		return new OffenseTileScoreInfo(tile, score, requiredStrength);
 	}
 
 	private boolean conquerTileWithStoredUnit(GameState gameState, HexTile tile, Unit.UnitTypes unitType,
-			Integer nrAvailableUnits) {
+			PickedUpUnits pickedUpUnits, KingdomMove move, UndoRecord undoRecord) {
 		logger.debug("conquering tile '{}' with stored unit '{}'", tile, unitType);
-		if (nrAvailableUnits > 0) {
+		if (pickedUpUnits.ofType(unitType) > 0) {
+			int kingdomSizeBefore = gameState.getActiveKingdom().getTiles().size();
+			pickedUpUnits.removeUnit(unitType);
 			gameState.setHeldObject(new Unit(unitType));
-			GameStateHelper.conquer(gameState, tile);
+			GameStateHelper.conquer(gameState, tile, undoRecord);
+			pickedUpUnits.conquered(gameState, unitType, kingdomSizeBefore);
+			ledgerUpdated(gameState, pickedUpUnits);
+			move.conquered(tile, unitType);
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Places the held object on a tile of the active kingdom and keeps the ledger
+	 * up to date.
+	 * 
+	 * @param gameState     game state
+	 * @param tile          tile to place the object on
+	 * @param pickedUpUnits ledger of the active kingdom
+	 */
+	private void placeHeldObject(GameState gameState, HexTile tile, PickedUpUnits pickedUpUnits) {
+		pickedUpUnits.placeOnMap(tile.getContent(), gameState.getHeldObject());
+		GameStateHelper.placeOwn(gameState, tile);
+		ledgerUpdated(gameState, pickedUpUnits);
+	}
+
+	/**
+	 * Called after every change of the game state the ledger of the active kingdom
+	 * keeps track of: picking up, placing and conquering, which includes merging
+	 * kingdoms. Does nothing; a subclass can check the ledger against the game
+	 * state.
+	 * 
+	 * @param gameState     game state after the change
+	 * @param pickedUpUnits ledger of the active kingdom
+	 */
+	void ledgerUpdated(GameState gameState, PickedUpUnits pickedUpUnits) {
+		// nothing to do
+	}
+
 	public Speed getCurrentSpeed() {
 		return currentSpeed;
 	}
@@ -711,6 +940,34 @@ public class BotAi {
 		logger.debug("Bot turn speed set to " + currentSpeed);
 	}
 
+	public TreeSearchParameters getTreeSearchParameters() {
+		return treeSearchParameters;
+	}
+
+	public void setTreeSearchParameters(TreeSearchParameters treeSearchParameters) {
+		this.treeSearchParameters = treeSearchParameters;
+	}
+
+	public BotTurnBudget getTurnBudget() {
+		return turnBudget;
+	}
+
+	public void setTurnBudget(BotTurnBudget turnBudget) {
+		this.turnBudget = turnBudget;
+	}
+
+	public TranspositionCache getTranspositionCache() {
+		return transpositionCache;
+	}
+
+	public void setTranspositionCache(TranspositionCache transpositionCache) {
+		this.transpositionCache = transpositionCache;
+	}
+
+	public BotTurnReport getLastTurnReport() {
+		return lastTurnReport;
+	}
+
 	public boolean isSkipDisplayingTurn() {
 		return skipDisplayingTurn;
 	}
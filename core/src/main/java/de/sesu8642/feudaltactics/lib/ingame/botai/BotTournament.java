@@ -0,0 +1,169 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentReport.IntelligenceStatistics;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentReport.MatchupResult;
+
+/**
+ * Plays seeded games between bots of different intelligence levels on several
+ * threads. Does not need a running libGDX application. Every game only depends
+ * on its seed and the parameters, so the results apart from the measured times
+ * do not depend on the number of threads.
+ */
+public class BotTournament {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	private final BotTournamentParameters parameters;
+
+	/** Each thread gets its own bot because the bot is not thread-safe. */
+	private final ThreadLocal<BotAi> botAis;
+
+	/** Shared by the bots of all the threads. */
+	private final TranspositionCache transpositionCache = new TranspositionCache(
+			TranspositionCache.DEFAULT_MAXIMUM_SIZE);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param parameters parameters of the tournament
+	 */
+	public BotTournament(BotTournamentParameters parameters) {
+		this.parameters = parameters;
+		botAis = ThreadLocal.withInitial(this::createBotAi);
+	}
+
+	private BotAi createBotAi() {
+		// nothing is displayed, so neither the events nor the preferences are needed
+		BotAi botAi = new BotAi(new EventBus(), null);
+		botAi.setSkipDisplayingTurn(true);
+		botAi.setTurnBudget(parameters.getTurnBudget());
+		botAi.setTranspositionCache(transpositionCache);
+		// the games already use all the threads
+		TreeSearchParameters defaultParameters = TreeSearchParameters.DEFAULT;
+		botAi.setTreeSearchParameters(new TreeSearchParameters(defaultParameters.getIterationBudget(),
+				defaultParameters.getTimeBudgetMs(), 1, defaultParameters.getSeed(),
+				defaultParameters.getRolloutTurns(), defaultParameters.getRolloutIntelligence(),
+				defaultParameters.getExplorationConstant()));
+		return botAi;
+	}
+
+	/**
+	 * Plays all the games of the tournament.
+	 *
+	 * @return report of the results
+	 * @throws InterruptedException if interrupted while waiting for the games
+	 */
+	public BotTournamentReport run() throws InterruptedException {
+		logger.info("starting bot tournament with {}", parameters);
+		BotTournamentReport report = new BotTournamentReport(parameters);
+		ExecutorService executor = Executors.newFixedThreadPool(parameters.getThreadCount(),
+				new ThreadFactoryBuilder().setNameFormat("bot-tournament-%d").setDaemon(true).build());
+		long startNanos = System.nanoTime();
+		try {
+			List<MatchupResult> matchups = new ArrayList<>();
+			List<Future<GameResult>> futures = new ArrayList<>();
+			for (MatchupResult matchup : report.getMatchups()) {
+				for (int i = 0; i < parameters.getSeedCount(); i++) {
+					long seed = parameters.getFirstSeed() + i;
+					matchups.add(matchup);
+					futures.add(executor.submit(() -> playGame(matchup.getFirst(), matchup.getSecond(), seed)));
+					matchups.add(matchup);
+					futures.add(executor.submit(() -> playGame(matchup.getSecond(), matchup.getFirst(), seed)));
+				}
+			}
+			// collect in the order of submission to get the same report every time
+			for (int i = 0; i < futures.size(); i++) {
+				GameResult result = futures.get(i).get();
+				report.addGame(matchups.get(i), result.winner, result.rounds, result.turns, result.statistics);
+				if (report.getGames() % 100 == 0) {
+					logger.info("finished {} of {} games", report.getGames(), futures.size());
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A tournament game failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		report.setWallNanos(System.nanoTime() - startNanos);
+		report.setTranspositionCacheStatistics(transpositionCache.getHitCount(), transpositionCache.getMissCount(),
+				transpositionCache.getEvictionCount());
+		logger.info("finished bot tournament: {}", report);
+		return report;
+	}
+
+	/**
+	 * Plays a single game. The seats alternate between the two intelligence
+	 * levels.
+	 *
+	 * @param startingIntelligence intelligence level of the first seat
+	 * @param otherIntelligence    intelligence level of the second seat
+	 * @param seed                 map seed
+	 * @return result of the game
+	 * @throws InterruptedException if interrupted
+	 */
+	private GameResult playGame(Intelligence startingIntelligence, Intelligence otherIntelligence, long seed)
+			throws InterruptedException {
+		BotAi botAi = botAis.get();
+		List<Player> players = new ArrayList<>();
+		Intelligence[] seatIntelligences = new Intelligence[parameters.getPlayerCount()];
+		for (int i = 0; i < parameters.getPlayerCount(); i++) {
+			players.add(new Player(GameController.PLAYER_COLORS[i], Type.LOCAL_BOT));
+			seatIntelligences[i] = i % 2 == 0 ? startingIntelligence : otherIntelligence;
+		}
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, parameters.getLandMass(), parameters.getDensity(), null,
+				seed);
+
+		GameResult result = new GameResult();
+		result.statistics.put(startingIntelligence, new IntelligenceStatistics());
+		result.statistics.put(otherIntelligence, new IntelligenceStatistics());
+		while (gameState.getWinner() == null && gameState.getRound() < parameters.getMaxRounds()) {
+			Intelligence intelligence = seatIntelligences[gameState.getPlayerTurn()];
+			if (!gameState.getActivePlayer().isDefeated()) {
+				long turnStartNanos = System.nanoTime();
+				botAi.doTurn(gameState, intelligence);
+				result.statistics.get(intelligence).addTurn(botAi.getLastTurnReport(),
+						System.nanoTime() - turnStartNanos);
+				result.turns++;
+			}
+			GameStateHelper.endTurn(gameState);
+		}
+		if (gameState.getWinner() != null) {
+			result.winner = seatIntelligences[players.indexOf(gameState.getWinner())];
+		}
+		result.rounds = gameState.getRound();
+		return result;
+	}
+
+	/** Result of a single game. */
+	private static class GameResult {
+		/** Null for a draw. */
+		Intelligence winner;
+		int rounds;
+		int turns;
+		final Map<Intelligence, IntelligenceStatistics> statistics = new EnumMap<>(Intelligence.class);
+	}
+
+}
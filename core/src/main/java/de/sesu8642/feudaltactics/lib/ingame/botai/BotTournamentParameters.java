@@ -0,0 +1,117 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+
+/**
+ * Parameters for a {@link BotTournament}. Every pair of intelligence levels
+ * plays one game per seed with either level moving first. Immutable class.
+ */
+public class BotTournamentParameters {
+
+	private final List<Intelligence> intelligences;
+	private final long firstSeed;
+	private final int seedCount;
+	private final int playerCount;
+	private final float landMass;
+	private final float density;
+	private final int maxRounds;
+	private final int threadCount;
+	private final BotTurnBudget turnBudget;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param intelligences intelligence levels that play against each other
+	 * @param firstSeed     map seed of the first game of every pairing
+	 * @param seedCount     number of maps every pairing plays on
+	 * @param playerCount   number of players per game; the seats alternate
+	 *                      between the two levels of a pairing
+	 * @param landMass      land mass of the generated maps
+	 * @param density       density of the generated maps
+	 * @param maxRounds     number of rounds after which a game is a draw
+	 * @param threadCount   number of games played at the same time
+	 * @param turnBudget    budget of every bot turn
+	 */
+	public BotTournamentParameters(List<Intelligence> intelligences, long firstSeed, int seedCount, int playerCount,
+			float landMass, float density, int maxRounds, int threadCount, BotTurnBudget turnBudget) {
+		if (intelligences.size() < 2) {
+			throw new IllegalArgumentException("At least two intelligence levels are required.");
+		}
+		if (new HashSet<>(intelligences).size() != intelligences.size()) {
+			throw new IllegalArgumentException("The intelligence levels must be distinct.");
+		}
+		if (seedCount < 1) {
+			throw new IllegalArgumentException("At least one seed is required.");
+		}
+		if (playerCount < 2 || playerCount > GameController.PLAYER_COLORS.length) {
+			throw new IllegalArgumentException(
+					"The player count must be between 2 and " + GameController.PLAYER_COLORS.length + ".");
+		}
+		if (maxRounds < 1) {
+			throw new IllegalArgumentException("At least one round is required.");
+		}
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("At least one thread is required.");
+		}
+		this.intelligences = Collections.unmodifiableList(new ArrayList<>(intelligences));
+		this.firstSeed = firstSeed;
+		this.seedCount = seedCount;
+		this.playerCount = playerCount;
+		this.landMass = landMass;
+		this.density = density;
+		this.maxRounds = maxRounds;
+		this.threadCount = threadCount;
+		this.turnBudget = turnBudget;
+	}
+
+	public List<Intelligence> getIntelligences() {
+		return intelligences;
+	}
+
+	public long getFirstSeed() {
+		return firstSeed;
+	}
+
+	public int getSeedCount() {
+		return seedCount;
+	}
+
+	public int getPlayerCount() {
+		return playerCount;
+	}
+
+	public float getLandMass() {
+		return landMass;
+	}
+
+	public float getDensity() {
+		return density;
+	}
+
+	public int getMaxRounds() {
+		return maxRounds;
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	public BotTurnBudget getTurnBudget() {
+		return turnBudget;
+	}
+
+	@Override
+	public String toString() {
+		return "BotTournamentParameters [intelligences=" + intelligences + ", firstSeed=" + firstSeed + ", seedCount="
+				+ seedCount + ", playerCount=" + playerCount + ", landMass=" + landMass + ", density=" + density
+				+ ", maxRounds=" + maxRounds + ", threadCount=" + threadCount + ", turnBudget=" + turnBudget + "]";
+	}
+
+}
@@ -0,0 +1,391 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnReport.Phase;
+
+/**
+ * Results of a {@link BotTournament}. Everything except the measured times only
+ * depends on the tournament parameters.
+ */
+public class BotTournamentReport {
+
+	private final BotTournamentParameters parameters;
+	private final List<MatchupResult> matchups = new ArrayList<>();
+	private final Map<Intelligence, IntelligenceStatistics> intelligenceStatistics = new EnumMap<>(
+			Intelligence.class);
+	private int games = 0;
+	private long turns = 0;
+	private long rounds = 0;
+	private int minRounds = Integer.MAX_VALUE;
+	private int maxRounds = 0;
+	private long wallNanos = 0;
+	private long transpositionCacheHits = 0;
+	private long transpositionCacheMisses = 0;
+	private long transpositionCacheEvictions = 0;
+
+	BotTournamentReport(BotTournamentParameters parameters) {
+		this.parameters = parameters;
+		List<Intelligence> intelligences = parameters.getIntelligences();
+		for (int i = 0; i < intelligences.size(); i++) {
+			intelligenceStatistics.put(intelligences.get(i), new IntelligenceStatistics());
+			for (int j = i + 1; j < intelligences.size(); j++) {
+				matchups.add(new MatchupResult(intelligences.get(i), intelligences.get(j)));
+			}
+		}
+	}
+
+	/**
+	 * Adds the result of a finished game.
+	 *
+	 * @param matchup    pairing that played the game
+	 * @param winner     intelligence level of the winner; null for a draw
+	 * @param gameRounds number of rounds the game took
+	 * @param gameTurns  number of bot turns in the game
+	 * @param statistics statistics of the turns of every level in the game
+	 */
+	void addGame(MatchupResult matchup, Intelligence winner, int gameRounds, int gameTurns,
+			Map<Intelligence, IntelligenceStatistics> statistics) {
+		games++;
+		turns += gameTurns;
+		rounds += gameRounds;
+		minRounds = Math.min(minRounds, gameRounds);
+		maxRounds = Math.max(maxRounds, gameRounds);
+		matchup.addGame(winner, gameRounds);
+		for (Map.Entry<Intelligence, IntelligenceStatistics> entry : statistics.entrySet()) {
+			IntelligenceStatistics total = intelligenceStatistics.get(entry.getKey());
+			total.add(entry.getValue());
+			total.games++;
+			if (entry.getKey() == winner) {
+				total.wins++;
+			}
+		}
+	}
+
+	void setWallNanos(long wallNanos) {
+		this.wallNanos = wallNanos;
+	}
+
+	void setTranspositionCacheStatistics(long hits, long misses, long evictions) {
+		transpositionCacheHits = hits;
+		transpositionCacheMisses = misses;
+		transpositionCacheEvictions = evictions;
+	}
+
+	public BotTournamentParameters getParameters() {
+		return parameters;
+	}
+
+	public List<MatchupResult> getMatchups() {
+		return Collections.unmodifiableList(matchups);
+	}
+
+	public IntelligenceStatistics getIntelligenceStatistics(Intelligence intelligence) {
+		return intelligenceStatistics.get(intelligence);
+	}
+
+	public int getGames() {
+		return games;
+	}
+
+	public long getTurns() {
+		return turns;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * Returns how often a kingdom move was found in the shared
+	 * {@link TranspositionCache}. Like the measured times, this depends on the
+	 * order in which the threads played the games.
+	 *
+	 * @return number of cache hits
+	 */
+	public long getTranspositionCacheHits() {
+		return transpositionCacheHits;
+	}
+
+	public long getTranspositionCacheMisses() {
+		return transpositionCacheMisses;
+	}
+
+	public long getTranspositionCacheEvictions() {
+		return transpositionCacheEvictions;
+	}
+
+	public double getGamesPerSecond() {
+		return perSecond(games);
+	}
+
+	public double getTurnsPerSecond() {
+		return perSecond(turns);
+	}
+
+	public double getMeanRounds() {
+		return games == 0 ? 0 : (double) rounds / games;
+	}
+
+	private double perSecond(long count) {
+		return wallNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / wallNanos;
+	}
+
+	/**
+	 * Writes the report as JSON.
+	 *
+	 * @param writer writer to write to; is not closed
+	 * @throws IOException if writing fails
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		json.setOutputType(OutputType.json);
+		json.object();
+		json.object("parameters");
+		json.array("intelligences");
+		for (Intelligence intelligence : parameters.getIntelligences()) {
+			json.value(intelligence.name());
+		}
+		json.pop();
+		json.set("firstSeed", parameters.getFirstSeed());
+		json.set("seedCount", parameters.getSeedCount());
+		json.set("playerCount", parameters.getPlayerCount());
+		json.set("landMass", parameters.getLandMass());
+		json.set("density", parameters.getDensity());
+		json.set("maxRounds", parameters.getMaxRounds());
+		json.set("threadCount", parameters.getThreadCount());
+		json.set("workUnitsPerTurn", parameters.getTurnBudget().getWorkUnitsPerTurn());
+		json.set("workUnitsPerKingdom", parameters.getTurnBudget().getWorkUnitsPerKingdom());
+		json.pop();
+		json.set("games", games);
+		json.set("turns", turns);
+		json.set("wallTimeMs", TimeUnit.NANOSECONDS.toMillis(wallNanos));
+		json.set("gamesPerSecond", getGamesPerSecond());
+		json.set("turnsPerSecond", getTurnsPerSecond());
+		json.object("transpositionCache");
+		json.set("hits", transpositionCacheHits);
+		json.set("misses", transpositionCacheMisses);
+		json.set("evictions", transpositionCacheEvictions);
+		json.pop();
+		json.object("rounds");
+		json.set("min", games == 0 ? 0 : minRounds);
+		json.set("max", maxRounds);
+		json.set("mean", getMeanRounds());
+		json.pop();
+		json.array("intelligences");
+		for (Intelligence intelligence : parameters.getIntelligences()) {
+			intelligenceStatistics.get(intelligence).writeJson(json, intelligence);
+		}
+		json.pop();
+		json.array("matchups");
+		for (MatchupResult matchup : matchups) {
+			matchup.writeJson(json);
+		}
+		json.pop();
+		json.pop();
+		json.flush();
+	}
+
+	@Override
+	public String toString() {
+		return "BotTournamentReport [games=" + games + ", turns=" + turns + ", wallNanos=" + wallNanos
+				+ ", meanRounds=" + getMeanRounds() + ", matchups=" + matchups + "]";
+	}
+
+	/** Results of the games between two intelligence levels. */
+	public static class MatchupResult {
+
+		private final Intelligence first;
+		private final Intelligence second;
+		private int games = 0;
+		private int firstWins = 0;
+		private int secondWins = 0;
+		private int draws = 0;
+		private long rounds = 0;
+
+		MatchupResult(Intelligence first, Intelligence second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		void addGame(Intelligence winner, int gameRounds) {
+			games++;
+			rounds += gameRounds;
+			if (winner == null) {
+				draws++;
+			} else if (winner == first) {
+				firstWins++;
+			} else {
+				secondWins++;
+			}
+		}
+
+		public Intelligence getFirst() {
+			return first;
+		}
+
+		public Intelligence getSecond() {
+			return second;
+		}
+
+		public int getGames() {
+			return games;
+		}
+
+		public int getFirstWins() {
+			return firstWins;
+		}
+
+		public int getSecondWins() {
+			return secondWins;
+		}
+
+		public int getDraws() {
+			return draws;
+		}
+
+		public double getFirstWinRate() {
+			return games == 0 ? 0 : (double) firstWins / games;
+		}
+
+		public double getSecondWinRate() {
+			return games == 0 ? 0 : (double) secondWins / games;
+		}
+
+		public double getMeanRounds() {
+			return games == 0 ? 0 : (double) rounds / games;
+		}
+
+		private void writeJson(JsonWriter json) throws IOException {
+			json.object();
+			json.set("first", first.name());
+			json.set("second", second.name());
+			json.set("games", games);
+			json.set("firstWins", firstWins);
+			json.set("secondWins", secondWins);
+			json.set("draws", draws);
+			json.set("firstWinRate", getFirstWinRate());
+			json.set("secondWinRate", getSecondWinRate());
+			json.set("meanRounds", getMeanRounds());
+			json.pop();
+		}
+
+		@Override
+		public String toString() {
+			return "MatchupResult [first=" + first + ", second=" + second + ", games=" + games + ", firstWins="
+					+ firstWins + ", secondWins=" + secondWins + ", draws=" + draws + "]";
+		}
+
+	}
+
+	/** Sums of the turns of one intelligence level. */
+	public static class IntelligenceStatistics {
+
+		private int games = 0;
+		private int wins = 0;
+		private long turns = 0;
+		private long turnNanos = 0;
+		private long workUnits = 0;
+		private final long[] phaseWorkUnits = new long[Phase.values().length];
+		private final long[] phaseCpuNanos = new long[Phase.values().length];
+		private final long[] phaseDeadlineHits = new long[Phase.values().length];
+
+		/**
+		 * Adds a single turn.
+		 *
+		 * @param report        report of the turn
+		 * @param turnNanosUsed time the whole turn took, including a possible search
+		 */
+		void addTurn(BotTurnReport report, long turnNanosUsed) {
+			turns++;
+			turnNanos += turnNanosUsed;
+			workUnits += report.getUsedWorkUnits();
+			for (Phase phase : Phase.values()) {
+				phaseWorkUnits[phase.ordinal()] += report.getWorkUnits(phase);
+				phaseCpuNanos[phase.ordinal()] += report.getCpuNanos(phase);
+				phaseDeadlineHits[phase.ordinal()] += report.getDeadlineHits(phase);
+			}
+		}
+
+		private void add(IntelligenceStatistics other) {
+			turns += other.turns;
+			turnNanos += other.turnNanos;
+			workUnits += other.workUnits;
+			for (int i = 0; i < phaseCpuNanos.length; i++) {
+				phaseWorkUnits[i] += other.phaseWorkUnits[i];
+				phaseCpuNanos[i] += other.phaseCpuNanos[i];
+				phaseDeadlineHits[i] += other.phaseDeadlineHits[i];
+			}
+		}
+
+		public int getGames() {
+			return games;
+		}
+
+		public int getWins() {
+			return wins;
+		}
+
+		public long getTurns() {
+			return turns;
+		}
+
+		public long getTurnNanos() {
+			return turnNanos;
+		}
+
+		public long getWorkUnits() {
+			return workUnits;
+		}
+
+		public long getPhaseCpuNanos(Phase phase) {
+			return phaseCpuNanos[phase.ordinal()];
+		}
+
+		public long getPhaseWorkUnits(Phase phase) {
+			return phaseWorkUnits[phase.ordinal()];
+		}
+
+		public long getPhaseDeadlineHits(Phase phase) {
+			return phaseDeadlineHits[phase.ordinal()];
+		}
+
+		private void writeJson(JsonWriter json, Intelligence intelligence) throws IOException {
+			json.object();
+			json.set("intelligence", intelligence.name());
+			json.set("games", games);
+			json.set("wins", wins);
+			json.set("winRate", games == 0 ? 0 : (double) wins / games);
+			json.set("turns", turns);
+			// the search of a turn may run on other threads, so only the wall time counts
+			json.set("turnWallTimeMs", TimeUnit.NANOSECONDS.toMillis(turnNanos));
+			json.set("workUnits", workUnits);
+			json.array("phases");
+			for (Phase phase : Phase.values()) {
+				json.object();
+				json.set("phase", phase.name());
+				json.set(BotTurnReport.isCpuTimeMeasured() ? "cpuTimeMs" : "wallTimeMs",
+						TimeUnit.NANOSECONDS.toMillis(phaseCpuNanos[phase.ordinal()]));
+				json.set("workUnits", phaseWorkUnits[phase.ordinal()]);
+				json.set("deadlineHits", phaseDeadlineHits[phase.ordinal()]);
+				json.pop();
+			}
+			json.pop();
+			json.pop();
+		}
+
+	}
+
+}
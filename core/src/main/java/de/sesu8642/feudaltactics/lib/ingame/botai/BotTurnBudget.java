@@ -0,0 +1,82 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+/**
+ * Limits the amount of work a bot may do in one turn. The work is counted in
+ * work units instead of wall time so that the same game state and budget
+ * always result in the same moves. One work unit is the evaluation of one tile
+ * when looking for the best tile to act on. Immutable class.
+ */
+public class BotTurnBudget {
+
+	/** Value for unlimited work. */
+	public static final long UNLIMITED_WORK_UNITS = Long.MAX_VALUE;
+
+	/** Budget that never stops a phase early. */
+	public static final BotTurnBudget UNLIMITED = new BotTurnBudget(UNLIMITED_WORK_UNITS, UNLIMITED_WORK_UNITS);
+
+	/**
+	 * Work units per tile of the map a player may use in a turn of a running game.
+	 * The bots use less than this on every map size at every intelligence level,
+	 * so it only stops turns that take much longer than usual.
+	 */
+	static final long WORK_UNITS_PER_TILE_AND_TURN = 4;
+
+	/** Like {@link #WORK_UNITS_PER_TILE_AND_TURN} but for a single kingdom. */
+	static final long WORK_UNITS_PER_TILE_AND_KINGDOM = 2;
+
+	private final long workUnitsPerTurn;
+	private final long workUnitsPerKingdom;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param workUnitsPerTurn    work units all the kingdoms of the player may use
+	 *                            together
+	 * @param workUnitsPerKingdom work units a single kingdom may use
+	 */
+	public BotTurnBudget(long workUnitsPerTurn, long workUnitsPerKingdom) {
+		if (workUnitsPerTurn <= 0 || workUnitsPerKingdom <= 0) {
+			throw new IllegalArgumentException("Budgets must be positive.");
+		}
+		this.workUnitsPerTurn = workUnitsPerTurn;
+		this.workUnitsPerKingdom = workUnitsPerKingdom;
+	}
+
+	/**
+	 * Returns the budget for the bot turns of a running game. It grows with the
+	 * map because the bots evaluate more tiles on bigger maps.
+	 *
+	 * @param tileCount number of tiles of the map
+	 * @return budget for the map
+	 */
+	public static BotTurnBudget forMap(int tileCount) {
+		long tiles = Math.max(tileCount, 1);
+		return new BotTurnBudget(tiles * WORK_UNITS_PER_TILE_AND_TURN, tiles * WORK_UNITS_PER_TILE_AND_KINGDOM);
+	}
+
+	public long getWorkUnitsPerTurn() {
+		return workUnitsPerTurn;
+	}
+
+	public long getWorkUnitsPerKingdom() {
+		return workUnitsPerKingdom;
+	}
+
+	/**
+	 * Returns whether the budget never stops a phase early.
+	 *
+	 * @return whether both budgets are unlimited
+	 */
+	public boolean isUnlimited() {
+		return workUnitsPerTurn == UNLIMITED_WORK_UNITS && workUnitsPerKingdom == UNLIMITED_WORK_UNITS;
+	}
+
+	@Override
+	public String toString() {
+		return "BotTurnBudget [workUnitsPerTurn=" + workUnitsPerTurn + ", workUnitsPerKingdom="
+				+ workUnitsPerKingdom + "]";
+	}
+
+}
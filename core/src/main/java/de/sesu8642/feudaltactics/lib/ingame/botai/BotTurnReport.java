@@ -0,0 +1,180 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the work done in a bot turn and of the phases that had to stop
+ * early because the {@link BotTurnBudget} was used up.
+ */
+public class BotTurnReport {
+
+	/** Phases of a kingdom's move. */
+	public enum Phase {
+		REMOVE_BLOCKING_OBJECTS, DEFEND_MOST_IMPORTANT_TILES, CONQUER_AS_MUCH_AS_POSSIBLE, PROTECT_WITH_LEFTOVER_UNITS
+	}
+
+	private final BotTurnBudget budget;
+	private long usedWorkUnits = 0;
+	private long kingdomStartWorkUnits = 0;
+	private int movedKingdoms = 0;
+	private int skippedKingdoms = 0;
+	private int repeatedKingdoms = 0;
+	private final long[] phaseWorkUnits = new long[Phase.values().length];
+	private final int[] phaseDeadlineHits = new int[Phase.values().length];
+	private final long[] phaseCpuNanos = new long[Phase.values().length];
+
+	BotTurnReport(BotTurnBudget budget) {
+		this.budget = budget;
+	}
+
+	/** Starts counting the work of the next kingdom. */
+	void startKingdom() {
+		kingdomStartWorkUnits = usedWorkUnits;
+		movedKingdoms++;
+	}
+
+	/** Notes that a kingdom did not move because the turn budget was used up. */
+	void skipKingdom() {
+		skippedKingdoms++;
+	}
+
+	/** Notes that a kingdom repeated a move from the {@link TranspositionCache}. */
+	void repeatKingdom() {
+		repeatedKingdoms++;
+	}
+
+	void consumeWorkUnits(int workUnits) {
+		usedWorkUnits += workUnits;
+	}
+
+	boolean isTurnBudgetExhausted() {
+		return usedWorkUnits >= budget.getWorkUnitsPerTurn();
+	}
+
+	/**
+	 * Returns whether either the turn or the kingdom budget is used up.
+	 *
+	 * @return whether the current phase must stop
+	 */
+	boolean isBudgetExhausted() {
+		return isTurnBudgetExhausted() || usedWorkUnits - kingdomStartWorkUnits >= budget.getWorkUnitsPerKingdom();
+	}
+
+	/**
+	 * Returns whether work of the current kingdom could be done without using up
+	 * either budget. The work units are only ever added up, so no budget check
+	 * during that work would have stopped it.
+	 *
+	 * @param workUnits work units to do
+	 * @return whether the work fits into what is left of both budgets
+	 */
+	boolean isAffordable(long workUnits) {
+		return usedWorkUnits + workUnits < budget.getWorkUnitsPerTurn()
+				&& usedWorkUnits - kingdomStartWorkUnits + workUnits < budget.getWorkUnitsPerKingdom();
+	}
+
+	void recordPhase(Phase phase, long workUnits, long cpuNanos, boolean hitDeadline) {
+		phaseWorkUnits[phase.ordinal()] += workUnits;
+		phaseCpuNanos[phase.ordinal()] += cpuNanos;
+		if (hitDeadline) {
+			phaseDeadlineHits[phase.ordinal()]++;
+		}
+	}
+
+	/**
+	 * Records the work of a phase that was repeated from the
+	 * {@link TranspositionCache} instead of being done again. The work counts as
+	 * used so that the report does not depend on the cache.
+	 *
+	 * @param phase     phase that was repeated
+	 * @param workUnits work units the phase used when it was recorded
+	 */
+	void recordRepeatedPhase(Phase phase, long workUnits) {
+		usedWorkUnits += workUnits;
+		phaseWorkUnits[phase.ordinal()] += workUnits;
+	}
+
+	public BotTurnBudget getBudget() {
+		return budget;
+	}
+
+	public long getUsedWorkUnits() {
+		return usedWorkUnits;
+	}
+
+	public int getMovedKingdoms() {
+		return movedKingdoms;
+	}
+
+	public int getSkippedKingdoms() {
+		return skippedKingdoms;
+	}
+
+	/**
+	 * Returns how many of the moved kingdoms repeated a move from the
+	 * {@link TranspositionCache}. Unlike the work units, this depends on what else
+	 * used the cache before.
+	 *
+	 * @return number of repeated kingdom moves
+	 */
+	public int getRepeatedKingdoms() {
+		return repeatedKingdoms;
+	}
+
+	public long getWorkUnits(Phase phase) {
+		return phaseWorkUnits[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the CPU time the thread doing the turn spent in a phase. Unlike the
+	 * work units, this depends on the machine. It is the wall time where the CPU
+	 * time cannot be measured; see {@link #isCpuTimeMeasured}.
+	 *
+	 * @param phase phase to check
+	 * @return CPU time spent in the phase in nanoseconds
+	 */
+	public long getCpuNanos(Phase phase) {
+		return phaseCpuNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Returns whether the times of the phases are CPU times. If not, they are wall
+	 * times, which include the time the thread waited for a core.
+	 *
+	 * @return whether the CPU time is measured
+	 */
+	public static boolean isCpuTimeMeasured() {
+		return ThreadCpuClock.measuresCpuTime();
+	}
+
+	/**
+	 * Returns how often a phase stopped early because of the budget.
+	 *
+	 * @param phase phase to check
+	 * @return number of kingdom moves in which the phase hit the deadline
+	 */
+	public int getDeadlineHits(Phase phase) {
+		return phaseDeadlineHits[phase.ordinal()];
+	}
+
+	/**
+	 * Returns whether anything was cut short by the budget.
+	 *
+	 * @return whether any phase hit the deadline or any kingdom was skipped
+	 */
+	public boolean hasHitDeadline() {
+		return skippedKingdoms > 0 || Arrays.stream(phaseDeadlineHits).anyMatch(hits -> hits > 0);
+	}
+
+	@Override
+	public String toString() {
+		return "BotTurnReport [usedWorkUnits=" + usedWorkUnits + ", movedKingdoms=" + movedKingdoms
+				+ ", skippedKingdoms=" + skippedKingdoms + ", repeatedKingdoms=" + repeatedKingdoms
+				+ ", phaseWorkUnits=" + Arrays.toString(phaseWorkUnits)
+				+ ", phaseCpuNanos=" + Arrays.toString(phaseCpuNanos) + ", phaseDeadlineHits="
+				+ Arrays.toString(phaseDeadlineHits) + ", budget=" + budget + "]";
+	}
+
+}
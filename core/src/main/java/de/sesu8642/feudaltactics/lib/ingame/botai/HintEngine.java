@@ -0,0 +1,169 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MapObject;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+
+/**
+ * Suggests moves to human players. The turn the bot would do for the active
+ * player at the highest intelligence level is calculated in the background on a
+ * copy of the game state, so the game state itself is never changed. The
+ * result is kept until the game state changes so that a hint can be shown
+ * instantly if it was asked for in advance with {@link #precompute}.
+ */
+public class HintEngine {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	/** Intelligence level the hints are calculated with. */
+	static final Intelligence HINT_INTELLIGENCE = Intelligence.values()[Intelligence.values().length - 1];
+
+	private final BotAi botAi;
+
+	private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("botai-hints-%d").setDaemon(true).build()));
+
+	/** Game state the current hints are for; compared by identity. */
+	private GameState hintedGameState;
+
+	/** Version of the game state the current hints are for. */
+	private long hintedVersion;
+
+	private ListenableFuture<List<KingdomHint>> hintsFuture;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param botAi bot AI to calculate the hints with
+	 */
+	public HintEngine(BotAi botAi) {
+		this.botAi = botAi;
+	}
+
+	/**
+	 * Starts calculating hints for the active player in the background unless
+	 * they are already calculated for the current version of the game state. Must
+	 * be called by the thread that changes the game state because the game state
+	 * is copied right away.
+	 *
+	 * @param gameState game state to calculate the hints for
+	 */
+	public synchronized void precompute(GameState gameState) {
+		if (gameState == hintedGameState && gameState.getVersion() == hintedVersion) {
+			return;
+		}
+		cancel();
+		GameState copy = GameStateHelper.getCopy(gameState);
+		hintedGameState = gameState;
+		hintedVersion = gameState.getVersion();
+		hintsFuture = executor.submit(() -> calculateHints(copy));
+	}
+
+	/**
+	 * Returns the hints for the active player, calculating them if needed. Must be
+	 * called by the thread that changes the game state.
+	 *
+	 * @param gameState game state to get the hints for
+	 * @return future of the hints: one per kingdom of the active player in the
+	 *         order of the kingdoms; done right away if the hints were precomputed
+	 */
+	public synchronized ListenableFuture<List<KingdomHint>> getHints(GameState gameState) {
+		precompute(gameState);
+		return hintsFuture;
+	}
+
+	/** Cancels calculating the hints and forgets them. */
+	public synchronized void cancel() {
+		if (hintsFuture != null) {
+			hintsFuture.cancel(true);
+			hintsFuture = null;
+			hintedGameState = null;
+		}
+	}
+
+	private List<KingdomHint> calculateHints(GameState gameState) throws InterruptedException {
+		long startNanos = System.nanoTime();
+		GameState turnState = GameStateHelper.getCopy(gameState);
+		botAi.doTurn(turnState, HINT_INTELLIGENCE, false);
+
+		Player player = gameState.getActivePlayer();
+		// key: position of a tile before the turn; value: index of the hint of the
+		// kingdom the tile belongs to
+		Map<Vector2, Integer> hintIndices = new HashMap<>();
+		List<List<Vector2>> conquestPositions = new ArrayList<>();
+		List<Map<Vector2, MapObject>> placements = new ArrayList<>();
+		List<List<Vector2>> kingdomTilePositions = new ArrayList<>();
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			if (kingdom.getPlayer() != player) {
+				continue;
+			}
+			List<Vector2> tilePositions = new ArrayList<>();
+			for (HexTile tile : kingdom.getTiles()) {
+				tilePositions.add(tile.getPosition());
+				hintIndices.put(tile.getPosition(), kingdomTilePositions.size());
+			}
+			kingdomTilePositions.add(tilePositions);
+			conquestPositions.add(new ArrayList<>());
+			placements.add(new LinkedHashMap<>());
+		}
+
+		Player turnPlayer = turnState.getActivePlayer();
+		for (Kingdom kingdom : turnState.getKingdoms()) {
+			if (kingdom.getPlayer() != turnPlayer) {
+				continue;
+			}
+			// kingdoms can be merged by conquering; the first one moves first and gets
+			// the hints
+			int hintIndex = Integer.MAX_VALUE;
+			for (HexTile tile : kingdom.getTiles()) {
+				Integer tileHintIndex = hintIndices.get(tile.getPosition());
+				if (tileHintIndex != null && tileHintIndex < hintIndex) {
+					hintIndex = tileHintIndex;
+				}
+			}
+			if (hintIndex == Integer.MAX_VALUE) {
+				continue;
+			}
+			for (HexTile tile : kingdom.getTiles()) {
+				HexTile tileBefore = gameState.getMap().get(tile.getPosition());
+				if (tileBefore.getPlayer() != player) {
+					conquestPositions.get(hintIndex).add(tile.getPosition());
+				}
+				MapObject content = tile.getContent();
+				if (content != null && (tileBefore.getContent() == null
+						|| !Objects.equals(content.getSpriteName(), tileBefore.getContent().getSpriteName()))) {
+					placements.get(hintIndex).put(tile.getPosition(), content.getCopy());
+				}
+			}
+		}
+		List<KingdomHint> hints = new ArrayList<>();
+		for (int i = 0; i < kingdomTilePositions.size(); i++) {
+			hints.add(new KingdomHint(kingdomTilePositions.get(i), conquestPositions.get(i), placements.get(i)));
+		}
+		logger.debug("calculated hints in {} ms: {}", (System.nanoTime() - startNanos) / 1_000_000, hints);
+		return hints;
+	}
+
+}
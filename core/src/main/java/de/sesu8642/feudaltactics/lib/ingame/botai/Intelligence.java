@@ -4,64 +4,29 @@ package de.sesu8642.feudaltactics.lib.ingame.botai;
 
 /** Possible intelligence levels for the AI. */
 public enum Intelligence {
-	LEVEL_1(0.5F, 0, false, Integer.MAX_VALUE, Integer.MAX_VALUE, false, false),
-	LEVEL_2(0.8F, 0, false, Integer.MAX_VALUE, Integer.MAX_VALUE, false, true),
-	LEVEL_3(1F, 4, false, 25, 20, true, true), LEVEL_4(1F, 7, true, 25, 20, true, true);
+	LEVEL_1(new IntelligenceParameters(0.5F, 0, false, Integer.MAX_VALUE, Integer.MAX_VALUE, false, false), false),
+	LEVEL_2(new IntelligenceParameters(0.8F, 0, false, Integer.MAX_VALUE, Integer.MAX_VALUE, false, true), false),
+	LEVEL_3(new IntelligenceParameters(1F, 4, false, 25, 20, true, true), false),
+	LEVEL_4(new IntelligenceParameters(1F, 7, true, 25, 20, true, true), false),
+	LEVEL_5(new IntelligenceParameters(1F, 7, true, 25, 20, true, true), true);
 
-	/** Chance that the bot will even try to conquer anything in a given turn. */
-	public final float chanceToConquerPerTurn;
+	/** Parameters of the heuristic turns of this level. */
+	private final IntelligenceParameters parameters;
 
 	/**
-	 * Minimum removal score for blocking objects to be removed. A value of 0 will
-	 * cause all blocking objects to be removed, if possible.
+	 * Whether to choose between several whole-turn plans using a Monte Carlo tree
+	 * search instead of applying the thresholds of this level directly. The
+	 * thresholds are ignored in that case because every plan brings its own.
 	 */
-	public final int blockingObjectRemovalScoreTreshold;
+	public final boolean usesTreeSearch;
 
-	/**
-	 * Whether to reconsider which tiles need to be protected after attacking may
-	 * have changed which tiles make sense to protect.
-	 */
-	public final boolean reconsidersWhichTilesToProtect;
-
-	/**
-	 * Minimum defense tile score to be worth protecting with a castle. Will be
-	 * protected with a unit if a castle is too expensive. Use a very high value to
-	 * disable protecting with castles. If {@link #smartDefending} is false, any
-	 * value above 0 will disable it as well.
-	 */
-	public final int protectWithCastleScoreTreshold;
-
-	/**
-	 * Minimum defense tile score to be worth protecting with a unit. Use a very
-	 * high value to disable protecting with units as a first choice. If
-	 * {@link #smartDefending} is false, any value above 0 will disable it as well.
-	 */
-	public final int protectWithUnitScoreTreshold;
-
-	/**
-	 * Whether to defend smartly: i.e. considering how many tiles are protected. If
-	 * false, the defense score of every tile is 0. This means that (basically)
-	 * random tiles near the border are protected.
-	 */
-	boolean smartDefending;
-
-	/**
-	 * Whether to attack smartly: prefer enemy kingdom tiles over unconnected ones,
-	 * destroy castles etc. If false, the offense score of every tile is 0. This
-	 * means that (basically) random tiles are conquered.
-	 */
-	boolean smartAttacking;
+	private Intelligence(IntelligenceParameters parameters, boolean usesTreeSearch) {
+		this.parameters = parameters;
+		this.usesTreeSearch = usesTreeSearch;
+	}
 
-	private Intelligence(float chanceToConquerPerTurn, int blockingObjectRemovalScoreTreshold,
-			boolean reconsidersWhichTilesToProtect, int protectWithCastleScoreTreshold,
-			int protectWithUnitScoreTreshold, boolean smartDefending, boolean smartAttacking) {
-		this.chanceToConquerPerTurn = chanceToConquerPerTurn;
-		this.blockingObjectRemovalScoreTreshold = blockingObjectRemovalScoreTreshold;
-		this.reconsidersWhichTilesToProtect = reconsidersWhichTilesToProtect;
-		this.smartDefending = smartDefending;
-		this.protectWithCastleScoreTreshold = protectWithCastleScoreTreshold;
-		this.protectWithUnitScoreTreshold = protectWithUnitScoreTreshold;
-		this.smartAttacking = smartAttacking;
+	public IntelligenceParameters getParameters() {
+		return parameters;
 	}
 
-}
\ No newline at end of file
+}
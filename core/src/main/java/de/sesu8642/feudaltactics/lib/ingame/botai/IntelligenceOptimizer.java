@@ -0,0 +1,269 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+
+/**
+ * Tunes the thresholds of the {@link IntelligenceParameters} by letting
+ * candidates play against fixed opponents. Uses an evolution strategy that
+ * keeps a mean and a standard deviation per threshold: every generation samples
+ * candidates around the mean, and the best ones become the new mean and
+ * determine the new deviations. All candidates of a generation play on the same
+ * maps, which are generated once and copied for every game. The games are
+ * played on a thread pool. The run can be resumed from a checkpoint that is
+ * written after every generation.
+ */
+public class IntelligenceOptimizer {
+
+	private static final int CHANCE_TO_CONQUER_INDEX = 0;
+	private static final int BLOCKING_OBJECT_REMOVAL_INDEX = 1;
+	private static final int PROTECT_WITH_CASTLE_INDEX = 2;
+	private static final int PROTECT_WITH_UNIT_INDEX = 3;
+	private static final int RECONSIDER_INDEX = 4;
+
+	/** Upper bounds of the search space; the lower bounds are 0. */
+	private static final double[] UPPER_BOUNDS = { 1, 11, 66, 66, 1 };
+
+	/** Share of the old deviations that is replaced every generation. */
+	private static final double SIGMA_LEARNING_RATE = 0.3;
+
+	private static final double MIN_SIGMA_SHARE = 0.01;
+	private static final double INITIAL_SIGMA_SHARE = 0.2;
+	private static final double MAX_SIGMA_SHARE = 0.5;
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	private final IntelligenceOptimizerParameters parameters;
+
+	/** Each thread gets its own bot because the bot is not thread-safe. */
+	private final ThreadLocal<BotAi> botAis = ThreadLocal.withInitial(() -> new BotAi(null, null));
+
+	/**
+	 * Constructor.
+	 *
+	 * @param parameters parameters of the optimization
+	 */
+	public IntelligenceOptimizer(IntelligenceOptimizerParameters parameters) {
+		this.parameters = parameters;
+	}
+
+	/**
+	 * Runs the optimization.
+	 *
+	 * @param checkpointFile file to resume from if it exists and to save the state
+	 *                       to after every generation; null for none
+	 * @return the tuned parameters, i.e. the mean of the final search distribution
+	 * @throws IOException          if the checkpoint cannot be read or written
+	 * @throws InterruptedException if interrupted while waiting for the games
+	 */
+	public IntelligenceParameters optimize(File checkpointFile) throws IOException, InterruptedException {
+		IntelligenceOptimizerState state;
+		if (checkpointFile != null && checkpointFile.exists()) {
+			state = IntelligenceOptimizerState.load(checkpointFile, UPPER_BOUNDS.length);
+			logger.info("resuming intelligence optimization after generation {}", state.generation);
+		} else {
+			double[] initialSigma = new double[UPPER_BOUNDS.length];
+			for (int i = 0; i < initialSigma.length; i++) {
+				initialSigma[i] = UPPER_BOUNDS[i] * INITIAL_SIGMA_SHARE;
+			}
+			state = new IntelligenceOptimizerState(encode(parameters.getStartingParameters()), initialSigma);
+			logger.info("starting intelligence optimization with {}", parameters);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(parameters.getThreadCount(),
+				new ThreadFactoryBuilder().setNameFormat("intelligence-optimizer-%d").setDaemon(true).build());
+		try {
+			while (state.generation < parameters.getGenerations()) {
+				runGeneration(state, executor);
+				if (checkpointFile != null) {
+					state.save(checkpointFile);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		IntelligenceParameters result = decode(state.mean);
+		logger.info("finished intelligence optimization after {} games: {}, best candidate {} with fitness {}",
+				state.games, result, decode(state.best), state.bestFitness);
+		return result;
+	}
+
+	private void runGeneration(IntelligenceOptimizerState state, ExecutorService executor)
+			throws InterruptedException {
+		long startNanos = System.nanoTime();
+		int generation = state.generation + 1;
+		// everything random in the generation is derived from this to make resuming
+		// produce the same results
+		Random random = new Random(parameters.getSeed() * 31 + generation);
+
+		List<GameState> maps = new ArrayList<>();
+		for (int i = 0; i < parameters.getSeedsPerGeneration(); i++) {
+			maps.add(createMap(random.nextLong()));
+		}
+
+		// the first candidate is the mean itself to see how it does
+		double[][] candidates = new double[parameters.getPopulationSize()][];
+		candidates[0] = state.mean.clone();
+		for (int i = 1; i < candidates.length; i++) {
+			candidates[i] = new double[state.mean.length];
+			for (int j = 0; j < state.mean.length; j++) {
+				candidates[i][j] = clamp(state.mean[j] + state.sigma[j] * random.nextGaussian(), j);
+			}
+		}
+
+		List<Future<Double>> futures = new ArrayList<>();
+		for (double[] candidate : candidates) {
+			IntelligenceParameters candidateParameters = decode(candidate);
+			for (GameState map : maps) {
+				futures.add(executor.submit(() -> playGame(map, candidateParameters, true)));
+				futures.add(executor.submit(() -> playGame(map, candidateParameters, false)));
+			}
+		}
+		int gamesPerCandidate = maps.size() * 2;
+		double[] fitness = new double[candidates.length];
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				fitness[i / gamesPerCandidate] += futures.get(i).get() / gamesPerCandidate;
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("An optimization game failed.", e.getCause());
+		}
+
+		Integer[] ranking = new Integer[candidates.length];
+		for (int i = 0; i < ranking.length; i++) {
+			ranking[i] = i;
+		}
+		// stable sort, so equally good candidates keep their order
+		Arrays.sort(ranking, Comparator.comparingDouble((Integer index) -> -fitness[index]));
+		if (fitness[ranking[0]] > state.bestFitness) {
+			state.bestFitness = fitness[ranking[0]];
+			System.arraycopy(candidates[ranking[0]], 0, state.best, 0, state.best.length);
+		}
+		updateDistribution(state, candidates, ranking);
+		state.generation = generation;
+		state.games += futures.size();
+
+		double elapsedSeconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		logger.info("generation {} of {}: mean fitness {}, best fitness {}, {} games/s, new mean {}", generation,
+				parameters.getGenerations(), fitness[0], fitness[ranking[0]], futures.size() / elapsedSeconds,
+				decode(state.mean));
+	}
+
+	/**
+	 * Moves the mean towards the best candidates and adapts the deviation of every
+	 * dimension to the spread of the best candidates around the old mean.
+	 */
+	private void updateDistribution(IntelligenceOptimizerState state, double[][] candidates, Integer[] ranking) {
+		int parentCount = parameters.getParentCount();
+		double[] weights = new double[parentCount];
+		double weightSum = 0;
+		for (int i = 0; i < parentCount; i++) {
+			weights[i] = Math.log(parentCount + 0.5) - Math.log(i + 1);
+			weightSum += weights[i];
+		}
+		for (int j = 0; j < state.mean.length; j++) {
+			double newMean = 0;
+			double variance = 0;
+			for (int i = 0; i < parentCount; i++) {
+				double value = candidates[ranking[i]][j];
+				newMean += weights[i] / weightSum * value;
+				variance += weights[i] / weightSum * (value - state.mean[j]) * (value - state.mean[j]);
+			}
+			double newSigma = Math.sqrt((1 - SIGMA_LEARNING_RATE) * state.sigma[j] * state.sigma[j]
+					+ SIGMA_LEARNING_RATE * variance);
+			state.mean[j] = newMean;
+			state.sigma[j] = Math.max(UPPER_BOUNDS[j] * MIN_SIGMA_SHARE,
+					Math.min(UPPER_BOUNDS[j] * MAX_SIGMA_SHARE, newSigma));
+		}
+	}
+
+	private GameState createMap(long seed) {
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < parameters.getPlayerCount(); i++) {
+			players.add(new Player(GameController.PLAYER_COLORS[i], Type.LOCAL_BOT));
+		}
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, parameters.getLandMass(), parameters.getDensity(), null,
+				seed);
+		return gameState;
+	}
+
+	/**
+	 * Plays a game between the candidate and the opponent.
+	 *
+	 * @param map             map to play on; is not changed
+	 * @param candidate       parameters of the candidate
+	 * @param candidateStarts whether the candidate gets the first seat
+	 * @return 1 if the candidate won, 0.5 for a draw and 0 otherwise
+	 */
+	private double playGame(GameState map, IntelligenceParameters candidate, boolean candidateStarts) {
+		BotAi botAi = botAis.get();
+		GameState gameState = GameStateHelper.getCopy(map);
+		IntelligenceParameters[] seatParameters = new IntelligenceParameters[gameState.getPlayers().size()];
+		for (int i = 0; i < seatParameters.length; i++) {
+			seatParameters[i] = (i % 2 == 0) == candidateStarts ? candidate : parameters.getOpponentParameters();
+		}
+		while (gameState.getWinner() == null && gameState.getRound() < parameters.getMaxRounds()) {
+			if (!gameState.getActivePlayer().isDefeated()) {
+				IntelligenceParameters intelligence = seatParameters[gameState.getPlayerTurn()];
+				botAi.simulateTurn(gameState, intelligence, intelligence.getChanceToConquerPerTurn(), false, null);
+			}
+			GameStateHelper.endTurn(gameState);
+		}
+		if (gameState.getWinner() == null) {
+			return 0.5;
+		}
+		int winnerSeat = gameState.getPlayers().indexOf(gameState.getWinner());
+		return (winnerSeat % 2 == 0) == candidateStarts ? 1 : 0;
+	}
+
+	private static double clamp(double value, int index) {
+		return Math.max(0, Math.min(UPPER_BOUNDS[index], value));
+	}
+
+	private static double[] encode(IntelligenceParameters intelligence) {
+		double[] result = new double[UPPER_BOUNDS.length];
+		result[CHANCE_TO_CONQUER_INDEX] = intelligence.getChanceToConquerPerTurn();
+		result[BLOCKING_OBJECT_REMOVAL_INDEX] = intelligence.getBlockingObjectRemovalScoreTreshold();
+		result[PROTECT_WITH_CASTLE_INDEX] = intelligence.getProtectWithCastleScoreTreshold();
+		result[PROTECT_WITH_UNIT_INDEX] = intelligence.getProtectWithUnitScoreTreshold();
+		result[RECONSIDER_INDEX] = intelligence.isReconsidersWhichTilesToProtect() ? 1 : 0;
+		for (int i = 0; i < result.length; i++) {
+			result[i] = clamp(result[i], i);
+		}
+		return result;
+	}
+
+	private IntelligenceParameters decode(double[] values) {
+		IntelligenceParameters startingParameters = parameters.getStartingParameters();
+		return new IntelligenceParameters((float) values[CHANCE_TO_CONQUER_INDEX],
+				(int) Math.round(values[BLOCKING_OBJECT_REMOVAL_INDEX]),
+				values[RECONSIDER_INDEX] >= 0.5, (int) Math.round(values[PROTECT_WITH_CASTLE_INDEX]),
+				(int) Math.round(values[PROTECT_WITH_UNIT_INDEX]), startingParameters.isSmartDefending(),
+				startingParameters.isSmartAttacking());
+	}
+
+}
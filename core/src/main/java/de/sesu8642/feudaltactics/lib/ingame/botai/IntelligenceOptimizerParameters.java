@@ -0,0 +1,143 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+
+/**
+ * Parameters for the {@link IntelligenceOptimizer}. Immutable class. The
+ * optimization result only depends on these parameters, not on the number of
+ * threads.
+ */
+public class IntelligenceOptimizerParameters {
+
+	private final IntelligenceParameters startingParameters;
+	private final IntelligenceParameters opponentParameters;
+	private final int generations;
+	private final int populationSize;
+	private final int parentCount;
+	private final int seedsPerGeneration;
+	private final long seed;
+	private final int playerCount;
+	private final float landMass;
+	private final float density;
+	private final int maxRounds;
+	private final int threadCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param startingParameters parameters the search starts from; the flags are
+	 *                           kept as they are
+	 * @param opponentParameters parameters of the bots the candidates play against
+	 * @param generations        number of generations to evaluate in total,
+	 *                           including the ones of a resumed checkpoint
+	 * @param populationSize     number of candidates per generation
+	 * @param parentCount        number of best candidates the next generation is
+	 *                           derived from
+	 * @param seedsPerGeneration number of maps every candidate plays on per
+	 *                           generation; every map is played with either side
+	 *                           moving first
+	 * @param seed               seed for the map seeds and the mutations
+	 * @param playerCount        number of players per game; the seats alternate
+	 *                           between candidate and opponent
+	 * @param landMass           land mass of the generated maps
+	 * @param density            density of the generated maps
+	 * @param maxRounds          number of rounds after which a game is a draw
+	 * @param threadCount        number of games played at the same time
+	 */
+	public IntelligenceOptimizerParameters(IntelligenceParameters startingParameters,
+			IntelligenceParameters opponentParameters, int generations, int populationSize, int parentCount,
+			int seedsPerGeneration, long seed, int playerCount, float landMass, float density, int maxRounds,
+			int threadCount) {
+		if (generations < 1) {
+			throw new IllegalArgumentException("At least one generation is required.");
+		}
+		if (parentCount < 1 || parentCount >= populationSize) {
+			throw new IllegalArgumentException("The parent count must be positive and below the population size.");
+		}
+		if (seedsPerGeneration < 1) {
+			throw new IllegalArgumentException("At least one seed per generation is required.");
+		}
+		if (playerCount < 2 || playerCount > GameController.PLAYER_COLORS.length) {
+			throw new IllegalArgumentException(
+					"The player count must be between 2 and " + GameController.PLAYER_COLORS.length + ".");
+		}
+		if (maxRounds < 1) {
+			throw new IllegalArgumentException("At least one round is required.");
+		}
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("At least one thread is required.");
+		}
+		this.startingParameters = startingParameters;
+		this.opponentParameters = opponentParameters;
+		this.generations = generations;
+		this.populationSize = populationSize;
+		this.parentCount = parentCount;
+		this.seedsPerGeneration = seedsPerGeneration;
+		this.seed = seed;
+		this.playerCount = playerCount;
+		this.landMass = landMass;
+		this.density = density;
+		this.maxRounds = maxRounds;
+		this.threadCount = threadCount;
+	}
+
+	public IntelligenceParameters getStartingParameters() {
+		return startingParameters;
+	}
+
+	public IntelligenceParameters getOpponentParameters() {
+		return opponentParameters;
+	}
+
+	public int getGenerations() {
+		return generations;
+	}
+
+	public int getPopulationSize() {
+		return populationSize;
+	}
+
+	public int getParentCount() {
+		return parentCount;
+	}
+
+	public int getSeedsPerGeneration() {
+		return seedsPerGeneration;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getPlayerCount() {
+		return playerCount;
+	}
+
+	public float getLandMass() {
+		return landMass;
+	}
+
+	public float getDensity() {
+		return density;
+	}
+
+	public int getMaxRounds() {
+		return maxRounds;
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	@Override
+	public String toString() {
+		return "IntelligenceOptimizerParameters [startingParameters=" + startingParameters + ", opponentParameters="
+				+ opponentParameters + ", generations=" + generations + ", populationSize=" + populationSize
+				+ ", parentCount=" + parentCount + ", seedsPerGeneration=" + seedsPerGeneration + ", seed=" + seed
+				+ ", playerCount=" + playerCount + ", landMass=" + landMass + ", density=" + density
+				+ ", maxRounds=" + maxRounds + ", threadCount=" + threadCount + "]";
+	}
+
+}
@@ -0,0 +1,114 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * State of an {@link IntelligenceOptimizer} run after a finished generation.
+ * Can be saved as a checkpoint to resume the run later.
+ */
+class IntelligenceOptimizerState {
+
+	private static final String GENERATION_NAME = "generation";
+	private static final String GAMES_NAME = "games";
+	private static final String MEAN_NAME = "mean.";
+	private static final String SIGMA_NAME = "sigma.";
+	private static final String BEST_NAME = "best.";
+	private static final String BEST_FITNESS_NAME = "bestFitness";
+
+	/** Number of finished generations. */
+	int generation;
+
+	/** Number of games played in the finished generations. */
+	long games;
+
+	/** Center of the search distribution. */
+	final double[] mean;
+
+	/** Standard deviation of the search distribution per dimension. */
+	final double[] sigma;
+
+	/** Best candidate of any generation. */
+	final double[] best;
+
+	/** Fitness of the best candidate in the generation it was found in. */
+	double bestFitness = -1;
+
+	IntelligenceOptimizerState(double[] mean, double[] sigma) {
+		this.mean = mean.clone();
+		this.sigma = sigma.clone();
+		best = mean.clone();
+	}
+
+	/**
+	 * Loads a checkpoint.
+	 *
+	 * @param file       checkpoint file
+	 * @param dimensions expected number of dimensions
+	 * @return loaded state
+	 * @throws IOException if reading fails
+	 */
+	static IntelligenceOptimizerState load(File file, int dimensions) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream inputStream = new FileInputStream(file)) {
+			properties.load(inputStream);
+		}
+		IntelligenceOptimizerState state = new IntelligenceOptimizerState(new double[dimensions],
+				new double[dimensions]);
+		try {
+			state.generation = Integer.parseInt(getProperty(properties, GENERATION_NAME));
+			state.games = Long.parseLong(getProperty(properties, GAMES_NAME));
+			state.bestFitness = Double.parseDouble(getProperty(properties, BEST_FITNESS_NAME));
+			for (int i = 0; i < dimensions; i++) {
+				state.mean[i] = Double.parseDouble(getProperty(properties, MEAN_NAME + i));
+				state.sigma[i] = Double.parseDouble(getProperty(properties, SIGMA_NAME + i));
+				state.best[i] = Double.parseDouble(getProperty(properties, BEST_NAME + i));
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("Checkpoint " + file + " contains an invalid number.", e);
+		}
+		return state;
+	}
+
+	private static String getProperty(Properties properties, String name) throws IOException {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			throw new IOException("Checkpoint is missing " + name + ".");
+		}
+		return value;
+	}
+
+	/**
+	 * Saves the state as a checkpoint. Writes a temporary file first so an
+	 * interrupted write does not destroy the previous checkpoint.
+	 *
+	 * @param file checkpoint file
+	 * @throws IOException if writing fails
+	 */
+	void save(File file) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(GENERATION_NAME, String.valueOf(generation));
+		properties.setProperty(GAMES_NAME, String.valueOf(games));
+		properties.setProperty(BEST_FITNESS_NAME, String.valueOf(bestFitness));
+		for (int i = 0; i < mean.length; i++) {
+			properties.setProperty(MEAN_NAME + i, String.valueOf(mean[i]));
+			properties.setProperty(SIGMA_NAME + i, String.valueOf(sigma[i]));
+			properties.setProperty(BEST_NAME + i, String.valueOf(best[i]));
+		}
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+			properties.store(outputStream, "intelligence optimizer checkpoint");
+		}
+		if (file.exists() && !file.delete() || !temporaryFile.renameTo(file)) {
+			throw new IOException("Cannot replace checkpoint " + file + ".");
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Tunable parameters of the heuristic bot turns. Every {@link Intelligence}
+ * level has one of these, but bots can also play with others, e.g. loaded from
+ * a profile found by the {@link IntelligenceOptimizer}. Immutable class.
+ */
+public class IntelligenceParameters {
+
+	private static final String CHANCE_TO_CONQUER_PER_TURN_NAME = "chanceToConquerPerTurn";
+	private static final String BLOCKING_OBJECT_REMOVAL_SCORE_TRESHOLD_NAME = "blockingObjectRemovalScoreTreshold";
+	private static final String RECONSIDERS_WHICH_TILES_TO_PROTECT_NAME = "reconsidersWhichTilesToProtect";
+	private static final String PROTECT_WITH_CASTLE_SCORE_TRESHOLD_NAME = "protectWithCastleScoreTreshold";
+	private static final String PROTECT_WITH_UNIT_SCORE_TRESHOLD_NAME = "protectWithUnitScoreTreshold";
+	private static final String SMART_DEFENDING_NAME = "smartDefending";
+	private static final String SMART_ATTACKING_NAME = "smartAttacking";
+
+	/** Chance that the bot will even try to conquer anything in a given turn. */
+	private final float chanceToConquerPerTurn;
+
+	/**
+	 * Minimum removal score for blocking objects to be removed. A value of 0 will
+	 * cause all blocking objects to be removed, if possible.
+	 */
+	private final int blockingObjectRemovalScoreTreshold;
+
+	/**
+	 * Whether to reconsider which tiles need to be protected after attacking may
+	 * have changed which tiles make sense to protect.
+	 */
+	private final boolean reconsidersWhichTilesToProtect;
+
+	/**
+	 * Minimum defense tile score to be worth protecting with a castle. Will be
+	 * protected with a unit if a castle is too expensive. Use a very high value to
+	 * disable protecting with castles. If {@link #smartDefending} is false, any
+	 * value above 0 will disable it as well.
+	 */
+	private final int protectWithCastleScoreTreshold;
+
+	/**
+	 * Minimum defense tile score to be worth protecting with a unit. Use a very
+	 * high value to disable protecting with units as a first choice. If
+	 * {@link #smartDefending} is false, any value above 0 will disable it as well.
+	 */
+	private final int protectWithUnitScoreTreshold;
+
+	/**
+	 * Whether to defend smartly: i.e. considering how many tiles are protected. If
+	 * false, the defense score of every tile is 0. This means that (basically)
+	 * random tiles near the border are protected.
+	 */
+	private final boolean smartDefending;
+
+	/**
+	 * Whether to attack smartly: prefer enemy kingdom tiles over unconnected ones,
+	 * destroy castles etc. If false, the offense score of every tile is 0. This
+	 * means that (basically) random tiles are conquered.
+	 */
+	private final boolean smartAttacking;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param chanceToConquerPerTurn             chance that the bot will even try
+	 *                                           to conquer anything in a turn
+	 * @param blockingObjectRemovalScoreTreshold minimum removal score for blocking
+	 *                                           objects to be removed
+	 * @param reconsidersWhichTilesToProtect     whether to reconsider which tiles
+	 *                                           to protect after attacking
+	 * @param protectWithCastleScoreTreshold     minimum defense score to protect a
+	 *                                           tile with a castle
+	 * @param protectWithUnitScoreTreshold       minimum defense score to protect a
+	 *                                           tile with a unit
+	 * @param smartDefending                     whether to defend smartly
+	 * @param smartAttacking                     whether to attack smartly
+	 */
+	public IntelligenceParameters(float chanceToConquerPerTurn, int blockingObjectRemovalScoreTreshold,
+			boolean reconsidersWhichTilesToProtect, int protectWithCastleScoreTreshold,
+			int protectWithUnitScoreTreshold, boolean smartDefending, boolean smartAttacking) {
+		if (chanceToConquerPerTurn < 0 || chanceToConquerPerTurn > 1) {
+			throw new IllegalArgumentException("The chance to conquer must be between 0 and 1.");
+		}
+		this.chanceToConquerPerTurn = chanceToConquerPerTurn;
+		this.blockingObjectRemovalScoreTreshold = blockingObjectRemovalScoreTreshold;
+		this.reconsidersWhichTilesToProtect = reconsidersWhichTilesToProtect;
+		this.protectWithCastleScoreTreshold = protectWithCastleScoreTreshold;
+		this.protectWithUnitScoreTreshold = protectWithUnitScoreTreshold;
+		this.smartDefending = smartDefending;
+		this.smartAttacking = smartAttacking;
+	}
+
+	/**
+	 * Reads parameters written by {@link #toProperties}.
+	 *
+	 * @param properties properties to read
+	 * @return parameters
+	 */
+	public static IntelligenceParameters fromProperties(Properties properties) {
+		return new IntelligenceParameters(Float.parseFloat(getProperty(properties, CHANCE_TO_CONQUER_PER_TURN_NAME)),
+				Integer.parseInt(getProperty(properties, BLOCKING_OBJECT_REMOVAL_SCORE_TRESHOLD_NAME)),
+				Boolean.parseBoolean(getProperty(properties, RECONSIDERS_WHICH_TILES_TO_PROTECT_NAME)),
+				Integer.parseInt(getProperty(properties, PROTECT_WITH_CASTLE_SCORE_TRESHOLD_NAME)),
+				Integer.parseInt(getProperty(properties, PROTECT_WITH_UNIT_SCORE_TRESHOLD_NAME)),
+				Boolean.parseBoolean(getProperty(properties, SMART_DEFENDING_NAME)),
+				Boolean.parseBoolean(getProperty(properties, SMART_ATTACKING_NAME)));
+	}
+
+	private static String getProperty(Properties properties, String name) {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing intelligence parameter " + name + ".");
+		}
+		return value;
+	}
+
+	/**
+	 * Writes the parameters into properties.
+	 *
+	 * @param properties properties to write into
+	 */
+	public void toProperties(Properties properties) {
+		properties.setProperty(CHANCE_TO_CONQUER_PER_TURN_NAME, String.valueOf(chanceToConquerPerTurn));
+		properties.setProperty(BLOCKING_OBJECT_REMOVAL_SCORE_TRESHOLD_NAME,
+				String.valueOf(blockingObjectRemovalScoreTreshold));
+		properties.setProperty(RECONSIDERS_WHICH_TILES_TO_PROTECT_NAME,
+				String.valueOf(reconsidersWhichTilesToProtect));
+		properties.setProperty(PROTECT_WITH_CASTLE_SCORE_TRESHOLD_NAME,
+				String.valueOf(protectWithCastleScoreTreshold));
+		properties.setProperty(PROTECT_WITH_UNIT_SCORE_TRESHOLD_NAME, String.valueOf(protectWithUnitScoreTreshold));
+		properties.setProperty(SMART_DEFENDING_NAME, String.valueOf(smartDefending));
+		properties.setProperty(SMART_ATTACKING_NAME, String.valueOf(smartAttacking));
+	}
+
+	public float getChanceToConquerPerTurn() {
+		return chanceToConquerPerTurn;
+	}
+
+	public int getBlockingObjectRemovalScoreTreshold() {
+		return blockingObjectRemovalScoreTreshold;
+	}
+
+	public boolean isReconsidersWhichTilesToProtect() {
+		return reconsidersWhichTilesToProtect;
+	}
+
+	public int getProtectWithCastleScoreTreshold() {
+		return protectWithCastleScoreTreshold;
+	}
+
+	public int getProtectWithUnitScoreTreshold() {
+		return protectWithUnitScoreTreshold;
+	}
+
+	public boolean isSmartDefending() {
+		return smartDefending;
+	}
+
+	public boolean isSmartAttacking() {
+		return smartAttacking;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(chanceToConquerPerTurn, blockingObjectRemovalScoreTreshold, reconsidersWhichTilesToProtect,
+				protectWithCastleScoreTreshold, protectWithUnitScoreTreshold, smartDefending, smartAttacking);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		IntelligenceParameters other = (IntelligenceParameters) obj;
+		return Float.floatToIntBits(chanceToConquerPerTurn) == Float.floatToIntBits(other.chanceToConquerPerTurn)
+				&& blockingObjectRemovalScoreTreshold == other.blockingObjectRemovalScoreTreshold
+				&& reconsidersWhichTilesToProtect == other.reconsidersWhichTilesToProtect
+				&& protectWithCastleScoreTreshold == other.protectWithCastleScoreTreshold
+				&& protectWithUnitScoreTreshold == other.protectWithUnitScoreTreshold
+				&& smartDefending == other.smartDefending && smartAttacking == other.smartAttacking;
+	}
+
+	@Override
+	public String toString() {
+		return "IntelligenceParameters [chanceToConquerPerTurn=" + chanceToConquerPerTurn
+				+ ", blockingObjectRemovalScoreTreshold=" + blockingObjectRemovalScoreTreshold
+				+ ", reconsidersWhichTilesToProtect=" + reconsidersWhichTilesToProtect
+				+ ", protectWithCastleScoreTreshold=" + protectWithCastleScoreTreshold
+				+ ", protectWithUnitScoreTreshold=" + protectWithUnitScoreTreshold + ", smartDefending="
+				+ smartDefending + ", smartAttacking=" + smartAttacking + "]";
+	}
+
+}
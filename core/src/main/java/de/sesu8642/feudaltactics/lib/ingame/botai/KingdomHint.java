@@ -0,0 +1,60 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.math.Vector2;
+
+import de.sesu8642.feudaltactics.lib.gamestate.MapObject;
+
+/**
+ * Moves suggested for one kingdom of a human player. Tells where the kingdom
+ * should end up; the tiles are referenced by their positions so that the hint
+ * is independent of the game state instance it was calculated on.
+ */
+public class KingdomHint {
+
+	private final List<Vector2> kingdomTilePositions;
+	private final List<Vector2> conquestPositions;
+	private final Map<Vector2, MapObject> placements;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param kingdomTilePositions positions of the tiles of the kingdom before the
+	 *                             suggested moves
+	 * @param conquestPositions    positions of the tiles to conquer
+	 * @param placements           key: position of a tile of the kingdom after the
+	 *                             suggested moves; value: object that should be on
+	 *                             it in the end; only contains tiles whose content
+	 *                             changes
+	 */
+	KingdomHint(List<Vector2> kingdomTilePositions, List<Vector2> conquestPositions,
+			Map<Vector2, MapObject> placements) {
+		this.kingdomTilePositions = Collections.unmodifiableList(kingdomTilePositions);
+		this.conquestPositions = Collections.unmodifiableList(conquestPositions);
+		this.placements = Collections.unmodifiableMap(placements);
+	}
+
+	public List<Vector2> getKingdomTilePositions() {
+		return kingdomTilePositions;
+	}
+
+	public List<Vector2> getConquestPositions() {
+		return conquestPositions;
+	}
+
+	public Map<Vector2, MapObject> getPlacements() {
+		return placements;
+	}
+
+	@Override
+	public String toString() {
+		return "KingdomHint [kingdomTiles=" + kingdomTilePositions.size() + ", conquestPositions=" + conquestPositions
+				+ ", placements=" + placements + "]";
+	}
+
+}
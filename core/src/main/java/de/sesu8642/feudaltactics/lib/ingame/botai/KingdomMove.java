@@ -0,0 +1,174 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.badlogic.gdx.math.Vector2;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MapObject;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnReport.Phase;
+
+/**
+ * Recording of the move of a kingdom that can be repeated in an equal game
+ * state. Only the conquests are repeated step by step because they change
+ * other kingdoms. Everything else the kingdom did is restored from the final
+ * contents of its tiles and its final savings; placing own objects does not
+ * change anything outside of the kingdom. The positions of the kingdom's tiles
+ * before and after the move are kept as well to check that the game state fits
+ * the recording. Must not be changed after {@link #finish} was called.
+ */
+class KingdomMove {
+
+	private final List<Vector2> conqueredPositions = new ArrayList<>();
+	private final List<UnitTypes> conqueringUnitTypes = new ArrayList<>();
+
+	/** index = phase; value: work units the phase used in the move. */
+	private final long[] phaseWorkUnits = new long[Phase.values().length];
+
+	/** index = tile in the kingdom before the move; value: position code. */
+	private final int[] initialPositionCodes;
+
+	/** index = tile in the final kingdom; value: position code. */
+	private int[] finalPositionCodes;
+
+	/** index = tile in the final kingdom; value: content of the tile. */
+	private MapObject[] finalContents;
+	private int finalSavings;
+	private MapObject finalHeldObject;
+
+	/**
+	 * Constructor. Starts recording.
+	 *
+	 * @param gameState game state before the move; the kingdom to move must be
+	 *                  active
+	 * @param report    report of the current turn
+	 */
+	KingdomMove(GameState gameState, BotTurnReport report) {
+		for (Phase phase : Phase.values()) {
+			phaseWorkUnits[phase.ordinal()] = -report.getWorkUnits(phase);
+		}
+		initialPositionCodes = getPositionCodes(gameState.getActiveKingdom());
+	}
+
+	/**
+	 * Records a conquest. Must be called after conquering.
+	 *
+	 * @param tile     conquered tile
+	 * @param unitType type of the unit that conquered the tile
+	 */
+	void conquered(HexTile tile, UnitTypes unitType) {
+		conqueredPositions.add(new Vector2(tile.getPosition()));
+		conqueringUnitTypes.add(unitType);
+	}
+
+	/**
+	 * Finishes recording.
+	 *
+	 * @param gameState game state after the move
+	 * @param report    report of the current turn
+	 */
+	void finish(GameState gameState, BotTurnReport report) {
+		for (Phase phase : Phase.values()) {
+			phaseWorkUnits[phase.ordinal()] += report.getWorkUnits(phase);
+		}
+		Kingdom kingdom = gameState.getActiveKingdom();
+		finalPositionCodes = getPositionCodes(kingdom);
+		finalContents = new MapObject[kingdom.getTiles().size()];
+		for (int i = 0; i < finalContents.length; i++) {
+			MapObject content = kingdom.getTiles().get(i).getContent();
+			finalContents[i] = content == null ? null : content.getCopy();
+		}
+		finalSavings = kingdom.getSavings();
+		finalHeldObject = gameState.getHeldObject() == null ? null : gameState.getHeldObject().getCopy();
+	}
+
+	/**
+	 * Returns the work units the move used.
+	 *
+	 * @return work units of all the phases
+	 */
+	long getWorkUnits() {
+		long result = 0;
+		for (long workUnits : phaseWorkUnits) {
+			result += workUnits;
+		}
+		return result;
+	}
+
+	/**
+	 * Repeats the move if it fits the game state. It might not if the game state
+	 * only has the same hash as the one the move was recorded in. Nothing is
+	 * changed then.
+	 *
+	 * @param gameState game state equal to the one the move was recorded in; the
+	 *                  kingdom to move must be active
+	 * @param report     report of the current turn; gets the same work units as
+	 *                   the recorded move so that it does not depend on the cache
+	 * @param undoRecord record to store the previous values in; null if the
+	 *                   changes don't need to be undone
+	 * @return whether the move was repeated
+	 */
+	boolean repeat(GameState gameState, BotTurnReport report, UndoRecord undoRecord) {
+		Kingdom kingdom = gameState.getActiveKingdom();
+		if (!Arrays.equals(initialPositionCodes, getPositionCodes(kingdom))) {
+			return false;
+		}
+		MapObject heldObject = gameState.getHeldObject();
+		// kept separately to be able to revert only the conquests of the move
+		UndoRecord conquestRecord = new UndoRecord();
+		for (int i = 0; i < conqueredPositions.size(); i++) {
+			HexTile tile = gameState.getMap().get(conqueredPositions.get(i));
+			if (tile == null || tile.getPlayer() == kingdom.getPlayer()) {
+				undo(gameState, conquestRecord, heldObject);
+				return false;
+			}
+			gameState.setHeldObject(new Unit(conqueringUnitTypes.get(i)));
+			GameStateHelper.conquer(gameState, tile, conquestRecord);
+		}
+		kingdom = gameState.getActiveKingdom();
+		if (!Arrays.equals(finalPositionCodes, getPositionCodes(kingdom))) {
+			undo(gameState, conquestRecord, heldObject);
+			return false;
+		}
+		if (undoRecord != null) {
+			undoRecord.addAll(conquestRecord);
+		}
+		for (int i = 0; i < finalContents.length; i++) {
+			MapObject content = finalContents[i];
+			kingdom.getTiles().get(i).setContent(content == null ? null : content.getCopy());
+		}
+		kingdom.setSavings(finalSavings);
+		gameState.setHeldObject(finalHeldObject == null ? null : finalHeldObject.getCopy());
+		gameState.incrementVersion();
+		for (Phase phase : Phase.values()) {
+			report.recordRepeatedPhase(phase, phaseWorkUnits[phase.ordinal()]);
+		}
+		return true;
+	}
+
+	private static void undo(GameState gameState, UndoRecord undoRecord, MapObject heldObject) {
+		undoRecord.undo();
+		// the unit of the first conquest was held when the record started
+		gameState.setHeldObject(heldObject);
+	}
+
+	private static int[] getPositionCodes(Kingdom kingdom) {
+		List<HexTile> tiles = kingdom.getTiles();
+		int[] result = new int[tiles.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = TranspositionCache.getPositionCode(tiles.get(i));
+		}
+		return result;
+	}
+
+}
@@ -2,32 +2,73 @@
 
 package de.sesu8642.feudaltactics.lib.ingame.botai;
 
-import java.util.HashMap;
-import java.util.Map;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
 
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MapObject;
+import de.sesu8642.feudaltactics.lib.gamestate.PalmTree;
+import de.sesu8642.feudaltactics.lib.gamestate.Tree;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
 
 /**
  * The AI can pick up more than one unit at once. This class keeps track of and
- * provides access to all the units that are picked up
+ * provides access to all the units that are picked up. It also serves as the
+ * ledger of the active kingdom during a kingdom move: the income and the
+ * salaries are updated with every change the bot makes, so deciding whether to
+ * buy a unit does not need to look at all the tiles. The values are the same
+ * as the ones calculated by {@link GameStateHelper}.
  */
 class PickedUpUnits {
 
-	/** key = strength of the unit; value: number of picked up units. */
-	private Map<Integer, Integer> internalPickedUpUnits = new HashMap<>();
+	/** index = strength of the unit; value: salary of the unit. */
+	private static final int[] SALARIES_BY_STRENGTH = new int[UnitTypes.strongest().strength() + 1];
 
-	public PickedUpUnits() {
+	static {
 		for (UnitTypes type : UnitTypes.values()) {
-			internalPickedUpUnits.put(type.strength(), 0);
+			SALARIES_BY_STRENGTH[type.strength()] = type.salary();
 		}
 	}
 
-	public Integer ofType(UnitTypes type) {
+	/** index = strength of the unit; value: number of picked up units. */
+	private final int[] internalPickedUpUnits = new int[UnitTypes.strongest().strength() + 1];
+	private int totalNoOfUnits = 0;
+	private int pickedUpSalaries = 0;
+
+	/** Kingdom the income and salaries belong to. */
+	private Kingdom kingdom;
+	private int kingdomIncome;
+	/** Salaries of the units on the map and of the held unit. */
+	private int kingdomSalaries;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param gameState game state whose active kingdom is about to move
+	 */
+	public PickedUpUnits(GameState gameState) {
+		syncWithActiveKingdom(gameState);
+	}
+
+	/**
+	 * Calculates the income and the salaries of the active kingdom from scratch.
+	 *
+	 * @param gameState game state
+	 */
+	private void syncWithActiveKingdom(GameState gameState) {
+		kingdom = gameState.getActiveKingdom();
+		kingdomIncome = GameStateHelper.getKingdomIncome(kingdom);
+		kingdomSalaries = GameStateHelper.getKingdomSalaries(gameState, kingdom);
+	}
+
+	public int ofType(UnitTypes type) {
 		return ofStrength(type.strength());
 	}
 
-	public Integer ofStrength(int strength) {
-		return internalPickedUpUnits.get(strength);
+	public int ofStrength(int strength) {
+		return internalPickedUpUnits[strength];
 	}
 
 	public void addUnit(UnitTypes type) {
@@ -35,7 +76,9 @@ class PickedUpUnits {
 	}
 
 	public void addUnitOfStrength(int strength) {
-		internalPickedUpUnits.put(strength, internalPickedUpUnits.get(strength) + 1);
+		internalPickedUpUnits[strength]++;
+		totalNoOfUnits++;
+		pickedUpSalaries += SALARIES_BY_STRENGTH[strength];
 	}
 
 	public void removeUnit(UnitTypes type) {
@@ -51,10 +94,79 @@ class PickedUpUnits {
 	}
 
 	public void removeUnitOfStrength(int strength, int amount) {
-		internalPickedUpUnits.put(strength, internalPickedUpUnits.get(strength) - amount);
+		internalPickedUpUnits[strength] -= amount;
+		totalNoOfUnits -= amount;
+		pickedUpSalaries -= SALARIES_BY_STRENGTH[strength] * amount;
 	}
 
 	public int getTotalNoOfUnits() {
-		return internalPickedUpUnits.values().stream().mapToInt(Integer::intValue).sum();
+		return totalNoOfUnits;
+	}
+
+	/**
+	 * Picks up a unit from a tile of the active kingdom.
+	 *
+	 * @param unit unit that was removed from the map
+	 */
+	public void pickUpFromMap(Unit unit) {
+		kingdomSalaries -= unit.getUnitType().salary();
+		addUnitOfStrength(unit.getStrength());
+	}
+
+	/**
+	 * Updates the ledger before the held object is placed on a tile of the active
+	 * kingdom, replacing the current content.
+	 *
+	 * @param previousContent current content of the tile
+	 * @param placedObject    object that will be placed
+	 */
+	public void placeOnMap(MapObject previousContent, MapObject placedObject) {
+		if (previousContent != null && (ClassReflection.isAssignableFrom(Tree.class, previousContent.getClass())
+				|| ClassReflection.isAssignableFrom(PalmTree.class, previousContent.getClass()))) {
+			kingdomIncome++;
+		}
+		kingdomSalaries += getSalary(placedObject) - getSalary(previousContent);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Updates the ledger after the active kingdom conquered a tile with a unit.
+	 * Conquering a single tile is tracked incrementally. If kingdoms were merged,
+	 * everything is calculated again.
+	 *
+	 * @param gameState         game state after conquering
+	 * @param unitType          type of the unit that conquered the tile
+	 * @param kingdomSizeBefore number of tiles of the active kingdom before
+	 *                          conquering
+	 */
+	public void conquered(GameState gameState, UnitTypes unitType, int kingdomSizeBefore) {
+		if (gameState.getActiveKingdom() == kingdom && kingdom.getTiles().size() == kingdomSizeBefore + 1) {
+			// the new tile is occupied by the unit, so there is no tree on it
+			kingdomIncome++;
+			kingdomSalaries += unitType.salary();
+		} else {
+			syncWithActiveKingdom(gameState);
+		}
+	}
+
+	public int getKingdomIncome() {
+		return kingdomIncome;
+	}
+
+	/**
+	 * Returns the salaries the active kingdom would have to pay with all the picked
+	 * up units placed.
+	 *
+	 * @return salaries
+	 */
+	public int getActualKingdomSalaries() {
+		return kingdomSalaries + pickedUpSalaries;
+	}
+
+	private static int getSalary(MapObject mapObject) {
+		if (mapObject != null && ClassReflection.isAssignableFrom(Unit.class, mapObject.getClass())) {
+			return ((Unit) mapObject).getUnitType().salary();
+		}
+		return 0;
+	}
+
+}
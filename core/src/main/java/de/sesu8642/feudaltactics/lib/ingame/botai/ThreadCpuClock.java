@@ -0,0 +1,58 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the CPU time of the current thread, so that the time of a phase does
+ * not include the time the thread waited for a core while other threads were
+ * busy. Where the JVM cannot measure it, e.g. on Android, which lacks the
+ * management API, the wall time is measured instead.
+ */
+final class ThreadCpuClock {
+
+	private static final boolean CPU_TIME_SUPPORTED = isCpuTimeSupported();
+
+	private ThreadCpuClock() {
+		// prevent instantiation
+		throw new AssertionError();
+	}
+
+	/**
+	 * Returns whether {@link #nanos} measures the CPU time.
+	 *
+	 * @return whether the CPU time is measured; otherwise, the wall time is
+	 */
+	static boolean measuresCpuTime() {
+		return CPU_TIME_SUPPORTED;
+	}
+
+	/**
+	 * Returns the current time of the clock. Only the differences between two
+	 * times of the same thread are meaningful.
+	 *
+	 * @return time in nanoseconds
+	 */
+	static long nanos() {
+		return CPU_TIME_SUPPORTED ? ThreadBean.BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+	}
+
+	private static boolean isCpuTimeSupported() {
+		try {
+			return ThreadBean.BEAN.isCurrentThreadCpuTimeSupported() && ThreadBean.BEAN.isThreadCpuTimeEnabled();
+		} catch (LinkageError e) {
+			// there is no management API
+			return false;
+		}
+	}
+
+	/** Holds the bean in a class of its own that is only loaded if the API exists. */
+	private static final class ThreadBean {
+
+		static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+
+	}
+
+}
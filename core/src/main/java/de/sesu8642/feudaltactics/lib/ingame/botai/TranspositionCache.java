@@ -0,0 +1,218 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
+import de.sesu8642.feudaltactics.lib.gamestate.MapObject;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+
+/**
+ * Remembers the moves the bot made in a kingdom so that the same move does not
+ * have to be calculated again when the same game state comes up, e.g. in every
+ * iteration of the tree search that passes through the same turns. The moves
+ * are keyed by a 64 bit hash of everything the move depends on. A move is only
+ * repeated if the positions of the kingdom's tiles fit the recording too, so a
+ * hash collision leads to calculating the move instead. The bot decides
+ * deterministically, so using a cached move does not change the outcome.
+ * Bounded; moves that were not used recently are evicted first. Can be shared
+ * by multiple threads.
+ */
+public class TranspositionCache {
+
+	/** Default maximum number of kingdom moves to keep. */
+	public static final long DEFAULT_MAXIMUM_SIZE = 1024;
+
+	private final Cache<Key, KingdomMove> cache;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maximumSize maximum number of kingdom moves to keep
+	 */
+	public TranspositionCache(long maximumSize) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("The maximum size must be positive.");
+		}
+		cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+	}
+
+	/**
+	 * Repeats the move that was made with the same key. Counts as a miss if there
+	 * is none, if what is left of the budget would have stopped it or if it does
+	 * not fit the game state; the move has to be calculated then.
+	 *
+	 * @param key       key of the move
+	 * @param gameState game state to repeat the move in; the kingdom to move must
+	 *                  be active
+	 * @param report     report of the current turn
+	 * @param undoRecord record to store the previous values in; null if the
+	 *                   changes don't need to be undone
+	 * @return whether the move was repeated
+	 */
+	boolean repeat(Key key, GameState gameState, BotTurnReport report, UndoRecord undoRecord) {
+		KingdomMove move = cache.getIfPresent(key);
+		if (move == null || !report.isAffordable(move.getWorkUnits()) || !move.repeat(gameState, report, undoRecord)) {
+			missCount.incrementAndGet();
+			return false;
+		}
+		hitCount.incrementAndGet();
+		return true;
+	}
+
+	void put(Key key, KingdomMove move) {
+		cache.put(key, move);
+	}
+
+	/** Removes all the moves. The counters are kept. */
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return cache.stats().evictionCount();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Calculates a hash of everything a kingdom move of the active player depends
+	 * on: the tiles and their contents, the kingdoms and their tiles in order, the
+	 * state of the player's own kingdoms and the held object. The savings and
+	 * flags of the enemy kingdoms are left out because the bot never looks at
+	 * them.
+	 *
+	 * @param gameState game state to hash
+	 * @return hash
+	 */
+	static long hash(GameState gameState) {
+		List<Player> players = gameState.getPlayers();
+		Player activePlayer = gameState.getActivePlayer();
+		long hash = gameState.getPlayerTurn();
+		for (HexTile tile : gameState.getMap().values()) {
+			hash = mix(hash, getPositionCode(tile));
+			hash = mix(hash, indexOf(players, tile.getPlayer()));
+			hash = mix(hash, getContentCode(tile.getContent()));
+		}
+		List<Kingdom> kingdoms = gameState.getKingdoms();
+		for (Kingdom kingdom : kingdoms) {
+			hash = mix(hash, indexOf(players, kingdom.getPlayer()));
+			if (kingdom.getPlayer() == activePlayer) {
+				hash = mix(hash, kingdom.getSavings());
+				hash = mix(hash, (kingdom.isDoneMoving() ? 1 : 0) | (kingdom.isWasActiveInCurrentTurn() ? 2 : 0));
+			}
+			// the order of the tiles decides e.g. where new capitals are placed
+			hash = mix(hash, kingdom.getTiles().size());
+			for (HexTile tile : kingdom.getTiles()) {
+				hash = mix(hash, getPositionCode(tile));
+			}
+		}
+		hash = mix(hash, indexOf(kingdoms, gameState.getActiveKingdom()));
+		hash = mix(hash, getContentCode(gameState.getHeldObject()));
+		// final mix of MurmurHash3
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private static long mix(long hash, int value) {
+		long result = hash ^ ((value & 0xFFFFFFFFL) * 0xC2B2AE3D27D4EB4FL);
+		return Long.rotateLeft(result, 31) * 0x9E3779B97F4A7C15L;
+	}
+
+	/** Returns a code of the position of a tile that is unique on every map. */
+	static int getPositionCode(HexTile tile) {
+		return ((int) tile.getPosition().x << 16) ^ ((int) tile.getPosition().y & 0xFFFF);
+	}
+
+	private static int getContentCode(MapObject content) {
+		if (content == null) {
+			return 0;
+		}
+		int result = content.getSpriteName().hashCode() * 2;
+		if (ClassReflection.isAssignableFrom(Unit.class, content.getClass()) && ((Unit) content).isCanAct()) {
+			result++;
+		}
+		return result;
+	}
+
+	/** Like {@link List#indexOf} but compares the identity. */
+	private static int indexOf(List<?> list, Object element) {
+		if (element == null) {
+			return -1;
+		}
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i) == element) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/** Key of a kingdom move. */
+	static final class Key {
+
+		private final long stateHash;
+		private final IntelligenceParameters intelligence;
+		private final boolean conquering;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param gameState    game state before the move; the kingdom to move must be
+		 *                     active
+		 * @param intelligence parameters of the move
+		 * @param conquering   whether the bot tries to conquer anything in the move
+		 */
+		Key(GameState gameState, IntelligenceParameters intelligence, boolean conquering) {
+			stateHash = hash(gameState);
+			this.intelligence = intelligence;
+			this.conquering = conquering;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(stateHash) * 31 + (conquering ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return stateHash == other.stateHash && conquering == other.conquering
+					&& intelligence.equals(other.intelligence);
+		}
+
+	}
+
+}
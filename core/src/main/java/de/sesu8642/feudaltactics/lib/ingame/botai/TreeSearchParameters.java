@@ -0,0 +1,120 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+/**
+ * Parameters for the Monte Carlo tree search over turn plans. Immutable class.
+ * The search result only depends on the game state, the seed and the number of
+ * threads if there is no time budget.
+ */
+public class TreeSearchParameters {
+
+	/** Parameters used by the {@link Intelligence#LEVEL_5} bots in the game. */
+	public static final TreeSearchParameters DEFAULT = new TreeSearchParameters(120, 0,
+			Runtime.getRuntime().availableProcessors(), null, 6, Intelligence.LEVEL_3);
+
+	private static final double DEFAULT_EXPLORATION_CONSTANT = 0.15;
+
+	private int iterationBudget;
+	private long timeBudgetMs;
+	private int threadCount;
+	private Long seed;
+	private int rolloutTurns;
+	private Intelligence rolloutIntelligence;
+	private double explorationConstant;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param iterationBudget     total number of iterations (= rollouts) over all
+	 *                            threads; 0 means unlimited
+	 * @param timeBudgetMs        maximum time the search may take; 0 means
+	 *                            unlimited. Searches that hit it are not
+	 *                            reproducible.
+	 * @param threadCount         number of threads that build their own tree
+	 * @param seed                seed for the randomness of the search; null means
+	 *                            that it is derived from the game state
+	 * @param rolloutTurns        number of turns to simulate after expanding a new
+	 *                            node
+	 * @param rolloutIntelligence intelligence level used for the simulated turns
+	 */
+	public TreeSearchParameters(int iterationBudget, long timeBudgetMs, int threadCount, Long seed,
+			int rolloutTurns, Intelligence rolloutIntelligence) {
+		this(iterationBudget, timeBudgetMs, threadCount, seed, rolloutTurns, rolloutIntelligence,
+				DEFAULT_EXPLORATION_CONSTANT);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param iterationBudget     total number of iterations (= rollouts) over all
+	 *                            threads; 0 means unlimited
+	 * @param timeBudgetMs        maximum time the search may take; 0 means
+	 *                            unlimited. Searches that hit it are not
+	 *                            reproducible.
+	 * @param threadCount         number of threads that build their own tree
+	 * @param seed                seed for the randomness of the search; null means
+	 *                            that it is derived from the game state
+	 * @param rolloutTurns        number of turns to simulate after expanding a new
+	 *                            node
+	 * @param rolloutIntelligence intelligence level used for the simulated turns
+	 * @param explorationConstant UCT exploration constant
+	 */
+	public TreeSearchParameters(int iterationBudget, long timeBudgetMs, int threadCount, Long seed,
+			int rolloutTurns, Intelligence rolloutIntelligence, double explorationConstant) {
+		if (iterationBudget <= 0 && timeBudgetMs <= 0) {
+			throw new IllegalArgumentException("Either an iteration budget or a time budget is required.");
+		}
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("At least one thread is required.");
+		}
+		if (rolloutIntelligence.usesTreeSearch) {
+			throw new IllegalArgumentException("Rollouts must use a heuristic intelligence level.");
+		}
+		this.iterationBudget = iterationBudget;
+		this.timeBudgetMs = timeBudgetMs;
+		this.threadCount = threadCount;
+		this.seed = seed;
+		this.rolloutTurns = rolloutTurns;
+		this.rolloutIntelligence = rolloutIntelligence;
+		this.explorationConstant = explorationConstant;
+	}
+
+	public int getIterationBudget() {
+		return iterationBudget;
+	}
+
+	public long getTimeBudgetMs() {
+		return timeBudgetMs;
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public int getRolloutTurns() {
+		return rolloutTurns;
+	}
+
+	public Intelligence getRolloutIntelligence() {
+		return rolloutIntelligence;
+	}
+
+	public double getExplorationConstant() {
+		return explorationConstant;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"TreeSearchParameters [iterationBudget=%s, timeBudgetMs=%s, threadCount=%s, seed=%s, rolloutTurns=%s, "
+						+ "rolloutIntelligence=%s, explorationConstant=%s]",
+				iterationBudget, timeBudgetMs, threadCount, seed, rolloutTurns, rolloutIntelligence,
+				explorationConstant);
+	}
+
+}
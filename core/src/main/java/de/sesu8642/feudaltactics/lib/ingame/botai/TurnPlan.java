@@ -0,0 +1,42 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A plan for a whole turn of a player. Executing it means doing the heuristic
+ * turn of the given intelligence level, either with or without trying to
+ * conquer anything.
+ */
+class TurnPlan {
+
+	/**
+	 * Plans the tree search chooses from. The order matters: if several plans are
+	 * equally good, the first one wins.
+	 */
+	static final List<TurnPlan> CANDIDATES = Collections.unmodifiableList(Arrays.asList(
+			new TurnPlan(Intelligence.LEVEL_4, true), new TurnPlan(Intelligence.LEVEL_3, true),
+			new TurnPlan(Intelligence.LEVEL_3, false), new TurnPlan(Intelligence.LEVEL_2, true),
+			new TurnPlan(Intelligence.LEVEL_1, false)));
+
+	public final Intelligence intelligence;
+	public final boolean conquers;
+
+	public TurnPlan(Intelligence intelligence, boolean conquers) {
+		this.intelligence = intelligence;
+		this.conquers = conquers;
+	}
+
+	public float getChanceToConquer() {
+		return conquers ? 1F : 0F;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("TurnPlan [intelligence=%s, conquers=%s]", intelligence, conquers);
+	}
+
+}
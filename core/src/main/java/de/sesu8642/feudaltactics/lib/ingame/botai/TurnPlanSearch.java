@@ -0,0 +1,325 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameRandom;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
+
+/**
+ * Monte Carlo tree search over whole-turn plans. Every tree level is the turn
+ * of one player, every edge is one of the {@link TurnPlan#CANDIDATES}. The
+ * rollouts are done with the heuristic bot turns. Uses root parallelization:
+ * every thread builds its own tree and the visit counts of the root children
+ * are summed up in the end. The search never changes the given game state.
+ * Every worker works on its own copy of the state and reverts it after every
+ * iteration instead of copying it again.
+ */
+class TurnPlanSearch {
+
+	/** Chance to use a random candidate plan instead of the rollout policy. */
+	private static final float ROLLOUT_RANDOM_PLAN_CHANCE = 0.25F;
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	private final BotAi botAi;
+
+	private final ExecutorService workerExecutor = Executors
+			.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("botai-search-%d").setDaemon(true).build());
+
+	TurnPlanSearch(BotAi botAi) {
+		this.botAi = botAi;
+	}
+
+	/**
+	 * Searches for the best plan for the active player.
+	 *
+	 * @param gameState  game state to search in; is not changed
+	 * @param parameters search parameters
+	 * @return search result containing the best plan
+	 * @throws InterruptedException if interrupted
+	 */
+	TurnPlanSearchResult search(GameState gameState, TreeSearchParameters parameters) throws InterruptedException {
+		long startNanos = System.nanoTime();
+		long deadlineNanos = Long.MAX_VALUE;
+		if (parameters.getTimeBudgetMs() > 0) {
+			deadlineNanos = startNanos + parameters.getTimeBudgetMs() * 1_000_000;
+		}
+		GameRandom searchRandom = parameters.getSeed() != null ? new GameRandom(parameters.getSeed())
+				: gameState.getRandom().split(GameRandom.TREE_SEARCH_STREAM);
+		// the workers only read the root state
+		GameState rootState = GameStateHelper.getCopy(gameState);
+		int threadCount = parameters.getThreadCount();
+		List<Future<SearchWorkerResult>> futures = new ArrayList<>(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			int workerIterations = Integer.MAX_VALUE;
+			if (parameters.getIterationBudget() > 0) {
+				// the iterations are distributed the same way every time to be reproducible
+				workerIterations = parameters.getIterationBudget() / threadCount
+						+ (i < parameters.getIterationBudget() % threadCount ? 1 : 0);
+			}
+			futures.add(workerExecutor.submit(new SearchWorker(rootState, parameters, searchRandom.split(i),
+					workerIterations, deadlineNanos)));
+		}
+
+		int[] planVisits = new int[TurnPlan.CANDIDATES.size()];
+		double[] planRewards = new double[TurnPlan.CANDIDATES.size()];
+		long rollouts = 0;
+		long simulatedTurns = 0;
+		try {
+			for (Future<SearchWorkerResult> future : futures) {
+				SearchWorkerResult workerResult = future.get();
+				rollouts += workerResult.rollouts;
+				simulatedTurns += workerResult.simulatedTurns;
+				if (workerResult.rootNode.children == null) {
+					continue;
+				}
+				for (int i = 0; i < planVisits.length; i++) {
+					SearchNode child = workerResult.rootNode.children[i];
+					if (child != null) {
+						planVisits[i] += child.visits;
+						planRewards[i] += child.rewardSums[rootState.getPlayerTurn()];
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			throw e;
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("A tree search worker failed", e.getCause());
+		}
+
+		int bestPlanIndex = 0;
+		for (int i = 1; i < planVisits.length; i++) {
+			// the more visits, the better; if equal, the higher total reward wins
+			if (planVisits[i] > planVisits[bestPlanIndex]
+					|| (planVisits[i] == planVisits[bestPlanIndex] && planRewards[i] > planRewards[bestPlanIndex])) {
+				bestPlanIndex = i;
+			}
+		}
+		TurnPlanSearchResult result = new TurnPlanSearchResult(TurnPlan.CANDIDATES.get(bestPlanIndex), planVisits,
+				rollouts, simulatedTurns, System.nanoTime() - startNanos);
+		logger.info("tree search with {} threads finished: {}", threadCount, result);
+		return result;
+	}
+
+	/** Builds one search tree. */
+	private class SearchWorker implements Callable<SearchWorkerResult> {
+
+		private final GameState rootState;
+		private final UndoRecord undoRecord = new UndoRecord();
+		private final TreeSearchParameters parameters;
+		private final Random random;
+		private final int iterations;
+		private final long deadlineNanos;
+		private long simulatedTurns = 0;
+
+		SearchWorker(GameState rootState, TreeSearchParameters parameters, Random random, int iterations,
+				long deadlineNanos) {
+			this.rootState = rootState;
+			this.parameters = parameters;
+			this.random = random;
+			this.iterations = iterations;
+			this.deadlineNanos = deadlineNanos;
+		}
+
+		@Override
+		public SearchWorkerResult call() {
+			SearchNode rootNode = new SearchNode(null, -1, rootState.getPlayers().size());
+			GameState state = GameStateHelper.getCopy(rootState);
+			int rollouts = 0;
+			while (rollouts < iterations && System.nanoTime() < deadlineNanos
+					&& !Thread.currentThread().isInterrupted()) {
+				// the simulated turns record their changes, so undoing costs as much as
+				// the number of changed tiles
+				doIteration(state, rootNode);
+				undoRecord.undo();
+				rollouts++;
+			}
+			return new SearchWorkerResult(rootNode, rollouts, simulatedTurns);
+		}
+
+		private void doIteration(GameState state, SearchNode rootNode) {
+			SearchNode node = rootNode;
+			// selection; the turns in the tree are the same in every iteration that
+			// passes through them, so their moves are cached
+			while (!isGameOver(state) && node.isFullyExpanded()) {
+				node = node.selectChild(state.getPlayerTurn(), parameters.getExplorationConstant());
+				applyPlan(state, TurnPlan.CANDIDATES.get(node.planIndex), true);
+			}
+			// expansion
+			if (!isGameOver(state)) {
+				node = node.expandRandomChild(random);
+				applyPlan(state, TurnPlan.CANDIDATES.get(node.planIndex), true);
+			}
+			// rollout
+			for (int i = 0; i < parameters.getRolloutTurns() && !isGameOver(state); i++) {
+				if (random.nextFloat() < ROLLOUT_RANDOM_PLAN_CHANCE) {
+					applyPlan(state, TurnPlan.CANDIDATES.get(random.nextInt(TurnPlan.CANDIDATES.size())), false);
+				} else {
+					IntelligenceParameters rolloutIntelligence = parameters.getRolloutIntelligence().getParameters();
+					applyTurn(state, rolloutIntelligence, rolloutIntelligence.getChanceToConquerPerTurn(), false);
+				}
+			}
+			// backpropagation
+			double[] rewards = evaluate(state);
+			while (node != null) {
+				node.visits++;
+				for (int i = 0; i < rewards.length; i++) {
+					node.rewardSums[i] += rewards[i];
+				}
+				node = node.parent;
+			}
+		}
+
+		private void applyPlan(GameState state, TurnPlan plan, boolean useCache) {
+			applyTurn(state, plan.intelligence.getParameters(), plan.getChanceToConquer(), useCache);
+		}
+
+		private void applyTurn(GameState state, IntelligenceParameters intelligence, float chanceToConquer,
+				boolean useCache) {
+			botAi.simulateTurn(state, intelligence, chanceToConquer, useCache, undoRecord);
+			GameStateHelper.endTurn(state, undoRecord);
+			simulatedTurns++;
+		}
+
+	}
+
+	/**
+	 * Determines whether only one player is left.
+	 *
+	 * @param gameState game state to check
+	 * @return whether the game is over
+	 */
+	static boolean isGameOver(GameState gameState) {
+		Player remainingPlayer = null;
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			if (remainingPlayer == null) {
+				remainingPlayer = kingdom.getPlayer();
+			} else if (remainingPlayer != kingdom.getPlayer()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates a game state for every player: the share of the tiles that belong
+	 * to kingdoms.
+	 *
+	 * @param gameState game state to evaluate
+	 * @return rewards between 0 and 1 in the order of the players
+	 */
+	static double[] evaluate(GameState gameState) {
+		List<Player> players = gameState.getPlayers();
+		double[] rewards = new double[players.size()];
+		int totalKingdomTiles = 0;
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			totalKingdomTiles += kingdom.getTiles().size();
+		}
+		if (totalKingdomTiles == 0) {
+			return rewards;
+		}
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			for (int i = 0; i < players.size(); i++) {
+				if (players.get(i) == kingdom.getPlayer()) {
+					rewards[i] += (double) kingdom.getTiles().size() / totalKingdomTiles;
+					break;
+				}
+			}
+		}
+		return rewards;
+	}
+
+	/** Node of a search tree. Not thread-safe; every worker has its own tree. */
+	private static class SearchNode {
+
+		final SearchNode parent;
+		/** Index of the plan that leads from the parent to this node. */
+		final int planIndex;
+		SearchNode[] children;
+		int expandedChildren = 0;
+		int visits = 0;
+		/** Sum of the rewards of every player in all the rollouts through this node. */
+		final double[] rewardSums;
+
+		SearchNode(SearchNode parent, int planIndex, int playerCount) {
+			this.parent = parent;
+			this.planIndex = planIndex;
+			this.rewardSums = new double[playerCount];
+		}
+
+		boolean isFullyExpanded() {
+			return expandedChildren == TurnPlan.CANDIDATES.size();
+		}
+
+		SearchNode expandRandomChild(Random random) {
+			if (children == null) {
+				children = new SearchNode[TurnPlan.CANDIDATES.size()];
+			}
+			int unexpandedIndex = random.nextInt(children.length - expandedChildren);
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] == null) {
+					if (unexpandedIndex == 0) {
+						children[i] = new SearchNode(this, i, rewardSums.length);
+						expandedChildren++;
+						return children[i];
+					}
+					unexpandedIndex--;
+				}
+			}
+			throw new IllegalStateException("Node has no unexpanded children.");
+		}
+
+		/** Selects the child with the best UCT value for the acting player. */
+		SearchNode selectChild(int actingPlayerIndex, double explorationConstant) {
+			SearchNode bestChild = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			double logVisits = Math.log(visits);
+			for (SearchNode child : children) {
+				double value = child.rewardSums[actingPlayerIndex] / child.visits
+						+ explorationConstant * Math.sqrt(logVisits / child.visits);
+				if (value > bestValue) {
+					bestValue = value;
+					bestChild = child;
+				}
+			}
+			return bestChild;
+		}
+
+	}
+
+	/** Result of a single worker. */
+	private static class SearchWorkerResult {
+
+		final SearchNode rootNode;
+		final int rollouts;
+		final long simulatedTurns;
+
+		SearchWorkerResult(SearchNode rootNode, int rollouts, long simulatedTurns) {
+			this.rootNode = rootNode;
+			this.rollouts = rollouts;
+			this.simulatedTurns = simulatedTurns;
+		}
+
+	}
+
+}
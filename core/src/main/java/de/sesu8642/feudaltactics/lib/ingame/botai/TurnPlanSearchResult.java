@@ -0,0 +1,82 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+/**
+ * Result of a turn plan search: the chosen plan and some statistics about the
+ * throughput of the simulation. Immutable class.
+ */
+public class TurnPlanSearchResult {
+
+	private final TurnPlan bestPlan;
+	private final int[] planVisits;
+	private final long rollouts;
+	private final long simulatedTurns;
+	private final long elapsedNanos;
+
+	TurnPlanSearchResult(TurnPlan bestPlan, int[] planVisits, long rollouts, long simulatedTurns,
+			long elapsedNanos) {
+		this.bestPlan = bestPlan;
+		this.planVisits = planVisits.clone();
+		this.rollouts = rollouts;
+		this.simulatedTurns = simulatedTurns;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	TurnPlan getBestPlan() {
+		return bestPlan;
+	}
+
+	/**
+	 * Returns how often each of the candidate plans was visited at the root,
+	 * summed over all threads.
+	 * 
+	 * @return visits in the order of the candidate plans
+	 */
+	public int[] getPlanVisits() {
+		return planVisits.clone();
+	}
+
+	public long getRollouts() {
+		return rollouts;
+	}
+
+	public long getSimulatedTurns() {
+		return simulatedTurns;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getRolloutsPerSecond() {
+		return perSecond(rollouts);
+	}
+
+	/**
+	 * Returns the number of turns the rules engine simulated per second. This is
+	 * the throughput of the underlying rules engine and bot heuristics.
+	 * 
+	 * @return simulated turns per second
+	 */
+	public double getSimulatedTurnsPerSecond() {
+		return perSecond(simulatedTurns);
+	}
+
+	private double perSecond(long amount) {
+		if (elapsedNanos <= 0) {
+			return 0;
+		}
+		return amount * 1_000_000_000D / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"TurnPlanSearchResult [bestPlan=%s, rollouts=%s, simulatedTurns=%s, elapsedMs=%s, rolloutsPerSecond=%.1f, "
+						+ "simulatedTurnsPerSecond=%.1f]",
+				bestPlan, rollouts, simulatedTurns, elapsedNanos / 1_000_000, getRolloutsPerSecond(),
+				getSimulatedTurnsPerSecond());
+	}
+
+}
@@ -0,0 +1,383 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.sesu8642.feudaltactics.ingame.MapParameters;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateBinarySerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.PlayerMove;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+
+/**
+ * Recording of a whole game. Consists of a header with the parameters the map
+ * was generated with and a stream of records: the moves of the local players,
+ * the bot turns, the turn ends with a hash of the resulting game state and
+ * full game states as keyframes. A bot turn is recorded as the parameters to
+ * repeat it with unless the bot does not act deterministically, in which case
+ * the resulting state is recorded. The records after a keyframe only depend on
+ * the keyframe, so any turn can be reached by loading the keyframe before it
+ * and replaying the records in between. Immutable.
+ *
+ * <p>
+ * Format: magic bytes, version, header, then the records. Every record starts
+ * with its type. A replay that ends with an incomplete record, e.g. because
+ * the game was killed while recording, is read up to the last complete one.
+ * </p>
+ */
+public class Replay {
+
+	static final byte[] MAGIC = { 'F', 'T', 'R', 'P' };
+	static final int VERSION = 1;
+
+	private static final RecordType[] RECORD_TYPES = RecordType.values();
+	private static final Intelligence[] INTELLIGENCES = Intelligence.values();
+
+	/** Type of a replay record. */
+	public enum RecordType {
+		/** Game state replacing the current one, e.g. after loading an autosave. */
+		STATE,
+		/**
+		 * Game state that the replayed records must have led to; written
+		 * periodically to be able to seek.
+		 */
+		CHECKPOINT,
+		/** Move of a local player. */
+		MOVE,
+		/** Undoing the last move of the local player. */
+		UNDO,
+		/** Turn of a bot that is repeated when replaying. */
+		BOT_TURN,
+		/** End of a turn with the hash of the resulting game state. */
+		END_TURN
+	}
+
+	/** Entry of a replay. Immutable. */
+	public static class Record {
+
+		private final RecordType type;
+		private final byte[] gameStateBytes;
+		private final PlayerMove move;
+		private final Intelligence intelligence;
+		private final BotTurnBudget turnBudget;
+		private final int stateHash;
+
+		private Record(RecordType type, byte[] gameStateBytes, PlayerMove move, Intelligence intelligence,
+				BotTurnBudget turnBudget, int stateHash) {
+			this.type = type;
+			this.gameStateBytes = gameStateBytes;
+			this.move = move;
+			this.intelligence = intelligence;
+			this.turnBudget = turnBudget;
+			this.stateHash = stateHash;
+		}
+
+		static Record gameState(RecordType type, GameState gameState) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				new GameStateBinarySerializer().write(gameState, bytes);
+			} catch (IOException e) {
+				// cannot happen when writing to memory
+				throw new AssertionError(e);
+			}
+			return new Record(type, bytes.toByteArray(), null, null, null, 0);
+		}
+
+		static Record move(PlayerMove move) {
+			return new Record(RecordType.MOVE, null, move, null, null, 0);
+		}
+
+		static Record undo() {
+			return new Record(RecordType.UNDO, null, null, null, null, 0);
+		}
+
+		static Record botTurn(Intelligence intelligence, BotTurnBudget turnBudget) {
+			return new Record(RecordType.BOT_TURN, null, null, intelligence, turnBudget, 0);
+		}
+
+		static Record endTurn(GameState gameState) {
+			return new Record(RecordType.END_TURN, null, null, null, null, gameState.hashCode());
+		}
+
+		public RecordType getType() {
+			return type;
+		}
+
+		/**
+		 * Returns the recorded game state of a {@link RecordType#STATE} or
+		 * {@link RecordType#CHECKPOINT} record. Every call returns a new game state.
+		 *
+		 * @return recorded game state
+		 * @throws IOException if the recorded game state is corrupt
+		 */
+		public GameState readGameState() throws IOException {
+			if (gameStateBytes == null) {
+				throw new IllegalStateException("A " + type + " record does not contain a game state.");
+			}
+			return new GameStateBinarySerializer().read(new ByteArrayInputStream(gameStateBytes));
+		}
+
+		public PlayerMove getMove() {
+			return move;
+		}
+
+		public Intelligence getIntelligence() {
+			return intelligence;
+		}
+
+		public BotTurnBudget getTurnBudget() {
+			return turnBudget;
+		}
+
+		/** Hash of the game state after the turn ended. */
+		public int getStateHash() {
+			return stateHash;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeByte(type.ordinal());
+			switch (type) {
+			case STATE:
+			case CHECKPOINT:
+				out.writeInt(gameStateBytes.length);
+				out.write(gameStateBytes);
+				break;
+			case MOVE:
+				move.write(out);
+				break;
+			case UNDO:
+				break;
+			case BOT_TURN:
+				out.writeByte(intelligence.ordinal());
+				out.writeLong(turnBudget.getWorkUnitsPerTurn());
+				out.writeLong(turnBudget.getWorkUnitsPerKingdom());
+				break;
+			case END_TURN:
+				out.writeInt(stateHash);
+				break;
+			default:
+				throw new AssertionError("Unhandled record type " + type);
+			}
+		}
+
+		static Record read(DataInputStream in) throws IOException {
+			int typeOrdinal = in.readUnsignedByte();
+			if (typeOrdinal >= RECORD_TYPES.length) {
+				throw new IOException("Unknown record type " + typeOrdinal);
+			}
+			RecordType type = RECORD_TYPES[typeOrdinal];
+			switch (type) {
+			case STATE:
+			case CHECKPOINT:
+				int length = in.readInt();
+				if (length < 0) {
+					throw new IOException("Invalid game state length " + length);
+				}
+				byte[] gameStateBytes = new byte[length];
+				in.readFully(gameStateBytes);
+				return new Record(type, gameStateBytes, null, null, null, 0);
+			case MOVE:
+				return move(PlayerMove.read(in));
+			case UNDO:
+				return undo();
+			case BOT_TURN:
+				int intelligenceOrdinal = in.readUnsignedByte();
+				if (intelligenceOrdinal >= INTELLIGENCES.length) {
+					throw new IOException("Unknown intelligence " + intelligenceOrdinal);
+				}
+				try {
+					return botTurn(INTELLIGENCES[intelligenceOrdinal], new BotTurnBudget(in.readLong(), in.readLong()));
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Invalid bot turn budget", e);
+				}
+			case END_TURN:
+				return new Record(type, null, null, null, null, in.readInt());
+			default:
+				throw new AssertionError("Unhandled record type " + type);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Record [type=" + type + (move != null ? ", move=" + move : "")
+					+ (intelligence != null ? ", intelligence=" + intelligence : "")
+					+ (type == RecordType.END_TURN ? ", stateHash=" + stateHash : "") + "]";
+		}
+
+	}
+
+	private final long creationTimeMillis;
+	private final MapParameters mapParameters;
+	private final Intelligence botIntelligence;
+	private final List<Record> records;
+
+	/** Indices of the records that start a turn: 0 and the ones after a turn end. */
+	private final List<Integer> turnStartIndices = new ArrayList<>();
+
+	/** Number of bytes of the complete records including the header. */
+	private final long validLength;
+
+	Replay(long creationTimeMillis, MapParameters mapParameters, Intelligence botIntelligence, List<Record> records,
+			long validLength) {
+		this.creationTimeMillis = creationTimeMillis;
+		this.mapParameters = mapParameters;
+		this.botIntelligence = botIntelligence;
+		this.records = Collections.unmodifiableList(new ArrayList<>(records));
+		this.validLength = validLength;
+		turnStartIndices.add(0);
+		for (int i = 0; i < records.size(); i++) {
+			if (records.get(i).getType() == RecordType.END_TURN) {
+				turnStartIndices.add(i + 1);
+			}
+		}
+	}
+
+	/**
+	 * Reads a replay.
+	 *
+	 * @param in stream to read from
+	 * @return replay
+	 * @throws IOException if reading fails or the data is not a replay
+	 */
+	public static Replay read(InputStream in) throws IOException {
+		CountingInputStream countingIn = new CountingInputStream(in);
+		DataInputStream dataIn = new DataInputStream(countingIn);
+		byte[] magic = new byte[MAGIC.length];
+		dataIn.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC)) {
+			throw new IOException("Not a replay");
+		}
+		int version = dataIn.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported replay version " + version);
+		}
+		long creationTimeMillis = dataIn.readLong();
+		int humanPlayerNo = dataIn.readInt();
+		int botPlayerNo = dataIn.readInt();
+		Long seed = dataIn.readBoolean() ? dataIn.readLong() : null;
+		int landMass = dataIn.readInt();
+		float density = dataIn.readFloat();
+		int intelligenceOrdinal = dataIn.readUnsignedByte();
+		if (intelligenceOrdinal >= INTELLIGENCES.length) {
+			throw new IOException("Unknown intelligence " + intelligenceOrdinal);
+		}
+		MapParameters mapParameters = new MapParameters(humanPlayerNo, botPlayerNo, seed, landMass, density);
+		List<Record> records = new ArrayList<>();
+		long validLength = countingIn.count;
+		while (true) {
+			try {
+				records.add(Record.read(dataIn));
+			} catch (EOFException e) {
+				// the end or an incomplete record
+				break;
+			}
+			validLength = countingIn.count;
+		}
+		if (records.isEmpty() || records.get(0).getType() != RecordType.STATE) {
+			throw new IOException("The replay does not start with a game state");
+		}
+		return new Replay(creationTimeMillis, mapParameters, INTELLIGENCES[intelligenceOrdinal], records,
+				validLength);
+	}
+
+	static void writeHeader(OutputStream out, long creationTimeMillis, MapParameters mapParameters,
+			Intelligence botIntelligence) throws IOException {
+		DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.write(MAGIC);
+		dataOut.writeInt(VERSION);
+		dataOut.writeLong(creationTimeMillis);
+		dataOut.writeInt(mapParameters.getHumanPlayerNo());
+		dataOut.writeInt(mapParameters.getBotPlayerNo());
+		dataOut.writeBoolean(mapParameters.getSeed() != null);
+		if (mapParameters.getSeed() != null) {
+			dataOut.writeLong(mapParameters.getSeed());
+		}
+		dataOut.writeInt(mapParameters.getLandMass());
+		dataOut.writeFloat(mapParameters.getDensity());
+		dataOut.writeByte(botIntelligence.ordinal());
+		dataOut.flush();
+	}
+
+	public long getCreationTimeMillis() {
+		return creationTimeMillis;
+	}
+
+	public MapParameters getMapParameters() {
+		return mapParameters;
+	}
+
+	public Intelligence getBotIntelligence() {
+		return botIntelligence;
+	}
+
+	public List<Record> getRecords() {
+		return records;
+	}
+
+	/** Number of turns that were ended in the replay. */
+	public int getTurnCount() {
+		return turnStartIndices.size() - 1;
+	}
+
+	/**
+	 * Returns the index of the first record of a turn.
+	 *
+	 * @param turn number of turns ended before; between 0 and
+	 *             {@link #getTurnCount()}
+	 * @return record index
+	 */
+	public int getTurnStartIndex(int turn) {
+		if (turn < 0 || turn > getTurnCount()) {
+			throw new IllegalArgumentException("Turn " + turn + " is not between 0 and " + getTurnCount());
+		}
+		return turnStartIndices.get(turn);
+	}
+
+	long getValidLength() {
+		return validLength;
+	}
+
+	/** Counts the bytes read to know where the last complete record ends. */
+	private static class CountingInputStream extends InputStream {
+
+		private final InputStream in;
+		private long count = 0;
+
+		private CountingInputStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = in.read();
+			if (result >= 0) {
+				count++;
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = in.read(b, off, len);
+			if (result > 0) {
+				count += result;
+			}
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,242 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.replay;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.exceptions.SaveLoadingException;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoHistory;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay.Record;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay.RecordType;
+
+/**
+ * Plays a {@link Replay} back by applying its records to a game state. Seeking
+ * to a turn loads the keyframe before it and replays the records from there,
+ * so it takes time proportional to the keyframe interval and not to the
+ * length of the game. The bot turns are repeated by a bot of its own that
+ * does not display anything. Does not need a running libGDX application.
+ * Thread-safe.
+ */
+public class ReplayPlayer {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	/** At least as many moves as the game lets the player undo. */
+	private static final int UNDO_HISTORY_CAPACITY = 1000;
+
+	private final Replay replay;
+	private final BotAi botAi;
+	private final UndoHistory undoHistory = new UndoHistory(UNDO_HISTORY_CAPACITY);
+
+	private GameState gameState;
+
+	/** Index of the next record to apply. */
+	private int nextRecordIndex = 0;
+
+	private int currentTurn = 0;
+
+	private ScheduledExecutorService playbackExecutor;
+	private ScheduledFuture<?> playbackFuture;
+
+	/**
+	 * Constructor. Starts at the beginning of the replay.
+	 *
+	 * @param replay replay to play
+	 */
+	public ReplayPlayer(Replay replay) {
+		this.replay = replay;
+		// nothing is displayed, so neither the events nor the preferences are needed
+		botAi = new BotAi(new EventBus(), null);
+		botAi.setSkipDisplayingTurn(true);
+		botAi.setTranspositionCache(null);
+		seekToTurn(0);
+	}
+
+	/**
+	 * Jumps to the beginning of a turn.
+	 *
+	 * @param turn number of turns ended before; between 0 and
+	 *             {@link Replay#getTurnCount()}
+	 * @return game state at the beginning of the turn; must not be changed
+	 */
+	public synchronized GameState seekToTurn(int turn) {
+		int targetIndex = replay.getTurnStartIndex(turn);
+		List<Record> records = replay.getRecords();
+		int keyframeIndex = targetIndex == records.size() ? targetIndex - 1 : targetIndex;
+		while (!isKeyframe(records.get(keyframeIndex))) {
+			keyframeIndex--;
+		}
+		// continuing is cheaper if the current position is between the keyframe and
+		// the target
+		if (nextRecordIndex <= keyframeIndex || nextRecordIndex > targetIndex) {
+			gameState = readGameState(records.get(keyframeIndex));
+			undoHistory.clear();
+			nextRecordIndex = keyframeIndex + 1;
+		}
+		while (nextRecordIndex < targetIndex) {
+			applyNextRecord();
+		}
+		currentTurn = turn;
+		return gameState;
+	}
+
+	/**
+	 * Plays the records until the end of the current turn.
+	 *
+	 * @return whether there was a turn left to play
+	 */
+	public synchronized boolean stepTurn() {
+		if (currentTurn >= replay.getTurnCount()) {
+			return false;
+		}
+		seekToTurn(currentTurn + 1);
+		return true;
+	}
+
+	/**
+	 * Plays the replay from the current turn on in the background, posting a
+	 * {@link GameStateChangeEvent} after every turn so that it is displayed like
+	 * a running game. Stops at the end of the replay or when {@link #stop} is
+	 * called.
+	 *
+	 * @param eventBus       event bus to post the game states to
+	 * @param turnIntervalMs time between two turns
+	 */
+	public synchronized void play(EventBus eventBus, long turnIntervalMs) {
+		stop();
+		if (playbackExecutor == null) {
+			playbackExecutor = Executors.newSingleThreadScheduledExecutor(
+					new ThreadFactoryBuilder().setNameFormat("replay-player-%d").setDaemon(true).build());
+		}
+		eventBus.post(new GameStateChangeEvent(GameStateHelper.getCopy(gameState)));
+		playbackFuture = playbackExecutor.scheduleWithFixedDelay(() -> {
+			GameState copy;
+			synchronized (this) {
+				if (!stepTurn()) {
+					logger.debug("finished playing the replay");
+					stop();
+					return;
+				}
+				copy = GameStateHelper.getCopy(gameState);
+			}
+			eventBus.post(new GameStateChangeEvent(copy));
+		}, turnIntervalMs, turnIntervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	/** Stops playing in the background. */
+	public synchronized void stop() {
+		if (playbackFuture != null) {
+			playbackFuture.cancel(false);
+			playbackFuture = null;
+		}
+	}
+
+	/** Stops playing and releases the thread used for it. */
+	public synchronized void close() {
+		stop();
+		if (playbackExecutor != null) {
+			playbackExecutor.shutdown();
+			playbackExecutor = null;
+		}
+	}
+
+	/**
+	 * Returns whether the replay is being played in the background.
+	 *
+	 * @return whether it is being played
+	 */
+	public synchronized boolean isPlaying() {
+		return playbackFuture != null;
+	}
+
+	/**
+	 * Applies the next record to the game state.
+	 *
+	 * @return the applied record
+	 */
+	Record applyNextRecord() {
+		Record replayRecord = replay.getRecords().get(nextRecordIndex);
+		nextRecordIndex++;
+		switch (replayRecord.getType()) {
+		case STATE:
+			gameState = readGameState(replayRecord);
+			undoHistory.clear();
+			break;
+		case CHECKPOINT:
+			// the replayed records led to the same state already
+			break;
+		case MOVE:
+			replayRecord.getMove().applyTo(gameState, undoHistory.startRecording());
+			break;
+		case UNDO:
+			undoHistory.undo();
+			break;
+		case BOT_TURN:
+			botAi.setTurnBudget(replayRecord.getTurnBudget());
+			try {
+				botAi.doTurnWithoutDisplaying(gameState, replayRecord.getIntelligence());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while replaying a bot turn", e);
+			}
+			break;
+		case END_TURN:
+			gameState = GameStateHelper.endTurn(gameState);
+			undoHistory.clear();
+			break;
+		default:
+			throw new AssertionError("Unhandled record type " + replayRecord.getType());
+		}
+		return replayRecord;
+	}
+
+	private GameState readGameState(Record replayRecord) {
+		try {
+			return replayRecord.readGameState();
+		} catch (IOException e) {
+			throw new SaveLoadingException("Cannot read the game state of the replay", e);
+		}
+	}
+
+	private static boolean isKeyframe(Record replayRecord) {
+		return replayRecord.getType() == RecordType.STATE || replayRecord.getType() == RecordType.CHECKPOINT;
+	}
+
+	int getNextRecordIndex() {
+		return nextRecordIndex;
+	}
+
+	public Replay getReplay() {
+		return replay;
+	}
+
+	/** Number of turns played so far. */
+	public synchronized int getCurrentTurn() {
+		return currentTurn;
+	}
+
+	/**
+	 * Returns the game state of the current position. Must not be changed.
+	 *
+	 * @return game state
+	 */
+	public synchronized GameState getGameState() {
+		return gameState;
+	}
+
+}
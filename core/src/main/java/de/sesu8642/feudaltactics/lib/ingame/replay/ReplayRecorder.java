@@ -0,0 +1,324 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.sesu8642.feudaltactics.ingame.MapParameters;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.PlayerMove;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay.Record;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay.RecordType;
+
+/**
+ * Records the games into {@link Replay} files in a directory, one file per
+ * game. The records are created by the caller, but written by a background
+ * thread, so recording does not wait for the disk. The file is flushed at the
+ * end of every turn, so the replay of a game that was killed can be continued
+ * after loading its autosave. A checkpoint is written every
+ * {@value #CHECKPOINT_INTERVAL_TURNS} turns. Only the newest
+ * {@value #MAX_REPLAYS} replays are kept. Failing to write a replay only stops
+ * recording it. The methods must not be called by several threads at once.
+ */
+public class ReplayRecorder {
+
+	public static final String REPLAY_FILE_EXTENSION = ".ftr";
+
+	/** Maximum number of turns from one keyframe to the next. */
+	static final int CHECKPOINT_INTERVAL_TURNS = 8;
+
+	static final int MAX_REPLAYS = 20;
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	private final File directory;
+
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("replay-writer-%d").setDaemon(true).build());
+
+	/** Stream of the replay being written; null if there is none. Only used by the writer. */
+	private DataOutputStream out;
+
+	/** Whether a game is being recorded. Only used by the caller. */
+	private boolean recording = false;
+
+	private int turnsSinceKeyframe = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory directory to put the replays in; created if it does not
+	 *                  exist
+	 */
+	public ReplayRecorder(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Starts recording a new game.
+	 *
+	 * @param gameState     initial state of the game
+	 * @param mapParameters parameters the map was generated with
+	 */
+	public void startRecording(GameState gameState, MapParameters mapParameters) {
+		stopRecording();
+		long creationTimeMillis = System.currentTimeMillis();
+		Intelligence botIntelligence = gameState.getBotIntelligence();
+		writer.execute(() -> openNewReplay(creationTimeMillis, mapParameters, botIntelligence));
+		recording = true;
+		writeKeyframe(RecordType.STATE, gameState);
+	}
+
+	private void openNewReplay(long creationTimeMillis, MapParameters mapParameters, Intelligence botIntelligence) {
+		directory.mkdirs();
+		deleteOldReplays();
+		File file = new File(directory, "replay-" + creationTimeMillis + REPLAY_FILE_EXTENSION);
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			Replay.writeHeader(out, creationTimeMillis, mapParameters, botIntelligence);
+		} catch (IOException e) {
+			handleWriteError(e);
+			return;
+		}
+		logger.info("recording the game to {}", file);
+	}
+
+	/**
+	 * Continues recording the newest replay, e.g. after loading an autosave. The
+	 * loaded game state is recorded because the last records before the game was
+	 * closed might not have been written.
+	 *
+	 * @param gameState game state the game continues with
+	 */
+	public void resumeRecording(GameState gameState) {
+		stopRecording();
+		writer.execute(this::reopenNewestReplay);
+		recording = true;
+		writeKeyframe(RecordType.STATE, gameState);
+	}
+
+	private void reopenNewestReplay() {
+		List<File> replayFiles = getReplayFiles();
+		if (replayFiles.isEmpty()) {
+			logger.info("there is no replay to continue");
+			return;
+		}
+		File file = replayFiles.get(replayFiles.size() - 1);
+		try {
+			long validLength;
+			try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+				validLength = Replay.read(in).getValidLength();
+			}
+			// continuing after an incomplete record would make the rest unreadable
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(validLength);
+			}
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} catch (IOException e) {
+			logger.warn("cannot continue recording {}", file, e);
+			out = null;
+			return;
+		}
+		logger.info("continuing to record the game to {}", file);
+	}
+
+	/** Stops recording the current game. */
+	public void stopRecording() {
+		if (!recording) {
+			return;
+		}
+		recording = false;
+		writer.execute(this::closeReplay);
+	}
+
+	/**
+	 * Writes everything that was recorded to the file and waits until that is
+	 * done. For when the game might be killed soon. Unlike the other methods, it
+	 * can be called by any thread.
+	 */
+	public void flush() {
+		Future<?> done = writer.submit(this::flushReplay);
+		try {
+			done.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Cannot write the replay", e.getCause());
+		}
+	}
+
+	/**
+	 * Records a move of a local player.
+	 *
+	 * @param move move that was made
+	 */
+	public void recordMove(PlayerMove move) {
+		write(Record.move(move));
+	}
+
+	/** Records that the last move of the local player was undone. */
+	public void recordUndo() {
+		write(Record.undo());
+	}
+
+	/**
+	 * Records a game state that replaces the current one, e.g. one that was
+	 * rebuilt from the autosaves.
+	 *
+	 * @param gameState new game state
+	 */
+	public void recordGameState(GameState gameState) {
+		writeKeyframe(RecordType.STATE, gameState);
+	}
+
+	/**
+	 * Records a bot turn. Turns using the tree search depend on the timing and the
+	 * threads, so their result is recorded instead.
+	 *
+	 * @param intelligence intelligence of the bot
+	 * @param turnBudget   budget the bot had
+	 * @param gameState    game state after the turn, before ending it
+	 */
+	public void recordBotTurn(Intelligence intelligence, BotTurnBudget turnBudget, GameState gameState) {
+		if (intelligence.usesTreeSearch) {
+			writeKeyframe(RecordType.STATE, gameState);
+		} else {
+			write(Record.botTurn(intelligence, turnBudget));
+		}
+	}
+
+	/**
+	 * Records the end of a turn.
+	 *
+	 * @param gameState game state after ending the turn
+	 */
+	public void recordEndTurn(GameState gameState) {
+		write(Record.endTurn(gameState));
+		turnsSinceKeyframe++;
+		if (turnsSinceKeyframe >= CHECKPOINT_INTERVAL_TURNS) {
+			writeKeyframe(RecordType.CHECKPOINT, gameState);
+		}
+		if (recording) {
+			writer.execute(this::flushReplay);
+		}
+	}
+
+	/**
+	 * Returns the replay files in the directory.
+	 *
+	 * @return files from the oldest to the newest
+	 */
+	public List<File> getReplayFiles() {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(REPLAY_FILE_EXTENSION));
+		if (files == null) {
+			return new ArrayList<>();
+		}
+		List<File> result = new ArrayList<>(Arrays.asList(files));
+		// the names contain the creation time
+		result.sort((a, b) -> Long.compare(parseCreationTime(a), parseCreationTime(b)));
+		return result;
+	}
+
+	private static long parseCreationTime(File file) {
+		String name = file.getName();
+		try {
+			return Long.parseLong(
+					name.substring(name.indexOf('-') + 1, name.length() - REPLAY_FILE_EXTENSION.length()));
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			return 0;
+		}
+	}
+
+	private void deleteOldReplays() {
+		List<File> replayFiles = getReplayFiles();
+		// one more is about to be created
+		for (int i = 0; i <= replayFiles.size() - MAX_REPLAYS; i++) {
+			if (!replayFiles.get(i).delete()) {
+				logger.warn("cannot delete the old replay {}", replayFiles.get(i));
+			}
+		}
+	}
+
+	private void writeKeyframe(RecordType type, GameState gameState) {
+		if (!recording) {
+			return;
+		}
+		write(Record.gameState(type, gameState));
+		turnsSinceKeyframe = 0;
+	}
+
+	/** Queues a record; it is immutable, so the writer can write it any time. */
+	private void write(Record replayRecord) {
+		if (!recording) {
+			return;
+		}
+		writer.execute(() -> {
+			if (out == null) {
+				return;
+			}
+			try {
+				replayRecord.write(out);
+			} catch (IOException e) {
+				handleWriteError(e);
+			}
+		});
+	}
+
+	private void flushReplay() {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.flush();
+		} catch (IOException e) {
+			handleWriteError(e);
+		}
+	}
+
+	private void closeReplay() {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.close();
+		} catch (IOException e) {
+			logger.warn("cannot close the replay", e);
+		}
+		out = null;
+	}
+
+	private void handleWriteError(IOException e) {
+		logger.error("cannot write the replay; stopping to record it", e);
+		try {
+			if (out != null) {
+				out.close();
+			}
+		} catch (IOException closeException) {
+			e.addSuppressed(closeException);
+		}
+		out = null;
+	}
+
+}
@@ -0,0 +1,53 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.replay;
+
+/**
+ * Result of re-simulating a replay: how far it got and where the simulation
+ * first differed from the recording, if anywhere. Immutable class.
+ */
+public class ReplayVerificationResult {
+
+	private final int checkedTurns;
+	private final int checkedCheckpoints;
+	private final int mismatchTurn;
+	private final String mismatch;
+
+	ReplayVerificationResult(int checkedTurns, int checkedCheckpoints, int mismatchTurn, String mismatch) {
+		this.checkedTurns = checkedTurns;
+		this.checkedCheckpoints = checkedCheckpoints;
+		this.mismatchTurn = mismatchTurn;
+		this.mismatch = mismatch;
+	}
+
+	/** Whether the simulation led to the recorded states. */
+	public boolean isMatching() {
+		return mismatch == null;
+	}
+
+	/** Number of turn ends whose hash was compared. */
+	public int getCheckedTurns() {
+		return checkedTurns;
+	}
+
+	public int getCheckedCheckpoints() {
+		return checkedCheckpoints;
+	}
+
+	/** Turn in which the simulation differed first; -1 if it did not. */
+	public int getMismatchTurn() {
+		return mismatchTurn;
+	}
+
+	/** Description of the first difference; null if there was none. */
+	public String getMismatch() {
+		return mismatch;
+	}
+
+	@Override
+	public String toString() {
+		return "ReplayVerificationResult [checkedTurns=" + checkedTurns + ", checkedCheckpoints="
+				+ checkedCheckpoints + ", mismatchTurn=" + mismatchTurn + ", mismatch=" + mismatch + "]";
+	}
+
+}
@@ -0,0 +1,76 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.replay;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay.Record;
+
+/**
+ * Re-simulates a replay from its first game state and checks that the moves
+ * and bot turns lead to the recorded state hashes and checkpoints. A mismatch
+ * means that the rules or the heuristic bots do not act the same as when the
+ * replay was recorded, e.g. because of a nondeterminism regression. The states
+ * recorded instead of bot turns that use the tree search are taken as they
+ * are. Does not need a running libGDX application.
+ */
+public class ReplayVerifier {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+	/**
+	 * Verifies a replay.
+	 *
+	 * @param replay replay to verify
+	 * @return result of the verification
+	 */
+	public ReplayVerificationResult verify(Replay replay) {
+		ReplayPlayer player = new ReplayPlayer(replay);
+		List<Record> records = replay.getRecords();
+		int turn = 0;
+		int checkedCheckpoints = 0;
+		while (player.getNextRecordIndex() < records.size()) {
+			Record replayRecord;
+			try {
+				replayRecord = player.applyNextRecord();
+			} catch (RuntimeException e) {
+				// e.g. a recorded move that is impossible in the simulated state
+				logger.debug("cannot apply a record of turn {}", turn, e);
+				return new ReplayVerificationResult(turn, checkedCheckpoints, turn,
+						"cannot apply record " + (player.getNextRecordIndex() - 1) + ": " + e);
+			}
+			switch (replayRecord.getType()) {
+			case END_TURN:
+				int actualHash = player.getGameState().hashCode();
+				if (actualHash != replayRecord.getStateHash()) {
+					return new ReplayVerificationResult(turn, checkedCheckpoints, turn,
+							"state hash " + actualHash + " instead of " + replayRecord.getStateHash());
+				}
+				turn++;
+				break;
+			case CHECKPOINT:
+				GameState recorded;
+				try {
+					recorded = replayRecord.readGameState();
+				} catch (IOException e) {
+					return new ReplayVerificationResult(turn, checkedCheckpoints, turn, "corrupt checkpoint: " + e);
+				}
+				if (!recorded.equals(player.getGameState())) {
+					return new ReplayVerificationResult(turn, checkedCheckpoints, turn,
+							"the state differs from the checkpoint");
+				}
+				checkedCheckpoints++;
+				break;
+			default:
+				break;
+			}
+		}
+		return new ReplayVerificationResult(turn, checkedCheckpoints, -1, null);
+	}
+
+}
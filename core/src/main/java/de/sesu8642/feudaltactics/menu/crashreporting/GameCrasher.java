@@ -66,6 +66,7 @@ public class GameCrasher {
 		// The game state may lead to the same crash over and over again. Better delete
 		// it.
 		autoSaveRepository.deleteAllAutoSaveExceptLatestN(0);
+		autoSaveRepository.flush();
 		FeudalTactics.game.setScreen(new CrashingScreen(throwable));
 	}
 
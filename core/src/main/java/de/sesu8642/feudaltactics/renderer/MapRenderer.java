@@ -4,6 +4,7 @@ package de.sesu8642.feudaltactics.renderer;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -35,7 +36,10 @@ import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit;
 
 /**
- * Renderer for the map and the water.
+ * Renderer for the map and the water. Whenever the map changes, everything that
+ * is to be drawn is prepared on the thread that reports the change and published
+ * to the render thread at once as immutable {@link DrawData}. Rendering never
+ * waits for that.
  */
 public class MapRenderer {
 
@@ -69,20 +73,11 @@ public class MapRenderer {
 	private final Animation<TextureRegion> beachWaterAnimation;
 
 	private float stateTime = 0F; // for keeping animations at the correct pace
-	private boolean darkenBeaches;
-
-	// stuff that is to be drawn
-	// keeping those in separate, flat collections is more efficient when rendering
-	private Map<Vector2, DrawTile> tiles = new HashMap<>();
-	private Map<Vector2, TextureRegion> nonAnimatedContents = new HashMap<>();
-	private Map<Vector2, TextureRegion> darkenedNonAnimatedContents = new HashMap<>();
-	private Map<Vector2, Animation<TextureRegion>> animatedContents = new HashMap<>();
-	private Map<Vector2, Animation<TextureRegion>> darkenedAnimatedContents = new HashMap<>();
-	private Map<Vector2, Boolean> shields = new HashMap<>();
-	private List<Vector2> whiteLineStartPoints = new ArrayList<>();
-	private List<Vector2> whiteLineEndPoints = new ArrayList<>();
-	private List<Vector2> redLineStartPoints = new ArrayList<>();
-	private List<Vector2> redLineEndPoints = new ArrayList<>();
+
+	/** Stuff that is to be drawn; replaced as a whole when the map changes. */
+	private volatile DrawData drawData = new DrawData(false, new HashMap<>(), new HashMap<>(), new HashMap<>(),
+			new HashMap<>(), new HashMap<>(), new HashMap<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+			new ArrayList<>());
 
 	// settings
 	private boolean enableDeepWaterRendering;
@@ -111,24 +106,37 @@ public class MapRenderer {
 	}
 
 	/**
-	 * Updates the map that is rendered.
+	 * Updates the map that is rendered. The game state is not used anymore after
+	 * this returns.
 	 * 
 	 * @param gameState game state containing the map
 	 */
-	// this method and rendering must be synchronized to not happen at the same time
-	public synchronized void updateMap(GameState gameState) {
-		// create tiles
-		tiles.clear();
-		nonAnimatedContents.clear();
-		animatedContents.clear();
-		darkenedNonAnimatedContents.clear();
-		darkenedAnimatedContents.clear();
-		shields.clear();
-		whiteLineStartPoints.clear();
-		whiteLineEndPoints.clear();
-		redLineStartPoints.clear();
-		redLineEndPoints.clear();
-		darkenBeaches = gameState.getHeldObject() != null;
+	public void updateMap(GameState gameState) {
+		updateMap(gameState, Collections.emptySet());
+	}
+
+	/**
+	 * Updates the map that is rendered and outlines the tiles that are suggested
+	 * to the player. The game state is not used anymore after this returns.
+	 * 
+	 * @param gameState       game state containing the map
+	 * @param hintedPositions positions of the tiles to outline
+	 */
+	// synchronized only against other updates because of the caches; rendering
+	// continues with the previous data until the new data is complete
+	public synchronized void updateMap(GameState gameState, Collection<Vector2> hintedPositions) {
+		// keeping those in separate, flat collections is more efficient when rendering
+		Map<Vector2, DrawTile> tiles = new HashMap<>();
+		Map<Vector2, TextureRegion> nonAnimatedContents = new HashMap<>();
+		Map<Vector2, TextureRegion> darkenedNonAnimatedContents = new HashMap<>();
+		Map<Vector2, Animation<TextureRegion>> animatedContents = new HashMap<>();
+		Map<Vector2, Animation<TextureRegion>> darkenedAnimatedContents = new HashMap<>();
+		Map<Vector2, Boolean> shields = new HashMap<>();
+		List<Vector2> whiteLineStartPoints = new ArrayList<>();
+		List<Vector2> whiteLineEndPoints = new ArrayList<>();
+		List<Vector2> redLineStartPoints = new ArrayList<>();
+		List<Vector2> redLineEndPoints = new ArrayList<>();
+		boolean darkenBeaches = gameState.getHeldObject() != null;
 		for (Entry<Vector2, HexTile> hexTileEntry : gameState.getMap().entrySet()) {
 			Vector2 hexCoords = hexTileEntry.getKey();
 			Vector2 mapCoords = getMapCoordinatesFromHexCoordinates(hexCoords);
@@ -210,6 +218,16 @@ public class MapRenderer {
 			}
 			tiles.put(tile.getPosition(), drawTile);
 
+			// dotted white lines around the tiles the hints suggest to change
+			if (hintedPositions.contains(hexCoords)) {
+				for (int index = 0; index < 6; index++) {
+					for (Line linePart : lineToDottedLine(getNeighborLine(mapCoords, index))) {
+						whiteLineStartPoints.add(linePart.start);
+						whiteLineEndPoints.add(linePart.end);
+					}
+				}
+			}
+
 			// create content (units etc)
 			MapObject tileContent = tile.getContent();
 			if (tileContent != null) {
@@ -296,6 +314,9 @@ public class MapRenderer {
 			}
 
 		}
+		drawData = new DrawData(darkenBeaches, tiles, nonAnimatedContents, darkenedNonAnimatedContents,
+				animatedContents, darkenedAnimatedContents, shields, whiteLineStartPoints, whiteLineEndPoints,
+				redLineStartPoints, redLineEndPoints);
 	}
 
 	private Collection<Line> lineToDottedLine(Line line) {
@@ -371,16 +392,18 @@ public class MapRenderer {
 	}
 
 	/** Renders the map. */
-	public synchronized void render() {
+	public void render() {
+		// read once so that the whole frame is drawn from the same data
+		DrawData data = drawData;
 		HashMap<Vector2, TextureRegion> frames = new HashMap<>(); // current frame for each map object
 		HashMap<Vector2, TextureRegion> darkenedFrames = new HashMap<>(); // current frame for each map object
 		spriteBatch.setProjectionMatrix(camera.combined);
 		stateTime += Gdx.graphics.getDeltaTime();
 		// get the correct frames
-		for (Entry<Vector2, Animation<TextureRegion>> content : animatedContents.entrySet()) {
+		for (Entry<Vector2, Animation<TextureRegion>> content : data.animatedContents.entrySet()) {
 			frames.put(content.getKey(), (content.getValue()).getKeyFrame(stateTime, true));
 		}
-		for (Entry<Vector2, Animation<TextureRegion>> content : darkenedAnimatedContents.entrySet()) {
+		for (Entry<Vector2, Animation<TextureRegion>> content : data.darkenedAnimatedContents.entrySet()) {
 			darkenedFrames.put(content.getKey(), content.getValue().getKeyFrame(stateTime, true));
 		}
 		TextureRegion waterRegion = waterAnimation.getKeyFrame(stateTime, true);
@@ -437,11 +460,11 @@ public class MapRenderer {
 		// otherwise
 		// beach water first (should not cover any sand)
 		Color beachWaterColor = new Color(BEACH_WATER_COLOR);
-		if (darkenBeaches) {
+		if (data.darkenBeaches) {
 			beachWaterColor.mul(0.75F, 0.75F, 0.75F, 1);
 		}
 		spriteBatch.setColor(beachWaterColor);
-		for (DrawTile tile : tiles.values()) {
+		for (DrawTile tile : data.tiles.values()) {
 			if (tile.bottomBeach || tile.bottomRightBeach) {
 				spriteBatch.draw(bottomRightBeachWaterRegion, tile.mapCoords.x, tile.mapCoords.y - HEXTILE_HEIGHT * 2,
 						HEXTILE_WIDTH * 2, HEXTILE_HEIGHT * 2);
@@ -461,11 +484,11 @@ public class MapRenderer {
 		}
 		// beach sand
 		Color beachSandColor = new Color(normalColor);
-		if (darkenBeaches) {
+		if (data.darkenBeaches) {
 			beachSandColor.mul(0.5F, 0.5F, 0.5F, 1);
 		}
 		spriteBatch.setColor(beachSandColor);
-		for (DrawTile tile : tiles.values()) {
+		for (DrawTile tile : data.tiles.values()) {
 			if (tile.bottomBeach || tile.bottomRightBeach) {
 				spriteBatch.draw(bottomRightBeachSandRegion, tile.mapCoords.x, tile.mapCoords.y - HEXTILE_HEIGHT,
 						HEXTILE_WIDTH, HEXTILE_HEIGHT);
@@ -485,7 +508,7 @@ public class MapRenderer {
 		}
 
 		// draw all the tiles
-		for (DrawTile tile : tiles.values()) {
+		for (DrawTile tile : data.tiles.values()) {
 			Color color = new Color(tile.color);
 			// darken tile
 			if (tile.darken) {
@@ -501,7 +524,7 @@ public class MapRenderer {
 		shieldColor.sub(0, 0, 0, 0.7F);
 		Color darkenedShieldColor = new Color(shieldColor);
 		darkenedShieldColor.mul(0.5F, 0.5F, 0.5F, 1);
-		for (Entry<Vector2, Boolean> shield : shields.entrySet()) {
+		for (Entry<Vector2, Boolean> shield : data.shields.entrySet()) {
 			if (Boolean.TRUE.equals(shield.getValue())) {
 				spriteBatch.setColor(darkenedShieldColor);
 			} else {
@@ -528,16 +551,16 @@ public class MapRenderer {
 		}
 		spriteBatch.setColor(normalColor);
 		// draw all the non-animated contents
-		for (Entry<Vector2, TextureRegion> content : nonAnimatedContents.entrySet()) {
+		for (Entry<Vector2, TextureRegion> content : data.nonAnimatedContents.entrySet()) {
 			spriteBatch.draw(content.getValue(), content.getKey().x - itemOffsetX, content.getKey().y - itemOffsetY,
 					HEXTILE_WIDTH, HEXTILE_HEIGHT);
 		}
-		for (Entry<Vector2, TextureRegion> content : darkenedNonAnimatedContents.entrySet()) {
+		for (Entry<Vector2, TextureRegion> content : data.darkenedNonAnimatedContents.entrySet()) {
 			spriteBatch.draw(content.getValue(), content.getKey().x - itemOffsetX, content.getKey().y - itemOffsetY,
 					HEXTILE_WIDTH, HEXTILE_HEIGHT);
 		}
 		spriteBatch.setColor(darkenedColor);
-		for (Entry<Vector2, TextureRegion> content : darkenedNonAnimatedContents.entrySet()) {
+		for (Entry<Vector2, TextureRegion> content : data.darkenedNonAnimatedContents.entrySet()) {
 			spriteBatch.draw(content.getValue(), content.getKey().x - itemOffsetX, content.getKey().y - itemOffsetY,
 					HEXTILE_WIDTH, HEXTILE_HEIGHT);
 		}
@@ -546,14 +569,14 @@ public class MapRenderer {
 		shapeRenderer.setProjectionMatrix(camera.combined);
 		shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
 		shapeRenderer.setColor(1F, 1F, 1F, 1);
-		for (int i = 0; i < whiteLineStartPoints.size(); i++) {
-			shapeRenderer.rectLine(whiteLineStartPoints.get(i).x, whiteLineStartPoints.get(i).y,
-					whiteLineEndPoints.get(i).x, whiteLineEndPoints.get(i).y, 0.6F);
+		for (int i = 0; i < data.whiteLineStartPoints.size(); i++) {
+			shapeRenderer.rectLine(data.whiteLineStartPoints.get(i).x, data.whiteLineStartPoints.get(i).y,
+					data.whiteLineEndPoints.get(i).x, data.whiteLineEndPoints.get(i).y, 0.6F);
 		}
 		shapeRenderer.setColor(1F, 0F, 0F, 1);
-		for (int i = 0; i < redLineStartPoints.size(); i++) {
-			shapeRenderer.rectLine(redLineStartPoints.get(i).x, redLineStartPoints.get(i).y, redLineEndPoints.get(i).x,
-					redLineEndPoints.get(i).y, 0.6F);
+		for (int i = 0; i < data.redLineStartPoints.size(); i++) {
+			shapeRenderer.rectLine(data.redLineStartPoints.get(i).x, data.redLineStartPoints.get(i).y,
+					data.redLineEndPoints.get(i).x, data.redLineEndPoints.get(i).y, 0.6F);
 		}
 		shapeRenderer.end();
 	}
@@ -635,7 +658,47 @@ public class MapRenderer {
 		spriteBatch.getProjectionMatrix().setToOrtho2D(0, 0, HEXTILE_WIDTH, HEXTILE_HEIGHT);
 	}
 
-	private class DrawTile {
+	/**
+	 * Everything that is drawn for a map. Not changed after it is created, so the
+	 * render thread can use it without locking.
+	 */
+	private static final class DrawData {
+
+		private final boolean darkenBeaches;
+		private final Map<Vector2, DrawTile> tiles;
+		private final Map<Vector2, TextureRegion> nonAnimatedContents;
+		private final Map<Vector2, TextureRegion> darkenedNonAnimatedContents;
+		private final Map<Vector2, Animation<TextureRegion>> animatedContents;
+		private final Map<Vector2, Animation<TextureRegion>> darkenedAnimatedContents;
+		private final Map<Vector2, Boolean> shields;
+		private final List<Vector2> whiteLineStartPoints;
+		private final List<Vector2> whiteLineEndPoints;
+		private final List<Vector2> redLineStartPoints;
+		private final List<Vector2> redLineEndPoints;
+
+		private DrawData(boolean darkenBeaches, Map<Vector2, DrawTile> tiles,
+				Map<Vector2, TextureRegion> nonAnimatedContents,
+				Map<Vector2, TextureRegion> darkenedNonAnimatedContents,
+				Map<Vector2, Animation<TextureRegion>> animatedContents,
+				Map<Vector2, Animation<TextureRegion>> darkenedAnimatedContents, Map<Vector2, Boolean> shields,
+				List<Vector2> whiteLineStartPoints, List<Vector2> whiteLineEndPoints, List<Vector2> redLineStartPoints,
+				List<Vector2> redLineEndPoints) {
+			this.darkenBeaches = darkenBeaches;
+			this.tiles = Collections.unmodifiableMap(tiles);
+			this.nonAnimatedContents = Collections.unmodifiableMap(nonAnimatedContents);
+			this.darkenedNonAnimatedContents = Collections.unmodifiableMap(darkenedNonAnimatedContents);
+			this.animatedContents = Collections.unmodifiableMap(animatedContents);
+			this.darkenedAnimatedContents = Collections.unmodifiableMap(darkenedAnimatedContents);
+			this.shields = Collections.unmodifiableMap(shields);
+			this.whiteLineStartPoints = Collections.unmodifiableList(whiteLineStartPoints);
+			this.whiteLineEndPoints = Collections.unmodifiableList(whiteLineEndPoints);
+			this.redLineStartPoints = Collections.unmodifiableList(redLineStartPoints);
+			this.redLineEndPoints = Collections.unmodifiableList(redLineEndPoints);
+		}
+
+	}
+
+	private static class DrawTile {
 		Vector2 mapCoords;
 		Color color;
 		boolean darken = false;
@@ -647,7 +710,7 @@ public class MapRenderer {
 		boolean bottomLeftBeach = false;
 	}
 
-	private class Line {
+	private static class Line {
 		private Vector2 start;
 		private Vector2 end;
 	}
@@ -0,0 +1,115 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.lib.gamestate.DistanceFields;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexMapHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+
+/** Tests for DistanceFields class. */
+class DistanceFieldsTest {
+
+	List<Player> players;
+
+	@BeforeEach
+	void init() {
+		players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 0), Type.LOCAL_PLAYER));
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void distancesEqualNaiveSearch(long seed) {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, seed % 2 == 0 ? -3 : 2, 0.2F, seed);
+		Player player = gameState.getActivePlayer();
+		DistanceFields distanceFields = DistanceFields.of(gameState);
+
+		Map<HexTile, Integer> enemyKingdomDistances = search(gameState,
+				tile -> tile.getKingdom() != null && tile.getPlayer() != player);
+		Map<HexTile, Integer> unownedLandDistances = search(gameState, tile -> tile.getKingdom() == null);
+		Map<HexTile, Integer> waterDistances = search(gameState,
+				tile -> HexMapHelper.getNeighborTiles(gameState.getMap(), tile).contains(null));
+		Map<HexTile, Integer> peasantDistances = search(gameState,
+				tile -> tile.getKingdom() != null && tile.getPlayer() != player && tile.getContent() != null
+						&& tile.getContent().getClass() == Unit.class && tile.getContent().getStrength() == 1);
+		for (HexTile tile : gameState.getMap().values()) {
+			assertEquals(getDistance(enemyKingdomDistances, tile, 0), distanceFields.getEnemyKingdomDistance(tile));
+			assertEquals(getDistance(unownedLandDistances, tile, 0), distanceFields.getUnownedLandDistance(tile));
+			// the search starts at the beach tiles which are 1 step away from the water
+			assertEquals(getDistance(waterDistances, tile, 1), distanceFields.getWaterDistance(tile));
+			assertEquals(getDistance(peasantDistances, tile, 0), distanceFields.getEnemyUnitDistance(tile, 1));
+		}
+	}
+
+	@Test
+	void fieldsAreCachedUntilTheGameStateChanges() {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 50, 0, 0F, 1L);
+		DistanceFields distanceFields = DistanceFields.of(gameState);
+
+		assertSame(distanceFields, DistanceFields.of(gameState));
+
+		GameStateHelper.endTurn(gameState);
+
+		assertNotSame(distanceFields, DistanceFields.of(gameState));
+	}
+
+	private static Map<HexTile, Integer> search(GameState gameState, Predicate<HexTile> isSource) {
+		Map<HexTile, Integer> distances = new IdentityHashMap<>();
+		Queue<HexTile> queue = new ArrayDeque<>();
+		for (HexTile tile : gameState.getMap().values()) {
+			if (isSource.test(tile)) {
+				distances.put(tile, 0);
+				queue.add(tile);
+			}
+		}
+		while (!queue.isEmpty()) {
+			HexTile tile = queue.remove();
+			for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+				if (neighborTile != null && !distances.containsKey(neighborTile)) {
+					distances.put(neighborTile, distances.get(tile) + 1);
+					queue.add(neighborTile);
+				}
+			}
+		}
+		return distances;
+	}
+
+	private static int getDistance(Map<HexTile, Integer> distances, HexTile tile, int offset) {
+		Integer distance = distances.get(tile);
+		return distance == null ? DistanceFields.UNREACHABLE : distance + offset;
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L, 4L);
+	}
+
+}
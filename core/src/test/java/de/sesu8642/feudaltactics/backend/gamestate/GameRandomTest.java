@@ -0,0 +1,58 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameRandom;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+
+/** Tests for GameRandom class. */
+class GameRandomTest {
+
+	@Test
+	void subStreamsDoNotDependOnEachOther() {
+		GameRandom random = new GameRandom(42L);
+
+		long first = random.split(1).nextLong();
+		random.split(2).nextLong();
+
+		assertEquals(first, random.split(1).nextLong());
+		assertNotEquals(first, random.split(2).nextLong());
+
+		random.jump();
+
+		assertNotEquals(first, random.split(1).nextLong());
+	}
+
+	@Test
+	void copiedGameStateContinuesWithTheSameNumbers() {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 100, 0, 0.5F, 7L);
+		GameStateHelper.endTurn(gameState);
+		GameState copy = GameStateHelper.getCopy(gameState);
+
+		for (int i = 0; i < players.size() * 5; i++) {
+			GameStateHelper.endTurn(gameState);
+			GameStateHelper.endTurn(copy);
+		}
+
+		// the trees spread the same way
+		assertEquals(gameState, copy);
+	}
+
+}
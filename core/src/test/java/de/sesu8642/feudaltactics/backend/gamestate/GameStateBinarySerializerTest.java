@@ -0,0 +1,113 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateBinarySerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+
+/** Tests for GameStateBinarySerializer class. */
+class GameStateBinarySerializerTest {
+
+	private final GameStateBinarySerializer serializer = new GameStateBinarySerializer();
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void readGameStateEqualsWrittenOne(long seed) throws IOException {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(0.2F, 0.45F, 0.8F, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0.75F, 0.8F, 0.1F, 1), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0.3F, 0.2F, 0.5F, 1), true, Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 0, 0.5F, seed);
+		for (int i = 0; i < players.size() * 3; i++) {
+			GameStateHelper.endTurn(gameState);
+		}
+		Kingdom kingdom = gameState.getKingdoms().get(0);
+		kingdom.setSavings(-3);
+		kingdom.setDoneMoving(true);
+		gameState.setActiveKingdom(kingdom);
+		Unit unit = new Unit(UnitTypes.KNIGHT);
+		unit.setCanAct(false);
+		kingdom.getTiles().get(0).setContent(unit);
+		gameState.setHeldObject(new Unit(UnitTypes.SPEARMAN));
+		gameState.setWinner(players.get(1));
+
+		GameState result = read(write(gameState));
+
+		assertEquals(gameState, result);
+		assertEquals(new ArrayList<>(gameState.getMap().keySet()), new ArrayList<>(result.getMap().keySet()));
+		assertEquals(kingdom.getTiles().size(), result.getActiveKingdom().getTiles().size());
+		for (HexTile tile : result.getActiveKingdom().getTiles()) {
+			assertSame(result.getActiveKingdom(), tile.getKingdom());
+		}
+		assertSame(result.getPlayers().get(1), result.getWinner());
+		assertEquals(gameState.getPlayers().get(0).getColor().g, result.getPlayers().get(0).getColor().g);
+	}
+
+	@Test
+	void negativePositionsAreKept() throws IOException {
+		Player player = new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER);
+		GameState gameState = new GameState();
+		gameState.setPlayers(Arrays.asList(player));
+		gameState.setKingdoms(new ArrayList<>());
+		for (Vector2 position : Arrays.asList(new Vector2(-300, 7), new Vector2(0, 0), new Vector2(5, -1))) {
+			gameState.getMap().put(position, new HexTile(player, position));
+		}
+
+		GameState result = read(write(gameState));
+
+		assertEquals(gameState, result);
+	}
+
+	@Test
+	void invalidDataIsRejected() throws IOException {
+		GameState gameState = new GameState();
+		gameState.setKingdoms(new ArrayList<>());
+		byte[] data = write(gameState);
+
+		assertThrows(IOException.class, () -> read(Arrays.copyOf(data, data.length - 1)));
+		data[0] = '{';
+		assertThrows(IOException.class, () -> read(data));
+	}
+
+	private byte[] write(GameState gameState) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.write(gameState, out);
+		return out.toByteArray();
+	}
+
+	private GameState read(byte[] data) throws IOException {
+		return serializer.read(new ByteArrayInputStream(data));
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L);
+	}
+
+}
@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,8 +22,12 @@ import com.badlogic.gdx.graphics.Color;
 
 import de.sesu8642.feudaltactics.lib.gamestate.GameState;
 import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveBuffer;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator;
 import de.sesu8642.feudaltactics.lib.gamestate.Player;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
 
 /** Tests for GameStateHelper class. */
 class GameStateHelperTest {
@@ -48,6 +53,99 @@ class GameStateHelperTest {
 		assertEquals(original, copy);
 	}
 
+	@Test
+	void copiedGameStateHasSameHashCodeAndTurn() {
+		GameState original = new GameState();
+		GameStateHelper.initializeMap(original, players, 500, 2, 0.2F, 12345L);
+		GameStateHelper.endTurn(original);
+		original.setActiveKingdom(original.getKingdoms().get(0));
+
+		GameState copy = GameStateHelper.getCopy(original);
+
+		assertEquals(original.getPlayerTurn(), copy.getPlayerTurn());
+		assertEquals(original.hashCode(), copy.hashCode());
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void undoingMovesRestoresGameState(long seed) {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, seed);
+		MoveGenerator moveGenerator = new MoveGenerator();
+		MoveBuffer moveBuffer = new MoveBuffer();
+		UndoRecord undoRecord = new UndoRecord();
+		Random random = new Random(seed);
+
+		for (int i = 0; i < 300; i++) {
+			if (gameState.getActiveKingdom() == null) {
+				List<Kingdom> ownKingdoms = gameState.getKingdoms().stream()
+						.filter(kingdom -> kingdom.getPlayer() == gameState.getActivePlayer())
+						.collect(Collectors.toList());
+				if (!ownKingdoms.isEmpty()) {
+					GameStateHelper.activateKingdom(gameState, ownKingdoms.get(random.nextInt(ownKingdoms.size())));
+				}
+			}
+			moveGenerator.generateMoves(gameState, moveBuffer);
+			if (moveBuffer.isEmpty()) {
+				// dead end like a castle without free tile; a player would undo the purchase
+				gameState.setHeldObject(null);
+				continue;
+			}
+			int move = moveBuffer.get(random.nextInt(moveBuffer.size()));
+			GameState copyBeforeMove = GameStateHelper.getCopy(gameState);
+			int hashCodeBeforeMove = gameState.hashCode();
+
+			moveGenerator.applyMove(gameState, move, undoRecord);
+			undoRecord.undo();
+
+			assertEquals(copyBeforeMove, gameState);
+			assertEquals(hashCodeBeforeMove, gameState.hashCode());
+			moveGenerator.applyMove(gameState, move);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void undoingRestoresTheStatesBeforeTheTurnEnds(long seed) {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, seed);
+		MoveGenerator moveGenerator = new MoveGenerator();
+		MoveBuffer moveBuffer = new MoveBuffer();
+		UndoRecord undoRecord = new UndoRecord();
+		Random random = new Random(seed);
+
+		for (int turn = 0; turn < 30; turn++) {
+			// some moves so that units are bought, conquer and die
+			for (int i = 0; i < 10; i++) {
+				if (gameState.getActiveKingdom() == null) {
+					List<Kingdom> ownKingdoms = gameState.getKingdoms().stream()
+							.filter(kingdom -> kingdom.getPlayer() == gameState.getActivePlayer())
+							.collect(Collectors.toList());
+					if (ownKingdoms.isEmpty()) {
+						break;
+					}
+					GameStateHelper.activateKingdom(gameState, ownKingdoms.get(random.nextInt(ownKingdoms.size())));
+				}
+				moveGenerator.generateMoves(gameState, moveBuffer);
+				if (moveBuffer.isEmpty()) {
+					break;
+				}
+				moveGenerator.applyMove(gameState, moveBuffer.get(random.nextInt(moveBuffer.size())));
+			}
+			// held objects must be placed before the turn ends
+			gameState.setHeldObject(null);
+			GameState copyBeforeTurnEnd = GameStateHelper.getCopy(gameState);
+			int hashCodeBeforeTurnEnd = gameState.hashCode();
+
+			GameStateHelper.endTurn(gameState, undoRecord);
+			undoRecord.undo();
+
+			assertEquals(copyBeforeTurnEnd, gameState);
+			assertEquals(hashCodeBeforeTurnEnd, gameState.hashCode());
+			GameStateHelper.endTurn(gameState);
+		}
+	}
+
 	@ParameterizedTest
 	@MethodSource("provideMapSizesAndSeeds")
 	void initializedMapHasCorrectLandMass(int landMass, long seed) {
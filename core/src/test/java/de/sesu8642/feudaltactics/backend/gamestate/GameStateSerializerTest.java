@@ -0,0 +1,128 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateSerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+
+/** Tests for GameStateSerializer class. */
+class GameStateSerializerTest {
+
+	/**
+	 * Save in the format the libGDX Json class wrote: equal objects like the trees
+	 * share an id and default values are left out.
+	 */
+	private static final String LEGACY_JSON = "{\"players\":[{\"id\":1,\"color\":{\"r\":0.2,\"g\":0.45,"
+			+ "\"b\":0.8,\"a\":1},\"type\":\"LOCAL_PLAYER\"},{\"id\":2,\"color\":{\"r\":1,\"g\":1,\"a\":1},"
+			+ "\"type\":\"LOCAL_BOT\",\"defeated\":true}],\"tiles\":[{\"id\":3,\"player_id\":1,\"position\":{}},"
+			+ "{\"id\":4,\"player_id\":1,\"position\":{\"x\":1,\"y\":-1},\"content\":{\"id\":5,"
+			+ "\"class\":\"Capital\"}},{\"id\":6,\"player_id\":2,\"position\":{\"x\":-1},\"content\":{\"id\":7,"
+			+ "\"class\":\"Tree\"}},{\"id\":8,\"player_id\":2,\"position\":{\"y\":1},\"content\":{\"id\":7,"
+			+ "\"class\":\"Tree\"}},{\"id\":9,\"player_id\":1,\"position\":{\"x\":2},\"content\":{\"id\":10,"
+			+ "\"class\":\"Unit\",\"canAct\":false,\"unitType\":\"KNIGHT\"}}],\"kingdoms\":[{\"id\":11,"
+			+ "\"player_id\":1,\"savings\":12,\"wasActiveInCurrentTurn\":true,\"tile_ids\":[3,4,9]}],"
+			+ "\"held_obj\":{\"class\":\"Unit\",\"unitType\":\"PEASANT\"},\"player_turn\":0,"
+			+ "\"bot_intelligence\":\"LEVEL_3\",\"seed\":42,\"winner_id\":1,\"active_kingdom_id\":11,\"round\":3,"
+			+ "\"random_state\":-123456789012}";
+
+	private final GameStateSerializer serializer = new GameStateSerializer();
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void readGameStateEqualsWrittenOne(long seed) throws IOException {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(0.2F, 0.45F, 0.8F, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0.75F, 0.8F, 0.1F, 1), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0.3F, 0.2F, 0.5F, 1), true, Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 0, 0.5F, seed);
+		for (int i = 0; i < players.size() * 3; i++) {
+			GameStateHelper.endTurn(gameState);
+		}
+		Kingdom kingdom = gameState.getKingdoms().get(0);
+		kingdom.setSavings(-3);
+		gameState.setActiveKingdom(kingdom);
+		Unit unit = new Unit(UnitTypes.KNIGHT);
+		unit.setCanAct(false);
+		kingdom.getTiles().get(0).setContent(unit);
+		gameState.setHeldObject(new Unit(UnitTypes.SPEARMAN));
+		gameState.setWinner(players.get(1));
+
+		String json = serializer.toJson(gameState);
+		GameState result = serializer.read(new StringReader(json));
+
+		assertEquals(gameState, result);
+		assertEquals(new ArrayList<>(gameState.getMap().keySet()), new ArrayList<>(result.getMap().keySet()));
+		for (HexTile tile : result.getActiveKingdom().getTiles()) {
+			assertSame(result.getActiveKingdom(), tile.getKingdom());
+		}
+		assertSame(result.getPlayers().get(1), result.getWinner());
+		assertEquals(gameState.getRandom().getState(), result.getRandom().getState());
+		assertEquals(json, serializer.toJson(result));
+	}
+
+	@Test
+	void legacySaveIsWrittenAgainByteForByte() throws IOException {
+		GameState result = serializer.read(new StringReader(LEGACY_JSON));
+
+		assertEquals(5, result.getMap().size());
+		assertEquals(UnitTypes.PEASANT, ((Unit) result.getHeldObject()).getUnitType());
+		assertSame(result.getKingdoms().get(0), result.getActiveKingdom());
+		assertEquals(LEGACY_JSON, serializer.toJson(result));
+	}
+
+	@Test
+	void formattedSaveWithoutOptionalFieldsIsRead() throws IOException {
+		String json = "{ \"players\": [ { \"id\": 1, \"type\": \"LOCAL_PLAYER\", \"unknown\": [ 1, { } ] } ],\n"
+				+ "\t\"tiles\": [ ], \"kingdoms\": [ ],\n"
+				+ "\t\"held_obj\": { \"class\": \"Castle\", \"kingdom\": { \"savings\": 1.0 } },\n"
+				+ "\t\"player_turn\": 0, \"bot_intelligence\": \"LEVEL_1\", \"seed\": 5, \"round\": 2 }\n";
+
+		GameState result = serializer.read(new StringReader(json));
+
+		assertNull(result.getPlayers().get(0).getColor());
+		assertNull(result.getWinner());
+		// derived from the seed and the round like older versions did
+		assertEquals(5 * 31 + 2, result.getRandom().getState());
+	}
+
+	@Test
+	void invalidJsonIsRejected() {
+		String truncated = LEGACY_JSON.substring(0, LEGACY_JSON.length() - 1);
+		String danglingReference = LEGACY_JSON.replace("\"tile_ids\":[3,4,9]", "\"tile_ids\":[3,4,99]");
+		String unknownClass = LEGACY_JSON.replace("\"Capital\"", "\"Dragon\"");
+
+		assertThrows(IOException.class, () -> serializer.read(new StringReader(truncated)));
+		assertThrows(IOException.class, () -> serializer.read(new StringReader(danglingReference)));
+		assertThrows(IOException.class, () -> serializer.read(new StringReader(unknownClass)));
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L);
+	}
+
+}
@@ -0,0 +1,124 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.lib.gamestate.Castle;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.InputValidationHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveBuffer;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator.MoveType;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+
+/** Tests for MoveGenerator class. */
+class MoveGeneratorTest {
+
+	List<Player> players;
+
+	@BeforeEach
+	void init() {
+		players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 0), Type.LOCAL_PLAYER));
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void generatedMovesAgreeWithValidatorsDuringRandomGame(long seed) {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, seed);
+		MoveGenerator moveGenerator = new MoveGenerator();
+		MoveBuffer moveBuffer = new MoveBuffer(1);
+		Random random = new Random(seed);
+
+		for (int i = 0; i < 600; i++) {
+			moveGenerator.generateMoves(gameState, moveBuffer);
+			List<Integer> generatedMoves = new ArrayList<>();
+			for (int j = 0; j < moveBuffer.size(); j++) {
+				generatedMoves.add(moveBuffer.get(j));
+			}
+
+			assertEquals(getValidatedMoves(gameState), generatedMoves);
+
+			// change the kingdom like a player would
+			List<Kingdom> ownKingdoms = gameState.getKingdoms().stream()
+					.filter(kingdom -> kingdom.getPlayer() == gameState.getActivePlayer())
+					.collect(Collectors.toList());
+			if (gameState.getHeldObject() == null && !ownKingdoms.isEmpty()
+					&& (gameState.getActiveKingdom() == null || random.nextFloat() < 0.05F)) {
+				GameStateHelper.activateKingdom(gameState, ownKingdoms.get(random.nextInt(ownKingdoms.size())));
+				continue;
+			}
+			if (moveBuffer.isEmpty()) {
+				// dead end like a castle without free tile; a player would undo the purchase
+				gameState.setHeldObject(null);
+				continue;
+			}
+			moveGenerator.applyMove(gameState, moveBuffer.get(random.nextInt(moveBuffer.size())));
+		}
+	}
+
+	private static List<Integer> getValidatedMoves(GameState gameState) {
+		Player player = gameState.getActivePlayer();
+		List<Integer> moves = new ArrayList<>();
+		List<HexTile> tiles = new ArrayList<>(gameState.getMap().values());
+		for (int i = 0; i < tiles.size(); i++) {
+			HexTile tile = tiles.get(i);
+			if (InputValidationHelper.checkPickupObject(gameState, player, tile)) {
+				moves.add(MoveGenerator.encodeMove(MoveType.PICK_UP, i));
+			}
+			if (InputValidationHelper.checkPlaceOwn(gameState, player, tile)) {
+				moves.add(MoveGenerator.encodeMove(MoveType.PLACE_OWN, i));
+			}
+			if (InputValidationHelper.checkCombineUnits(gameState, player, tile)) {
+				moves.add(MoveGenerator.encodeMove(MoveType.COMBINE_UNITS, i));
+			}
+			if (InputValidationHelper.checkBuyAndPlaceUnitInstantly(gameState, player, tile)) {
+				moves.add(MoveGenerator.encodeMove(MoveType.BUY_AND_PLACE_PEASANT, i));
+			}
+			if (InputValidationHelper.checkBuyAndPlaceCastleInstantly(gameState, player, tile)) {
+				moves.add(MoveGenerator.encodeMove(MoveType.BUY_AND_PLACE_CASTLE, i));
+			}
+		}
+		for (int i = 0; i < tiles.size(); i++) {
+			if (InputValidationHelper.checkConquer(gameState, player, tiles.get(i))) {
+				moves.add(MoveGenerator.encodeMove(MoveType.CONQUER, i));
+			}
+		}
+		if (InputValidationHelper.checkBuyObject(gameState, player, Unit.class)) {
+			moves.add(MoveGenerator.encodeMove(MoveType.BUY_PEASANT, MoveGenerator.NO_TILE));
+		}
+		if (InputValidationHelper.checkBuyObject(gameState, player, Castle.class)) {
+			moves.add(MoveGenerator.encodeMove(MoveType.BUY_CASTLE, MoveGenerator.NO_TILE));
+		}
+		if (InputValidationHelper.checkEndTurn(gameState, player)) {
+			moves.add(MoveGenerator.encodeMove(MoveType.END_TURN, MoveGenerator.NO_TILE));
+		}
+		return moves;
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 42L, 69L, 360L, 9999L);
+	}
+
+}
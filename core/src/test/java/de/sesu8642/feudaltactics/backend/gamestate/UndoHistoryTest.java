@@ -0,0 +1,84 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveBuffer;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator.MoveType;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoHistory;
+
+/** Tests for UndoHistory class. */
+class UndoHistoryTest {
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void undoingRestoresTheStatesBeforeTheActions(long seed) {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, seed);
+		UndoHistory systemUnderTest = new UndoHistory(20);
+		MoveGenerator moveGenerator = new MoveGenerator();
+		MoveBuffer moveBuffer = new MoveBuffer();
+		Random random = new Random(seed);
+		List<GameState> statesBeforeActions = new ArrayList<>();
+
+		// more actions than fit, so the oldest ones are dropped
+		for (int i = 0; i < 30; i++) {
+			GameState copyBeforeAction = GameStateHelper.getCopy(gameState);
+			List<Kingdom> ownKingdoms = gameState.getKingdoms().stream()
+					.filter(kingdom -> kingdom.getPlayer() == gameState.getActivePlayer())
+					.collect(Collectors.toList());
+			if (gameState.getHeldObject() == null
+					&& (gameState.getActiveKingdom() == null || random.nextFloat() < 0.1F)) {
+				GameStateHelper.activateKingdom(gameState, ownKingdoms.get(random.nextInt(ownKingdoms.size())),
+						systemUnderTest.startRecording());
+			} else {
+				moveGenerator.generateMoves(gameState, moveBuffer);
+				List<Integer> moves = new ArrayList<>();
+				for (int j = 0; j < moveBuffer.size(); j++) {
+					// turns cannot be undone
+					if (MoveGenerator.getMoveType(moveBuffer.get(j)) != MoveType.END_TURN) {
+						moves.add(moveBuffer.get(j));
+					}
+				}
+				if (moves.isEmpty()) {
+					break;
+				}
+				moveGenerator.applyMove(gameState, moves.get(random.nextInt(moves.size())),
+						systemUnderTest.startRecording());
+			}
+			statesBeforeActions.add(copyBeforeAction);
+		}
+
+		assertEquals(Math.min(20, statesBeforeActions.size()), systemUnderTest.size());
+		for (int i = statesBeforeActions.size() - 1; systemUnderTest.size() > 0; i--) {
+			systemUnderTest.undo();
+			assertEquals(statesBeforeActions.get(i), gameState);
+		}
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L);
+	}
+
+}
@@ -0,0 +1,219 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.PreferencesStub;
+import de.sesu8642.feudaltactics.ingame.AutoSaveMetadata;
+import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
+import de.sesu8642.feudaltactics.ingame.AutoSaveStore;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateSerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveBuffer;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator;
+import de.sesu8642.feudaltactics.lib.gamestate.MoveGenerator.MoveType;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.PlayerMove;
+
+/** Tests for AutoSaveRepository class. */
+class AutoSaveRepositoryTest {
+
+	@TempDir
+	File tempDir;
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void journalRebuildsEverySavedState(long seed) {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, seed);
+		AutoSaveStore store = new AutoSaveStore(new File(tempDir, "autosaves"));
+		AutoSaveRepository systemUnderTest = new AutoSaveRepository(store, new PreferencesStub());
+		systemUnderTest.autoSaveGameState(gameState);
+		List<GameState> savedStates = new ArrayList<>();
+		savedStates.add(GameStateHelper.getCopy(gameState));
+		MoveGenerator moveGenerator = new MoveGenerator();
+		MoveBuffer moveBuffer = new MoveBuffer();
+		Random random = new Random(seed);
+
+		// stay below the maximum number of autosaves
+		for (int i = 0; i < 45; i++) {
+			PlayerMove move = makeRandomMove(gameState, moveGenerator, moveBuffer, random);
+			if (move == null) {
+				// dead end; continue in the next round like after the bot's turn
+				gameState.setHeldObject(null);
+				GameStateHelper.endTurn(gameState);
+				GameStateHelper.endTurn(gameState);
+				systemUnderTest.autoSaveGameState(gameState);
+			} else {
+				systemUnderTest.autoSaveMove(move, gameState);
+			}
+			savedStates.add(GameStateHelper.getCopy(gameState));
+
+			AutoSaveMetadata latestMetadata = systemUnderTest.getLatestAutoSaveMetadata().get();
+			assertEquals(gameState.getRound(), latestMetadata.getRound());
+			assertEquals(gameState.getPlayerTurn(), latestMetadata.getActivePlayerIndex());
+			assertEquals(gameState, systemUnderTest.getLatestAutoSave());
+		}
+
+		// moves take a few bytes only, plus the container header
+		long moveCount = systemUnderTest.getAutoSaveMetadata().stream()
+				.filter(metadata -> !metadata.isKeyframe() && metadata.getSizeBytes() <= 5 + 10).count();
+		assertTrue(moveCount > savedStates.size() / 2);
+		// undo everything
+		for (int i = savedStates.size() - 1; i > 0; i--) {
+			assertEquals(savedStates.get(i), systemUnderTest.getLatestAutoSave());
+			systemUnderTest.deleteLatestAutoSave();
+		}
+		assertEquals(savedStates.get(0), systemUnderTest.getLatestAutoSave());
+		assertEquals(1, systemUnderTest.getNoOfAutoSaves());
+	}
+
+	@Test
+	void legacyAutoSavesAreMovedToTheStore() {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState olderGameState = new GameState();
+		GameStateHelper.initializeMap(olderGameState, players, 50, 0, 0F, 1L);
+		GameState gameState = GameStateHelper.getCopy(olderGameState);
+		GameStateHelper.activateKingdom(gameState, gameState.getKingdoms().get(0));
+		PreferencesStub legacyPrefStore = new PreferencesStub();
+		// the order of the keys does not matter
+		legacyPrefStore.putString("1001", new GameStateSerializer().toJson(gameState));
+		legacyPrefStore.putString("1000", new GameStateSerializer().toJson(olderGameState));
+		legacyPrefStore.putString("not a time", new GameStateSerializer().toJson(olderGameState));
+		legacyPrefStore.putString("999", "not a game state");
+
+		AutoSaveRepository systemUnderTest = new AutoSaveRepository(
+				new AutoSaveStore(new File(tempDir, "autosaves")), legacyPrefStore);
+
+		assertEquals(gameState, systemUnderTest.getLatestAutoSave());
+		assertEquals(2, systemUnderTest.getNoOfAutoSaves());
+		assertEquals(AutoSaveMetadata.UNKNOWN, systemUnderTest.getLatestAutoSaveMetadata().get().getRound());
+		assertTrue(legacyPrefStore.get().isEmpty());
+	}
+
+	@Test
+	void corruptAutoSaveIsReplacedByThePreviousOne() throws IOException {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, 1L);
+		AutoSaveStore store = new AutoSaveStore(new File(tempDir, "autosaves"));
+		AutoSaveRepository systemUnderTest = new AutoSaveRepository(store, new PreferencesStub());
+		MoveGenerator moveGenerator = new MoveGenerator();
+		MoveBuffer moveBuffer = new MoveBuffer();
+		Random random = new Random(1L);
+		List<GameState> savedStates = new ArrayList<>();
+		systemUnderTest.autoSaveGameState(gameState);
+		savedStates.add(GameStateHelper.getCopy(gameState));
+		for (int i = 0; i < 6; i++) {
+			PlayerMove move = makeRandomMove(gameState, moveGenerator, moveBuffer, random);
+			if (move == null || i == 4) {
+				gameState.setHeldObject(null);
+				GameStateHelper.endTurn(gameState);
+				GameStateHelper.endTurn(gameState);
+				systemUnderTest.autoSaveGameState(gameState);
+			} else {
+				systemUnderTest.autoSaveMove(move, gameState);
+			}
+			savedStates.add(GameStateHelper.getCopy(gameState));
+		}
+
+		// corrupt the last entry
+		corrupt(store, store.getKeys().get(6));
+		assertEquals(savedStates.get(5), systemUnderTest.getLatestAutoSave());
+		assertEquals(6, systemUnderTest.getNoOfAutoSaves());
+
+		// corrupt the second keyframe; the moves before it are replayed instead
+		corrupt(store, store.getKeys().get(5));
+		assertEquals(savedStates.get(4), systemUnderTest.getLatestAutoSave());
+		assertEquals(5, systemUnderTest.getNoOfAutoSaves());
+	}
+
+	@Test
+	void moveThatCannotBeReplayedIsDiscarded() {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 2, 0.2F, 1L);
+		AutoSaveRepository systemUnderTest = new AutoSaveRepository(
+				new AutoSaveStore(new File(tempDir, "autosaves")), new PreferencesStub());
+		systemUnderTest.autoSaveGameState(gameState);
+		HexTile tileWithoutKingdom = gameState.getMap().values().stream().filter(tile -> tile.getKingdom() == null)
+				.findFirst().get();
+
+		// activating no kingdom fails with a NullPointerException
+		systemUnderTest.autoSaveMove(PlayerMove.of(PlayerMove.Type.ACTIVATE_KINGDOM, tileWithoutKingdom), gameState);
+
+		assertEquals(gameState, systemUnderTest.getLatestAutoSave());
+		assertEquals(1, systemUnderTest.getNoOfAutoSaves());
+	}
+
+	private static void corrupt(AutoSaveStore store, long key) throws IOException {
+		byte[] data = store.get(key);
+		data[data.length - 1] ^= 1;
+		store.put(key, store.getTag(key), data);
+	}
+
+	private static PlayerMove makeRandomMove(GameState gameState, MoveGenerator moveGenerator,
+			MoveBuffer moveBuffer, Random random) {
+		List<Kingdom> ownKingdoms = gameState.getKingdoms().stream()
+				.filter(kingdom -> kingdom.getPlayer() == gameState.getActivePlayer()).collect(Collectors.toList());
+		if (gameState.getHeldObject() == null && !ownKingdoms.isEmpty()
+				&& (gameState.getActiveKingdom() == null || random.nextFloat() < 0.1F)) {
+			Kingdom kingdom = ownKingdoms.get(random.nextInt(ownKingdoms.size()));
+			GameStateHelper.activateKingdom(gameState, kingdom);
+			return PlayerMove.activateKingdom(kingdom);
+		}
+		moveGenerator.generateMoves(gameState, moveBuffer);
+		List<Integer> moves = new ArrayList<>();
+		for (int i = 0; i < moveBuffer.size(); i++) {
+			MoveType moveType = MoveGenerator.getMoveType(moveBuffer.get(i));
+			if (moveType != MoveType.BUY_AND_PLACE_PEASANT && moveType != MoveType.BUY_AND_PLACE_CASTLE
+					&& moveType != MoveType.END_TURN) {
+				moves.add(moveBuffer.get(i));
+			}
+		}
+		if (moves.isEmpty()) {
+			return null;
+		}
+		int move = moves.get(random.nextInt(moves.size()));
+		PlayerMove.Type type = PlayerMove.Type.valueOf(MoveGenerator.getMoveType(move).name());
+		PlayerMove playerMove = type.isTargetingTile() ? PlayerMove.of(type, moveGenerator.getTile(gameState, move))
+				: PlayerMove.of(type);
+		playerMove.applyTo(gameState);
+		return playerMove;
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L);
+	}
+
+}
@@ -0,0 +1,188 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.sesu8642.feudaltactics.ingame.AutoSaveStore;
+
+/** Tests for AutoSaveStore class. */
+class AutoSaveStoreTest {
+
+	@TempDir
+	File tempDir;
+
+	File file;
+
+	@BeforeEach
+	void init() {
+		file = new File(tempDir, "autosaves");
+	}
+
+	@Test
+	void entriesAreRestoredAfterReopening() throws IOException {
+		AutoSaveStore store = new AutoSaveStore(file);
+		store.put(1, 7, new byte[] { 1, 2, 3 });
+		store.put(2, 8, new byte[] { 4 });
+		store.put(3, 9, new byte[0]);
+		store.remove(2);
+		store.put(1, 10, new byte[] { 5, 6 });
+		store.close();
+
+		AutoSaveStore reopened = new AutoSaveStore(file);
+
+		assertEquals(Arrays.asList(1L, 3L), reopened.getKeys());
+		assertArrayEquals(new byte[] { 5, 6 }, reopened.get(1));
+		assertEquals(10, reopened.getTag(1));
+		assertArrayEquals(new byte[0], reopened.get(3));
+		assertNull(reopened.get(2));
+	}
+
+	@Test
+	void incompleteRecordIsDiscarded() throws IOException {
+		AutoSaveStore store = new AutoSaveStore(file);
+		store.put(1, 0, new byte[] { 1, 2, 3 });
+		store.put(2, 0, new byte[] { 4, 5, 6 });
+		store.close();
+		long completeLength = file.length();
+		// simulate being killed while writing the last record
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(completeLength - 2);
+		}
+
+		AutoSaveStore reopened = new AutoSaveStore(file);
+
+		assertEquals(Arrays.asList(1L), reopened.getKeys());
+		reopened.put(3, 0, new byte[] { 7 });
+		reopened.close();
+		assertEquals(Arrays.asList(1L, 3L), new AutoSaveStore(file).getKeys());
+	}
+
+	@Test
+	void corruptValueIsDetectedWhenRead() throws IOException {
+		AutoSaveStore store = new AutoSaveStore(file);
+		store.put(1, 0, new byte[] { 1, 2, 3 });
+		store.put(2, 0, new byte[] { 4, 5, 6 });
+		store.close();
+		// change the last value byte of the first record
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(8 + 17 + 2);
+			raf.write(9);
+		}
+
+		AutoSaveStore reopened = new AutoSaveStore(file);
+
+		assertEquals(Arrays.asList(1L, 2L), reopened.getKeys());
+		assertEquals(3, reopened.getValueLength(1));
+		assertThrows(IOException.class, () -> reopened.get(1));
+		assertArrayEquals(new byte[] { 4, 5, 6 }, reopened.get(2));
+		reopened.close();
+	}
+
+	@Test
+	void failedWritesAreRetried() throws IOException {
+		AtomicBoolean failing = new AtomicBoolean(true);
+		AutoSaveStore store = new AutoSaveStore(file) {
+			@Override
+			protected void write(FileChannel targetChannel, ByteBuffer buffer, long position) throws IOException {
+				if (failing.get()) {
+					throw new IOException("simulated write failure");
+				}
+				super.write(targetChannel, buffer, position);
+			}
+		};
+		store.put(1, 0, new byte[] { 1, 2, 3 });
+		store.put(2, 0, new byte[] { 4 });
+
+		store.flush();
+		assertTrue(store.getFailedWriteCount() > 0);
+		AutoSaveStore unwritten = new AutoSaveStore(file);
+		assertTrue(unwritten.getKeys().isEmpty());
+		unwritten.close();
+		// the records can still be replaced while waiting for the next attempt
+		store.put(2, 0, new byte[] { 5 });
+		failing.set(false);
+		store.flush();
+
+		assertEquals(0, store.getQueueDepth());
+		store.close();
+		AutoSaveStore reopened = new AutoSaveStore(file);
+		assertArrayEquals(new byte[] { 1, 2, 3 }, reopened.get(1));
+		assertArrayEquals(new byte[] { 5 }, reopened.get(2));
+		reopened.close();
+	}
+
+	@Test
+	void fileIsCompactedWhenMostEntriesAreDeleted() throws IOException {
+		AutoSaveStore store = new AutoSaveStore(file);
+		byte[] value = new byte[1000];
+		for (int i = 0; i < 500; i++) {
+			value[0] = (byte) i;
+			store.put(i, i, value);
+			if (i >= 10) {
+				store.remove(i - 10);
+			}
+			// otherwise the writer would skip the deleted entries
+			store.flush();
+		}
+
+		assertTrue(file.length() < 100_000);
+		assertEquals(10, store.size());
+		assertEquals(499, store.getTag(499));
+		assertEquals((byte) 495, store.get(495)[0]);
+		store.close();
+		assertEquals(10, new AutoSaveStore(file).size());
+	}
+
+	@Test
+	void obsoleteEntriesAreNotWritten() {
+		AutoSaveStore store = new AutoSaveStore(file);
+		store.put(1, 0, new byte[] { 1 });
+		store.flush();
+		long lengthBefore = file.length();
+		// a burst of changes that leaves only the first entry
+		for (int i = 2; i < 100; i++) {
+			store.put(i, 0, new byte[] { 2 });
+			store.put(i, 0, new byte[] { 3 });
+		}
+		store.getKeys().stream().filter(key -> key > 1).forEach(store::remove);
+
+		assertEquals(Arrays.asList(1L), store.getKeys());
+		assertEquals(0, store.getQueueDepth());
+		assertEquals(196, store.getCoalescedRecordCount());
+		store.close();
+		assertEquals(lengthBefore, file.length());
+		assertEquals(Arrays.asList(1L), new AutoSaveStore(file).getKeys());
+	}
+
+	@Test
+	void pendingEntriesCanBeRead() throws IOException {
+		AutoSaveStore store = new AutoSaveStore(file);
+		store.put(1, 0, new byte[] { 1, 2 });
+		store.flush();
+		store.put(1, 4, new byte[] { 3 });
+
+		assertArrayEquals(new byte[] { 3 }, store.get(1));
+		assertEquals(4, store.getTag(1));
+		store.remove(1);
+		store.close();
+		assertTrue(new AutoSaveStore(file).getKeys().isEmpty());
+	}
+
+}
@@ -3,10 +3,10 @@
 package de.sesu8642.feudaltactics.backend.ingame;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -21,18 +21,14 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.mockito.stubbing.Answer;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.utils.Json;
-import com.badlogic.gdx.utils.JsonWriter.OutputType;
 import com.google.common.eventbus.EventBus;
 
 import de.sesu8642.feudaltactics.ApplicationStub;
-import de.sesu8642.feudaltactics.events.BotTurnFinishedEvent;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
 import de.sesu8642.feudaltactics.lib.gamestate.Capital;
 import de.sesu8642.feudaltactics.lib.gamestate.Castle;
 import de.sesu8642.feudaltactics.lib.gamestate.GameState;
@@ -43,7 +39,10 @@ import de.sesu8642.feudaltactics.lib.gamestate.Player;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
 import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnReport;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.TreeSearchParameters;
 import de.sesu8642.feudaltactics.menu.preferences.MainGamePreferences;
 import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
 
@@ -68,19 +67,9 @@ class BotAiIntegrationTest {
 		Gdx.app = new ApplicationStub();
 	}
 
-	private GameState resultingGameState;
-
 	@BeforeEach
 	void init() {
 		when(prefsDaoStub.getMainPreferences()).thenReturn(stubPreferences);
-		doAnswer(new Answer<Object>() {
-			@Override
-			public Object answer(InvocationOnMock invocation) {
-				BotTurnFinishedEvent event = invocation.getArgument(0);
-				resultingGameState = event.getGameState();
-				return null;
-			}
-		}).when(eventBusStub).post(any(BotTurnFinishedEvent.class));
 	}
 
 	@ParameterizedTest
@@ -96,7 +85,6 @@ class BotAiIntegrationTest {
 			int activePlayerCapitalBeforeTurn = calculateActivePlayerCapital(gameState);
 			String beforeJson = gameStateToJson(gameState);
 			systemUnderTest.doTurn(gameState, botIntelligence);
-			gameState = resultingGameState;
 			String afterJson = gameStateToJson(gameState);
 			int activePlayerCapitalAfterTurn = calculateActivePlayerCapital(gameState);
 			if (gameState.getKingdoms().size() > 1) {
@@ -130,9 +118,7 @@ class BotAiIntegrationTest {
 				return;
 			}
 			systemUnderTest.doTurn(gameState1, botIntelligence);
-			gameState1 = resultingGameState;
 			systemUnderTest.doTurn(gameState2, botIntelligence);
-			gameState2 = resultingGameState;
 			assertEquals(gameState1, gameState2);
 
 			GameStateHelper.endTurn(gameState1);
@@ -140,6 +126,80 @@ class BotAiIntegrationTest {
 		}
 	}
 
+	@ParameterizedTest
+	@MethodSource("provideTreeSearchMapParameters")
+	void treeSearchBotsActConsistentWithTheSameSeed(Float landMass, Float density, Long seed) throws Exception {
+		systemUnderTest.setTreeSearchParameters(new TreeSearchParameters(20, 0, 2, seed, 3, Intelligence.LEVEL_3));
+		GameState gameState1 = createGameState(landMass, density, seed);
+		GameState gameState2 = createGameState(landMass, density, seed);
+
+		for (int i = 1; i <= 10; i++) {
+			if (gameState1.getKingdoms().size() == 1) {
+				return;
+			}
+			GameState gameState1BeforeTurn = GameStateHelper.getCopy(gameState1);
+			systemUnderTest.doTurn(gameState1, Intelligence.LEVEL_5);
+			systemUnderTest.doTurn(gameState2, Intelligence.LEVEL_5);
+			assertEquals(gameState1, gameState2);
+			assertNotEquals(gameState1BeforeTurn, gameState1);
+
+			GameStateHelper.endTurn(gameState1);
+			GameStateHelper.endTurn(gameState2);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideBudgetMapParameters")
+	void budgetedBotsActConsistentAndKeepTheGameStateConsistent(Float landMass, Float density, Long seed)
+			throws Exception {
+		systemUnderTest.setTurnBudget(new BotTurnBudget(150, 40));
+		GameState gameState1 = createGameState(landMass, density, seed);
+		GameState gameState2 = createGameState(landMass, density, seed);
+		boolean anyDeadlineHit = false;
+
+		for (int i = 1; i <= 100; i++) {
+			if (gameState1.getKingdoms().size() == 1) {
+				break;
+			}
+			int activePlayerCapitalBeforeTurn = calculateActivePlayerCapital(gameState1);
+			systemUnderTest.doTurn(gameState1, Intelligence.LEVEL_4);
+			anyDeadlineHit |= systemUnderTest.getLastTurnReport().hasHitDeadline();
+			systemUnderTest.doTurn(gameState2, Intelligence.LEVEL_4);
+			assertEquals(gameState1, gameState2);
+			if (gameState1.getKingdoms().size() > 1) {
+				assertEquals(activePlayerCapitalBeforeTurn, calculateActivePlayerCapital(gameState1));
+				assertIntegreKingdomTileLinks(gameState1);
+				assertEveryKingdomHasExactlyOneCapital(gameState1);
+			}
+
+			GameStateHelper.endTurn(gameState1);
+			GameStateHelper.endTurn(gameState2);
+		}
+		assertTrue(anyDeadlineHit);
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideLargestMapParameters")
+	void botsStayWithinTheBudgetOfTheLargestMap(Intelligence botIntelligence, Float density, Long seed)
+			throws Exception {
+		MapSizes largestMapSize = MapSizes.values()[MapSizes.values().length - 1];
+		GameState gameState = createGameState((float) largestMapSize.getAmountOfTiles(), density, seed);
+		systemUnderTest.setTurnBudget(BotTurnBudget.forMap(gameState.getMap().size()));
+		// a small search is enough to play the turns of the chosen plans
+		systemUnderTest.setTreeSearchParameters(new TreeSearchParameters(10, 0, 1, seed, 2, Intelligence.LEVEL_3));
+
+		for (int i = 1; i <= 30; i++) {
+			if (gameState.getKingdoms().size() == 1) {
+				return;
+			}
+			systemUnderTest.doTurn(gameState, botIntelligence);
+			BotTurnReport report = systemUnderTest.getLastTurnReport();
+			assertEquals(0, report.getSkippedKingdoms(), report::toString);
+			assertFalse(report.hasHitDeadline(), report::toString);
+			GameStateHelper.endTurn(gameState);
+		}
+	}
+
 	@ParameterizedTest
 	@MethodSource("provideMapParameters")
 	void gameStateStaysConsistent(Intelligence botIntelligence, Float landMass, Float density, Long seed)
@@ -160,9 +220,7 @@ class BotAiIntegrationTest {
 	}
 
 	private String gameStateToJson(GameState gameState) {
-		Json json = new Json(OutputType.json);
-		json.setSerializer(GameState.class, new GameStateSerializer());
-		return json.toJson(gameState, GameState.class);
+		return new GameStateSerializer().toJson(gameState);
 	}
 
 	/**
@@ -220,6 +278,19 @@ class BotAiIntegrationTest {
 				Arguments.of(Intelligence.LEVEL_4, 250F, -3F, 15L));
 	}
 
+	static Stream<Arguments> provideTreeSearchMapParameters() {
+		return Stream.of(Arguments.of(12F, 0F, 16L), Arguments.of(100F, -3F, 17L), Arguments.of(200F, 3F, 18L));
+	}
+
+	static Stream<Arguments> provideBudgetMapParameters() {
+		return Stream.of(Arguments.of(100F, -3F, 19L), Arguments.of(250F, 1F, 20L));
+	}
+
+	static Stream<Arguments> provideLargestMapParameters() {
+		return Stream.of(Arguments.of(Intelligence.LEVEL_4, 0F, 21L), Arguments.of(Intelligence.LEVEL_4, 3F, 22L),
+				Arguments.of(Intelligence.LEVEL_5, 0F, 23L), Arguments.of(Intelligence.LEVEL_5, -3F, 24L));
+	}
+
 	static void assertIntegreKingdomTileLinks(GameState gameState) {
 		// the kingdom of each tile contains the tile
 		gameState.getMap().values().stream().filter(tile -> tile.getKingdom() != null)
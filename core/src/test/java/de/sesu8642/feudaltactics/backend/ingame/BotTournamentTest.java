@@ -0,0 +1,63 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournament;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentParameters;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentReport;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentReport.MatchupResult;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnReport;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+
+/** Tests for BotTournament class. */
+class BotTournamentTest {
+
+	@Test
+	void resultsDoNotDependOnThreadCount() throws Exception {
+		BotTournamentReport singleThreadReport = new BotTournament(createParameters(1)).run();
+		BotTournamentReport multiThreadReport = new BotTournament(createParameters(3)).run();
+
+		assertEquals(3 * 4 * 2, singleThreadReport.getGames());
+		assertEquals(singleThreadReport.getTurns(), multiThreadReport.getTurns());
+		assertEquals(singleThreadReport.getMeanRounds(), multiThreadReport.getMeanRounds());
+		for (int i = 0; i < singleThreadReport.getMatchups().size(); i++) {
+			MatchupResult expected = singleThreadReport.getMatchups().get(i);
+			MatchupResult actual = multiThreadReport.getMatchups().get(i);
+			assertEquals(expected.getGames(), actual.getGames());
+			assertEquals(expected.getFirstWins(), actual.getFirstWins());
+			assertEquals(expected.getSecondWins(), actual.getSecondWins());
+			assertEquals(expected.getDraws(), actual.getDraws());
+		}
+		for (Intelligence intelligence : singleThreadReport.getParameters().getIntelligences()) {
+			assertEquals(singleThreadReport.getIntelligenceStatistics(intelligence).getWorkUnits(),
+					multiThreadReport.getIntelligenceStatistics(intelligence).getWorkUnits());
+		}
+
+		StringWriter json = new StringWriter();
+		singleThreadReport.writeJson(json);
+		assertTrue(json.toString().startsWith("{"));
+		// the phases are timed with the CPU time wherever the JVM supports it
+		assertTrue(BotTurnReport.isCpuTimeMeasured());
+		assertTrue(json.toString().contains("cpuTimeMs"));
+	}
+
+	private BotTournamentParameters createParameters(int threadCount) {
+		List<Intelligence> intelligences = new ArrayList<>();
+		intelligences.add(Intelligence.LEVEL_1);
+		intelligences.add(Intelligence.LEVEL_2);
+		intelligences.add(Intelligence.LEVEL_4);
+		return new BotTournamentParameters(intelligences, 1, 4, 2, 40F, 0F, 200, threadCount,
+				BotTurnBudget.UNLIMITED);
+	}
+
+}
@@ -0,0 +1,228 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.badlogic.gdx.graphics.Color;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+import de.sesu8642.feudaltactics.PreferencesStub;
+import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent;
+import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent.ScreenTransitionTarget;
+import de.sesu8642.feudaltactics.exceptions.SaveLoadingException;
+import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
+import de.sesu8642.feudaltactics.ingame.AutoSaveStore;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnReport;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.TreeSearchParameters;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
+
+/** Tests for GameController class. */
+class GameControllerTest {
+
+	@TempDir
+	File tempDir;
+
+	private EventBus eventBus;
+	private BotAi botAi;
+	private ExecutorService gameLoopExecutor;
+	private final BlockingQueue<GameState> publishedGameStates = new LinkedBlockingQueue<>();
+	private final BlockingQueue<ScreenTransitionTarget> screenTransitions = new LinkedBlockingQueue<>();
+
+	@BeforeEach
+	void setUp() {
+		eventBus = new EventBus();
+		eventBus.register(new Object() {
+			@Subscribe
+			public void handleGameStateChange(GameStateChangeEvent event) {
+				publishedGameStates.add(event.getGameState());
+			}
+
+			@Subscribe
+			public void handleScreenTransitionTrigger(ScreenTransitionTriggerEvent event) {
+				screenTransitions.add(event.getTransitionTarget());
+			}
+		});
+		botAi = new BotAi(new EventBus(), null);
+		// there are no preferences for displaying the turns
+		botAi.setSkipDisplayingTurn(true);
+		gameLoopExecutor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		gameLoopExecutor.shutdownNow();
+		gameLoopExecutor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void autosaveIsLoadedInTheBackground() throws InterruptedException {
+		GameState gameState = createGameState(Type.LOCAL_PLAYER);
+		CountDownLatch loadingAllowed = new CountDownLatch(1);
+		AutoSaveRepository autoSaveRepo = new AutoSaveRepository(new AutoSaveStore(new File(tempDir, "autosaves")),
+				new PreferencesStub()) {
+			@Override
+			public GameState getLatestAutoSave() {
+				try {
+					loadingAllowed.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.getLatestAutoSave();
+			}
+		};
+		autoSaveRepo.autoSaveGameState(gameState);
+		GameController systemUnderTest = createGameController(autoSaveRepo);
+
+		systemUnderTest.loadLatestAutosave();
+
+		// returned without waiting for the autosave
+		assertNull(publishedGameStates.poll(100, TimeUnit.MILLISECONDS));
+		loadingAllowed.countDown();
+		GameState loadedGameState = publishedGameStates.poll(10, TimeUnit.SECONDS);
+		assertNotNull(loadedGameState);
+		assertEquals(gameState.getSeed(), loadedGameState.getSeed());
+		assertEquals(gameState.getMap().keySet(), loadedGameState.getMap().keySet());
+		assertNull(screenTransitions.poll());
+	}
+
+	@Test
+	void failureToLoadAutosaveLeadsToMainMenu() throws InterruptedException {
+		AutoSaveRepository autoSaveRepo = new AutoSaveRepository(new AutoSaveStore(new File(tempDir, "autosaves")),
+				new PreferencesStub()) {
+			@Override
+			public GameState getLatestAutoSave() {
+				throw new SaveLoadingException("simulated loading failure");
+			}
+		};
+		autoSaveRepo.autoSaveGameState(createGameState(Type.LOCAL_PLAYER));
+		GameController systemUnderTest = createGameController(autoSaveRepo);
+
+		systemUnderTest.loadLatestAutosave();
+
+		assertEquals(ScreenTransitionTarget.MAIN_MENU_SCREEN, screenTransitions.poll(10, TimeUnit.SECONDS));
+		assertNull(publishedGameStates.poll());
+		// the broken autosave is not loaded again on the next start
+		assertEquals(0, autoSaveRepo.getNoOfAutoSaves());
+	}
+
+	@Test
+	void botTurnsOfRunningGameHaveFiniteBudget() throws InterruptedException {
+		GameState gameState = createGameState(Type.LOCAL_BOT);
+		AutoSaveRepository autoSaveRepo = new AutoSaveRepository(new AutoSaveStore(new File(tempDir, "autosaves")),
+				new PreferencesStub());
+		autoSaveRepo.autoSaveGameState(gameState);
+		GameController systemUnderTest = createGameController(autoSaveRepo);
+
+		systemUnderTest.loadLatestAutosave();
+
+		assertNotNull(publishedGameStates.poll(10, TimeUnit.SECONDS));
+		// published when the bot turn is over
+		assertNotNull(publishedGameStates.poll(10, TimeUnit.SECONDS));
+		BotTurnReport report = botAi.getLastTurnReport();
+		BotTurnBudget expectedBudget = BotTurnBudget.forMap(gameState.getMap().size());
+		assertFalse(report.getBudget().isUnlimited());
+		assertEquals(expectedBudget.getWorkUnitsPerTurn(), report.getBudget().getWorkUnitsPerTurn());
+		assertEquals(expectedBudget.getWorkUnitsPerKingdom(), report.getBudget().getWorkUnitsPerKingdom());
+		assertTrue(report.getUsedWorkUnits() <= expectedBudget.getWorkUnitsPerTurn());
+	}
+
+	@Test
+	void liveBotTurnRepeatsCachedMoves() throws InterruptedException {
+		GameState gameState = createGameState(Type.LOCAL_BOT);
+		gameState.setBotIntelligence(Intelligence.LEVEL_5);
+		AutoSaveRepository autoSaveRepo = new AutoSaveRepository(new AutoSaveStore(new File(tempDir, "autosaves")),
+				new PreferencesStub());
+		autoSaveRepo.autoSaveGameState(gameState);
+		botAi.setTreeSearchParameters(new TreeSearchParameters(30, 0, 1, 1L, 2, Intelligence.LEVEL_3));
+		GameController systemUnderTest = createGameController(autoSaveRepo);
+
+		systemUnderTest.loadLatestAutosave();
+
+		assertNotNull(publishedGameStates.poll(10, TimeUnit.SECONDS));
+		// published when the bot turn is over
+		assertNotNull(publishedGameStates.poll(30, TimeUnit.SECONDS));
+		BotTurnReport report = botAi.getLastTurnReport();
+		assertFalse(report.getBudget().isUnlimited());
+		// the search already made the moves of the chosen plan within the budget
+		assertTrue(report.getRepeatedKingdoms() > 0);
+		assertTrue(botAi.getTranspositionCache().getHitCount() > 0);
+	}
+
+	@Test
+	void inputsMadeInAnotherTurnAreDropped() throws InterruptedException {
+		AutoSaveRepository autoSaveRepo = new AutoSaveRepository(new AutoSaveStore(new File(tempDir, "autosaves")),
+				new PreferencesStub());
+		autoSaveRepo.autoSaveGameState(createGameState(Type.LOCAL_PLAYER));
+		GameController systemUnderTest = createGameController(autoSaveRepo);
+		systemUnderTest.loadLatestAutosave();
+		GameState shownGameState = publishedGameStates.poll(10, TimeUnit.SECONDS);
+		assertNotNull(shownGameState);
+		GameState shownGameStateOfOtherTurn = GameStateHelper.getCopy(shownGameState);
+		shownGameStateOfOtherTurn.setPlayerTurn(1 - shownGameState.getPlayerTurn());
+		GameState shownGameStateOfOtherRound = GameStateHelper.getCopy(shownGameState);
+		shownGameStateOfOtherRound.setRound(shownGameState.getRound() + 1);
+		List<String> runInputs = new ArrayList<>();
+		CountDownLatch inputsDone = new CountDownLatch(1);
+
+		systemUnderTest.runInputInGameLoop(shownGameState, () -> runInputs.add("current turn"));
+		systemUnderTest.runInputInGameLoop(shownGameStateOfOtherTurn, () -> runInputs.add("other turn"));
+		systemUnderTest.runInputInGameLoop(shownGameStateOfOtherRound, () -> runInputs.add("other round"));
+		systemUnderTest.runInputInGameLoop(null, () -> runInputs.add("nothing shown"));
+		systemUnderTest.runInGameLoop(inputsDone::countDown);
+
+		assertTrue(inputsDone.await(10, TimeUnit.SECONDS));
+		assertEquals(Collections.singletonList("current turn"), runInputs);
+	}
+
+	private GameState createGameState(Type beginningPlayerType) {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 50, 0, 0F, 1L);
+		// a bot turn is started after loading if a bot begins
+		for (int i = 0; i < players.size(); i++) {
+			if (gameState.getPlayers().get(i).getType() == beginningPlayerType) {
+				gameState.setPlayerTurn(i);
+			}
+		}
+		return gameState;
+	}
+
+	private GameController createGameController(AutoSaveRepository autoSaveRepo) {
+		return new GameController(eventBus, gameLoopExecutor, botAi, autoSaveRepo,
+				new ReplayRecorder(new File(tempDir, "replays")));
+	}
+
+}
@@ -0,0 +1,64 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.events.GameStateChangeUIEvent;
+import de.sesu8642.feudaltactics.ingame.GameStateChangeDispatcher;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+
+/** Tests for GameStateChangeDispatcher class. */
+class GameStateChangeDispatcherTest {
+
+	@Test
+	void changesWithinAFrameAreDeliveredOnce() {
+		EventBus eventBus = new EventBus();
+		// stands in for the render thread: runs the queued things once per frame
+		Queue<Runnable> renderThreadQueue = new ArrayDeque<>();
+		GameStateChangeDispatcher dispatcher = new GameStateChangeDispatcher(eventBus, renderThreadQueue::add);
+		eventBus.register(dispatcher);
+		List<GameState> deliveredGameStates = new ArrayList<>();
+		eventBus.register(new Object() {
+			@Subscribe
+			public void handleGameStateChange(GameStateChangeUIEvent event) {
+				deliveredGameStates.add(event.getGameState());
+			}
+		});
+		GameState first = new GameState();
+		GameState second = new GameState();
+		GameState third = new GameState();
+
+		eventBus.post(new GameStateChangeEvent(first));
+		eventBus.post(new GameStateChangeEvent(second));
+		assertNull(dispatcher.getDeliveredGameState());
+		renderThreadQueue.poll().run();
+		assertSame(second, dispatcher.getDeliveredGameState());
+		eventBus.post(new GameStateChangeEvent(third));
+		renderThreadQueue.poll().run();
+
+		assertEquals(0, renderThreadQueue.size());
+		assertEquals(2, deliveredGameStates.size());
+		assertSame(second, deliveredGameStates.get(0));
+		assertSame(third, deliveredGameStates.get(1));
+		assertSame(third, dispatcher.getLatestGameState());
+		assertSame(third, dispatcher.getDeliveredGameState());
+		assertEquals(3, dispatcher.getPostedCount());
+		assertEquals(1, dispatcher.getCoalescedCount());
+		assertEquals(2, dispatcher.getDeliveredCount());
+	}
+
+}
@@ -0,0 +1,106 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.eventbus.EventBus;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.HintEngine;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.KingdomHint;
+import de.sesu8642.feudaltactics.lib.ingame.botai.TreeSearchParameters;
+
+/** Tests for HintEngine class. */
+class HintEngineTest {
+
+	List<Player> players;
+	BotAi botAi;
+
+	@BeforeEach
+	void init() {
+		players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 0), Type.LOCAL_BOT));
+		botAi = new BotAi(new EventBus(), null);
+		botAi.setTreeSearchParameters(new TreeSearchParameters(30, 0, 1, 1L, 2, Intelligence.LEVEL_3));
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void hintsContainTheConquestsOfTheBotTurn(long seed) throws Exception {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 80, 0, 0.2F, seed);
+		// let the bots expand to have something to conquer
+		for (int i = 0; i < players.size() * 3; i++) {
+			botAi.doTurnWithoutDisplaying(gameState, Intelligence.LEVEL_4);
+			GameStateHelper.endTurn(gameState);
+		}
+		GameState gameStateBefore = GameStateHelper.getCopy(gameState);
+		HintEngine hintEngine = new HintEngine(botAi);
+
+		List<KingdomHint> hints = hintEngine.getHints(gameState).get();
+
+		// the game state is never changed
+		assertEquals(gameStateBefore, gameState);
+		Set<Vector2> hintedConquestPositions = new HashSet<>();
+		for (KingdomHint hint : hints) {
+			hintedConquestPositions.addAll(hint.getConquestPositions());
+		}
+		GameState turnState = GameStateHelper.getCopy(gameState);
+		botAi.doTurnWithoutDisplaying(turnState, Intelligence.LEVEL_5);
+		Set<Vector2> conquestPositions = new HashSet<>();
+		for (HexTile tile : turnState.getMap().values()) {
+			if (tile.getPlayer() == turnState.getActivePlayer()
+					&& gameState.getMap().get(tile.getPosition()).getPlayer() != gameState.getActivePlayer()) {
+				conquestPositions.add(tile.getPosition());
+			}
+		}
+		assertEquals(conquestPositions, hintedConquestPositions);
+	}
+
+	@Test
+	void hintsAreKeptUntilTheGameStateChanges() {
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 50, 0, 0F, 1L);
+		HintEngine hintEngine = new HintEngine(botAi);
+
+		hintEngine.precompute(gameState);
+		Future<List<KingdomHint>> hints = hintEngine.getHints(gameState);
+
+		assertSame(hints, hintEngine.getHints(gameState));
+
+		gameState.incrementVersion();
+
+		assertNotSame(hints, hintEngine.getHints(gameState));
+		hintEngine.cancel();
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L);
+	}
+
+}
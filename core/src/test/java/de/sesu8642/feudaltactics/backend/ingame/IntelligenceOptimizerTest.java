@@ -0,0 +1,50 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.IntelligenceOptimizer;
+import de.sesu8642.feudaltactics.lib.ingame.botai.IntelligenceOptimizerParameters;
+import de.sesu8642.feudaltactics.lib.ingame.botai.IntelligenceParameters;
+
+/** Tests for IntelligenceOptimizer class. */
+class IntelligenceOptimizerTest {
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	void resumedOptimizationEqualsUninterruptedOne() throws Exception {
+		IntelligenceParameters uninterruptedResult = new IntelligenceOptimizer(createParameters(3, 1)).optimize(null);
+
+		File checkpointFile = new File(tempDir, "checkpoint.properties");
+		new IntelligenceOptimizer(createParameters(2, 1)).optimize(checkpointFile);
+		IntelligenceParameters resumedResult = new IntelligenceOptimizer(createParameters(3, 3))
+				.optimize(checkpointFile);
+
+		assertEquals(uninterruptedResult, resumedResult);
+	}
+
+	@Test
+	void profileCanBeLoadedAgain() {
+		IntelligenceParameters parameters = Intelligence.LEVEL_3.getParameters();
+		Properties profile = new Properties();
+		parameters.toProperties(profile);
+
+		assertEquals(parameters, IntelligenceParameters.fromProperties(profile));
+	}
+
+	private IntelligenceOptimizerParameters createParameters(int generations, int threadCount) {
+		return new IntelligenceOptimizerParameters(Intelligence.LEVEL_3.getParameters(),
+				Intelligence.LEVEL_4.getParameters(), generations, 6, 2, 3, 1, 2, 40F, 0F, 200, threadCount);
+	}
+
+}
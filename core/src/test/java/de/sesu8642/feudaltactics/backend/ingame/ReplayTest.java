@@ -0,0 +1,205 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
+import de.sesu8642.feudaltactics.ingame.MapParameters;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.PlayerMove;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoHistory;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayPlayer;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayVerificationResult;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayVerifier;
+
+/** Tests for recording and playing replays. */
+class ReplayTest {
+
+	private static final int TURNS = 30;
+
+	@TempDir
+	File tempDir;
+
+	@ParameterizedTest
+	@MethodSource("provideIntelligences")
+	void replayLeadsToTheRecordedStates(Intelligence intelligence) throws Exception {
+		List<GameState> statesAtTurnStarts = recordGame(intelligence);
+		Replay replay = readReplay();
+
+		assertEquals(TURNS, replay.getTurnCount());
+		ReplayVerificationResult result = new ReplayVerifier().verify(replay);
+		assertTrue(result.isMatching(), result.toString());
+		assertEquals(TURNS, result.getCheckedTurns());
+
+		ReplayPlayer systemUnderTest = new ReplayPlayer(replay);
+		// backwards, forwards and across keyframes
+		for (int turn : new int[] { 25, 3, 4, 17, 0, TURNS }) {
+			assertEquals(statesAtTurnStarts.get(turn), systemUnderTest.seekToTurn(turn));
+		}
+		assertFalse(systemUnderTest.stepTurn());
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideIntelligences")
+	void tornTailIsIgnored(Intelligence intelligence) throws Exception {
+		List<GameState> statesAtTurnStarts = recordGame(intelligence);
+		File file = new ReplayRecorder(tempDir).getReplayFiles().get(0);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			// cut into the last end turn record
+			raf.setLength(raf.length() - 3);
+		}
+
+		Replay replay = readReplay();
+
+		assertEquals(TURNS - 1, replay.getTurnCount());
+		assertTrue(new ReplayVerifier().verify(replay).isMatching());
+		assertEquals(statesAtTurnStarts.get(TURNS - 1), new ReplayPlayer(replay).seekToTurn(TURNS - 1));
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideIntelligences")
+	void playingPostsEveryTurnUntilTheEnd(Intelligence intelligence) throws Exception {
+		List<GameState> statesAtTurnStarts = recordGame(intelligence);
+		ReplayPlayer systemUnderTest = new ReplayPlayer(readReplay());
+		BlockingQueue<GameState> playedGameStates = new LinkedBlockingQueue<>();
+		EventBus eventBus = new EventBus();
+		eventBus.register(new Object() {
+			@Subscribe
+			public void handleGameStateChange(GameStateChangeEvent event) {
+				playedGameStates.add(event.getGameState());
+			}
+		});
+		int firstTurn = TURNS - 5;
+		systemUnderTest.seekToTurn(firstTurn);
+
+		systemUnderTest.play(eventBus, 1);
+
+		for (int turn = firstTurn; turn <= TURNS; turn++) {
+			GameState playedGameState = playedGameStates.poll(10, TimeUnit.SECONDS);
+			assertNotNull(playedGameState);
+			assertEquals(statesAtTurnStarts.get(turn), playedGameState);
+		}
+		// stops by itself at the end
+		for (int i = 0; i < 1000 && systemUnderTest.isPlaying(); i++) {
+			Thread.sleep(10);
+		}
+		assertFalse(systemUnderTest.isPlaying());
+		assertEquals(TURNS, systemUnderTest.getCurrentTurn());
+		systemUnderTest.close();
+	}
+
+	private List<GameState> recordGame(Intelligence intelligence) {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		gameState.setBotIntelligence(intelligence);
+		GameStateHelper.initializeMap(gameState, players, 60, 0, 0F, 5L);
+		BotAi botAi = new BotAi(new EventBus(), null);
+		botAi.setSkipDisplayingTurn(true);
+		UndoHistory undoHistory = new UndoHistory(10);
+		ReplayRecorder recorder = new ReplayRecorder(tempDir);
+		recorder.startRecording(gameState, new MapParameters(1, 2, 5L, 60, 0F));
+
+		List<GameState> statesAtTurnStarts = new ArrayList<>();
+		statesAtTurnStarts.add(GameStateHelper.getCopy(gameState));
+		for (int turn = 0; turn < TURNS; turn++) {
+			if (gameState.getActivePlayer().getType() == Type.LOCAL_BOT) {
+				try {
+					botAi.doTurnWithoutDisplaying(gameState, intelligence);
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				recorder.recordBotTurn(intelligence, botAi.getTurnBudget(), gameState);
+			} else {
+				playHumanTurn(gameState, undoHistory, recorder);
+			}
+			gameState = GameStateHelper.endTurn(gameState);
+			undoHistory.clear();
+			recorder.recordEndTurn(gameState);
+			statesAtTurnStarts.add(GameStateHelper.getCopy(gameState));
+		}
+		recorder.stopRecording();
+		// the file is written in the background
+		recorder.flush();
+		return statesAtTurnStarts;
+	}
+
+	/** Buys a peasant and places it, changing the mind once. */
+	private void playHumanTurn(GameState gameState, UndoHistory undoHistory, ReplayRecorder recorder) {
+		for (Kingdom kingdom : gameState.getKingdoms()) {
+			if (kingdom.getPlayer() != gameState.getActivePlayer() || kingdom.getSavings() < Unit.COST) {
+				continue;
+			}
+			List<HexTile> emptyTiles = new ArrayList<>();
+			for (HexTile tile : kingdom.getTiles()) {
+				if (tile.getContent() == null) {
+					emptyTiles.add(tile);
+				}
+			}
+			if (emptyTiles.size() < 2) {
+				continue;
+			}
+			makeMove(gameState, PlayerMove.activateKingdom(kingdom), undoHistory, recorder);
+			makeMove(gameState, PlayerMove.of(PlayerMove.Type.BUY_PEASANT), undoHistory, recorder);
+			makeMove(gameState, PlayerMove.of(PlayerMove.Type.PLACE_OWN, emptyTiles.get(0)), undoHistory, recorder);
+			undoHistory.undo();
+			recorder.recordUndo();
+			makeMove(gameState, PlayerMove.of(PlayerMove.Type.PLACE_OWN, emptyTiles.get(1)), undoHistory, recorder);
+			return;
+		}
+	}
+
+	private void makeMove(GameState gameState, PlayerMove move, UndoHistory undoHistory, ReplayRecorder recorder) {
+		move.applyTo(gameState, undoHistory.startRecording());
+		recorder.recordMove(move);
+	}
+
+	private Replay readReplay() throws IOException {
+		File file = new ReplayRecorder(tempDir).getReplayFiles().get(0);
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			return Replay.read(in);
+		}
+	}
+
+	static Stream<Intelligence> provideIntelligences() {
+		return Stream.of(Intelligence.LEVEL_1, Intelligence.LEVEL_4);
+	}
+
+}
@@ -0,0 +1,81 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.ingame.SaveContainer;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateBinarySerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateSerializer;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+
+/** Tests for SaveContainer class. */
+class SaveContainerTest {
+
+	private final SaveContainer systemUnderTest = new SaveContainer(SaveContainer.DEFAULT_COMPRESSION_LEVEL);
+
+	@Test
+	void gameStatesAreCompressed() throws IOException {
+		GameState gameState = createGameState();
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		new GameStateBinarySerializer().write(gameState, binary);
+		byte[] json = new GameStateSerializer().toJson(gameState).getBytes("UTF-8");
+
+		for (byte[] payload : Arrays.asList(binary.toByteArray(), json)) {
+			byte[] container = systemUnderTest.wrap(payload);
+
+			assertTrue(container.length < payload.length);
+			assertArrayEquals(payload, systemUnderTest.unwrap(container));
+		}
+		// the JSON shrinks a lot
+		assertTrue(systemUnderTest.wrap(json).length * 5 < json.length);
+	}
+
+	@Test
+	void smallPayloadIsKept() throws IOException {
+		byte[] payload = { 3, 1, 4 };
+
+		assertArrayEquals(payload, systemUnderTest.unwrap(systemUnderTest.wrap(payload)));
+	}
+
+	@Test
+	void corruptContainerIsRejected() throws IOException {
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		new GameStateBinarySerializer().write(createGameState(), binary);
+		byte[] container = systemUnderTest.wrap(binary.toByteArray());
+
+		for (int i = 0; i < container.length; i += 7) {
+			byte[] corrupted = container.clone();
+			corrupted[i] ^= 0x10;
+			assertThrows(IOException.class, () -> systemUnderTest.unwrap(corrupted));
+		}
+		assertThrows(IOException.class,
+				() -> systemUnderTest.unwrap(Arrays.copyOf(container, container.length - 1)));
+		assertThrows(IllegalArgumentException.class, () -> new SaveContainer(10));
+	}
+
+	private static GameState createGameState() {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 1), Type.LOCAL_PLAYER));
+		players.add(new Player(new Color(0, 1, 0, 1), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 300, 0, 0F, 7L);
+		return gameState;
+	}
+
+}
@@ -0,0 +1,70 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+import com.google.common.eventbus.EventBus;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.TranspositionCache;
+import de.sesu8642.feudaltactics.lib.ingame.botai.TreeSearchParameters;
+
+/** Tests for TranspositionCache class. */
+class TranspositionCacheTest {
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void cachedTurnsEqualCalculatedOnes(long seed) throws Exception {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 0), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 80, 0, 0.2F, seed);
+		GameState calculatedGameState = GameStateHelper.getCopy(gameState);
+		TranspositionCache cache = new TranspositionCache(TranspositionCache.DEFAULT_MAXIMUM_SIZE);
+		BotAi cachingBotAi = createBotAi(cache);
+		BotAi calculatingBotAi = createBotAi(null);
+
+		for (int i = 0; i < 6 && gameState.getWinner() == null; i++) {
+			cachingBotAi.doTurn(gameState, Intelligence.LEVEL_5);
+			calculatingBotAi.doTurn(calculatedGameState, Intelligence.LEVEL_5);
+
+			assertEquals(calculatedGameState, gameState);
+			assertEquals(calculatingBotAi.getLastTurnReport().getUsedWorkUnits(),
+					cachingBotAi.getLastTurnReport().getUsedWorkUnits());
+			GameStateHelper.endTurn(gameState);
+			GameStateHelper.endTurn(calculatedGameState);
+		}
+		// the search already made the moves of the chosen plans
+		assertTrue(cache.getHitCount() > 0);
+	}
+
+	private BotAi createBotAi(TranspositionCache cache) {
+		BotAi botAi = new BotAi(new EventBus(), null);
+		botAi.setSkipDisplayingTurn(true);
+		botAi.setTranspositionCache(cache);
+		botAi.setTreeSearchParameters(new TreeSearchParameters(30, 0, 1, 1L, 2, Intelligence.LEVEL_3));
+		return botAi;
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L);
+	}
+
+}
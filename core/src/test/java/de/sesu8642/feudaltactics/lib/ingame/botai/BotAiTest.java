@@ -0,0 +1,74 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+import com.google.common.eventbus.EventBus;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
+
+/** Tests for the simulated turns of the BotAi class. */
+class BotAiTest {
+
+	@ParameterizedTest
+	@MethodSource("provideSeeds")
+	void undoingRestoresTheStatesBeforeTheSimulatedTurns(long seed) {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 0), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 80, 0, 0.2F, seed);
+		BotAi systemUnderTest = new BotAi(new EventBus(), null);
+		IntelligenceParameters intelligence = Intelligence.LEVEL_5.getParameters();
+		UndoRecord undoRecord = new UndoRecord();
+
+		for (int i = 0; i < 20 && !TurnPlanSearch.isGameOver(gameState); i++) {
+			// the same turn in a copy fills the cache, so the recorded turn repeats the
+			// cached moves
+			systemUnderTest.simulateTurn(GameStateHelper.getCopy(gameState), intelligence,
+					intelligence.getChanceToConquerPerTurn(), true, null);
+			long hitsBefore = systemUnderTest.getTranspositionCache().getHitCount();
+			GameState copyBeforeTurn = GameStateHelper.getCopy(gameState);
+			int hashCodeBeforeTurn = gameState.hashCode();
+
+			systemUnderTest.simulateTurn(gameState, intelligence, intelligence.getChanceToConquerPerTurn(), true,
+					undoRecord);
+			GameStateHelper.endTurn(gameState, undoRecord);
+			assertTrue(systemUnderTest.getTranspositionCache().getHitCount() > hitsBefore);
+			undoRecord.undo();
+
+			assertEquals(copyBeforeTurn, gameState);
+			assertEquals(hashCodeBeforeTurn, gameState.hashCode());
+			// the calculated moves have to be undone too
+			systemUnderTest.simulateTurn(gameState, intelligence, intelligence.getChanceToConquerPerTurn(), false,
+					undoRecord);
+			GameStateHelper.endTurn(gameState, undoRecord);
+			undoRecord.undo();
+
+			assertEquals(copyBeforeTurn, gameState);
+			systemUnderTest.simulateTurn(gameState, intelligence, intelligence.getChanceToConquerPerTurn(), false,
+					null);
+			GameStateHelper.endTurn(gameState);
+		}
+	}
+
+	static Stream<Long> provideSeeds() {
+		return Stream.of(1L, 2L, 3L, 42L);
+	}
+
+}
@@ -0,0 +1,108 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.badlogic.gdx.graphics.Color;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexMapHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.UndoRecord;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+
+/** Tests for KingdomMove class. */
+class KingdomMoveTest {
+
+	private GameState gameState;
+
+	@BeforeEach
+	void setUp() {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 50, 0, 0.2F, 1L);
+	}
+
+	@Test
+	void recordedConquestIsRepeated() {
+		Kingdom kingdom = gameState.getKingdoms().get(0);
+		gameState.setActiveKingdom(kingdom);
+		GameState repeatingGameState = GameStateHelper.getCopy(gameState);
+		BotTurnReport report = new BotTurnReport(BotTurnBudget.UNLIMITED);
+		KingdomMove systemUnderTest = new KingdomMove(gameState, report);
+		HexTile enemyTile = getEnemyNeighborTile(gameState, kingdom);
+		gameState.setHeldObject(new Unit(UnitTypes.BARON));
+		GameStateHelper.conquer(gameState, enemyTile);
+		systemUnderTest.conquered(enemyTile, UnitTypes.BARON);
+		systemUnderTest.finish(gameState, report);
+
+		long hashBefore = TranspositionCache.hash(repeatingGameState);
+		UndoRecord undoRecord = new UndoRecord();
+		// like the bot does before every kingdom move
+		undoRecord.recordKingdomMove(repeatingGameState, repeatingGameState.getActiveKingdom());
+
+		boolean repeated = systemUnderTest.repeat(repeatingGameState, new BotTurnReport(BotTurnBudget.UNLIMITED),
+				undoRecord);
+
+		assertTrue(repeated);
+		assertEquals(TranspositionCache.hash(gameState), TranspositionCache.hash(repeatingGameState));
+		// the conquests are recorded as well
+		undoRecord.undo();
+		assertEquals(hashBefore, TranspositionCache.hash(repeatingGameState));
+	}
+
+	@Test
+	void moveOfOtherKingdomIsNotRepeated() {
+		Kingdom kingdom = gameState.getKingdoms().get(0);
+		gameState.setActiveKingdom(kingdom);
+		GameState repeatingGameState = GameStateHelper.getCopy(gameState);
+		BotTurnReport report = new BotTurnReport(BotTurnBudget.UNLIMITED);
+		KingdomMove systemUnderTest = new KingdomMove(gameState, report);
+		HexTile enemyTile = getEnemyNeighborTile(gameState, kingdom);
+		gameState.setHeldObject(new Unit(UnitTypes.BARON));
+		GameStateHelper.conquer(gameState, enemyTile);
+		systemUnderTest.conquered(enemyTile, UnitTypes.BARON);
+		systemUnderTest.finish(gameState, report);
+		// as if a different kingdom had the same hash
+		repeatingGameState.setActiveKingdom(repeatingGameState.getKingdoms().get(1));
+		long hashBefore = TranspositionCache.hash(repeatingGameState);
+
+		UndoRecord undoRecord = new UndoRecord();
+
+		boolean repeated = systemUnderTest.repeat(repeatingGameState, new BotTurnReport(BotTurnBudget.UNLIMITED),
+				undoRecord);
+
+		assertFalse(repeated);
+		assertEquals(hashBefore, TranspositionCache.hash(repeatingGameState));
+		assertTrue(undoRecord.isEmpty());
+	}
+
+	private static HexTile getEnemyNeighborTile(GameState gameState, Kingdom kingdom) {
+		for (HexTile tile : kingdom.getTiles()) {
+			for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+				if (neighborTile != null && neighborTile.getPlayer() != kingdom.getPlayer()) {
+					return neighborTile;
+				}
+			}
+		}
+		return fail("the kingdom has no enemy neighbor");
+	}
+
+}
@@ -0,0 +1,75 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.badlogic.gdx.graphics.Color;
+import com.google.common.eventbus.EventBus;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+
+/** Tests for PickedUpUnits class. */
+class PickedUpUnitsTest {
+
+	@ParameterizedTest
+	@MethodSource("provideIntelligencesAndSeeds")
+	void ledgerMatchesTheGameStateAfterEveryChange(Intelligence intelligence, long seed) throws Exception {
+		List<Player> players = new ArrayList<>();
+		players.add(new Player(new Color(1, 0, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 1, 0, 0), Type.LOCAL_BOT));
+		players.add(new Player(new Color(0, 0, 1, 0), Type.LOCAL_BOT));
+		GameState gameState = new GameState();
+		GameStateHelper.initializeMap(gameState, players, 150, 0, 0.2F, seed);
+		AtomicInteger noOfChecks = new AtomicInteger();
+		BotAi systemUnderTest = new BotAi(new EventBus(), null) {
+			@Override
+			void ledgerUpdated(GameState changedGameState, PickedUpUnits pickedUpUnits) {
+				Kingdom kingdom = changedGameState.getActiveKingdom();
+				int pickedUpSalaries = 0;
+				for (UnitTypes type : UnitTypes.values()) {
+					pickedUpSalaries += pickedUpUnits.ofType(type) * type.salary();
+				}
+				assertEquals(GameStateHelper.getKingdomIncome(kingdom), pickedUpUnits.getKingdomIncome());
+				assertEquals(GameStateHelper.getKingdomSalaries(changedGameState, kingdom) + pickedUpSalaries,
+						pickedUpUnits.getActualKingdomSalaries());
+				noOfChecks.incrementAndGet();
+			}
+		};
+		systemUnderTest.setSkipDisplayingTurn(true);
+		systemUnderTest.setTreeSearchParameters(new TreeSearchParameters(10, 0, 1, 1L, 2, Intelligence.LEVEL_3));
+
+		for (int i = 0; i < 30 && !TurnPlanSearch.isGameOver(gameState); i++) {
+			systemUnderTest.doTurnWithoutDisplaying(gameState, intelligence);
+			GameStateHelper.endTurn(gameState);
+		}
+
+		assertTrue(noOfChecks.get() > 0);
+	}
+
+	static Stream<Arguments> provideIntelligencesAndSeeds() {
+		List<Arguments> arguments = new ArrayList<>();
+		for (Intelligence intelligence : Intelligence.values()) {
+			for (long seed : new long[] { 1L, 2L, 3L }) {
+				arguments.add(Arguments.of(intelligence, seed));
+			}
+		}
+		return arguments.stream();
+	}
+
+}
@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.desktop;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournament;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentParameters;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTournamentReport;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotTurnBudget;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+
+/**
+ * Runs a headless bot tournament and writes the report as JSON. Does not start
+ * a libGDX application, so it works on machines without a display.
+ */
+public class BotTournamentLauncher {
+
+	private static final String USAGE = "usage: BotTournamentLauncher [--levels=LEVEL_1,LEVEL_2,...] [--seeds=N]"
+			+ " [--first-seed=N] [--players=N] [--land-mass=F] [--density=F] [--max-rounds=N] [--threads=N]"
+			+ " [--budget=TURN,KINGDOM] [--output=FILE]";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		CommandLineOptions options = new CommandLineOptions(args, USAGE);
+
+		List<Intelligence> intelligences = new ArrayList<>();
+		for (String level : options.get("levels", "LEVEL_1,LEVEL_2,LEVEL_3,LEVEL_4").split(",")) {
+			intelligences.add(Intelligence.valueOf(level.trim()));
+		}
+		BotTurnBudget turnBudget = BotTurnBudget.UNLIMITED;
+		if (options.contains("budget")) {
+			String[] budget = options.get("budget", null).split(",");
+			turnBudget = new BotTurnBudget(Long.parseLong(budget[0].trim()), Long.parseLong(budget[1].trim()));
+		}
+		BotTournamentParameters parameters = new BotTournamentParameters(intelligences,
+				options.getLong("first-seed", 1), options.getInt("seeds", 100), options.getInt("players", 4),
+				options.getFloat("land-mass", 100), options.getFloat("density", 0), options.getInt("max-rounds", 500),
+				options.getInt("threads", Runtime.getRuntime().availableProcessors()), turnBudget);
+
+		BotTournamentReport report = new BotTournament(parameters).run();
+
+		String output = options.get("output", null);
+		if (output == null) {
+			Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+			report.writeJson(writer);
+			writer.write(System.lineSeparator());
+			writer.flush();
+		} else {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+				report.writeJson(writer);
+			}
+		}
+	}
+
+}
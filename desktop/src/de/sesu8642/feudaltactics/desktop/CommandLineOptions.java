@@ -0,0 +1,51 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.desktop;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Options of the headless launchers, given as --name=value arguments. */
+class CommandLineOptions {
+
+	private final Map<String, String> options = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param args  command line arguments
+	 * @param usage usage message to print and exit with if an argument is
+	 *              malformed
+	 */
+	CommandLineOptions(String[] args, String usage) {
+		for (String arg : args) {
+			int separatorIndex = arg.indexOf('=');
+			if (!arg.startsWith("--") || separatorIndex < 0) {
+				System.err.println(usage);
+				System.exit(2);
+			}
+			options.put(arg.substring(2, separatorIndex), arg.substring(separatorIndex + 1));
+		}
+	}
+
+	boolean contains(String name) {
+		return options.containsKey(name);
+	}
+
+	String get(String name, String defaultValue) {
+		return options.getOrDefault(name, defaultValue);
+	}
+
+	int getInt(String name, int defaultValue) {
+		return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+	}
+
+	long getLong(String name, long defaultValue) {
+		return options.containsKey(name) ? Long.parseLong(options.get(name)) : defaultValue;
+	}
+
+	float getFloat(String name, float defaultValue) {
+		return options.containsKey(name) ? Float.parseFloat(options.get(name)) : defaultValue;
+	}
+
+}
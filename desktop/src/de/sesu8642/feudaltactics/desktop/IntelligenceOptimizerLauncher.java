@@ -0,0 +1,70 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.desktop;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.IntelligenceOptimizer;
+import de.sesu8642.feudaltactics.lib.ingame.botai.IntelligenceOptimizerParameters;
+import de.sesu8642.feudaltactics.lib.ingame.botai.IntelligenceParameters;
+
+/**
+ * Runs the headless intelligence parameter optimization and exports the tuned
+ * parameters as a profile. The profile comment contains the enum constant for
+ * adding it as a new {@link Intelligence} level.
+ */
+public class IntelligenceOptimizerLauncher {
+
+	private static final String USAGE = "usage: IntelligenceOptimizerLauncher [--start=LEVEL_N|FILE]"
+			+ " [--opponent=LEVEL_N|FILE] [--generations=N] [--population=N] [--parents=N] [--seeds=N] [--seed=N]"
+			+ " [--players=N] [--land-mass=F] [--density=F] [--max-rounds=N] [--threads=N] [--checkpoint=FILE]"
+			+ " [--output=FILE]";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		CommandLineOptions options = new CommandLineOptions(args, USAGE);
+
+		IntelligenceOptimizerParameters parameters = new IntelligenceOptimizerParameters(
+				loadParameters(options.get("start", Intelligence.LEVEL_4.name())),
+				loadParameters(options.get("opponent", Intelligence.LEVEL_4.name())),
+				options.getInt("generations", 30), options.getInt("population", 12), options.getInt("parents", 4),
+				options.getInt("seeds", 8), options.getLong("seed", 1), options.getInt("players", 2),
+				options.getFloat("land-mass", 60), options.getFloat("density", 0), options.getInt("max-rounds", 200),
+				options.getInt("threads", Runtime.getRuntime().availableProcessors()));
+		String checkpoint = options.get("checkpoint", null);
+
+		IntelligenceParameters result = new IntelligenceOptimizer(parameters)
+				.optimize(checkpoint == null ? null : new File(checkpoint));
+
+		Properties profile = new Properties();
+		result.toProperties(profile);
+		String enumConstant = String.format("LEVEL_X(new IntelligenceParameters(%sF, %s, %s, %s, %s, %s, %s), false)",
+				result.getChanceToConquerPerTurn(), result.getBlockingObjectRemovalScoreTreshold(),
+				result.isReconsidersWhichTilesToProtect(), result.getProtectWithCastleScoreTreshold(),
+				result.getProtectWithUnitScoreTreshold(), result.isSmartDefending(), result.isSmartAttacking());
+		try (OutputStream outputStream = new FileOutputStream(options.get("output", "intelligence.properties"))) {
+			profile.store(outputStream, enumConstant);
+		}
+		System.out.println(enumConstant);
+	}
+
+	private static IntelligenceParameters loadParameters(String levelOrFile) throws IOException {
+		for (Intelligence intelligence : Intelligence.values()) {
+			if (intelligence.name().equals(levelOrFile)) {
+				return intelligence.getParameters();
+			}
+		}
+		Properties properties = new Properties();
+		try (InputStream inputStream = new FileInputStream(levelOrFile)) {
+			properties.load(inputStream);
+		}
+		return IntelligenceParameters.fromProperties(properties);
+	}
+
+}
@@ -0,0 +1,68 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.sesu8642.feudaltactics.lib.ingame.replay.Replay;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayRecorder;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayVerificationResult;
+import de.sesu8642.feudaltactics.lib.ingame.replay.ReplayVerifier;
+
+/**
+ * Re-simulates recorded replays headlessly and checks that they lead to the
+ * recorded states. Exits with status 1 if any of them does not.
+ */
+public class ReplayVerifierLauncher {
+
+	private static final String USAGE = "usage: ReplayVerifierLauncher --replays=FILE|DIRECTORY[,FILE|DIRECTORY...]";
+
+	public static void main(String[] args) throws IOException {
+		CommandLineOptions options = new CommandLineOptions(args, USAGE);
+		if (!options.contains("replays")) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		List<File> files = new ArrayList<>();
+		for (String path : options.get("replays", null).split(",")) {
+			File file = new File(path);
+			if (file.isDirectory()) {
+				File[] replayFiles = file
+						.listFiles((dir, name) -> name.endsWith(ReplayRecorder.REPLAY_FILE_EXTENSION));
+				if (replayFiles != null) {
+					Arrays.sort(replayFiles);
+					files.addAll(Arrays.asList(replayFiles));
+				}
+			} else {
+				files.add(file);
+			}
+		}
+
+		ReplayVerifier verifier = new ReplayVerifier();
+		int mismatches = 0;
+		for (File file : files) {
+			Replay replay;
+			try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+				replay = Replay.read(in);
+			}
+			ReplayVerificationResult result = verifier.verify(replay);
+			if (!result.isMatching()) {
+				mismatches++;
+			}
+			System.out.println(file + ": " + result);
+		}
+		System.out.println(files.size() - mismatches + " of " + files.size() + " replays match");
+		if (mismatches > 0) {
+			System.exit(1);
+		}
+	}
+
+}